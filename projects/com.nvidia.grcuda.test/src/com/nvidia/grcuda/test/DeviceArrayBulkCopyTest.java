@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2019, NVIDIA CORPORATION. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *  * Neither the name of NVIDIA CORPORATION nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY
+ * OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.nvidia.grcuda.test;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Value;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Check bulk copies between device arrays and Java arrays or buffers.
+ * Their speed is measured by {@link com.nvidia.grcuda.test.benchmark.DeviceArrayBulkCopyBenchmark};
+ */
+public class DeviceArrayBulkCopyTest {
+
+    @Test
+    public void testCopyFromJavaArray() {
+        final int numElements = 1000;
+        float[] hostArray = new float[numElements];
+        for (int i = 0; i < numElements; ++i) {
+            hostArray[i] = i * 0.5f;
+        }
+        try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
+            Value deviceArray = ctx.eval("grcuda", "DeviceArray").execute("float", numElements);
+            deviceArray.invokeMember("copyFromHost", hostArray);
+            for (int i = 0; i < numElements; ++i) {
+                assertEquals(i * 0.5f, deviceArray.getArrayElement(i).asFloat(), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testCopyToJavaArrayWithOffset() {
+        final int numElements = 1000;
+        try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
+            Value deviceArray = ctx.eval("grcuda", "DeviceArray").execute("int", numElements);
+            for (int i = 0; i < numElements; ++i) {
+                deviceArray.setArrayElement(i, i);
+            }
+            // Copy the last 10 elements of the array;
+            int[] hostArray = new int[10];
+            deviceArray.invokeMember("copyToHost", hostArray, numElements - 10);
+            for (int i = 0; i < 10; ++i) {
+                assertEquals(numElements - 10 + i, hostArray[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testCopyDirectBuffer() {
+        final int numElements = 1000;
+        IntBuffer source = ByteBuffer.allocateDirect(numElements * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+        for (int i = 0; i < numElements; ++i) {
+            source.put(i, i + 1);
+        }
+        IntBuffer destination = ByteBuffer.allocateDirect(numElements * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+        try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
+            Value deviceArray = ctx.eval("grcuda", "DeviceArray").execute("int", numElements);
+            deviceArray.invokeMember("copyFromHost", source);
+            deviceArray.invokeMember("copyToHost", destination);
+            for (int i = 0; i < numElements; ++i) {
+                assertEquals(i + 1, destination.get(i));
+            }
+        }
+    }
+}
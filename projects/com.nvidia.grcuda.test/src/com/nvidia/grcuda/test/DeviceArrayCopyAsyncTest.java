@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2019, NVIDIA CORPORATION. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *  * Neither the name of NVIDIA CORPORATION nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY
+ * OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.nvidia.grcuda.test;
+
+import com.nvidia.grcuda.gpu.LittleEndianNativeArrayView;
+import com.nvidia.grcuda.gpu.OffheapMemory;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Value;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DeviceArrayCopyAsyncTest {
+
+    private static final int NUM_THREADS_PER_BLOCK = 128;
+
+    private static final String SQUARE_KERNEL =
+            "extern \"C\" __global__ void square(float* x, int n) {\n" +
+            "    int idx = blockIdx.x * blockDim.x + threadIdx.x;\n" +
+            "    if (idx < n) {\n" +
+            "       x[idx] = x[idx] * x[idx];\n" +
+            "    }\n" +
+            "}\n";
+
+    @Test
+    public void testCopyFromAsyncAndWait() {
+        final int numElements = 1000;
+        try (OffheapMemory hostMemory = new OffheapMemory(numElements * 4)) {
+            LittleEndianNativeArrayView hostArray = hostMemory.getLittleEndianView();
+            for (int i = 0; i < numElements; ++i) {
+                hostArray.setInt(i, i + 1);
+            }
+            try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
+                Value deviceArray = ctx.eval("grcuda", "DeviceArray").execute("int", numElements);
+                Value handle = deviceArray.invokeMember("copyFromAsync", hostMemory.getPointer(), numElements);
+                handle.invokeMember("wait");
+                assertTrue(handle.invokeMember("isDone").asBoolean());
+                for (int i = 0; i < numElements; ++i) {
+                    assertEquals(i + 1, deviceArray.getArrayElement(i).asInt());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCopyToAsyncOverlapsWithIndependentKernel() {
+        final int numElements = 100_000;
+        final int numBlocks = (numElements + NUM_THREADS_PER_BLOCK - 1) / NUM_THREADS_PER_BLOCK;
+        try (OffheapMemory hostMemory = new OffheapMemory(numElements * 4)) {
+            LittleEndianNativeArrayView hostArray = hostMemory.getLittleEndianView();
+            try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
+                Value createDeviceArray = ctx.eval("grcuda", "DeviceArray");
+                Value x = createDeviceArray.execute("float", numElements);
+                Value y = createDeviceArray.execute("float", numElements);
+                for (int i = 0; i < numElements; ++i) {
+                    x.setArrayElement(i, (float) i);
+                    y.setArrayElement(i, 2.0f);
+                }
+                Value squareKernel = ctx.eval("grcuda", "buildkernel").execute(SQUARE_KERNEL, "square", "pointer, sint32");
+                // The copy of y depends on the first kernel, and it is scheduled after it;
+                squareKernel.execute(numBlocks, NUM_THREADS_PER_BLOCK).execute(y, numElements);
+                Value handle = y.invokeMember("copyToAsync", hostMemory.getPointer(), numElements);
+                // The kernel on x is independent from the copy, and it can overlap with it;
+                squareKernel.execute(numBlocks, NUM_THREADS_PER_BLOCK).execute(x, numElements);
+                handle.invokeMember("wait");
+                for (int i = 0; i < numElements; ++i) {
+                    assertEquals(4.0f, hostArray.getFloat(i), 0);
+                }
+                for (int i = 0; i < numElements; i += 1000) {
+                    assertEquals((float) i * i, x.getArrayElement(i).asFloat(), 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCopyFromAsyncWaitsForKernelOnPeerArray() {
+        final int numElements = 100_000;
+        final int numBlocks = (numElements + NUM_THREADS_PER_BLOCK - 1) / NUM_THREADS_PER_BLOCK;
+        try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
+            Value createDeviceArray = ctx.eval("grcuda", "DeviceArray");
+            Value x = createDeviceArray.execute("float", numElements);
+            Value y = createDeviceArray.execute("float", numElements);
+            for (int i = 0; i < numElements; ++i) {
+                x.setArrayElement(i, 3.0f);
+            }
+            Value squareKernel = ctx.eval("grcuda", "buildkernel").execute(SQUARE_KERNEL, "square", "pointer, sint32");
+            // The copy reads x, so it must wait for the kernel that writes it;
+            squareKernel.execute(numBlocks, NUM_THREADS_PER_BLOCK).execute(x, numElements);
+            Value handle = y.invokeMember("copyFromAsync", x, numElements);
+            handle.invokeMember("wait");
+            for (int i = 0; i < numElements; i += 1000) {
+                assertEquals(9.0f, y.getArrayElement(i).asFloat(), 0);
+            }
+        }
+    }
+}
@@ -90,6 +90,34 @@ public class DeviceArrayCopyFunctionTest {
         }
     }
 
+    @Test
+    public void testStagedCopyOfLargeOffheapMemory() {
+        // Copies larger than a staging buffer are split in chunks, including a partial last chunk;
+        final int numElements = 2_500_000;
+        final int numBytes = numElements * 4;
+        try (OffheapMemory hostMemory = new OffheapMemory(numBytes)) {
+            LittleEndianNativeArrayView hostArray = hostMemory.getLittleEndianView();
+            for (int i = 0; i < numElements; ++i) {
+                hostArray.setInt(i, i + 1);
+            }
+            try (Context ctx = Context.newBuilder().allowAllAccess(true).option("grcuda.StagingBufferChunkSizeKB", "1024").build()) {
+                Value deviceArray = ctx.eval("grcuda", "DeviceArray").execute("int", numElements);
+                deviceArray.invokeMember("copyFrom", hostMemory.getPointer(), numElements);
+                for (int i = 0; i < numElements; i += 1000) {
+                    assertEquals(i + 1, deviceArray.getArrayElement(i).asInt());
+                }
+                assertEquals(numElements, deviceArray.getArrayElement(numElements - 1).asInt());
+                for (int i = 0; i < numElements; ++i) {
+                    hostArray.setInt(i, 0);
+                }
+                deviceArray.invokeMember("copyTo", hostMemory.getPointer(), numElements);
+                for (int i = 0; i < numElements; ++i) {
+                    assertEquals(i + 1, hostArray.getInt(i));
+                }
+            }
+        }
+    }
+
     @Test
     public void testDeviceArrayCopyFromDeviceArray() {
         final int numElements = 1000;
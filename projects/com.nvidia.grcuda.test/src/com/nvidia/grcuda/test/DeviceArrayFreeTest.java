@@ -27,6 +27,7 @@
  */
 package com.nvidia.grcuda.test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import org.graalvm.polyglot.Context;
@@ -54,6 +55,21 @@ public class DeviceArrayFreeTest {
         }
     }
 
+    @Test
+    public void testUnreachableDeviceArraysAreReclaimed() {
+        try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
+            Value createDeviceArray = ctx.eval("grcuda", "DeviceArray");
+            // Allocate more memory than available on the GPU without freeing it,
+            // memory of unreachable arrays must be released when the GPU is out of memory;
+            final int numElements = 64 * 1024 * 1024;
+            for (int i = 0; i < 100; i++) {
+                Value deviceArray = createDeviceArray.execute("float", numElements);
+                deviceArray.setArrayElement(numElements - 1, i);
+                assertEquals(i, deviceArray.getArrayElement(numElements - 1).asFloat(), 0);
+            }
+        }
+    }
+
     @Test(expected = PolyglotException.class)
     public void testDeviceArrayAccessAfterFreeThrows() {
         try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2019, NVIDIA CORPORATION. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *  * Neither the name of NVIDIA CORPORATION nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY
+ * OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.nvidia.grcuda.test;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Value;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DeviceArraySliceTest {
+
+    private static final int NUM_THREADS_PER_BLOCK = 128;
+
+    private static final String SQUARE_KERNEL =
+            "extern \"C\" __global__ void square(float* x, int n) {\n" +
+            "    int idx = blockIdx.x * blockDim.x + threadIdx.x;\n" +
+            "    if (idx < n) {\n" +
+            "       x[idx] = x[idx] * x[idx];\n" +
+            "    }\n" +
+            "}\n";
+
+    @Test
+    public void testSliceSharesMemoryWithArray() {
+        try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
+            Value deviceArray = ctx.eval("grcuda", "DeviceArray").execute("int", 100);
+            for (int i = 0; i < 100; i++) {
+                deviceArray.setArrayElement(i, i);
+            }
+            Value slice = deviceArray.invokeMember("slice", 10, 20);
+            assertEquals(10, slice.getArraySize());
+            assertEquals(10, slice.getArrayElement(0).asInt());
+            slice.setArrayElement(9, -1);
+            assertEquals(-1, deviceArray.getArrayElement(19).asInt());
+            // A slice of a slice is relative to the slice;
+            Value innerSlice = slice.invokeMember("slice", 5, 10);
+            assertEquals(15, innerSlice.getArrayElement(0).asInt());
+        }
+    }
+
+    @Test
+    public void testKernelsOnDisjointSlices() {
+        final int numElements = 100_000;
+        final int halfElements = numElements / 2;
+        final int numBlocks = (halfElements + NUM_THREADS_PER_BLOCK - 1) / NUM_THREADS_PER_BLOCK;
+        try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
+            Value x = ctx.eval("grcuda", "DeviceArray").execute("float", numElements);
+            for (int i = 0; i < numElements; i++) {
+                x.setArrayElement(i, 2.0f);
+            }
+            Value squareKernel = ctx.eval("grcuda", "buildkernel").execute(SQUARE_KERNEL, "square", "pointer, sint32");
+            Value firstHalf = x.invokeMember("slice", 0, halfElements);
+            Value secondHalf = x.invokeMember("slice", halfElements, numElements);
+            // The two kernels are independent, and the second one is executed twice;
+            squareKernel.execute(numBlocks, NUM_THREADS_PER_BLOCK).execute(firstHalf, halfElements);
+            squareKernel.execute(numBlocks, NUM_THREADS_PER_BLOCK).execute(secondHalf, halfElements);
+            squareKernel.execute(numBlocks, NUM_THREADS_PER_BLOCK).execute(secondHalf, halfElements);
+            // Reading the parent array waits for the computations on both slices;
+            for (int i = 0; i < numElements; i += 1000) {
+                assertEquals(i < halfElements ? 4.0f : 16.0f, x.getArrayElement(i).asFloat(), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testKernelOnRowOfMatrix() {
+        final int numRows = 4;
+        final int numCols = 1000;
+        final int numBlocks = (numCols + NUM_THREADS_PER_BLOCK - 1) / NUM_THREADS_PER_BLOCK;
+        try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
+            Value matrix = ctx.eval("grcuda", "float[" + numRows + "][" + numCols + "]");
+            for (int i = 0; i < numRows; i++) {
+                for (int j = 0; j < numCols; j++) {
+                    matrix.getArrayElement(i).setArrayElement(j, 3.0f);
+                }
+            }
+            Value squareKernel = ctx.eval("grcuda", "buildkernel").execute(SQUARE_KERNEL, "square", "pointer, sint32");
+            squareKernel.execute(numBlocks, NUM_THREADS_PER_BLOCK).execute(matrix.getArrayElement(1), numCols);
+            squareKernel.execute(numBlocks, NUM_THREADS_PER_BLOCK).execute(matrix.getArrayElement(2), numCols);
+            for (int j = 0; j < numCols; j++) {
+                assertEquals(3.0f, matrix.getArrayElement(0).getArrayElement(j).asFloat(), 0);
+                assertEquals(9.0f, matrix.getArrayElement(1).getArrayElement(j).asFloat(), 0);
+                assertEquals(9.0f, matrix.getArrayElement(2).getArrayElement(j).asFloat(), 0);
+                assertEquals(3.0f, matrix.getArrayElement(3).getArrayElement(j).asFloat(), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testSliceOfFreedArray() {
+        try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
+            Value deviceArray = ctx.eval("grcuda", "DeviceArray").execute("int", 100);
+            Value slice = deviceArray.invokeMember("slice", 0, 50);
+            deviceArray.invokeMember("free");
+            assertTrue(slice.getMember("isMemoryFreed").asBoolean());
+        }
+    }
+
+    @Test(expected = PolyglotException.class)
+    public void testFreeSliceIsNotAllowed() {
+        try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
+            Value deviceArray = ctx.eval("grcuda", "DeviceArray").execute("int", 100);
+            deviceArray.invokeMember("slice", 0, 50).invokeMember("free");
+        }
+    }
+
+    @Test(expected = PolyglotException.class)
+    public void testSliceOutOfBounds() {
+        try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
+            Value deviceArray = ctx.eval("grcuda", "DeviceArray").execute("int", 100);
+            deviceArray.invokeMember("slice", 50, 101);
+        }
+    }
+}
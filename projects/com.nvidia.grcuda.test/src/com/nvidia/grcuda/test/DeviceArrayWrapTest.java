@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2019, NVIDIA CORPORATION. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *  * Neither the name of NVIDIA CORPORATION nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY
+ * OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.nvidia.grcuda.test;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Value;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.assertEquals;
+
+public class DeviceArrayWrapTest {
+
+    private static final int NUM_THREADS_PER_BLOCK = 128;
+
+    private static final String SQUARE_KERNEL =
+            "extern \"C\" __global__ void square(float* x, int n) {\n" +
+            "    int idx = blockIdx.x * blockDim.x + threadIdx.x;\n" +
+            "    if (idx < n) {\n" +
+            "       x[idx] = x[idx] * x[idx];\n" +
+            "    }\n" +
+            "}\n";
+
+    private static Value getWrapFunction(Context ctx) {
+        return ctx.eval("grcuda", "DeviceArray").getMember("wrap");
+    }
+
+    private static FloatBuffer createBuffer(int numElements) {
+        FloatBuffer buffer = ByteBuffer.allocateDirect(numElements * Float.BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        for (int i = 0; i < numElements; i++) {
+            buffer.put(i, i);
+        }
+        return buffer;
+    }
+
+    @Test
+    public void testWrapDirectBuffer() {
+        try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
+            final int numElements = 1000;
+            FloatBuffer buffer = createBuffer(numElements);
+            Value deviceArray = getWrapFunction(ctx).execute("float", buffer);
+            assertEquals(numElements, deviceArray.getArraySize());
+            for (int i = 0; i < numElements; i++) {
+                assertEquals(i, deviceArray.getArrayElement(i).asFloat(), 0);
+            }
+            // Writes to the array are visible in the buffer, as they share the same memory;
+            deviceArray.setArrayElement(0, 42.0f);
+            assertEquals(42.0f, buffer.get(0), 0);
+        }
+    }
+
+    @Test
+    public void testKernelWritesWrappedBuffer() {
+        try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
+            final int numElements = 1000;
+            final int numBlocks = (numElements + NUM_THREADS_PER_BLOCK - 1) / NUM_THREADS_PER_BLOCK;
+            FloatBuffer buffer = createBuffer(numElements);
+            Value deviceArray = getWrapFunction(ctx).execute("float", buffer);
+            Value squareKernel = ctx.eval("grcuda", "buildkernel").execute(SQUARE_KERNEL, "square", "pointer, sint32");
+            squareKernel.execute(numBlocks, NUM_THREADS_PER_BLOCK).execute(deviceArray, numElements);
+            // Reading the array waits for the kernel, then the buffer holds the result without any copy;
+            assertEquals(4.0f, deviceArray.getArrayElement(2).asFloat(), 0);
+            for (int i = 0; i < numElements; i++) {
+                assertEquals((float) i * i, buffer.get(i), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testFreeDoesNotReleaseHostMemory() {
+        try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
+            FloatBuffer buffer = createBuffer(100);
+            Value deviceArray = getWrapFunction(ctx).execute("float", buffer, 10);
+            assertEquals(10, deviceArray.getArraySize());
+            deviceArray.invokeMember("free");
+            // The buffer owns its memory, which is still valid after the array is freed;
+            buffer.put(99, 1.0f);
+            assertEquals(1.0f, buffer.get(99), 0);
+            // The same memory can be wrapped again, as it was unregistered;
+            Value otherArray = getWrapFunction(ctx).execute("float", buffer);
+            assertEquals(1.0f, otherArray.getArrayElement(99).asFloat(), 0);
+        }
+    }
+
+    @Test(expected = PolyglotException.class)
+    public void testWrapHeapBufferFails() {
+        try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
+            getWrapFunction(ctx).execute("float", FloatBuffer.allocate(10));
+        }
+    }
+
+    @Test(expected = PolyglotException.class)
+    public void testWrapTooManyElementsFails() {
+        try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
+            getWrapFunction(ctx).execute("float", createBuffer(10), 11);
+        }
+    }
+}
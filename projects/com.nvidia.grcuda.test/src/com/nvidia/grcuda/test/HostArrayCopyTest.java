@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2019, NVIDIA CORPORATION. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *  * Neither the name of NVIDIA CORPORATION nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY
+ * OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.nvidia.grcuda.test;
+
+import com.nvidia.grcuda.GrCUDAException;
+import com.nvidia.grcuda.Type;
+import com.nvidia.grcuda.array.HostArrayCopy;
+import com.nvidia.grcuda.gpu.UnsafeHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test bulk copies between host containers and native memory, without a GPU;
+ */
+public class HostArrayCopyTest {
+
+    private static final int NUM_ELEMENTS = 100;
+
+    private long address;
+
+    @Before
+    public void allocate() {
+        address = UnsafeHelper.allocateMemory(NUM_ELEMENTS * 8);
+        UnsafeHelper.setMemory(address, NUM_ELEMENTS * 8, (byte) 0);
+    }
+
+    @After
+    public void free() {
+        UnsafeHelper.freeMemory(address);
+    }
+
+    @Test
+    public void copyPrimitiveArrayTest() {
+        float[] source = new float[NUM_ELEMENTS];
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            source[i] = i * 0.5f;
+        }
+        HostArrayCopy.copyFromHost(source, address, Type.FLOAT, NUM_ELEMENTS);
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            assertEquals(i * 0.5f, UnsafeHelper.getFloat(address + i * 4L), 0);
+        }
+        float[] destination = new float[NUM_ELEMENTS];
+        HostArrayCopy.copyToHost(destination, address, Type.FLOAT, NUM_ELEMENTS);
+        assertArrayEquals(source, destination, 0);
+    }
+
+    @Test
+    public void copyWithConversionTest() {
+        // Doubles are converted to the floats stored in native memory;
+        double[] source = new double[NUM_ELEMENTS];
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            source[i] = i * 0.25;
+        }
+        HostArrayCopy.copyFromHost(source, address, Type.FLOAT, NUM_ELEMENTS);
+        double[] destination = new double[NUM_ELEMENTS];
+        HostArrayCopy.copyToHost(destination, address, Type.FLOAT, NUM_ELEMENTS);
+        assertArrayEquals(source, destination, 0);
+    }
+
+    @Test
+    public void copyWithWideningConversionTest() {
+        // Integers are converted to doubles and floats without loss of precision;
+        int[] ints = new int[]{1, -2, 3, Integer.MAX_VALUE};
+        HostArrayCopy.copyFromHost(ints, address, Type.DOUBLE, ints.length);
+        for (int i = 0; i < ints.length; i++) {
+            assertEquals(ints[i], UnsafeHelper.getDouble(address + i * 8L), 0);
+        }
+        float[] floats = new float[]{0.5f, -1.25f, 3.0f};
+        HostArrayCopy.copyFromHost(floats, address, Type.DOUBLE, floats.length);
+        for (int i = 0; i < floats.length; i++) {
+            assertEquals(floats[i], UnsafeHelper.getDouble(address + i * 8L), 0);
+        }
+        short[] shorts = new short[]{1, -2, Short.MAX_VALUE};
+        HostArrayCopy.copyFromHost(shorts, address, Type.SINT64, shorts.length);
+        for (int i = 0; i < shorts.length; i++) {
+            assertEquals(shorts[i], UnsafeHelper.getLong(address + i * 8L));
+        }
+        byte[] bytes = new byte[]{1, -2, Byte.MAX_VALUE};
+        HostArrayCopy.copyFromHost(bytes, address, Type.SINT16, bytes.length);
+        for (int i = 0; i < bytes.length; i++) {
+            assertEquals(bytes[i], UnsafeHelper.getShort(address + i * 2L));
+        }
+    }
+
+    @Test
+    public void copyLongsToFloatsTest() {
+        // Longs are converted one at a time, as not all of them can be represented exactly;
+        long[] longs = new long[]{1, 2, 3};
+        HostArrayCopy.copyFromHost(longs, address, Type.FLOAT, longs.length);
+        for (int i = 0; i < longs.length; i++) {
+            assertEquals(longs[i], UnsafeHelper.getFloat(address + i * 4L), 0);
+        }
+    }
+
+    @Test(expected = GrCUDAException.class)
+    public void copyWithNarrowingConversionTest() {
+        HostArrayCopy.copyFromHost(new double[]{1.5}, address, Type.SINT32, 1);
+    }
+
+    @Test
+    public void isBulkCopySupportedTest() {
+        assertTrue(HostArrayCopy.isBulkCopySupported(new float[1], Type.FLOAT));
+        assertTrue(HostArrayCopy.isBulkCopySupported(new double[1], Type.FLOAT));
+        assertTrue(HostArrayCopy.isBulkCopySupported(ByteBuffer.allocate(4), Type.SINT32));
+        assertFalse(HostArrayCopy.isBulkCopySupported(new float[1], Type.UINT8));
+        assertFalse(HostArrayCopy.isBulkCopySupported(new Object[1], Type.FLOAT));
+        assertFalse(HostArrayCopy.isBulkCopySupported("string", Type.CHAR));
+    }
+
+    @Test
+    public void copyPartialArrayTest() {
+        int[] source = new int[]{1, 2, 3, 4};
+        HostArrayCopy.copyFromHost(source, address, Type.SINT32, 2);
+        assertEquals(1, UnsafeHelper.getInt(address));
+        assertEquals(2, UnsafeHelper.getInt(address + 4));
+        assertEquals(0, UnsafeHelper.getInt(address + 8));
+    }
+
+    @Test(expected = GrCUDAException.class)
+    public void copyTooManyElementsTest() {
+        HostArrayCopy.copyFromHost(new int[]{1, 2}, address, Type.SINT32, 3);
+    }
+
+    @Test
+    public void copyDirectBufferTest() {
+        FloatBuffer source = ByteBuffer.allocateDirect(NUM_ELEMENTS * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            source.put(i, i + 1);
+        }
+        // Copies start from the position of the buffer;
+        source.position(10);
+        HostArrayCopy.copyFromHost(source, address, Type.FLOAT, NUM_ELEMENTS - 10);
+        assertEquals(11, UnsafeHelper.getFloat(address), 0);
+        assertEquals(NUM_ELEMENTS, UnsafeHelper.getFloat(address + (NUM_ELEMENTS - 11) * 4L), 0);
+
+        FloatBuffer destination = ByteBuffer.allocateDirect(NUM_ELEMENTS * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        HostArrayCopy.copyToHost(destination, address, Type.FLOAT, NUM_ELEMENTS - 10);
+        assertEquals(11, destination.get(0), 0);
+        assertEquals(NUM_ELEMENTS, destination.get(NUM_ELEMENTS - 11), 0);
+    }
+
+    @Test
+    public void copyBufferWithDifferentByteOrderTest() {
+        ByteOrder otherOrder = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+        FloatBuffer source = ByteBuffer.allocateDirect(NUM_ELEMENTS * 4).order(otherOrder).asFloatBuffer();
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            source.put(i, i + 1);
+        }
+        HostArrayCopy.copyFromHost(source, address, Type.FLOAT, NUM_ELEMENTS);
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            assertEquals(i + 1, UnsafeHelper.getFloat(address + i * 4L), 0);
+        }
+    }
+
+    @Test
+    public void copyHeapBufferTest() {
+        FloatBuffer source = FloatBuffer.wrap(new float[]{0, 1, 2, 3, 4, 5}, 2, 4).slice();
+        HostArrayCopy.copyFromHost(source, address, Type.FLOAT, 4);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i + 2, UnsafeHelper.getFloat(address + i * 4L), 0);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2019, NVIDIA CORPORATION. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *  * Neither the name of NVIDIA CORPORATION nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY
+ * OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.nvidia.grcuda.test;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Value;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.assertEquals;
+
+public class LoadArrayTest {
+
+    private static final int NUM_BENCHMARK_ELEMENTS = 10_000_000;
+
+    private Path file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = Files.createTempFile("grcuda-loadarray", ".bin");
+    }
+
+    @After
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Write floats 0, 1, 2, ... to the file, in native byte order;
+     */
+    private void writeFloats(int numElements) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(numElements * Float.BYTES).order(ByteOrder.nativeOrder());
+        for (int i = 0; i < numElements; i++) {
+            buffer.putFloat(i);
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    @Test
+    public void testLoadNewArray() throws IOException {
+        writeFloats(1000);
+        try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
+            Value deviceArray = ctx.eval("grcuda", "loadarray").execute("float", file.toString());
+            assertEquals(1000, deviceArray.getArraySize());
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(i, deviceArray.getArrayElement(i).asFloat(), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testLoadExistingArrayOnStream() throws IOException {
+        writeFloats(1000);
+        try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
+            Value deviceArray = ctx.eval("grcuda", "DeviceArray").execute("float", 100);
+            Value stream = ctx.eval("grcuda", "cudaStreamCreate").execute();
+            // Only the beginning of the file is loaded;
+            ctx.eval("grcuda", "loadarray").execute(deviceArray, file.toString(), stream);
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, deviceArray.getArrayElement(i).asFloat(), 0);
+            }
+        }
+    }
+
+    @Test(expected = PolyglotException.class)
+    public void testLoadFileTooSmallFails() throws IOException {
+        writeFloats(10);
+        try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
+            Value deviceArray = ctx.eval("grcuda", "DeviceArray").execute("float", 100);
+            ctx.eval("grcuda", "loadarray").execute(deviceArray, file.toString());
+        }
+    }
+
+    /**
+     * Compare loading 10M floats from a file with writing them one element at a time;
+     */
+    @Test
+    public void benchmarkLoadArray() throws IOException {
+        writeFloats(NUM_BENCHMARK_ELEMENTS);
+        try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
+            long start = System.nanoTime();
+            Value deviceArray = ctx.eval("grcuda", "loadarray").execute("float", file.toString());
+            long loadTime = (System.nanoTime() - start) / 1_000_000;
+            assertEquals(NUM_BENCHMARK_ELEMENTS - 1, deviceArray.getArrayElement(NUM_BENCHMARK_ELEMENTS - 1).asFloat(), 0);
+
+            Value otherArray = ctx.eval("grcuda", "DeviceArray").execute("float", NUM_BENCHMARK_ELEMENTS);
+            start = System.nanoTime();
+            for (int i = 0; i < NUM_BENCHMARK_ELEMENTS; i++) {
+                otherArray.setArrayElement(i, (float) i);
+            }
+            long elementWiseTime = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("-- load " + NUM_BENCHMARK_ELEMENTS + " floats: loadarray=" + loadTime + " ms, element-wise=" + elementWiseTime + " ms");
+        }
+    }
+}
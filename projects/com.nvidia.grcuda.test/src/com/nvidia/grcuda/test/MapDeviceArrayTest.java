@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2019, NVIDIA CORPORATION. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *  * Neither the name of NVIDIA CORPORATION nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY
+ * OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.nvidia.grcuda.test;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Value;
+import org.graalvm.polyglot.proxy.ProxyArray;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Check the conversion of Java arrays, buffers and guest language arrays to device arrays with map.
+ * Its speed is measured by {@link com.nvidia.grcuda.test.benchmark.MapDeviceArrayBenchmark};
+ */
+public class MapDeviceArrayTest {
+
+    private static Value getMapFunction(Context ctx, String type) {
+        return ctx.eval("grcuda", "DeviceArray").getMember("map").execute(type);
+    }
+
+    @Test
+    public void testMapJavaArray() {
+        try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
+            float[] source = new float[]{1.5f, 2.5f, 3.5f};
+            Value deviceArray = getMapFunction(ctx, "float").execute(source);
+            assertEquals(source.length, deviceArray.getArraySize());
+            for (int i = 0; i < source.length; i++) {
+                assertEquals(source[i], deviceArray.getArrayElement(i).asFloat(), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testMapJavaArrayWithConversion() {
+        try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
+            int[] source = new int[]{1, 2, 3};
+            Value deviceArray = getMapFunction(ctx, "double").execute(source);
+            for (int i = 0; i < source.length; i++) {
+                assertEquals(source[i], deviceArray.getArrayElement(i).asDouble(), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testMapByteBuffer() {
+        try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
+            // Byte buffers are mapped as raw memory;
+            ByteBuffer source = ByteBuffer.allocateDirect(3 * 4).order(ByteOrder.nativeOrder());
+            source.asIntBuffer().put(new int[]{10, 20, 30});
+            Value deviceArray = getMapFunction(ctx, "int").execute(source);
+            assertEquals(3, deviceArray.getArraySize());
+            for (int i = 0; i < 3; i++) {
+                assertEquals(10 * (i + 1), deviceArray.getArrayElement(i).asInt());
+            }
+        }
+    }
+
+    @Test
+    public void testMapPolyglotArray() {
+        try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
+            Value deviceArray = getMapFunction(ctx, "sint32").execute(ProxyArray.fromArray(1, 2, 3));
+            for (int i = 0; i < 3; i++) {
+                assertEquals(i + 1, deviceArray.getArrayElement(i).asInt());
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2019, NVIDIA CORPORATION. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *  * Neither the name of NVIDIA CORPORATION nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY
+ * OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.nvidia.grcuda.test;
+
+import com.nvidia.grcuda.Namespace;
+import com.nvidia.grcuda.functions.Function;
+import com.oracle.truffle.api.Assumption;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test the assumption used by call sites to cache the lookup of functions in a namespace;
+ */
+public class NamespaceTest {
+
+    private static class FunctionMock extends Function {
+        FunctionMock(String name) {
+            super(name);
+        }
+    }
+
+    @Test
+    public void lookupTest() {
+        Namespace root = new Namespace(null);
+        Namespace nested = new Namespace("nested");
+        Function f = new FunctionMock("f");
+        root.addNamespace(nested);
+        nested.addFunction(f);
+        assertSame(f, root.lookup("nested", "f").get());
+        assertFalse(root.lookup("nested", "g").isPresent());
+        assertFalse(root.lookup("f").isPresent());
+    }
+
+    @Test
+    public void assumptionIsValidUntilNamespaceChangesTest() {
+        Namespace root = new Namespace(null);
+        root.addFunction(new FunctionMock("f"));
+        Assumption unchanged = root.getUnchangedAssumption();
+        assertTrue(unchanged.isValid());
+        root.lookup("f");
+        assertTrue(unchanged.isValid());
+        root.addFunction(new FunctionMock("g"));
+        assertFalse(unchanged.isValid());
+        // A new assumption is provided after the change;
+        assertTrue(root.getUnchangedAssumption().isValid());
+    }
+
+    @Test
+    public void nestedNamespaceChangeInvalidatesParentTest() {
+        Namespace root = new Namespace(null);
+        Namespace nested = new Namespace("nested");
+        Namespace other = new Namespace("other");
+        root.addNamespace(nested);
+        root.addNamespace(other);
+        Assumption rootUnchanged = root.getUnchangedAssumption();
+        Assumption otherUnchanged = other.getUnchangedAssumption();
+        nested.addFunction(new FunctionMock("f"));
+        assertFalse(rootUnchanged.isValid());
+        // Sibling namespaces are not affected;
+        assertTrue(otherUnchanged.isValid());
+    }
+}
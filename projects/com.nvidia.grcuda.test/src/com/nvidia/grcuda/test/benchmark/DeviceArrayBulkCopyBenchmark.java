@@ -0,0 +1,39 @@
+package com.nvidia.grcuda.test.benchmark;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Value;
+
+/**
+ * Compare filling a device array one element at a time with a single bulk copy from a Java array.
+ * This is not part of the unit tests, run its main method on a GPU to print the measurements;
+ */
+public class DeviceArrayBulkCopyBenchmark {
+
+    private static final int NUM_ELEMENTS = 1_000_000;
+    private static final int NUM_ITERATIONS = 5;
+
+    public static void main(String[] args) {
+        float[] hostArray = new float[NUM_ELEMENTS];
+        for (int i = 0; i < NUM_ELEMENTS; ++i) {
+            hostArray[i] = i;
+        }
+        try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
+            Value deviceArray = ctx.eval("grcuda", "DeviceArray").execute("float", NUM_ELEMENTS);
+            long elementWiseTime = Long.MAX_VALUE;
+            long bulkTime = Long.MAX_VALUE;
+            for (int iteration = 0; iteration < NUM_ITERATIONS; iteration++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < NUM_ELEMENTS; ++i) {
+                    deviceArray.setArrayElement(i, hostArray[i]);
+                }
+                elementWiseTime = Math.min(elementWiseTime, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                deviceArray.invokeMember("copyFromHost", hostArray);
+                bulkTime = Math.min(bulkTime, System.nanoTime() - start);
+            }
+            System.out.println("-- filling " + NUM_ELEMENTS + " elements: element-wise=" + elementWiseTime / 1_000_000 +
+                    " ms, bulk=" + bulkTime / 1_000_000 + " ms");
+        }
+    }
+}
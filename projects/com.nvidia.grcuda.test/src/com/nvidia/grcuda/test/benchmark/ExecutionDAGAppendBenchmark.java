@@ -0,0 +1,61 @@
+package com.nvidia.grcuda.test.benchmark;
+
+import com.nvidia.grcuda.gpu.computation.dependency.DependencyPolicyEnum;
+import com.nvidia.grcuda.gpu.executioncontext.ExecutionDAG;
+import com.nvidia.grcuda.gpu.executioncontext.GrCUDAExecutionContext;
+import com.nvidia.grcuda.test.mock.ArgumentMock;
+import com.nvidia.grcuda.test.mock.GrCUDAExecutionContextMockBuilder;
+import com.nvidia.grcuda.test.mock.KernelExecutionMock;
+import com.oracle.truffle.api.interop.UnsupportedTypeException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ * Measure the latency of {@link ExecutionDAG#append} when the DAG frontier contains a large number of live arrays.
+ * Each measured computation uses one of the live arrays, so its cost should not depend on the size of the frontier.
+ * This is not part of the unit tests, run its main method to print the measurements;
+ */
+public class ExecutionDAGAppendBenchmark {
+
+    private static final int[] NUM_LIVE_ARRAYS = {10, 1_000, 100_000};
+    private static final int NUM_MEASURED_APPENDS = 10_000;
+    private static final int NUM_WARMUP_APPENDS = 10_000;
+
+    public static void main(String[] args) throws UnsupportedTypeException {
+        for (DependencyPolicyEnum policy : DependencyPolicyEnum.values()) {
+            for (int numLiveArrays : NUM_LIVE_ARRAYS) {
+                double latencyUs = measureAppendLatency(numLiveArrays, policy);
+                System.out.println("-- append latency with " + numLiveArrays + " live arrays, " + policy.getName() + " dependency policy: "
+                        + String.format("%.2f", latencyUs) + " us");
+            }
+        }
+    }
+
+    /**
+     * @return the average latency of an append, in microseconds
+     */
+    private static double measureAppendLatency(int numLiveArrays, DependencyPolicyEnum policy) throws UnsupportedTypeException {
+        GrCUDAExecutionContext context = new GrCUDAExecutionContextMockBuilder().setDependencyPolicy(policy).build();
+        for (int i = 0; i < numLiveArrays; i++) {
+            new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(i))).schedule();
+        }
+        // Each new computation reads one live array, and writes another one;
+        Random random = new Random(42);
+        for (int i = 0; i < NUM_WARMUP_APPENDS; i++) {
+            scheduleReadWrite(context, random, numLiveArrays);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < NUM_MEASURED_APPENDS; i++) {
+            scheduleReadWrite(context, random, numLiveArrays);
+        }
+        return (System.nanoTime() - start) / (1000.0 * NUM_MEASURED_APPENDS);
+    }
+
+    private static void scheduleReadWrite(GrCUDAExecutionContext context, Random random, int numLiveArrays) throws UnsupportedTypeException {
+        int input = random.nextInt(numLiveArrays);
+        int output = random.nextInt(numLiveArrays);
+        new KernelExecutionMock(context, Arrays.asList(new ArgumentMock(input, true), new ArgumentMock(output))).schedule();
+    }
+}
@@ -0,0 +1,28 @@
+package com.nvidia.grcuda.test.benchmark;
+
+import com.nvidia.grcuda.test.gpu.HostFunctionTest;
+import com.nvidia.grcuda.test.mock.HostFunctionMock;
+
+/**
+ * Measure the throughput of calls to the same host function from multiple threads, with cached and uncached interop libraries.
+ * This is not part of the unit tests, run its main method to print the measurements;
+ */
+public class HostFunctionBenchmark {
+
+    private static final int NUM_THREADS = 8;
+    private static final int NUM_WARMUP_CALLS = 100_000;
+    private static final int NUM_MEASURED_CALLS = 1_000_000;
+
+    public static void main(String[] args) throws Exception {
+        HostFunctionMock function = new HostFunctionMock("host_function_mock", HostFunctionTest.createCallable());
+        for (boolean cachedLibrary : new boolean[]{true, false}) {
+            HostFunctionTest.callConcurrently(function, cachedLibrary, NUM_THREADS, NUM_WARMUP_CALLS);
+            long start = System.nanoTime();
+            HostFunctionTest.callConcurrently(function, cachedLibrary, NUM_THREADS, NUM_MEASURED_CALLS);
+            long end = System.nanoTime();
+            double callsPerSecond = (double) NUM_THREADS * NUM_MEASURED_CALLS / ((end - start) / 1e9);
+            System.out.println("-- host function calls from " + NUM_THREADS + " threads, " + (cachedLibrary ? "cached" : "uncached") +
+                    " interop: " + String.format("%.2f", callsPerSecond / 1e6) + " million calls per second");
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.nvidia.grcuda.test.benchmark;
+
+import com.nvidia.grcuda.gpu.Kernel;
+import com.nvidia.grcuda.test.mock.GrCUDAExecutionContextMock;
+import com.oracle.truffle.api.interop.ArityException;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.UnsupportedTypeException;
+
+/**
+ * Measure the throughput of the marshalling of kernel arguments into the packed argument array, without launching the kernel.
+ * This is not part of the unit tests, run its main method to print the measurements;
+ */
+public class KernelArgumentsBenchmark {
+
+    private static final String SIGNATURE = "sint32, sint64, float, double, sint32, sint32, double, double";
+    private static final int NUM_WARMUP_LAUNCHES = 100_000;
+    private static final int NUM_MEASURED_LAUNCHES = 1_000_000;
+
+    private static final InteropLibrary INTEROP = InteropLibrary.getFactory().getUncached();
+
+    public static void main(String[] args) throws UnsupportedTypeException, ArityException {
+        // The kernel is never launched, so it doesn't need a native function or a module;
+        Kernel kernel = new Kernel(new GrCUDAExecutionContextMock(), "mock", "mock", 0, SIGNATURE, null);
+        Object[] kernelArgs = new Object[]{1, 2L, 3.0f, 4.0, 5, 6, 7.0, 8.0};
+        for (int i = 0; i < NUM_WARMUP_LAUNCHES; i++) {
+            kernel.createKernelArguments(kernelArgs, INTEROP, INTEROP, INTEROP, INTEROP, INTEROP, INTEROP).close();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < NUM_MEASURED_LAUNCHES; i++) {
+            kernel.createKernelArguments(kernelArgs, INTEROP, INTEROP, INTEROP, INTEROP, INTEROP, INTEROP).close();
+        }
+        long end = System.nanoTime();
+        System.out.println("-- kernel argument marshalling with " + kernelArgs.length + " arguments: "
+                + String.format("%.2f", (end - start) / (double) NUM_MEASURED_LAUNCHES) + " ns per launch");
+    }
+}
@@ -0,0 +1,51 @@
+package com.nvidia.grcuda.test.benchmark;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Value;
+import org.graalvm.polyglot.proxy.ProxyArray;
+
+/**
+ * Compare mapping 10M floats from a Java array, which uses a single memory copy,
+ * with mapping them from guest language arrays, which are copied one element at a time.
+ * This is not part of the unit tests, run its main method on a GPU to print the measurements;
+ */
+public class MapDeviceArrayBenchmark {
+
+    private static final int NUM_ELEMENTS = 10_000_000;
+    private static final int NUM_ITERATIONS = 5;
+
+    public static void main(String[] args) {
+        try (Context ctx = Context.newBuilder().allowAllAccess(true).build()) {
+            Value mapFunction = ctx.eval("grcuda", "DeviceArray").getMember("map").execute("float");
+            float[] javaArray = new float[NUM_ELEMENTS];
+            double[] javaDoubleArray = new double[NUM_ELEMENTS];
+            Object[] guestArray = new Object[NUM_ELEMENTS];
+            for (int i = 0; i < NUM_ELEMENTS; i++) {
+                javaArray[i] = i;
+                javaDoubleArray[i] = i;
+                guestArray[i] = (float) i;
+            }
+            Value guestDeviceArray = ctx.eval("grcuda", "DeviceArray").getMember("map").execute("double").execute(javaDoubleArray);
+
+            System.out.println("-- mapping " + NUM_ELEMENTS + " floats:" +
+                    " Java float array=" + measureMap(mapFunction, javaArray) + " ms," +
+                    " Java double array=" + measureMap(mapFunction, javaDoubleArray) + " ms," +
+                    " guest array=" + measureMap(mapFunction, ProxyArray.fromArray(guestArray)) + " ms," +
+                    " GrCUDA double array=" + measureMap(mapFunction, guestDeviceArray) + " ms");
+        }
+    }
+
+    /**
+     * @return the fastest time to map the source, in milliseconds
+     */
+    private static long measureMap(Value mapFunction, Object source) {
+        long bestTime = Long.MAX_VALUE;
+        for (int i = 0; i < NUM_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            Value deviceArray = mapFunction.execute(source);
+            bestTime = Math.min(bestTime, System.nanoTime() - start);
+            deviceArray.invokeMember("free");
+        }
+        return bestTime / 1_000_000;
+    }
+}
@@ -0,0 +1,109 @@
+package com.nvidia.grcuda.test.gpu;
+
+import com.nvidia.grcuda.array.ArrayResidency;
+import com.nvidia.grcuda.gpu.executioncontext.GrCUDAExecutionContext;
+import com.nvidia.grcuda.test.mock.ArgumentMock;
+import com.nvidia.grcuda.test.mock.ArrayPrefetcherMock;
+import com.nvidia.grcuda.test.mock.ArraySliceMock;
+import com.nvidia.grcuda.test.mock.GrCUDAExecutionContextMockBuilder;
+import com.nvidia.grcuda.test.mock.KernelExecutionMock;
+import com.nvidia.grcuda.test.mock.SyncExecutionMock;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ArrayPrefetcherTest {
+
+    private static void prefetch(ArrayPrefetcherMock prefetcher, GrCUDAExecutionContext context, ArgumentMock arg) {
+        prefetcher.prefetchToGpu(new KernelExecutionMock(context, Collections.singletonList(arg)));
+    }
+
+    @Test
+    public void onlyHostModifiedArraysArePrefetchedMockTest() {
+        GrCUDAExecutionContext context = new GrCUDAExecutionContextMockBuilder().build();
+        ArrayPrefetcherMock prefetcher = new ArrayPrefetcherMock();
+        ArraySliceMock x = new ArraySliceMock(context, 100);
+        assertEquals(ArrayResidency.HOST_DIRTY, x.getResidency());
+        // The first GPU computation prefetches the array, the second finds it already valid on the GPU;
+        prefetch(prefetcher, context, new ArgumentMock(x));
+        assertEquals(ArrayResidency.DEVICE_VALID, x.getResidency());
+        prefetch(prefetcher, context, new ArgumentMock(x));
+        assertEquals(1, prefetcher.getNumPrefetchesIssued());
+        assertEquals(1, prefetcher.getNumPrefetchesSkipped());
+        // Host reads migrate the array to the host, so it must be prefetched again;
+        x.updateResidencyOnHostAccess(false);
+        assertEquals(ArrayResidency.HOST_DIRTY, x.getResidency());
+        prefetch(prefetcher, context, new ArgumentMock(x));
+        assertEquals(2, prefetcher.getNumPrefetchesIssued());
+        assertTrue(prefetcher.getReadMostlyArrays().isEmpty());
+    }
+
+    @Test
+    public void readOnlyArraysAreAdvisedReadMostlyMockTest() {
+        GrCUDAExecutionContext context = new GrCUDAExecutionContextMockBuilder().build();
+        ArrayPrefetcherMock prefetcher = new ArrayPrefetcherMock();
+        ArraySliceMock x = new ArraySliceMock(context, 100);
+        prefetch(prefetcher, context, new ArgumentMock(x, true));
+        assertEquals(ArrayResidency.SHARED_READ_ONLY, x.getResidency());
+        assertEquals(Collections.singletonList(x), prefetcher.getReadMostlyArrays());
+        // Host reads of a read-mostly array do not invalidate the copy on the GPU;
+        x.updateResidencyOnHostAccess(false);
+        prefetch(prefetcher, context, new ArgumentMock(x, true));
+        assertEquals(1, prefetcher.getNumPrefetchesIssued());
+        assertEquals(1, prefetcher.getNumPrefetchesSkipped());
+        // Host writes do;
+        x.updateResidencyOnHostAccess(true);
+        assertEquals(ArrayResidency.HOST_DIRTY, x.getResidency());
+        prefetch(prefetcher, context, new ArgumentMock(x, true));
+        assertEquals(2, prefetcher.getNumPrefetchesIssued());
+        // Once the GPU writes the array, it is no longer read-mostly;
+        prefetch(prefetcher, context, new ArgumentMock(x));
+        assertEquals(ArrayResidency.DEVICE_VALID, x.getResidency());
+        assertTrue(prefetcher.getReadMostlyArrays().isEmpty());
+        assertEquals(2, prefetcher.getNumPrefetchesIssued());
+        assertEquals(2, prefetcher.getNumPrefetchesSkipped());
+    }
+
+    @Test
+    public void slicesArePrefetchedWithoutValidatingParentMockTest() {
+        GrCUDAExecutionContext context = new GrCUDAExecutionContextMockBuilder().build();
+        ArrayPrefetcherMock prefetcher = new ArrayPrefetcherMock();
+        ArraySliceMock x = new ArraySliceMock(context, 100);
+        ArraySliceMock slice = x.slice(0, 50);
+        // Prefetching half of the array does not make the other half valid on the GPU;
+        prefetch(prefetcher, context, new ArgumentMock(slice, true));
+        assertEquals(ArrayResidency.HOST_DIRTY, x.getResidency());
+        assertTrue(prefetcher.getReadMostlyArrays().isEmpty());
+        prefetch(prefetcher, context, new ArgumentMock(x));
+        assertEquals(ArrayResidency.DEVICE_VALID, slice.getResidency());
+        prefetch(prefetcher, context, new ArgumentMock(x.slice(50, 100)));
+        assertEquals(2, prefetcher.getNumPrefetchesIssued());
+        assertEquals(1, prefetcher.getNumPrefetchesSkipped());
+        // Host accesses are never prefetched;
+        slice.updateResidencyOnHostAccess(true);
+        prefetcher.prefetchToGpu(new SyncExecutionMock(context, Collections.singletonList(new ArgumentMock(x))));
+        assertEquals(2, prefetcher.getNumPrefetchesIssued());
+        assertEquals(ArrayResidency.HOST_DIRTY, x.getResidency());
+    }
+
+    @Test
+    public void wrappedArraysAreNotPrefetchedMockTest() {
+        GrCUDAExecutionContext context = new GrCUDAExecutionContextMockBuilder().build();
+        ArrayPrefetcherMock prefetcher = new ArrayPrefetcherMock();
+        // Pinned host memory is accessed by the GPU without being migrated;
+        ArraySliceMock x = new ArraySliceMock(context, 100) {
+            @Override
+            public boolean isManagedMemory() {
+                return false;
+            }
+        };
+        prefetch(prefetcher, context, new ArgumentMock(x, true));
+        assertTrue(prefetcher.getPrefetchedArrays().isEmpty());
+        assertTrue(prefetcher.getReadMostlyArrays().isEmpty());
+        assertEquals(0, prefetcher.getNumPrefetchesIssued());
+        assertEquals(1, prefetcher.getNumPrefetchesSkipped());
+    }
+}
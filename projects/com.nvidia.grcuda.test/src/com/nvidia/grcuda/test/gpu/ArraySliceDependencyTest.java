@@ -0,0 +1,111 @@
+package com.nvidia.grcuda.test.gpu;
+
+import com.nvidia.grcuda.gpu.computation.dependency.DependencyPolicyEnum;
+import com.nvidia.grcuda.gpu.executioncontext.ExecutionDAG;
+import com.nvidia.grcuda.gpu.executioncontext.GrCUDAExecutionContext;
+import com.nvidia.grcuda.test.mock.ArgumentMock;
+import com.nvidia.grcuda.test.mock.ArraySliceMock;
+import com.nvidia.grcuda.test.mock.GrCUDAExecutionContextMockBuilder;
+import com.nvidia.grcuda.test.mock.KernelExecutionMock;
+import com.oracle.truffle.api.interop.UnsupportedTypeException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(Parameterized.class)
+public class ArraySliceDependencyTest {
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+                {DependencyPolicyEnum.DEFAULT},
+                {DependencyPolicyEnum.WITH_CONST}
+        });
+    }
+
+    private final DependencyPolicyEnum policy;
+
+    public ArraySliceDependencyTest(DependencyPolicyEnum policy) {
+        this.policy = policy;
+    }
+
+    private static void schedule(GrCUDAExecutionContext context, Object... args) throws UnsupportedTypeException {
+        new KernelExecutionMock(context, Arrays.stream(args).map(ArgumentMock::new).collect(Collectors.toList())).schedule();
+    }
+
+    @Test
+    public void disjointSlicesAreIndependentMockTest() throws UnsupportedTypeException {
+        GrCUDAExecutionContext context = new GrCUDAExecutionContextMockBuilder().setDependencyPolicy(policy).build();
+        ArraySliceMock x = new ArraySliceMock(context, 100);
+        // A(x[0:50]), B(x[50:100]) write disjoint halves of the same array;
+        schedule(context, x.slice(0, 50));
+        schedule(context, x.slice(50, 100));
+        ExecutionDAG dag = context.getDag();
+        assertEquals(0, dag.getNumEdges());
+        assertTrue(dag.getVertices().get(1).isStart());
+        // The two computations can run concurrently on different streams;
+        assertNotEquals(dag.getVertices().get(0).getComputation().getStream(), dag.getVertices().get(1).getComputation().getStream());
+    }
+
+    @Test
+    public void overlappingSlicesAreDependentMockTest() throws UnsupportedTypeException {
+        GrCUDAExecutionContext context = new GrCUDAExecutionContextMockBuilder().setDependencyPolicy(policy).build();
+        ArraySliceMock x = new ArraySliceMock(context, 100);
+        // A(x[0:60]) -> B(x[50:100]);
+        schedule(context, x.slice(0, 60));
+        schedule(context, x.slice(50, 100));
+        ExecutionDAG dag = context.getDag();
+        assertEquals(1, dag.getNumEdges());
+        assertEquals(dag.getVertices().get(0), dag.getVertices().get(1).getParentVertices().get(0));
+        // Slices of a slice refer to the same parent array;
+        ArraySliceMock y = x.slice(0, 50).slice(10, 20);
+        assertEquals(x, y.getParentArray());
+        assertEquals(10, y.getParentRangeStartBytes());
+        assertEquals(20, y.getParentRangeEndBytes());
+    }
+
+    @Test
+    public void slicesDependOnWholeArrayMockTest() throws UnsupportedTypeException {
+        GrCUDAExecutionContext context = new GrCUDAExecutionContextMockBuilder().setDependencyPolicy(policy).build();
+        ArraySliceMock x = new ArraySliceMock(context, 100);
+        // A(x) -> B(x[0:50]), A(x) -> C(x[50:100]):
+        //   B covers only part of x, so C must still depend on A;
+        schedule(context, x);
+        schedule(context, x.slice(0, 50));
+        schedule(context, x.slice(50, 100));
+        ExecutionDAG dag = context.getDag();
+        assertEquals(2, dag.getNumEdges());
+        assertEquals(dag.getVertices().get(0), dag.getVertices().get(1).getParentVertices().get(0));
+        assertEquals(dag.getVertices().get(0), dag.getVertices().get(2).getParentVertices().get(0));
+        // B and C -> D(x), as D uses both halves of x. D might also depend on A, as no single slice covers A;
+        schedule(context, x);
+        assertTrue(new HashSet<>(dag.getVertices().get(3).getParentVertices()).containsAll(
+                Arrays.asList(dag.getVertices().get(1), dag.getVertices().get(2))));
+        // Only D is in the frontier, as it covers all the other computations;
+        assertEquals(Collections.singletonList(dag.getVertices().get(3)), dag.getFrontier());
+    }
+
+    @Test
+    public void differentArraysAreIndependentMockTest() throws UnsupportedTypeException {
+        GrCUDAExecutionContext context = new GrCUDAExecutionContextMockBuilder().setDependencyPolicy(policy).build();
+        ArraySliceMock x = new ArraySliceMock(context, 100);
+        ArraySliceMock y = new ArraySliceMock(context, 100);
+        schedule(context, x.slice(0, 50));
+        schedule(context, y.slice(0, 50));
+        assertEquals(0, context.getDag().getNumEdges());
+        assertFalse(x.overlaps(y));
+        assertTrue(x.covers(x.slice(0, 50)));
+        assertFalse(x.slice(0, 50).covers(x));
+    }
+}
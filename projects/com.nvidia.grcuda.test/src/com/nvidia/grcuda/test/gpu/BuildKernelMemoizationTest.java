@@ -0,0 +1,101 @@
+package com.nvidia.grcuda.test.gpu;
+
+import com.nvidia.grcuda.GrCUDAException;
+import com.nvidia.grcuda.gpu.ConfiguredKernel;
+import com.nvidia.grcuda.gpu.Kernel;
+import com.nvidia.grcuda.gpu.computation.GrCUDAComputationalElement;
+import com.nvidia.grcuda.gpu.computation.KernelExecution;
+import com.nvidia.grcuda.test.mock.GrCUDAExecutionContextMock;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.InteropException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BuildKernelMemoizationTest {
+
+    private static final String SQUARE_KERNEL = "extern \"C\" __global__ void square(float* x, int n) { x[threadIdx.x] *= x[threadIdx.x]; }";
+    private static final String SQUARE_2_KERNEL = "extern \"C\" __global__ void square(float* x, int n) { x[threadIdx.x] *= 2 * x[threadIdx.x]; }";
+
+    @Test
+    public void sameKernelIsBuiltOnceMockTest() {
+        GrCUDAExecutionContextMock context = new GrCUDAExecutionContextMock();
+        Kernel first = context.buildKernel(SQUARE_KERNEL, "square", "pointer, sint32");
+        Kernel second = context.buildKernel(SQUARE_KERNEL, "square", "pointer, sint32");
+        assertSame(first, second);
+        assertEquals(1, context.getNumKernelsBuilt());
+        assertEquals(1, context.getNumBuiltKernels());
+    }
+
+    @Test
+    public void differentKernelsAreBuiltMockTest() {
+        GrCUDAExecutionContextMock context = new GrCUDAExecutionContextMock();
+        Kernel kernel = context.buildKernel(SQUARE_KERNEL, "square", "pointer, sint32");
+        assertNotSame(kernel, context.buildKernel(SQUARE_2_KERNEL, "square", "pointer, sint32"));
+        assertNotSame(kernel, context.buildKernel(SQUARE_KERNEL, "square", "pointer, sint64"));
+        assertEquals(3, context.getNumKernelsBuilt());
+        assertEquals(3, context.getNumBuiltKernels());
+    }
+
+    @Test
+    public void kernelIsReleasedWithLastReferenceMockTest() {
+        GrCUDAExecutionContextMock context = new GrCUDAExecutionContextMock();
+        Kernel kernel = context.buildKernel(SQUARE_KERNEL, "square", "pointer, sint32");
+        context.buildKernel(SQUARE_KERNEL, "square", "pointer, sint32");
+        context.releaseKernel(kernel);
+        assertFalse(kernel.isReleased());
+        assertEquals(1, context.getNumBuiltKernels());
+        context.releaseKernel(kernel);
+        assertTrue(kernel.isReleased());
+        assertEquals(0, context.getNumBuiltKernels());
+        // Releasing a kernel multiple times has no effect;
+        context.releaseKernel(kernel);
+        // A released kernel cannot be launched, and building it again creates a new kernel;
+        try {
+            kernel.getKernelFunctionHandle();
+            throw new AssertionError("expected exception when using a released kernel");
+        } catch (GrCUDAException e) {
+            // Expected;
+        }
+        Kernel newKernel = context.buildKernel(SQUARE_KERNEL, "square", "pointer, sint32");
+        assertNotSame(kernel, newKernel);
+        assertEquals(2, context.getNumKernelsBuilt());
+    }
+
+    @Test
+    public void releaseWaitsForPendingLaunchesMockTest() throws InteropException {
+        InteropLibrary interop = InteropLibrary.getFactory().getUncached();
+        List<GrCUDAComputationalElement> waitedComputations = new ArrayList<>();
+        GrCUDAExecutionContextMock context = new GrCUDAExecutionContextMock() {
+            @Override
+            public void waitForComputation(GrCUDAComputationalElement computation) {
+                waitedComputations.add(computation);
+                computation.setComputationFinished();
+            }
+        };
+        Kernel kernel = context.buildKernel(SQUARE_KERNEL, "square", "sint32, sint32");
+        ConfiguredKernel configuredKernel = (ConfiguredKernel) interop.execute(kernel, 1, 32);
+        KernelExecution first = new KernelExecution(configuredKernel,
+                kernel.createKernelArguments(new Object[]{1, 2}, interop, interop, interop, interop, interop, interop));
+        kernel.registerLaunch(first);
+        first.setComputationFinished();
+        KernelExecution second = new KernelExecution(configuredKernel,
+                kernel.createKernelArguments(new Object[]{1, 2}, interop, interop, interop, interop, interop, interop));
+        kernel.registerLaunch(second);
+        // Finished launches are no longer tracked;
+        assertEquals(1, kernel.getNumPendingLaunches());
+        // The module of the kernel is unloaded only after the pending launches are finished;
+        context.releaseKernel(kernel);
+        assertEquals(Collections.singletonList(second), waitedComputations);
+        assertEquals(0, kernel.getNumPendingLaunches());
+        assertTrue(kernel.isReleased());
+    }
+}
@@ -0,0 +1,117 @@
+package com.nvidia.grcuda.test.gpu;
+
+import com.nvidia.grcuda.ComputationArgument;
+import com.nvidia.grcuda.ComputationArgumentWithValue;
+import com.nvidia.grcuda.Type;
+import com.nvidia.grcuda.functions.CUDALibraryFunction;
+import com.nvidia.grcuda.gpu.computation.CUDALibraryExecution;
+import com.nvidia.grcuda.gpu.computation.dependency.DependencyPolicyEnum;
+import com.nvidia.grcuda.gpu.executioncontext.ExecutionDAG;
+import com.nvidia.grcuda.gpu.executioncontext.GrCUDAExecutionContext;
+import com.nvidia.grcuda.test.mock.CUDALibraryMock;
+import com.nvidia.grcuda.test.mock.GrCUDAExecutionContextMockBuilder;
+import com.nvidia.grcuda.test.mock.KernelExecutionMock;
+import com.oracle.truffle.api.interop.ArityException;
+import com.oracle.truffle.api.interop.UnsupportedTypeException;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CUDALibraryExecutionTest {
+
+    private static final String AXPY_SIGNATURE = "handle: sint64, n: sint32, alpha: in pointer float, x: in pointer float, incx: sint32, y: inout pointer float, incy: sint32";
+
+    private static CUDALibraryFunction createAxpy() {
+        return new CUDALibraryFunction("axpy", AXPY_SIGNATURE) { };
+    }
+
+    private static CUDALibraryExecution createAxpyExecution(GrCUDAExecutionContext context, CUDALibraryMock library,
+                                                            Object alpha, Object x, Object y) throws ArityException {
+        Object[] args = new Object[]{0L, 10, alpha, x, 1, y, 1};
+        return new CUDALibraryExecution(context, library, library.createFunction("axpy"), "axpy",
+                args, createAxpy().createComputationArgumentWithValueList(args));
+    }
+
+    /**
+     * Arguments of kernels must have the same class of the arguments of library functions, to be compared in the dependency computation;
+     */
+    private static ComputationArgumentWithValue arrayArgument(Object value) {
+        return new ComputationArgumentWithValue("array", Type.NFI_POINTER, ComputationArgument.Kind.POINTER_INOUT, value);
+    }
+
+    @Test
+    public void nfiSignatureTest() {
+        assertEquals("(sint64, sint32, pointer, pointer, sint32, pointer, sint32): sint32", CUDALibraryFunction.toNFISignature(AXPY_SIGNATURE));
+    }
+
+    @Test
+    public void argumentDirectionsTest() throws ArityException {
+        List<ComputationArgumentWithValue> args = createAxpy().createComputationArgumentWithValueList(new Object[]{0L, 10, "alpha", "x", 1, "y", 1});
+        assertEquals(7, args.size());
+        assertFalse(args.get(0).isArray());
+        assertTrue(args.get(2).isArray() && args.get(2).isConst());
+        assertTrue(args.get(3).isArray() && args.get(3).isConst());
+        assertTrue(args.get(5).isArray() && !args.get(5).isConst());
+        assertEquals("y", args.get(5).getArgumentValue());
+    }
+
+    @Test(expected = ArityException.class)
+    public void wrongNumberOfArgumentsTest() throws ArityException {
+        createAxpy().createComputationArgumentWithValueList(new Object[]{0L, 10});
+    }
+
+    @Test
+    public void libraryExecutionIsScheduledOnDAGMockTest() throws UnsupportedTypeException, ArityException {
+        GrCUDAExecutionContext context = new GrCUDAExecutionContextMockBuilder()
+                .setDependencyPolicy(DependencyPolicyEnum.WITH_CONST).build();
+        CUDALibraryMock library = new CUDALibraryMock();
+        Object alpha = "alpha";
+        Object x = "x";
+        Object y = "y";
+        Object z = "z";
+        // A(x) -> axpy(alpha, x, y) -> C(y);
+        // B(z) is independent, and it is executed on a different stream;
+        new KernelExecutionMock(context, Collections.singletonList(arrayArgument(x))).schedule();
+        new KernelExecutionMock(context, Collections.singletonList(arrayArgument(z))).schedule();
+        createAxpyExecution(context, library, alpha, x, y).schedule();
+        new KernelExecutionMock(context, Collections.singletonList(arrayArgument(y))).schedule();
+
+        ExecutionDAG dag = context.getDag();
+        assertEquals(4, dag.getNumVertices());
+        assertEquals(2, dag.getNumEdges());
+        ExecutionDAG.DAGVertex axpy = dag.getVertices().get(2);
+        assertEquals(Collections.singletonList(dag.getVertices().get(0)), axpy.getParentVertices());
+        assertEquals(Collections.singletonList(dag.getVertices().get(3)), axpy.getChildVertices());
+
+        // The library function is called once, on the stream of its parent, and without synchronizing the device;
+        assertEquals(1, library.getNumCalls());
+        assertEquals(Collections.singletonList(axpy.getComputation().getStream().getStreamNumber()), library.getHandles());
+        assertEquals(dag.getVertices().get(0).getComputation().getStream(), axpy.getComputation().getStream());
+        assertNotEquals(dag.getVertices().get(1).getComputation().getStream(), axpy.getComputation().getStream());
+        assertTrue(context.isAnyComputationActive());
+    }
+
+    @Test
+    public void constArgumentsDoNotIntroduceDependenciesMockTest() throws UnsupportedTypeException, ArityException {
+        GrCUDAExecutionContext context = new GrCUDAExecutionContextMockBuilder()
+                .setDependencyPolicy(DependencyPolicyEnum.WITH_CONST).build();
+        CUDALibraryMock library = new CUDALibraryMock();
+        // Two library calls that only read the same input can be executed in parallel;
+        createAxpyExecution(context, library, "alpha", "x", "y1").schedule();
+        createAxpyExecution(context, library, "alpha", "x", "y2").schedule();
+        ExecutionDAG dag = context.getDag();
+        assertEquals(0, dag.getNumEdges());
+        assertNotEquals(dag.getVertices().get(0).getComputation().getStream(), dag.getVertices().get(1).getComputation().getStream());
+        // Concurrent calls use the handles of their streams;
+        assertEquals(Arrays.asList(dag.getVertices().get(0).getComputation().getStream().getStreamNumber(),
+                dag.getVertices().get(1).getComputation().getStream().getStreamNumber()), library.getHandles());
+        assertNotEquals(library.getHandles().get(0), library.getHandles().get(1));
+    }
+}
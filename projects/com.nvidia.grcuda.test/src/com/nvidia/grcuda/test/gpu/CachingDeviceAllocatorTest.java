@@ -0,0 +1,263 @@
+package com.nvidia.grcuda.test.gpu;
+
+import com.nvidia.grcuda.GrCUDAException;
+import com.nvidia.grcuda.gpu.CachingDeviceAllocator;
+import com.nvidia.grcuda.gpu.stream.CUDAStream;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CachingDeviceAllocatorTest {
+
+    /**
+     * Stand-in for cudaMallocManaged and cudaFree, which hands out fake addresses and can simulate a GPU with limited memory;
+     */
+    private static class NativeAllocatorMock implements CachingDeviceAllocator.NativeAllocator {
+        private final long capacityBytes;
+        private long nextAddress = 0x1000;
+        private long allocatedBytes = 0;
+        private final java.util.Map<Long, Long> blocks = new java.util.HashMap<>();
+
+        NativeAllocatorMock(long capacityBytes) {
+            this.capacityBytes = capacityBytes;
+        }
+
+        @Override
+        public long allocate(long numBytes) {
+            if (allocatedBytes + numBytes > capacityBytes) {
+                throw new GrCUDAException("out of memory");
+            }
+            long address = nextAddress;
+            nextAddress += numBytes;
+            allocatedBytes += numBytes;
+            blocks.put(address, numBytes);
+            return address;
+        }
+
+        @Override
+        public void free(long address) {
+            Long numBytes = blocks.remove(address);
+            if (numBytes == null) {
+                throw new GrCUDAException("invalid free of address " + address);
+            }
+            allocatedBytes -= numBytes;
+        }
+    }
+
+    private static final long MB = 1024 * 1024;
+
+    private final Set<CUDAStream> busyStreams = new HashSet<>();
+
+    private CachingDeviceAllocator createAllocator(NativeAllocatorMock nativeAllocator, long maxCachedBytes) {
+        return new CachingDeviceAllocator(nativeAllocator, s -> !busyStreams.contains(s), maxCachedBytes);
+    }
+
+    @Test
+    public void sizeClassTest() {
+        assertEquals(512, CachingDeviceAllocator.getSizeClass(1));
+        assertEquals(512, CachingDeviceAllocator.getSizeClass(512));
+        assertEquals(1024, CachingDeviceAllocator.getSizeClass(513));
+        assertEquals(4096, CachingDeviceAllocator.getSizeClass(4096));
+        assertEquals(8 * MB, CachingDeviceAllocator.getSizeClass(5 * MB));
+    }
+
+    @Test
+    public void reuseBlockOfSameSizeClassTest() {
+        NativeAllocatorMock nativeAllocator = new NativeAllocatorMock(1024 * MB);
+        CachingDeviceAllocator allocator = createAllocator(nativeAllocator, 1024 * MB);
+        long a = allocator.allocate(3000);
+        assertEquals(4096, allocator.getInUseBytes());
+        assertTrue(allocator.free(a, Collections.emptyList()));
+        assertEquals(4096, allocator.getCachedBytes());
+        // An array of similar size reuses the block, without calling the native allocator;
+        long b = allocator.allocate(4000);
+        assertEquals(a, b);
+        // Arrays in another size class cannot use it;
+        long c = allocator.allocate(100);
+        assertNotEquals(a, c);
+        assertEquals(3, allocator.getNumAllocations());
+        assertEquals(1, allocator.getNumReusedAllocations());
+        assertEquals(2, allocator.getNumNativeAllocations());
+        assertEquals(0, allocator.getNumNativeFrees());
+        assertEquals(4096 + 512, nativeAllocator.allocatedBytes);
+    }
+
+    @Test
+    public void unknownAddressIsNotFreedTest() {
+        CachingDeviceAllocator allocator = createAllocator(new NativeAllocatorMock(1024 * MB), 1024 * MB);
+        assertFalse(allocator.free(0xdead, Collections.emptyList()));
+        long a = allocator.allocate(100);
+        assertTrue(allocator.isAllocated(a));
+        assertTrue(allocator.free(a, Collections.emptyList()));
+        assertFalse(allocator.isAllocated(a));
+        assertFalse(allocator.free(a, Collections.emptyList()));
+    }
+
+    @Test
+    public void blocksOfBusyStreamAreNotReusedTest() {
+        CachingDeviceAllocator allocator = createAllocator(new NativeAllocatorMock(1024 * MB), 1024 * MB);
+        CUDAStream stream = new CUDAStream(0x42, 1);
+        busyStreams.add(stream);
+        long a = allocator.allocate(1000);
+        allocator.free(a, Collections.singletonList(stream));
+        // The stream might still be using the block;
+        long b = allocator.allocate(1000);
+        assertNotEquals(a, b);
+        // Once the stream is idle, the block can be used by anyone;
+        busyStreams.remove(stream);
+        long c = allocator.allocate(1000);
+        assertEquals(a, c);
+        assertEquals(1, allocator.getNumReusedAllocations());
+    }
+
+    @Test
+    public void blocksOfManyStreamsAreReusedWhenAllStreamsAreIdleTest() {
+        CachingDeviceAllocator allocator = createAllocator(new NativeAllocatorMock(1024 * MB), 1024 * MB);
+        CUDAStream writer = new CUDAStream(0x42, 1);
+        CUDAStream reader = new CUDAStream(0x43, 2);
+        busyStreams.add(writer);
+        busyStreams.add(reader);
+        long a = allocator.allocate(1000);
+        // The block is used by a writer and by a reader on another stream;
+        allocator.free(a, Arrays.asList(writer, reader));
+        busyStreams.remove(writer);
+        long b = allocator.allocate(1000);
+        assertNotEquals(a, b);
+        busyStreams.remove(reader);
+        long c = allocator.allocate(1000);
+        assertEquals(a, c);
+    }
+
+    @Test
+    public void pendingBlocksOfOtherSizeClassesAreNotCheckedTest() {
+        List<CUDAStream> queriedStreams = new ArrayList<>();
+        CachingDeviceAllocator allocator = new CachingDeviceAllocator(new NativeAllocatorMock(1024 * MB), s -> {
+            queriedStreams.add(s);
+            return !busyStreams.contains(s);
+        }, 1024 * MB);
+        CUDAStream stream = new CUDAStream(0x42, 1);
+        busyStreams.add(stream);
+        long a = allocator.allocate(1000);
+        allocator.free(a, Collections.singletonList(stream));
+        // Allocations in another size class do not look at the pending block;
+        allocator.allocate(100);
+        allocator.allocate(5000);
+        assertEquals(0, queriedStreams.size());
+        // Allocations in the same size class query the stream once;
+        allocator.allocate(1000);
+        assertEquals(1, queriedStreams.size());
+    }
+
+    @Test
+    public void cachedBlocksAreResetTest() {
+        List<Long> resetBlocks = new ArrayList<>();
+        NativeAllocatorMock nativeAllocator = new NativeAllocatorMock(1024 * MB) {
+            @Override
+            public void reset(long address, long numBytes) {
+                resetBlocks.add(address);
+            }
+        };
+        CachingDeviceAllocator allocator = createAllocator(nativeAllocator, 1024 * MB);
+        long a = allocator.allocate(1000);
+        long b = allocator.allocate(CachingDeviceAllocator.DEFAULT_MAX_BLOCK_SIZE + 1);
+        allocator.free(a, Collections.emptyList());
+        // Blocks that are not cached are released, so they keep no state;
+        allocator.free(b, Collections.emptyList());
+        assertEquals(Collections.singletonList(a), resetBlocks);
+    }
+
+    @Test
+    public void largeAllocationsAreNotCachedTest() {
+        NativeAllocatorMock nativeAllocator = new NativeAllocatorMock(1024 * MB);
+        CachingDeviceAllocator allocator = createAllocator(nativeAllocator, 1024 * MB);
+        long numBytes = CachingDeviceAllocator.DEFAULT_MAX_BLOCK_SIZE + 1;
+        long a = allocator.allocate(numBytes);
+        assertEquals(numBytes, nativeAllocator.allocatedBytes);
+        allocator.free(a, Collections.emptyList());
+        assertEquals(0, nativeAllocator.allocatedBytes);
+        assertEquals(0, allocator.getCachedBytes());
+    }
+
+    @Test
+    public void trimWhenCacheIsFullTest() {
+        NativeAllocatorMock nativeAllocator = new NativeAllocatorMock(1024 * MB);
+        CachingDeviceAllocator allocator = createAllocator(nativeAllocator, 4 * MB);
+        List<Long> addresses = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            addresses.add(allocator.allocate(2 * MB));
+        }
+        for (long a : addresses) {
+            allocator.free(a, Collections.emptyList());
+        }
+        // Only 4 MB can stay cached, the other blocks are released;
+        assertEquals(4 * MB, allocator.getCachedBytes());
+        assertEquals(4 * MB, nativeAllocator.allocatedBytes);
+        assertEquals(2, allocator.getNumNativeFrees());
+        assertEquals(8 * MB, allocator.getHighWaterMarkBytes());
+        allocator.trim();
+        assertEquals(0, allocator.getCachedBytes());
+        assertEquals(0, nativeAllocator.allocatedBytes);
+    }
+
+    @Test
+    public void trimWhenOutOfMemoryTest() {
+        NativeAllocatorMock nativeAllocator = new NativeAllocatorMock(8 * MB);
+        CachingDeviceAllocator allocator = createAllocator(nativeAllocator, 1024 * MB);
+        CUDAStream stream = new CUDAStream(0x42, 1);
+        busyStreams.add(stream);
+        long a = allocator.allocate(2 * MB);
+        long b = allocator.allocate(4 * MB);
+        allocator.free(a, Collections.emptyList());
+        allocator.free(b, Collections.singletonList(stream));
+        // The GPU has no space for a new 8 MB block, unless cached blocks are released;
+        allocator.allocate(8 * MB);
+        assertEquals(0, allocator.getCachedBytes());
+        assertEquals(8 * MB, nativeAllocator.allocatedBytes);
+    }
+
+    @Test(expected = GrCUDAException.class)
+    public void outOfMemoryWithEmptyCacheTest() {
+        CachingDeviceAllocator allocator = createAllocator(new NativeAllocatorMock(4 * MB), 1024 * MB);
+        allocator.allocate(8 * MB);
+    }
+
+    /**
+     * Allocate and free many arrays of random size, as done by scripts that create temporary arrays,
+     * and measure how many native allocations are avoided and how much memory is wasted by size classes;
+     */
+    @Test
+    public void randomAllocationsReuseTest() {
+        NativeAllocatorMock nativeAllocator = new NativeAllocatorMock(1024 * MB);
+        CachingDeviceAllocator allocator = createAllocator(nativeAllocator, 256 * MB);
+        Random random = new Random(42);
+        List<Long> liveAddresses = new ArrayList<>();
+        long maxRequestedBytes = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (liveAddresses.size() < 16 && (liveAddresses.isEmpty() || random.nextBoolean())) {
+                liveAddresses.add(allocator.allocate(1 + random.nextInt(4 * (int) MB)));
+            } else {
+                allocator.free(liveAddresses.remove(random.nextInt(liveAddresses.size())), Collections.emptyList());
+            }
+            maxRequestedBytes = Math.max(maxRequestedBytes, allocator.getRequestedBytes());
+        }
+        double reuseRatio = (double) allocator.getNumReusedAllocations() / allocator.getNumAllocations();
+        System.out.println("-- caching allocator: " + allocator.getNumAllocations() + " allocations, reused=" + String.format("%.2f", reuseRatio * 100) +
+                "%, high-water mark=" + allocator.getHighWaterMarkBytes() / MB + " MB, max requested=" + maxRequestedBytes / MB +
+                " MB, final fragmentation=" + String.format("%.2f", allocator.getFragmentation() * 100) + "%");
+        assertTrue(reuseRatio > 0.9);
+        assertEquals(allocator.getReservedBytes(), nativeAllocator.allocatedBytes);
+        // Power-of-two size classes waste at most half of each block;
+        assertTrue(allocator.getInUseBytes() < 2 * allocator.getRequestedBytes());
+    }
+}
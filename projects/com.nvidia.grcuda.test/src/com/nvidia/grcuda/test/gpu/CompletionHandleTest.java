@@ -0,0 +1,80 @@
+package com.nvidia.grcuda.test.gpu;
+
+import com.nvidia.grcuda.CompletionHandle;
+import com.nvidia.grcuda.gpu.computation.GrCUDAComputationalElement;
+import com.nvidia.grcuda.gpu.executioncontext.GrCUDAExecutionContext;
+import com.nvidia.grcuda.test.mock.ArgumentMock;
+import com.nvidia.grcuda.test.mock.GrCUDAExecutionContextMockBuilder;
+import com.nvidia.grcuda.test.mock.GrCUDAStreamManagerMock;
+import com.nvidia.grcuda.test.mock.KernelExecutionMock;
+import com.nvidia.grcuda.test.mock.SyncExecutionMock;
+import com.oracle.truffle.api.interop.InteropException;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.UnsupportedTypeException;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompletionHandleTest {
+
+    private static final InteropLibrary INTEROP = InteropLibrary.getFactory().getUncached();
+
+    private static GrCUDAComputationalElement schedule(GrCUDAComputationalElement computation) throws UnsupportedTypeException {
+        computation.schedule();
+        return computation;
+    }
+
+    @Test
+    public void handleIsDoneOnlyAfterCompletionOnDeviceMockTest() throws UnsupportedTypeException, InteropException {
+        GrCUDAExecutionContext context = new GrCUDAExecutionContextMockBuilder().build();
+        GrCUDAStreamManagerMock streamManager = (GrCUDAStreamManagerMock) context.getStreamManager();
+
+        // A(1) and B(2) are independent, and they are executed on different streams;
+        GrCUDAComputationalElement a = schedule(new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(1))));
+        GrCUDAComputationalElement b = schedule(new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(2))));
+        CompletionHandle handleA = new CompletionHandle(context, a);
+        CompletionHandle handleB = new CompletionHandle(context, b);
+        assertFalse(handleA.isDone());
+        assertFalse((boolean) INTEROP.invokeMember(handleB, "isDone"));
+
+        // Checking the handle doesn't block, and it sees the completion of the computation on the device;
+        streamManager.setComputationCompletedOnDevice(b);
+        assertFalse(handleA.isDone());
+        assertTrue((boolean) INTEROP.invokeMember(handleB, "isDone"));
+        assertTrue(b.isComputationFinished());
+    }
+
+    @Test
+    public void waitOnlySynchronizesTheComputationMockTest() throws UnsupportedTypeException, InteropException {
+        GrCUDAExecutionContext context = new GrCUDAExecutionContextMockBuilder().build();
+
+        // A(1) -> B(1), C(2) is independent;
+        GrCUDAComputationalElement a = schedule(new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(1))));
+        GrCUDAComputationalElement b = schedule(new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(1))));
+        GrCUDAComputationalElement c = schedule(new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(2))));
+
+        // Waiting for B also completes A, as it precedes B on the same stream, but not C;
+        INTEROP.invokeMember(new CompletionHandle(context, b), "wait");
+        assertTrue(a.isComputationFinished());
+        assertTrue(b.isComputationFinished());
+        assertFalse(c.isComputationFinished());
+        assertTrue(context.isAnyComputationActive());
+
+        // Waiting for a finished computation doesn't do anything;
+        new CompletionHandle(context, a).waitForCompletion();
+        assertFalse(c.isComputationFinished());
+    }
+
+    @Test
+    public void synchronousComputationIsAlwaysDoneMockTest() throws UnsupportedTypeException {
+        GrCUDAExecutionContext context = new GrCUDAExecutionContextMockBuilder().build();
+        GrCUDAComputationalElement a = schedule(new SyncExecutionMock(context, Collections.singletonList(new ArgumentMock(1))));
+        CompletionHandle handle = new CompletionHandle(context, a);
+        assertTrue(handle.isDone());
+        handle.waitForCompletion();
+        assertTrue(handle.isDone());
+    }
+}
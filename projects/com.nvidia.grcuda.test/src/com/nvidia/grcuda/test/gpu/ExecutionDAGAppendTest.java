@@ -0,0 +1,77 @@
+package com.nvidia.grcuda.test.gpu;
+
+import com.nvidia.grcuda.gpu.computation.dependency.DependencyPolicyEnum;
+import com.nvidia.grcuda.gpu.executioncontext.ExecutionDAG;
+import com.nvidia.grcuda.gpu.executioncontext.GrCUDAExecutionContext;
+import com.nvidia.grcuda.test.mock.ArgumentMock;
+import com.nvidia.grcuda.test.mock.GrCUDAExecutionContextMockBuilder;
+import com.nvidia.grcuda.test.mock.KernelExecutionMock;
+import com.oracle.truffle.api.interop.UnsupportedTypeException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Check the dependencies computed by {@link ExecutionDAG#append} when the DAG frontier contains many live arrays.
+ * The latency of append is measured by {@link com.nvidia.grcuda.test.benchmark.ExecutionDAGAppendBenchmark};
+ */
+@RunWith(Parameterized.class)
+public class ExecutionDAGAppendTest {
+
+    /**
+     * Tests are executed for each number of live arrays, and for each of the {@link DependencyPolicyEnum} values;
+     */
+    @Parameterized.Parameters
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+                {10, DependencyPolicyEnum.DEFAULT},
+                {1_000, DependencyPolicyEnum.DEFAULT},
+                {10, DependencyPolicyEnum.WITH_CONST},
+                {1_000, DependencyPolicyEnum.WITH_CONST},
+        });
+    }
+
+    private static final int NUM_APPENDS = 1_000;
+
+    private final int numLiveArrays;
+    private final DependencyPolicyEnum policy;
+
+    public ExecutionDAGAppendTest(int numLiveArrays, DependencyPolicyEnum policy) {
+        this.numLiveArrays = numLiveArrays;
+        this.policy = policy;
+    }
+
+    @Test
+    public void appendWithLiveArraysMockTest() throws UnsupportedTypeException {
+        GrCUDAExecutionContext context = new GrCUDAExecutionContextMockBuilder().setDependencyPolicy(this.policy).build();
+        ExecutionDAG dag = context.getDag();
+
+        // Create a computation for each live array, they are all independent and part of the frontier;
+        for (int i = 0; i < numLiveArrays; i++) {
+            new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(i))).schedule();
+        }
+        assertEquals(numLiveArrays, dag.getFrontier().size());
+
+        // Each new computation reads one live array, and writes another one;
+        Random random = new Random(42);
+        for (int i = 0; i < NUM_APPENDS; i++) {
+            int input = random.nextInt(numLiveArrays);
+            int output = random.nextInt(numLiveArrays);
+            new KernelExecutionMock(context, Arrays.asList(new ArgumentMock(input, true), new ArgumentMock(output))).schedule();
+        }
+
+        // Every computation depends on the previous computations on its arguments;
+        assertEquals(numLiveArrays + NUM_APPENDS, dag.getNumVertices());
+        for (ExecutionDAG.DAGVertex v : dag.getVertices().subList(numLiveArrays, dag.getNumVertices())) {
+            assertFalse(v.isStart());
+        }
+    }
+}
@@ -7,6 +7,7 @@ import com.nvidia.grcuda.gpu.stream.RetrieveNewStreamPolicyEnum;
 import com.nvidia.grcuda.gpu.stream.RetrieveParentStreamPolicyEnum;
 import com.nvidia.grcuda.test.mock.ArgumentMock;
 import com.nvidia.grcuda.test.mock.GrCUDAExecutionContextMock;
+import com.nvidia.grcuda.test.mock.GrCUDAExecutionContextMockBuilder;
 import com.nvidia.grcuda.test.mock.KernelExecutionMock;
 import com.nvidia.grcuda.test.mock.SyncExecutionMock;
 import com.oracle.truffle.api.interop.UnsupportedTypeException;
@@ -18,6 +19,7 @@ import java.util.HashSet;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
 public class ExecutionDAGTest {
@@ -195,4 +197,69 @@ public class ExecutionDAGTest {
         assertFalse(dag.getVertices().get(4).isFrontier());
         assertFalse(dag.getVertices().get(5).isFrontier());
     }
+
+    @Test
+    public void retireFinishedVerticesMockTest() throws UnsupportedTypeException {
+        int retentionWindow = 8;
+        int numIterations = 1000;
+        GrCUDAExecutionContext context = new GrCUDAExecutionContextMockBuilder().setDAGRetentionWindow(retentionWindow).build();
+        ExecutionDAG dag = context.getDag();
+
+        // This computation is never synchronized, so it must not be retired;
+        new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(100))).schedule();
+        ExecutionDAG.DAGVertex activeVertex = dag.getVertices().get(0);
+        // Schedule and synchronize many computations, their vertices can be retired;
+        for (int i = 0; i < numIterations; i++) {
+            new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(i % 4))).schedule();
+            new SyncExecutionMock(context, Collections.singletonList(new ArgumentMock(i % 4))).schedule();
+            // The size of the DAG is bounded;
+            assertTrue(dag.getNumVertices() <= 2 * (retentionWindow + 64) + 1);
+        }
+        assertEquals(2 * numIterations + 1, dag.getNumVertices() + dag.getNumRetiredVertices());
+        assertTrue(dag.getNumRetiredVertices() > 0);
+        assertTrue(dag.getNumRetiredEdges() > 0);
+        // The active computation is still in the DAG and in the frontier;
+        assertTrue(dag.getVertices().contains(activeVertex));
+        assertEquals(Collections.singletonList(activeVertex), dag.getFrontier());
+        // Retained vertices are not connected to retired ones;
+        for (ExecutionDAG.DAGVertex v : dag.getVertices()) {
+            for (ExecutionDAG.DAGVertex p : v.getParentVertices()) {
+                assertTrue(dag.getVertices().contains(p));
+            }
+        }
+    }
+
+    @Test
+    public void keepAllVerticesByDefaultMockTest() throws UnsupportedTypeException {
+        GrCUDAExecutionContext context = new GrCUDAExecutionContextMock();
+        ExecutionDAG dag = context.getDag();
+        for (int i = 0; i < 500; i++) {
+            new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(i % 4))).schedule();
+            new SyncExecutionMock(context, Collections.singletonList(new ArgumentMock(i % 4))).schedule();
+        }
+        assertEquals(1000, dag.getNumVertices());
+        assertEquals(0, dag.getNumRetiredVertices());
+    }
+
+    @Test
+    public void activeComputationsWithArgumentMockTest() throws UnsupportedTypeException {
+        GrCUDAExecutionContext context = new GrCUDAExecutionContextMockBuilder()
+                .setDependencyPolicy(DependencyPolicyEnum.WITH_CONST)
+                .setRetrieveParentStreamPolicy(RetrieveParentStreamPolicyEnum.DISJOINT).build();
+        ExecutionDAG dag = context.getDag();
+        // A(1) -> B(1r), A(1) -> C(1r), D(2) is independent;
+        new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(1))).schedule();
+        new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(1, true))).schedule();
+        new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(1, true))).schedule();
+        new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(2))).schedule();
+        // Readers on different streams might both be using the argument;
+        assertTrue(dag.getActiveComputationsWithArgument(1).containsAll(Arrays.asList(dag.getVertices().get(1).getComputation(), dag.getVertices().get(2).getComputation())));
+        assertFalse(dag.getActiveComputationsWithArgument(1).contains(dag.getVertices().get(3).getComputation()));
+        assertNotEquals(dag.getVertices().get(1).getComputation().getStream(), dag.getVertices().get(2).getComputation().getStream());
+        // Once the computations are over, the argument is no longer in use;
+        new SyncExecutionMock(context, Collections.singletonList(new ArgumentMock(1))).schedule();
+        assertTrue(dag.getActiveComputationsWithArgument(1).isEmpty());
+        assertEquals(Collections.singletonList(dag.getVertices().get(3).getComputation()), dag.getActiveComputationsWithArgument(2));
+        assertTrue(dag.getActiveComputationsWithArgument(3).isEmpty());
+    }
 }
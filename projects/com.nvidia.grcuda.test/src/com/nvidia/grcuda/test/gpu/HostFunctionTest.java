@@ -0,0 +1,72 @@
+package com.nvidia.grcuda.test.gpu;
+
+import com.nvidia.grcuda.functions.Function;
+import com.nvidia.grcuda.test.mock.HostFunctionMock;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Check calls to the same host function from multiple threads. Once the NFI callable is resolved, calls do not take any lock.
+ * The throughput of the calls is measured by {@link com.nvidia.grcuda.test.benchmark.HostFunctionBenchmark};
+ */
+public class HostFunctionTest {
+
+    private static final int NUM_THREADS = 8;
+    private static final int NUM_CALLS = 1000;
+
+    /**
+     * Stand-in for the NFI callable of the host function, it returns its first argument;
+     */
+    public static Function createCallable() {
+        return new Function("callable_mock") {
+            @Override
+            protected Object call(Object[] arguments) {
+                return arguments[0];
+            }
+        };
+    }
+
+    /**
+     * Call the function from multiple threads, each with its own interop library, and check the result of each call;
+     */
+    public static void callConcurrently(HostFunctionMock function, boolean cachedLibrary, int numThreads, int numCalls) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < numThreads; t++) {
+                final int threadId = t;
+                results.add(executor.submit(() -> {
+                    InteropLibrary interop = cachedLibrary ? InteropLibrary.getFactory().create(function) : InteropLibrary.getFactory().getUncached();
+                    for (int i = 0; i < numCalls; i++) {
+                        assertEquals(threadId, interop.execute(function, threadId));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> r : results) {
+                r.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void symbolResolvedOnceMockTest() throws Exception {
+        HostFunctionMock function = new HostFunctionMock("host_function_mock", createCallable());
+        callConcurrently(function, true, NUM_THREADS, NUM_CALLS);
+        callConcurrently(function, false, NUM_THREADS, NUM_CALLS);
+        assertEquals(1, function.getNumResolutions());
+        // Explicit resolution of a resolved function is a no-op;
+        function.resolveSymbol();
+        assertEquals(1, function.getNumResolutions());
+    }
+}
@@ -0,0 +1,89 @@
+package com.nvidia.grcuda.test.gpu;
+
+import com.nvidia.grcuda.gpu.Kernel;
+import com.nvidia.grcuda.gpu.KernelArguments;
+import com.nvidia.grcuda.gpu.UnsafeHelper;
+import com.nvidia.grcuda.gpu.executioncontext.GrCUDAExecutionContext;
+import com.nvidia.grcuda.test.mock.GrCUDAExecutionContextMock;
+import com.oracle.truffle.api.interop.ArityException;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.UnsupportedTypeException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Check the marshalling of kernel arguments, without launching the kernel.
+ * Arguments are written in a packed argument array owned by the kernel, so no off-heap memory is allocated by each launch.
+ * The throughput of the marshalling is measured by {@link com.nvidia.grcuda.test.benchmark.KernelArgumentsBenchmark};
+ */
+public class KernelArgumentsTest {
+
+    private static final String SIGNATURE = "sint32, sint64, float, double, sint32, sint32, double, double";
+
+    private static final InteropLibrary INTEROP = InteropLibrary.getFactory().getUncached();
+
+    private static Kernel createKernel(GrCUDAExecutionContext context) {
+        // The kernel is never launched, so it doesn't need a native function or a module;
+        return new Kernel(context, "mock", "mock", 0, SIGNATURE, null);
+    }
+
+    private static KernelArguments createKernelArguments(Kernel kernel, Object[] args) throws UnsupportedTypeException, ArityException {
+        return kernel.createKernelArguments(args, INTEROP, INTEROP, INTEROP, INTEROP, INTEROP, INTEROP);
+    }
+
+    /**
+     * Read the address of the value of the i-th argument, as cuLaunchKernel would do;
+     */
+    private static long getArgumentAddress(KernelArguments kernelArgs, int index) {
+        return UnsafeHelper.getAddress(kernelArgs.getPointer() + (long) index * UnsafeHelper.addressSize());
+    }
+
+    @Test
+    public void argumentValuesMockTest() throws UnsupportedTypeException, ArityException {
+        Kernel kernel = createKernel(new GrCUDAExecutionContextMock());
+        for (int i = 0; i < 3; i++) {
+            try (KernelArguments kernelArgs = createKernelArguments(kernel, new Object[]{i, 10L * i, 0.5f * i, 0.25 * i, -i, i, 1.5, 2.5})) {
+                assertEquals(i, UnsafeHelper.getInt(getArgumentAddress(kernelArgs, 0)));
+                assertEquals(10L * i, UnsafeHelper.getLong(getArgumentAddress(kernelArgs, 1)));
+                assertEquals(0.5f * i, UnsafeHelper.getFloat(getArgumentAddress(kernelArgs, 2)), 0);
+                assertEquals(0.25 * i, UnsafeHelper.getDouble(getArgumentAddress(kernelArgs, 3)), 0);
+                assertEquals(-i, UnsafeHelper.getInt(getArgumentAddress(kernelArgs, 4)));
+                assertEquals(2.5, UnsafeHelper.getDouble(getArgumentAddress(kernelArgs, 7)), 0);
+            }
+        }
+    }
+
+    @Test
+    public void argumentArrayReuseMockTest() throws UnsupportedTypeException, ArityException {
+        Kernel kernel = createKernel(new GrCUDAExecutionContextMock());
+        Object[] args = new Object[]{1, 2L, 3.0f, 4.0, 5, 6, 7.0, 8.0};
+        long address;
+        try (KernelArguments kernelArgs = createKernelArguments(kernel, args)) {
+            address = kernelArgs.getPointer();
+        }
+        // Once the previous launch is done, its argument array is reused;
+        try (KernelArguments kernelArgs = createKernelArguments(kernel, args)) {
+            assertEquals(address, kernelArgs.getPointer());
+            // Launches that overlap cannot share the same argument array;
+            try (KernelArguments otherKernelArgs = createKernelArguments(kernel, args)) {
+                assertNotEquals(address, otherKernelArgs.getPointer());
+            }
+        }
+    }
+
+    @Test
+    public void argumentArrayIsFreedWithContextMockTest() throws UnsupportedTypeException, ArityException {
+        GrCUDAExecutionContext context = new GrCUDAExecutionContextMock();
+        Kernel kernel = createKernel(context);
+        createKernelArguments(kernel, new Object[]{1, 2L, 3.0f, 4.0, 5, 6, 7.0, 8.0}).close();
+        // Kernels that are never released explicitly are released when the context is cleaned up;
+        context.cleanup();
+        assertTrue(kernel.isReleased());
+        // Arguments of launches that end after the release are freed instead of being cached;
+        KernelArguments kernelArgs = createKernelArguments(kernel, new Object[]{1, 2L, 3.0f, 4.0, 5, 6, 7.0, 8.0});
+        kernelArgs.close();
+    }
+}
@@ -0,0 +1,244 @@
+package com.nvidia.grcuda.test.gpu;
+
+import com.nvidia.grcuda.CUDAEvent;
+import com.nvidia.grcuda.gpu.KernelAutotuner;
+import com.nvidia.grcuda.gpu.stream.CUDAStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class KernelAutotunerTest {
+
+    private static final int[] CANDIDATES = {256, 64, 128, 512, 1024};
+    private static final String CODE_HASH = KernelAutotuner.computeCodeHash(".entry square", "square", "pointer, sint32");
+    private static final String KEY = KernelAutotuner.getTuningKey("square", CODE_HASH, 0, 0, KernelAutotuner.getSizeClass(1000));
+
+    /**
+     * Stand-in for the CUDA runtime. Launches advance a simulated clock by the execution time of their block size,
+     * and events store the clock when they are recorded. Events can be kept pending to simulate asynchronous launches;
+     */
+    private static class TimingRuntimeMock implements KernelAutotuner.TimingRuntime {
+        private final Map<CUDAEvent, Float> recordedEvents = new HashMap<>();
+        private final Map<Integer, Float> executionTimeMs = new HashMap<>();
+        private float clockMs = 0;
+        private boolean eventsCompleted = true;
+        private int numEvents = 0;
+        private int numDestroyedEvents = 0;
+
+        TimingRuntimeMock() {
+            setExecutionTimes(4, 3, 1, 2, 5);
+        }
+
+        void setExecutionTimes(float... timesMs) {
+            for (int i = 0; i < CANDIDATES.length; i++) {
+                executionTimeMs.put(CANDIDATES[i], timesMs[i]);
+            }
+        }
+
+        void launch(int blockSize) {
+            clockMs += executionTimeMs.get(blockSize);
+        }
+
+        @Override
+        public CUDAEvent createEvent() {
+            return new CUDAEvent(0x1000 + numEvents, numEvents++);
+        }
+
+        @Override
+        public void destroyEvent(CUDAEvent event) {
+            numDestroyedEvents++;
+        }
+
+        @Override
+        public void recordEvent(CUDAEvent event, CUDAStream stream) {
+            recordedEvents.put(event, clockMs);
+        }
+
+        @Override
+        public boolean isEventCompleted(CUDAEvent event) {
+            return eventsCompleted;
+        }
+
+        @Override
+        public float getElapsedTimeMs(CUDAEvent start, CUDAEvent end) {
+            return recordedEvents.get(end) - recordedEvents.get(start);
+        }
+    }
+
+    private final CUDAStream stream = new CUDAStream(0x42, 1);
+    private Path directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("grcuda_kernel_tuning_test");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+        }
+    }
+
+    /**
+     * Launch the kernel as {@link com.nvidia.grcuda.gpu.CUDARuntime} does, timing the launch if required;
+     */
+    private static KernelAutotuner.Trial launch(KernelAutotuner tuner, TimingRuntimeMock runtime, CUDAStream stream) {
+        KernelAutotuner.Trial trial = tuner.nextTrial(KEY, CANDIDATES);
+        KernelAutotuner.Measurement measurement = tuner.startMeasurement(trial, stream);
+        runtime.launch(trial.getBlockSize());
+        tuner.stopMeasurement(measurement, stream);
+        return trial;
+    }
+
+    @Test
+    public void sizeClassTest() {
+        assertEquals(0, KernelAutotuner.getSizeClass(1));
+        assertEquals(10, KernelAutotuner.getSizeClass(1000));
+        assertEquals(10, KernelAutotuner.getSizeClass(1024));
+        assertEquals(11, KernelAutotuner.getSizeClass(1025));
+    }
+
+    @Test
+    public void codeHashTest() {
+        assertEquals(CODE_HASH, KernelAutotuner.computeCodeHash(".entry square", "square", "pointer, sint32"));
+        // Kernels with the same name but a different code or signature have different keys;
+        assertNotEquals(CODE_HASH, KernelAutotuner.computeCodeHash(".entry square ", "square", "pointer, sint32"));
+        assertNotEquals(CODE_HASH, KernelAutotuner.computeCodeHash(".entry square", "square", "pointer, sint64"));
+        assertNotEquals(KEY, KernelAutotuner.getTuningKey("square", KernelAutotuner.computeCodeHash("", "square", "pointer, sint32"),
+                        0, 0, KernelAutotuner.getSizeClass(1000)));
+    }
+
+    @Test
+    public void exploreThenUseFastestTest() {
+        TimingRuntimeMock runtime = new TimingRuntimeMock();
+        KernelAutotuner tuner = new KernelAutotuner(runtime, null, 0);
+        // Each candidate is timed a few times;
+        for (int i = 0; i < CANDIDATES.length * KernelAutotuner.SAMPLES_PER_CANDIDATE; i++) {
+            assertTrue(launch(tuner, runtime, stream).isMeasured());
+        }
+        for (int i = 0; i < 100; i++) {
+            KernelAutotuner.Trial trial = launch(tuner, runtime, stream);
+            assertEquals(128, trial.getBlockSize());
+            assertFalse(trial.isMeasured());
+        }
+        assertEquals(CANDIDATES.length * KernelAutotuner.SAMPLES_PER_CANDIDATE, tuner.getNumMeasuredLaunches());
+        assertEquals(128, tuner.getBestBlockSize(KEY));
+    }
+
+    @Test
+    public void pendingMeasurementsTest() {
+        TimingRuntimeMock runtime = new TimingRuntimeMock();
+        runtime.eventsCompleted = false;
+        KernelAutotuner tuner = new KernelAutotuner(runtime, null, 0);
+        for (int i = 0; i < CANDIDATES.length * KernelAutotuner.SAMPLES_PER_CANDIDATE; i++) {
+            assertTrue(launch(tuner, runtime, stream).isMeasured());
+        }
+        // Until the kernels are completed, no other launch is timed, and the first candidate is used;
+        for (int i = 0; i < 10; i++) {
+            KernelAutotuner.Trial trial = launch(tuner, runtime, stream);
+            assertEquals(CANDIDATES[0], trial.getBlockSize());
+            assertFalse(trial.isMeasured());
+        }
+        assertEquals(0, tuner.getNumMeasuredLaunches());
+        runtime.eventsCompleted = true;
+        assertEquals(128, launch(tuner, runtime, stream).getBlockSize());
+        // Events of completed measurements are reused;
+        int numEvents = runtime.numEvents;
+        for (int i = 0; i < CANDIDATES.length; i++) {
+            tuner.stopMeasurement(tuner.startMeasurement(tuner.nextTrial("other", CANDIDATES), stream), stream);
+            tuner.getBestBlockSize("other");
+        }
+        assertEquals(numEvents, runtime.numEvents);
+        tuner.free();
+        assertEquals(runtime.numEvents, runtime.numDestroyedEvents);
+    }
+
+    @Test
+    public void cancelledTrialsAreNotCountedTest() {
+        TimingRuntimeMock runtime = new TimingRuntimeMock();
+        KernelAutotuner tuner = new KernelAutotuner(runtime, null, 0);
+        // Launches that fail before being timed (e.g. while scheduling them) don't use the samples of the first exploration;
+        for (int i = 0; i < 10; i++) {
+            KernelAutotuner.Trial trial = tuner.nextTrial(KEY, CANDIDATES);
+            assertEquals(CANDIDATES[0], trial.getBlockSize());
+            tuner.cancelTrial(trial);
+        }
+        // Launches that fail after starting the measurement are cancelled only once;
+        KernelAutotuner.Trial trial = tuner.nextTrial(KEY, CANDIDATES);
+        tuner.cancelMeasurement(tuner.startMeasurement(trial, stream));
+        tuner.cancelTrial(trial);
+        for (int i = 0; i < CANDIDATES.length * KernelAutotuner.SAMPLES_PER_CANDIDATE; i++) {
+            KernelAutotuner.Trial measuredTrial = launch(tuner, runtime, stream);
+            assertTrue(measuredTrial.isMeasured());
+            assertEquals(CANDIDATES[i / KernelAutotuner.SAMPLES_PER_CANDIDATE], measuredTrial.getBlockSize());
+        }
+        assertFalse(tuner.nextTrial(KEY, CANDIDATES).isMeasured());
+        assertEquals(128, tuner.getBestBlockSize(KEY));
+    }
+
+    @Test
+    public void reexplorationTest() {
+        TimingRuntimeMock runtime = new TimingRuntimeMock();
+        KernelAutotuner tuner = new KernelAutotuner(runtime, null, 10);
+        for (int i = 0; i < 100; i++) {
+            launch(tuner, runtime, stream);
+        }
+        assertEquals(128, tuner.getBestBlockSize(KEY));
+        // The best block size becomes slower, and re-exploration finds a new one;
+        runtime.setExecutionTimes(4, 3, 5, 1, 5);
+        for (int i = 0; i < 2000; i++) {
+            launch(tuner, runtime, stream);
+        }
+        assertEquals(512, tuner.getBestBlockSize(KEY));
+        KernelAutotuner.Trial trial = tuner.nextTrial(KEY, CANDIDATES);
+        assertEquals(512, trial.getBlockSize());
+        assertFalse(trial.isMeasured());
+    }
+
+    @Test
+    public void persistTuningTest() {
+        Path tuningFile = directory.resolve("kernel_tuning.tsv");
+        TimingRuntimeMock runtime = new TimingRuntimeMock();
+        KernelAutotuner tuner = new KernelAutotuner(runtime, tuningFile, 0);
+        for (int i = 0; i < 20; i++) {
+            launch(tuner, runtime, stream);
+        }
+        tuner.free();
+        assertTrue(Files.isRegularFile(tuningFile));
+
+        // A new run starts with the tuned block size, without timing the candidates again;
+        TimingRuntimeMock newRuntime = new TimingRuntimeMock();
+        KernelAutotuner newTuner = new KernelAutotuner(newRuntime, tuningFile, 0);
+        assertEquals(128, newTuner.getBestBlockSize(KEY));
+        KernelAutotuner.Trial trial = launch(newTuner, newRuntime, stream);
+        assertEquals(128, trial.getBlockSize());
+        assertFalse(trial.isMeasured());
+        assertEquals(0, newRuntime.numEvents);
+        // Kernels that are not in the file are tuned as usual;
+        assertTrue(newTuner.nextTrial("other", CANDIDATES).isMeasured());
+    }
+
+    @Test
+    public void malformedTuningFileTest() throws IOException {
+        Path tuningFile = directory.resolve("kernel_tuning.tsv");
+        Files.write(tuningFile, ("not a tuning entry\n" + KEY + "\tabc\t1.0\n").getBytes());
+        TimingRuntimeMock runtime = new TimingRuntimeMock();
+        KernelAutotuner tuner = new KernelAutotuner(runtime, tuningFile, 0);
+        assertEquals(0, tuner.getBestBlockSize(KEY));
+        assertTrue(launch(tuner, runtime, stream).isMeasured());
+    }
+}
@@ -0,0 +1,137 @@
+package com.nvidia.grcuda.test.gpu;
+
+import com.nvidia.grcuda.gpu.LittleEndianNativeArrayView;
+import com.nvidia.grcuda.gpu.MemoryReclaimer;
+import com.nvidia.grcuda.gpu.OffheapMemory;
+import com.nvidia.grcuda.gpu.stream.CUDAStream;
+import org.junit.After;
+import org.junit.Test;
+
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MemoryReclaimerTest {
+
+    private static final long GC_TIMEOUT_MS = 1000;
+    private static final int NUM_GC_ATTEMPTS = 10;
+
+    /**
+     * Memory freed so far, and the streams provided when freeing it;
+     */
+    private final Map<Long, Collection<CUDAStream>> freedMemory = new HashMap<>();
+
+    private MemoryReclaimer createReclaimer() {
+        return new MemoryReclaimer((memory, stream) -> {
+            assertTrue("memory freed twice", !freedMemory.containsKey(memory.getStartAddress()));
+            freedMemory.put(memory.getStartAddress(), stream);
+        });
+    }
+
+    private final List<OffheapMemory> hostMemory = new ArrayList<>();
+
+    /**
+     * Host memory stands in for GPU memory, as it is never accessed;
+     */
+    private LittleEndianNativeArrayView createMemory() {
+        OffheapMemory memory = new OffheapMemory(1024);
+        hostMemory.add(memory);
+        return memory.getLittleEndianView();
+    }
+
+    @After
+    public void freeHostMemory() {
+        hostMemory.forEach(OffheapMemory::close);
+    }
+
+    /**
+     * The garbage collector might need a few attempts before finding unreachable objects;
+     */
+    private static int reclaimUnreachable(MemoryReclaimer reclaimer, int numExpected) {
+        int numFreed = 0;
+        for (int i = 0; i < NUM_GC_ATTEMPTS && numFreed < numExpected; i++) {
+            numFreed += reclaimer.reclaimAfterGC(GC_TIMEOUT_MS / NUM_GC_ATTEMPTS);
+        }
+        return numFreed;
+    }
+
+    @Test
+    public void explicitFreeTest() {
+        MemoryReclaimer reclaimer = createReclaimer();
+        Object array = new Object();
+        CUDAStream stream = new CUDAStream(0x42, 1);
+        MemoryReclaimer.Registration registration = reclaimer.register(array, createMemory());
+        long address = registration.getMemory().getStartAddress();
+        assertEquals(1, reclaimer.getNumRegistered());
+        registration.free(Collections.singletonList(stream));
+        assertEquals(Collections.singletonList(stream), freedMemory.get(address));
+        assertEquals(0, reclaimer.getNumRegistered());
+        // Freeing the memory again, or reclaiming the array, does nothing;
+        registration.free(Collections.singletonList(stream));
+        array = null;
+        assertEquals(0, reclaimUnreachable(reclaimer, 1));
+        assertEquals(1, freedMemory.size());
+        assertEquals(0, reclaimer.getNumReclaimed());
+    }
+
+    @Test
+    public void reclaimUnreachableArraysTest() {
+        MemoryReclaimer reclaimer = createReclaimer();
+        List<Object> arrays = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Object array = new Object();
+            arrays.add(array);
+            reclaimer.register(array, createMemory());
+        }
+        // Nothing is freed while arrays are reachable;
+        assertEquals(0, reclaimer.reclaim());
+        Object reachableArray = arrays.get(0);
+        long reachableAddress = hostMemory.get(0).getPointer();
+        arrays.clear();
+        assertEquals(9, reclaimUnreachable(reclaimer, 9));
+        assertEquals(9, freedMemory.size());
+        assertEquals(9, reclaimer.getNumReclaimed());
+        assertEquals(1, reclaimer.getNumRegistered());
+        // Memory of unreachable arrays is not used by any computation;
+        for (Collection<CUDAStream> streams : freedMemory.values()) {
+            assertTrue(streams.isEmpty());
+        }
+        assertTrue(!freedMemory.containsKey(reachableAddress));
+        Reference.reachabilityFence(reachableArray);
+    }
+
+    @Test
+    public void customReleaseTest() {
+        MemoryReclaimer reclaimer = createReclaimer();
+        List<Long> unregisteredMemory = new ArrayList<>();
+        Object wrappedArray = new Object();
+        Object managedArray = new Object();
+        // Memory not owned by the array is released with its own function, e.g. to unregister it without freeing it;
+        MemoryReclaimer.Registration wrapped = reclaimer.register(wrappedArray, createMemory(),
+                (memory, stream) -> unregisteredMemory.add(memory.getStartAddress()));
+        reclaimer.register(managedArray, createMemory());
+        wrapped.free(Collections.emptyList());
+        assertEquals(1, unregisteredMemory.size());
+        assertEquals(hostMemory.get(0).getPointer(), (long) unregisteredMemory.get(0));
+        assertTrue(freedMemory.isEmpty());
+        wrappedArray = null;
+        managedArray = null;
+        assertEquals(1, reclaimUnreachable(reclaimer, 1));
+        assertEquals(1, unregisteredMemory.size());
+        assertTrue(freedMemory.containsKey(hostMemory.get(1).getPointer()));
+    }
+
+    @Test
+    public void reclaimWithoutRegisteredArraysTest() {
+        MemoryReclaimer reclaimer = createReclaimer();
+        assertEquals(0, reclaimer.reclaim());
+        assertEquals(0, reclaimer.reclaimAfterGC(GC_TIMEOUT_MS));
+    }
+}
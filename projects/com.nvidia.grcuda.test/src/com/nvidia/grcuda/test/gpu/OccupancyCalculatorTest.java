@@ -0,0 +1,90 @@
+package com.nvidia.grcuda.test.gpu;
+
+import com.nvidia.grcuda.GrCUDAException;
+import com.nvidia.grcuda.gpu.OccupancyCalculator;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Check the block sizes chosen by the automatic launch configuration, using the limits of a Tesla V100 and of an A100;
+ */
+public class OccupancyCalculatorTest {
+
+    private static final OccupancyCalculator.DeviceLimits V100 = new OccupancyCalculator.DeviceLimits(
+            32, 1024, 2048, 32, 65536, 65536, 98304, 49152, 0, 128);
+    private static final OccupancyCalculator.DeviceLimits A100 = new OccupancyCalculator.DeviceLimits(
+            32, 1024, 2048, 32, 65536, 65536, 167936, 49152, 1024, 128);
+
+    @Test
+    public void fullOccupancyChoosesLargestBlockTest() {
+        OccupancyCalculator calculator = new OccupancyCalculator(V100);
+        OccupancyCalculator.KernelResources kernel = new OccupancyCalculator.KernelResources(32, 0, 1024);
+        assertEquals(2, calculator.getActiveBlocksPerMultiprocessor(kernel, 1024, 0));
+        assertEquals(1024, calculator.chooseBlockSize(kernel, 0));
+    }
+
+    @Test
+    public void registerLimitedKernelTest() {
+        OccupancyCalculator calculator = new OccupancyCalculator(V100);
+        // 255 registers are rounded up to 8192 registers per warp, so at most 8 warps fit in a multiprocessor;
+        OccupancyCalculator.KernelResources kernel = new OccupancyCalculator.KernelResources(255, 0, 256);
+        assertEquals(1, calculator.getActiveBlocksPerMultiprocessor(kernel, 256, 0));
+        assertEquals(2, calculator.getActiveBlocksPerMultiprocessor(kernel, 128, 0));
+        assertEquals(256, calculator.chooseBlockSize(kernel, 0));
+        // The kernel cannot be launched with more threads than its limit;
+        assertEquals(0, calculator.getActiveBlocksPerMultiprocessor(kernel, 512, 0));
+    }
+
+    @Test
+    public void sharedMemoryLimitedKernelTest() {
+        OccupancyCalculator calculator = new OccupancyCalculator(V100);
+        OccupancyCalculator.KernelResources kernel = new OccupancyCalculator.KernelResources(16, 40 * 1024, 1024);
+        // Only 2 blocks fit in the shared memory of a multiprocessor, so the largest block is the best choice;
+        assertEquals(2, calculator.getActiveBlocksPerMultiprocessor(kernel, 128, 0));
+        assertEquals(1024, calculator.chooseBlockSize(kernel, 0));
+        // Dynamic shared memory is added to the static one;
+        assertEquals(0, calculator.getActiveBlocksPerMultiprocessor(kernel, 128, 16 * 1024));
+    }
+
+    @Test
+    public void sharedMemoryAllocationGranularityTest() {
+        OccupancyCalculator calculator = new OccupancyCalculator(V100);
+        // 3080 bytes are rounded up to 3200 bytes, so only 30 blocks fit instead of 31;
+        OccupancyCalculator.KernelResources kernel = new OccupancyCalculator.KernelResources(16, 3080, 1024);
+        assertEquals(30, calculator.getActiveBlocksPerMultiprocessor(kernel, 32, 0));
+    }
+
+    @Test
+    public void reservedSharedMemoryTest() {
+        OccupancyCalculator calculator = new OccupancyCalculator(A100);
+        // Each block uses 32 KB and the 1 KB reserved by the system, so only 4 blocks fit instead of 5;
+        OccupancyCalculator.KernelResources kernel = new OccupancyCalculator.KernelResources(16, 32 * 1024, 1024);
+        assertEquals(4, calculator.getActiveBlocksPerMultiprocessor(kernel, 128, 0));
+        // Kernels can use up to 48 KB of shared memory, the reserved memory doesn't count towards this limit;
+        assertEquals(3, calculator.getActiveBlocksPerMultiprocessor(kernel, 128, 16 * 1024));
+        // Kernels without shared memory still use the reserved memory;
+        OccupancyCalculator.KernelResources noSharedMemoryKernel = new OccupancyCalculator.KernelResources(16, 0, 1024);
+        assertEquals(32, calculator.getActiveBlocksPerMultiprocessor(noSharedMemoryKernel, 32, 0));
+    }
+
+    @Test(expected = GrCUDAException.class)
+    public void tooMuchSharedMemoryTest() {
+        OccupancyCalculator calculator = new OccupancyCalculator(V100);
+        OccupancyCalculator.KernelResources kernel = new OccupancyCalculator.KernelResources(32, 0, 1024);
+        calculator.chooseBlockSize(kernel, 49152 + 1);
+    }
+
+    @Test
+    public void gridSizeTest() {
+        assertEquals(1, OccupancyCalculator.getGridSize(1, 256));
+        assertEquals(4, OccupancyCalculator.getGridSize(1000, 256));
+        assertEquals(4, OccupancyCalculator.getGridSize(1024, 256));
+        assertEquals(5, OccupancyCalculator.getGridSize(1025, 256));
+    }
+
+    @Test(expected = GrCUDAException.class)
+    public void gridSizeTooLargeTest() {
+        OccupancyCalculator.getGridSize(1L << 40, 32);
+    }
+}
@@ -0,0 +1,142 @@
+package com.nvidia.grcuda.test.gpu;
+
+import com.nvidia.grcuda.gpu.PTXCache;
+import com.nvidia.grcuda.gpu.PTXKernel;
+import com.nvidia.grcuda.test.mock.NVRuntimeCompilerMock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PTXCacheTest {
+
+    private static final String ARCHITECTURE = "compute_70";
+    private static final String CODE = "extern \"C\" __global__ void square(float *x, int n) { x[threadIdx.x] *= x[threadIdx.x]; }";
+
+    private Path directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("grcuda_ptx_cache_test");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+        }
+    }
+
+    private long getNumCacheFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(f -> f.toString().endsWith(PTXCache.CACHE_FILE_EXTENSION)).count();
+        }
+    }
+
+    @Test
+    public void inMemoryCacheMockTest() {
+        NVRuntimeCompilerMock compiler = new NVRuntimeCompilerMock();
+        PTXCache cache = new PTXCache(compiler, ARCHITECTURE, directory, 1 << 20);
+        PTXKernel first = cache.getKernel(CODE, "square", "truffle1", "--std=c++14");
+        PTXKernel second = cache.getKernel(CODE, "square", "truffle2", "--std=c++14");
+        assertEquals(1, compiler.getNumCompilations());
+        assertEquals(1, cache.getNumMisses());
+        assertEquals(1, cache.getNumMemoryHits());
+        assertEquals(first.getPtxSource(), second.getPtxSource());
+        assertEquals(first.getLoweredKernelName(), second.getLoweredKernelName());
+    }
+
+    @Test
+    public void diskCacheMockTest() throws IOException {
+        NVRuntimeCompilerMock compiler = new NVRuntimeCompilerMock();
+        PTXKernel compiled = new PTXCache(compiler, ARCHITECTURE, directory, 1 << 20).getKernel(CODE, "square", "truffle1", "--std=c++14");
+        assertEquals(1, getNumCacheFiles());
+        // A new cache (e.g. in a new process) reads the kernel from disk, without compiling it;
+        PTXCache cache = new PTXCache(compiler, ARCHITECTURE, directory, 1 << 20);
+        PTXKernel cached = cache.getKernel(CODE, "square", "truffle1", "--std=c++14");
+        assertEquals(1, compiler.getNumCompilations());
+        assertEquals(1, cache.getNumDiskHits());
+        assertEquals(compiled.getPtxSource(), cached.getPtxSource());
+        assertEquals(compiled.getLoweredKernelName(), cached.getLoweredKernelName());
+        assertEquals("square", cached.getKernelName());
+    }
+
+    @Test
+    public void differentKeysAreCompiledMockTest() throws IOException {
+        NVRuntimeCompilerMock compiler = new NVRuntimeCompilerMock();
+        PTXCache cache = new PTXCache(compiler, ARCHITECTURE, directory, 1 << 20);
+        cache.getKernel(CODE, "square", "truffle1", "--std=c++14");
+        cache.getKernel(CODE + " ", "square", "truffle2", "--std=c++14");
+        cache.getKernel(CODE, "square", "truffle3", "--std=c++11");
+        cache.getKernel(CODE, "square", "truffle4");
+        new PTXCache(compiler, "compute_80", directory, 1 << 20).getKernel(CODE, "square", "truffle5", "--std=c++14");
+        assertEquals(5, compiler.getNumCompilations());
+        assertEquals(5, getNumCacheFiles());
+    }
+
+    @Test
+    public void architectureIsPassedToCompilerMockTest() {
+        NVRuntimeCompilerMock compiler = new NVRuntimeCompilerMock();
+        PTXKernel kernel = new PTXCache(compiler, ARCHITECTURE, directory, 1 << 20).getKernel(CODE, "square", "truffle1", "--std=c++14");
+        assertTrue(kernel.getPtxSource().contains("--gpu-architecture=" + ARCHITECTURE));
+    }
+
+    @Test
+    public void differentCompilerVersionsAreCompiledMockTest() throws IOException {
+        NVRuntimeCompilerMock compiler = new NVRuntimeCompilerMock();
+        new PTXCache(compiler, ARCHITECTURE, directory, 1 << 20).getKernel(CODE, "square", "truffle1", "--std=c++14");
+        // Kernels compiled by another version of NVRTC are not reused;
+        compiler.setVersion("11.2");
+        PTXCache cache = new PTXCache(compiler, ARCHITECTURE, directory, 1 << 20);
+        cache.getKernel(CODE, "square", "truffle2", "--std=c++14");
+        assertEquals(2, compiler.getNumCompilations());
+        assertEquals(0, cache.getNumDiskHits());
+    }
+
+    @Test
+    public void malformedCacheFileIsIgnoredMockTest() throws IOException {
+        NVRuntimeCompilerMock compiler = new NVRuntimeCompilerMock();
+        new PTXCache(compiler, ARCHITECTURE, directory, 1 << 20).getKernel(CODE, "square", "truffle1");
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path f : (Iterable<Path>) files::iterator) {
+                Files.write(f, new byte[0]);
+            }
+        }
+        PTXCache cache = new PTXCache(compiler, ARCHITECTURE, directory, 1 << 20);
+        PTXKernel kernel = cache.getKernel(CODE, "square", "truffle2");
+        assertEquals(2, compiler.getNumCompilations());
+        assertEquals(1, cache.getNumMisses());
+        assertTrue(kernel.getPtxSource().contains(CODE));
+    }
+
+    @Test
+    public void evictionMockTest() throws IOException {
+        NVRuntimeCompilerMock compiler = new NVRuntimeCompilerMock();
+        // Each kernel takes roughly 150 bytes, so only a few of them fit in the cache directory;
+        long maxSize = 600;
+        PTXCache cache = new PTXCache(compiler, ARCHITECTURE, directory, maxSize, 2);
+        for (int i = 0; i < 20; i++) {
+            cache.getKernel(CODE, "square" + i, "truffle" + i);
+        }
+        assertTrue(getNumCacheFiles() > 0);
+        long totalSize = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path f : (Iterable<Path>) files::iterator) {
+                totalSize += Files.size(f);
+            }
+        }
+        assertTrue(totalSize <= maxSize);
+        // The most recent kernel is still in memory, older ones are compiled again if evicted;
+        cache.getKernel(CODE, "square19", "truffle20");
+        assertEquals(1, cache.getNumMemoryHits());
+        assertEquals(20, compiler.getNumCompilations());
+    }
+}
@@ -0,0 +1,191 @@
+package com.nvidia.grcuda.test.gpu;
+
+import com.nvidia.grcuda.CUDAEvent;
+import com.nvidia.grcuda.GrCUDAException;
+import com.nvidia.grcuda.gpu.OffheapMemory;
+import com.nvidia.grcuda.gpu.PinnedStagingBufferPool;
+import com.nvidia.grcuda.gpu.UnsafeHelper;
+import com.nvidia.grcuda.gpu.stream.CUDAStream;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PinnedStagingBufferPoolTest {
+
+    private static final long CHUNK_SIZE = 1024;
+
+    /**
+     * Stand-in for the CUDA runtime, pinned and device memory are host memory.
+     * Asynchronous copies are deferred until an event recorded after them is synchronized,
+     * so a buffer overwritten before its transfer is completed results in wrong data;
+     */
+    private static class StagingRuntimeMock implements PinnedStagingBufferPool.StagingRuntime {
+        private final List<OffheapMemory> pinnedMemory = new ArrayList<>();
+        private final List<Runnable> pendingCopies = new ArrayList<>();
+        private final Map<CUDAEvent, Integer> recordedEvents = new HashMap<>();
+        private int numCompletedCopies = 0;
+        private int maxPendingCopies = 0;
+        private int numEvents = 0;
+        private int maxPinnedBuffers = Integer.MAX_VALUE;
+
+        @Override
+        public long allocatePinned(long numBytes) {
+            if (pinnedMemory.size() >= maxPinnedBuffers) {
+                throw new GrCUDAException("out of pinned memory");
+            }
+            OffheapMemory memory = new OffheapMemory(numBytes);
+            pinnedMemory.add(memory);
+            return memory.getPointer();
+        }
+
+        @Override
+        public void freePinned(long address) {
+            OffheapMemory memory = pinnedMemory.stream().filter(m -> m.getPointer() == address).findFirst().get();
+            pinnedMemory.remove(memory);
+            memory.close();
+        }
+
+        @Override
+        public void copyAsync(long destPointer, long fromPointer, long numBytes, CUDAStream stream) {
+            pendingCopies.add(() -> UnsafeHelper.copyMemory(fromPointer, destPointer, numBytes));
+            maxPendingCopies = Math.max(maxPendingCopies, pendingCopies.size());
+        }
+
+        @Override
+        public CUDAEvent createEvent() {
+            return new CUDAEvent(0x1000 + numEvents, numEvents++);
+        }
+
+        @Override
+        public void destroyEvent(CUDAEvent event) {
+            recordedEvents.remove(event);
+        }
+
+        @Override
+        public void recordEvent(CUDAEvent event, CUDAStream stream) {
+            // Events are identified by the number of copies issued before them;
+            recordedEvents.put(event, numCompletedCopies + pendingCopies.size());
+        }
+
+        @Override
+        public void synchronizeEvent(CUDAEvent event) {
+            int numCopies = recordedEvents.get(event);
+            while (numCompletedCopies < numCopies) {
+                pendingCopies.remove(0).run();
+                numCompletedCopies++;
+            }
+        }
+    }
+
+    private final StagingRuntimeMock runtime = new StagingRuntimeMock();
+    private final CUDAStream stream = new CUDAStream(0x42, 1);
+    private final List<OffheapMemory> memory = new ArrayList<>();
+
+    private long allocate(long numBytes) {
+        OffheapMemory m = new OffheapMemory(numBytes);
+        memory.add(m);
+        return m.getPointer();
+    }
+
+    private long allocateWithPattern(long numBytes) {
+        long address = allocate(numBytes);
+        for (long i = 0; i < numBytes; i++) {
+            UnsafeHelper.putByte(address + i, (byte) (i * 31 + i / CHUNK_SIZE));
+        }
+        return address;
+    }
+
+    private static void assertSameContent(long expected, long actual, long numBytes) {
+        for (long i = 0; i < numBytes; i++) {
+            assertEquals("byte " + i, UnsafeHelper.getByte(expected + i), UnsafeHelper.getByte(actual + i));
+        }
+    }
+
+    @After
+    public void freeMemory() {
+        memory.forEach(OffheapMemory::close);
+        runtime.pinnedMemory.forEach(OffheapMemory::close);
+    }
+
+    @Test
+    public void copyToDeviceTest() {
+        PinnedStagingBufferPool pool = new PinnedStagingBufferPool(runtime, 4, CHUNK_SIZE);
+        long numBytes = 10 * CHUNK_SIZE + 100;
+        long host = allocateWithPattern(numBytes);
+        long device = allocate(numBytes);
+        assertTrue(pool.copyToDevice(device, host, numBytes, stream));
+        assertSameContent(host, device, numBytes);
+        // The copy is completed, and the transfer of a chunk overlaps with packing the next one;
+        assertTrue(runtime.pendingCopies.isEmpty());
+        assertEquals(PinnedStagingBufferPool.BUFFERS_PER_COPY, runtime.maxPendingCopies);
+        assertEquals(11, pool.getNumStagedChunks());
+        assertEquals(PinnedStagingBufferPool.BUFFERS_PER_COPY, pool.getNumAllocatedBuffers());
+        assertEquals(PinnedStagingBufferPool.BUFFERS_PER_COPY, pool.getNumFreeBuffers());
+    }
+
+    @Test
+    public void copyToHostTest() {
+        PinnedStagingBufferPool pool = new PinnedStagingBufferPool(runtime, 4, CHUNK_SIZE);
+        long numBytes = 7 * CHUNK_SIZE + 1;
+        long device = allocateWithPattern(numBytes);
+        long host = allocate(numBytes);
+        assertTrue(pool.copyToHost(host, device, numBytes, stream));
+        assertSameContent(device, host, numBytes);
+        assertTrue(runtime.pendingCopies.isEmpty());
+        assertEquals(PinnedStagingBufferPool.BUFFERS_PER_COPY, runtime.maxPendingCopies);
+        assertEquals(8, pool.getNumStagedChunks());
+    }
+
+    @Test
+    public void buffersAreReusedTest() {
+        PinnedStagingBufferPool pool = new PinnedStagingBufferPool(runtime, 4, CHUNK_SIZE);
+        long numBytes = 3 * CHUNK_SIZE;
+        long host = allocateWithPattern(numBytes);
+        long device = allocate(numBytes);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(pool.copyToDevice(device, host, numBytes, stream));
+            assertTrue(pool.copyToHost(host, device, numBytes, stream));
+        }
+        assertEquals(10, pool.getNumStagedCopies());
+        assertEquals(PinnedStagingBufferPool.BUFFERS_PER_COPY, runtime.pinnedMemory.size());
+        pool.free();
+        assertEquals(0, pool.getNumAllocatedBuffers());
+        assertTrue(runtime.pinnedMemory.isEmpty());
+    }
+
+    @Test
+    public void singleBufferTest() {
+        // With a single buffer, chunks are still copied correctly, without overlap;
+        PinnedStagingBufferPool pool = new PinnedStagingBufferPool(runtime, 1, CHUNK_SIZE);
+        long numBytes = 5 * CHUNK_SIZE + 10;
+        long host = allocateWithPattern(numBytes);
+        long device = allocate(numBytes);
+        long result = allocate(numBytes);
+        assertTrue(pool.copyToDevice(device, host, numBytes, stream));
+        assertTrue(pool.copyToHost(result, device, numBytes, stream));
+        assertSameContent(host, result, numBytes);
+        assertEquals(1, runtime.maxPendingCopies);
+    }
+
+    @Test
+    public void noBuffersAvailableTest() {
+        // If pinned memory cannot be allocated, the copy is not staged, so the caller can copy directly;
+        runtime.maxPinnedBuffers = 0;
+        PinnedStagingBufferPool pool = new PinnedStagingBufferPool(runtime, 4, CHUNK_SIZE);
+        long host = allocateWithPattern(CHUNK_SIZE);
+        long device = allocate(CHUNK_SIZE);
+        assertFalse(pool.copyToDevice(device, host, CHUNK_SIZE, stream));
+        assertFalse(pool.copyToHost(host, device, CHUNK_SIZE, stream));
+        assertEquals(0, pool.getNumStagedCopies());
+        PinnedStagingBufferPool disabledPool = new PinnedStagingBufferPool(runtime, 0, CHUNK_SIZE);
+        assertFalse(disabledPool.copyToDevice(device, host, CHUNK_SIZE, stream));
+    }
+}
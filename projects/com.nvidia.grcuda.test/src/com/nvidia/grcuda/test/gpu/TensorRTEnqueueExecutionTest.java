@@ -0,0 +1,107 @@
+package com.nvidia.grcuda.test.gpu;
+
+import com.nvidia.grcuda.ComputationArgument;
+import com.nvidia.grcuda.GrCUDAException;
+import com.nvidia.grcuda.functions.Function;
+import com.nvidia.grcuda.gpu.computation.TensorRTEnqueueExecution;
+import com.nvidia.grcuda.gpu.computation.dependency.DependencyPolicyEnum;
+import com.nvidia.grcuda.gpu.executioncontext.ExecutionDAG;
+import com.nvidia.grcuda.gpu.executioncontext.GrCUDAExecutionContext;
+import com.nvidia.grcuda.test.mock.ArgumentMock;
+import com.nvidia.grcuda.test.mock.ArraySliceMock;
+import com.nvidia.grcuda.test.mock.GrCUDAExecutionContextMockBuilder;
+import com.nvidia.grcuda.test.mock.KernelExecutionMock;
+import com.oracle.truffle.api.interop.UnsupportedTypeException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TensorRTEnqueueExecutionTest {
+
+    /**
+     * Stand-in for the TensorRT "enqueue" function, it records the streams where inference is enqueued;
+     */
+    private static Function createEnqueue(List<Object> streams) {
+        return createEnqueue(streams, 1);
+    }
+
+    private static Function createEnqueue(List<Object> streams, int result) {
+        return new Function("enqueue") {
+            @Override
+            protected Object call(Object[] arguments) {
+                streams.add(arguments[3]);
+                return result;
+            }
+        };
+    }
+
+    private static Object enqueue(GrCUDAExecutionContext context, Function enqueue, int engine, ArraySliceMock input, ArraySliceMock output) throws UnsupportedTypeException {
+        return new TensorRTEnqueueExecution(context, enqueue, engine, 1, new Object[]{input, output},
+                new ComputationArgument.Kind[]{ComputationArgument.Kind.POINTER_IN, ComputationArgument.Kind.POINTER_OUT}) {
+            // Mock arrays are not attached to streams;
+            @Override
+            public void associateArraysToStreamImpl() { }
+        }.schedule();
+    }
+
+    @Test
+    public void inferenceIsScheduledOnDAGMockTest() throws UnsupportedTypeException {
+        GrCUDAExecutionContext context = new GrCUDAExecutionContextMockBuilder()
+                .setDependencyPolicy(DependencyPolicyEnum.WITH_CONST).build();
+        List<Object> streams = new ArrayList<>();
+        Function enqueue = createEnqueue(streams);
+        ArraySliceMock x1 = new ArraySliceMock(context, 10);
+        ArraySliceMock y1 = new ArraySliceMock(context, 10);
+        ArraySliceMock x2 = new ArraySliceMock(context, 10);
+        ArraySliceMock y2 = new ArraySliceMock(context, 10);
+        // preprocess(x1) -> enqueue(x1, y1) -> postprocess(y1);
+        new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(x1))).schedule();
+        assertEquals(true, enqueue(context, enqueue, 1, x1, y1));
+        new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(y1, true))).schedule();
+        // The preprocessing of the next batch does not wait for the inference of the previous one;
+        new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(x2))).schedule();
+
+        ExecutionDAG dag = context.getDag();
+        ExecutionDAG.DAGVertex inference1 = dag.getVertices().get(1);
+        assertEquals(Collections.singletonList(dag.getVertices().get(0)), inference1.getParentVertices());
+        assertEquals(Collections.singletonList(inference1), dag.getVertices().get(2).getParentVertices());
+        assertTrue(dag.getVertices().get(3).isStart());
+        // Inference is enqueued on the stream assigned by the runtime, the same of the preprocessing;
+        assertEquals(Collections.singletonList(inference1.getComputation().getStream().getRawPointer()), streams);
+        assertEquals(dag.getVertices().get(0).getComputation().getStream(), inference1.getComputation().getStream());
+
+        // Inference of the next batch waits for its preprocessing, and for the previous inference on the same engine;
+        enqueue(context, enqueue, 1, x2, y2);
+        ExecutionDAG.DAGVertex inference2 = dag.getVertices().get(4);
+        assertEquals(2, inference2.getParentVertices().size());
+        assertTrue(inference2.getParentVertices().containsAll(Arrays.asList(inference1, dag.getVertices().get(3))));
+    }
+
+    @Test
+    public void differentEnginesAreIndependentMockTest() throws UnsupportedTypeException {
+        GrCUDAExecutionContext context = new GrCUDAExecutionContextMockBuilder()
+                .setDependencyPolicy(DependencyPolicyEnum.WITH_CONST).build();
+        Function enqueue = createEnqueue(new ArrayList<>());
+        ArraySliceMock x = new ArraySliceMock(context, 10);
+        // Two engines that read the same input can run concurrently;
+        enqueue(context, enqueue, 1, x, new ArraySliceMock(context, 10));
+        enqueue(context, enqueue, 2, x, new ArraySliceMock(context, 10));
+        ExecutionDAG dag = context.getDag();
+        assertEquals(0, dag.getNumEdges());
+        assertTrue(dag.getVertices().get(1).isStart());
+    }
+
+    @Test(expected = GrCUDAException.class)
+    public void failedEnqueueRaisesExceptionMockTest() throws UnsupportedTypeException {
+        GrCUDAExecutionContext context = new GrCUDAExecutionContextMockBuilder().build();
+        // TensorRT returns 0 if the inference could not be enqueued;
+        Function enqueue = createEnqueue(new ArrayList<>(), 0);
+        enqueue(context, enqueue, 1, new ArraySliceMock(context, 10), new ArraySliceMock(context, 10));
+    }
+}
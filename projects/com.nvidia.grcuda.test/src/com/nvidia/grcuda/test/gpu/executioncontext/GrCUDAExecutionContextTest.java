@@ -329,4 +329,38 @@ public class GrCUDAExecutionContextTest {
             assertEquals(-4.93, resScalar, 0.01);
         }
     }
+
+    @Test
+    public void buildSameKernelTwiceTest() {
+
+        try (Context context = Context.newBuilder().option("grcuda.ExecutionPolicy", this.policy)
+                .option("grcuda.InputPrefetch", String.valueOf(this.inputPrefetch)).allowAllAccess(true).build()) {
+            final int numElements = 10;
+            final int numBlocks = (numElements + NUM_THREADS_PER_BLOCK - 1) / NUM_THREADS_PER_BLOCK;
+            Value deviceArrayConstructor = context.eval("grcuda", "DeviceArray");
+            Value x = deviceArrayConstructor.execute("float", numElements);
+            Value buildkernel = context.eval("grcuda", "buildkernel");
+            Value squareKernel = buildkernel.execute(SQUARE_KERNEL, "square", "pointer, sint32");
+            // Building the same kernel again returns the kernel that was already built;
+            Value squareKernel2 = buildkernel.execute(SQUARE_KERNEL, "square", "pointer, sint32");
+
+            for (int i = 0; i < numElements; ++i) {
+                x.setArrayElement(i, 2.0);
+            }
+            squareKernel.execute(numBlocks, NUM_THREADS_PER_BLOCK).execute(x, numElements);
+            assertEquals(1, squareKernel2.getMember("launchCount").asInt());
+
+            // The kernel is still usable until all its references are released;
+            squareKernel.invokeMember("free");
+            squareKernel2.execute(numBlocks, NUM_THREADS_PER_BLOCK).execute(x, numElements);
+            assertEquals(16.0, x.getArrayElement(1).asFloat(), 0.1);
+            squareKernel2.invokeMember("free");
+
+            // Once released, the kernel is built again from scratch;
+            Value squareKernel3 = buildkernel.execute(SQUARE_KERNEL, "square", "pointer, sint32");
+            assertEquals(0, squareKernel3.getMember("launchCount").asInt());
+            squareKernel3.execute(numBlocks, NUM_THREADS_PER_BLOCK).execute(x, numElements);
+            assertEquals(256.0, x.getArrayElement(1).asFloat(), 0.1);
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package com.nvidia.grcuda.test.gpu.executioncontext;
 
+import com.nvidia.grcuda.GrCUDAException;
 import com.nvidia.grcuda.gpu.executioncontext.ExecutionDAG;
 import com.nvidia.grcuda.test.mock.ArgumentMock;
 import com.nvidia.grcuda.test.mock.KernelExecutionMock;
@@ -7,13 +8,18 @@ import com.nvidia.grcuda.test.mock.MultithreadGrCUDAExecutionContextMock;
 import com.oracle.truffle.api.interop.UnsupportedTypeException;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class MultithreadGrCUDAExecutionContextTest {
 
@@ -153,4 +159,101 @@ public class MultithreadGrCUDAExecutionContextTest {
         assertEquals(0, dag.getFrontier().size());
     }
 
+    @Test
+    public void manyComputationsMockTest() throws UnsupportedTypeException {
+        MultithreadGrCUDAExecutionContextMock context = new MultithreadGrCUDAExecutionContextMock();
+        int numComputations = 40;
+        // A chain of dependent computations, interleaved with independent computations.
+        // There are more computations than threads, so threads must not be blocked while computations are running;
+        List<KernelExecutionMock> chain = new ArrayList<>();
+        List<KernelExecutionMock> independent = new ArrayList<>();
+        for (int i = 0; i < numComputations; i++) {
+            KernelExecutionMock k1 = new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(1)), 1);
+            k1.schedule();
+            chain.add(k1);
+            KernelExecutionMock k2 = new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(100 + i)), 1);
+            k2.schedule();
+            independent.add(k2);
+        }
+        ExecutionDAG dag = context.getDag();
+        assertEquals(2 * numComputations, dag.getNumVertices());
+        assertEquals(numComputations - 1, dag.getNumEdges());
+
+        // When the last computation of the chain is finished, all the previous ones are finished too;
+        context.waitFinish(chain.get(numComputations - 1));
+        for (KernelExecutionMock k : chain) {
+            assertTrue(k.isComputationFinished());
+        }
+        independent.forEach(context::waitFinish);
+        for (ExecutionDAG.DAGVertex v : dag.getVertices()) {
+            assertTrue(v.getComputation().isComputationFinished());
+            // Results are cleared once computations are finished;
+            assertNull(v.getResult());
+        }
+        assertEquals(0, dag.getFrontier().size());
+        assertFalse(context.isAnyComputationActive());
+    }
+
+    @Test
+    public void failedComputationFreesStreamMockTest() throws UnsupportedTypeException, InterruptedException {
+        MultithreadGrCUDAExecutionContextMock context = new MultithreadGrCUDAExecutionContextMock();
+        KernelExecutionMock failing = new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(1))) {
+            @Override
+            public Object execute() {
+                throw new GrCUDAException("simulated failure");
+            }
+        };
+        failing.schedule();
+        context.waitFinish(failing);
+        assertTrue(failing.isComputationFinished());
+        // The failed computation does not keep its stream active;
+        assertFalse(context.isAnyComputationActive());
+        // Computations scheduled after the failure are still executed;
+        KernelExecutionMock child = new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(1)));
+        child.schedule();
+        context.waitFinish(child);
+        assertTrue(child.isComputationFinished());
+        context.cleanup();
+        assertFalse(context.isAnyComputationActive());
+    }
+
+    @Test
+    public void childrenOfFailedComputationAreNotExecutedMockTest() throws UnsupportedTypeException {
+        MultithreadGrCUDAExecutionContextMock context = new MultithreadGrCUDAExecutionContextMock();
+        CountDownLatch childScheduled = new CountDownLatch(1);
+        GrCUDAException failure = new GrCUDAException("simulated failure");
+        KernelExecutionMock failing = new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(1))) {
+            @Override
+            public Object execute() {
+                try {
+                    childScheduled.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw failure;
+            }
+        };
+        failing.schedule();
+        // The child is scheduled while its parent is running, and it must not run on top of the failed parent;
+        KernelExecutionMock child = new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(1)));
+        child.schedule();
+        KernelExecutionMock grandChild = new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(1)));
+        grandChild.schedule();
+        childScheduled.countDown();
+        context.waitForComputation(grandChild);
+        assertTrue(failing.isComputationFinished());
+        for (KernelExecutionMock computation : Arrays.asList(child, grandChild)) {
+            assertTrue(computation.isComputationFinished());
+            assertFalse(computation.isComputationStarted());
+            assertEquals(failure, computation.getComputationException());
+            try {
+                computation.checkComputationException();
+                fail();
+            } catch (GrCUDAException e) {
+                assertEquals(failure, e);
+            }
+        }
+        assertFalse(context.isAnyComputationActive());
+        context.cleanup();
+    }
 }
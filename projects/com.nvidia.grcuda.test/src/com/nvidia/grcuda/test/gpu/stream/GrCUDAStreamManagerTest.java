@@ -20,6 +20,7 @@ import java.util.Collections;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(Parameterized.class)
 public class GrCUDAStreamManagerTest {
@@ -417,4 +418,99 @@ public class GrCUDAStreamManagerTest {
             assertEquals(0, dag.getVertices().get(0).getComputation().getStream().getStreamNumber());
         }
     }
+
+    @Test
+    public void eventPoolMockTest() throws UnsupportedTypeException {
+        GrCUDAExecutionContext context = new GrCUDAExecutionContextMockBuilder().setRetrieveNewStreamPolicy(this.policy).build();
+        GrCUDAStreamManagerMock streamManager = (GrCUDAStreamManagerMock) context.getStreamManager();
+        int numIterations = 100;
+        // Each iteration has 2 kernels active at the same time, then they are synchronized;
+        for (int i = 0; i < numIterations; i++) {
+            new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(1))).schedule();
+            new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(2))).schedule();
+            assertEquals(2, streamManager.getNumEventsInUse());
+            new SyncExecutionMock(context, Collections.singletonList(new ArgumentMock(1))).schedule();
+            new SyncExecutionMock(context, Collections.singletonList(new ArgumentMock(2))).schedule();
+            assertEquals(0, streamManager.getNumEventsInUse());
+        }
+        // Events are recycled instead of being created and destroyed for each kernel;
+        assertEquals(2, streamManager.getNumEventsCreated());
+        assertEquals(2, streamManager.getMaxNumEventsInUse());
+        assertEquals(2, streamManager.getNumFreeEvents());
+        assertEquals(0, streamManager.getNumEventsDestroyed());
+        // Finished computations are not associated to events anymore;
+        for (ExecutionDAG.DAGVertex v : context.getDag().getVertices()) {
+            assertFalse(v.getComputation().getEvent().isPresent());
+        }
+    }
+
+    @Test
+    public void cleanupDestroysActiveEventsMockTest() throws UnsupportedTypeException {
+        GrCUDAExecutionContext context = new GrCUDAExecutionContextMockBuilder().setRetrieveNewStreamPolicy(this.policy).build();
+        GrCUDAStreamManagerMock streamManager = (GrCUDAStreamManagerMock) context.getStreamManager();
+        new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(1))).schedule();
+        new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(2))).schedule();
+        new SyncExecutionMock(context, Collections.singletonList(new ArgumentMock(1))).schedule();
+        // One event is free, the other one is still used by an active computation;
+        assertEquals(1, streamManager.getNumEventsInUse());
+        streamManager.cleanup();
+        assertEquals(streamManager.getNumEventsCreated(), streamManager.getNumEventsDestroyed());
+        assertFalse(streamManager.isAnyComputationActive());
+    }
+
+    @Test
+    public void updateFinishedComputationsMockTest() throws UnsupportedTypeException {
+        GrCUDAExecutionContext context = new GrCUDAExecutionContextMockBuilder().setRetrieveNewStreamPolicy(this.policy).build();
+        GrCUDAStreamManagerMock streamManager = (GrCUDAStreamManagerMock) context.getStreamManager();
+
+        // A(1) -> B(1), C(2) -> D(2);
+        new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(1))).schedule();
+        new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(1))).schedule();
+        new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(2))).schedule();
+        new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(2))).schedule();
+        ExecutionDAG dag = context.getDag();
+        assertEquals(2, context.getStreamManager().getNumberOfStreams());
+
+        // Nothing is completed on the GPU, so nothing changes;
+        streamManager.updateFinishedComputations();
+        assertEquals(2, dag.getFrontier().size());
+
+        // B is completed, so A is also finished as it precedes B on the same stream. The stream is now free;
+        streamManager.setComputationCompletedOnDevice(dag.getVertices().get(1).getComputation());
+        streamManager.updateFinishedComputations();
+        assertTrue(dag.getVertices().get(0).getComputation().isComputationFinished());
+        assertTrue(dag.getVertices().get(1).getComputation().isComputationFinished());
+        assertFalse(dag.getVertices().get(2).getComputation().isComputationFinished());
+        assertTrue(streamManager.isStreamFree(dag.getVertices().get(1).getComputation().getStream()));
+        assertEquals(1, dag.getFrontier().size());
+
+        // C is completed, but D is not: the stream of C and D is still active.
+        //   Registrations poll finished computations only periodically, so poll them explicitly;
+        streamManager.setComputationCompletedOnDevice(dag.getVertices().get(2).getComputation());
+        streamManager.updateFinishedComputations();
+        // A new computation on argument 1 doesn't depend on B, as it is finished;
+        new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(1))).schedule();
+        assertTrue(dag.getVertices().get(4).isStart());
+        assertTrue(dag.getVertices().get(2).getComputation().isComputationFinished());
+        assertFalse(dag.getVertices().get(3).getComputation().isComputationFinished());
+        assertFalse(streamManager.isStreamFree(dag.getVertices().get(3).getComputation().getStream()));
+        if (this.policy == RetrieveNewStreamPolicyEnum.FIFO) {
+            // The free stream is reused;
+            assertEquals(2, context.getStreamManager().getNumberOfStreams());
+        }
+    }
+
+    @Test
+    public void pollingIsAmortizedMockTest() throws UnsupportedTypeException {
+        GrCUDAExecutionContext context = new GrCUDAExecutionContextMockBuilder().setRetrieveNewStreamPolicy(this.policy).build();
+        GrCUDAStreamManagerMock streamManager = (GrCUDAStreamManagerMock) context.getStreamManager();
+        int numComputations = 1000;
+        // Independent computations that are never completed, each one is on a different stream;
+        for (int i = 0; i < numComputations; i++) {
+            new KernelExecutionMock(context, Collections.singletonList(new ArgumentMock(i))).schedule();
+        }
+        assertEquals(numComputations, streamManager.getNumActiveStreams());
+        // Polling every registration would query each active stream, i.e. numComputations^2 / 2 queries;
+        assertTrue(streamManager.getNumEventQueries() < 4 * numComputations);
+    }
 }
@@ -0,0 +1,43 @@
+package com.nvidia.grcuda.test.mock;
+
+import com.nvidia.grcuda.array.AbstractArray;
+import com.nvidia.grcuda.gpu.computation.prefetch.DefaultArrayPrefetcher;
+import com.nvidia.grcuda.gpu.stream.CUDAStream;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prefetcher that records the arrays it would prefetch and advise, without calling the CUDA runtime;
+ */
+public class ArrayPrefetcherMock extends DefaultArrayPrefetcher {
+
+    private final List<AbstractArray> prefetchedArrays = new ArrayList<>();
+    private final List<AbstractArray> readMostlyArrays = new ArrayList<>();
+
+    public ArrayPrefetcherMock() {
+        super(null);
+    }
+
+    @Override
+    protected void prefetchArray(AbstractArray array, CUDAStream stream) {
+        prefetchedArrays.add(array);
+    }
+
+    @Override
+    protected void adviseReadMostly(AbstractArray array, boolean isReadMostly) {
+        if (isReadMostly) {
+            readMostlyArrays.add(array);
+        } else {
+            readMostlyArrays.remove(array);
+        }
+    }
+
+    public List<AbstractArray> getPrefetchedArrays() {
+        return prefetchedArrays;
+    }
+
+    public List<AbstractArray> getReadMostlyArrays() {
+        return readMostlyArrays;
+    }
+}
@@ -0,0 +1,71 @@
+package com.nvidia.grcuda.test.mock;
+
+import com.nvidia.grcuda.Type;
+import com.nvidia.grcuda.array.AbstractArray;
+import com.nvidia.grcuda.gpu.executioncontext.AbstractGrCUDAExecutionContext;
+
+/**
+ * Mock class to test dependencies between slices of the same array. It doesn't allocate any memory,
+ * and each element is a byte, so that indices of slices are also offsets in bytes;
+ */
+public class ArraySliceMock extends AbstractArray {
+
+    private final ArraySliceMock parentArray;
+    private final long fromIndex;
+    private final long toIndex;
+
+    public ArraySliceMock(AbstractGrCUDAExecutionContext grCUDAExecutionContext, long numElements) {
+        this(grCUDAExecutionContext, null, 0, numElements);
+    }
+
+    private ArraySliceMock(AbstractGrCUDAExecutionContext grCUDAExecutionContext, ArraySliceMock parentArray, long fromIndex, long toIndex) {
+        super(grCUDAExecutionContext, Type.CHAR);
+        this.parentArray = parentArray;
+        this.fromIndex = fromIndex;
+        this.toIndex = toIndex;
+    }
+
+    @Override
+    public ArraySliceMock slice(long fromIndex, long toIndex) {
+        return new ArraySliceMock(grCUDAExecutionContext, parentArray != null ? parentArray : this,
+                this.fromIndex + fromIndex, this.fromIndex + toIndex);
+    }
+
+    @Override
+    public AbstractArray getParentArray() {
+        return parentArray != null ? parentArray : this;
+    }
+
+    @Override
+    public long getParentRangeStartBytes() {
+        return fromIndex;
+    }
+
+    @Override
+    public long getParentRangeEndBytes() {
+        return toIndex;
+    }
+
+    @Override
+    public long getPointer() {
+        return 0;
+    }
+
+    @Override
+    public long getSizeBytes() {
+        return toIndex - fromIndex;
+    }
+
+    @Override
+    public void freeMemory() { }
+
+    @Override
+    public long getArraySize() {
+        return toIndex - fromIndex;
+    }
+
+    @Override
+    public String toString() {
+        return "array mock [" + fromIndex + ", " + toIndex + ")";
+    }
+}
@@ -0,0 +1,56 @@
+package com.nvidia.grcuda.test.mock;
+
+import com.nvidia.grcuda.GrCUDAException;
+import com.nvidia.grcuda.functions.Function;
+import com.nvidia.grcuda.gpu.computation.CUDALibrary;
+import com.nvidia.grcuda.gpu.stream.CUDAStream;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mock of an external CUDA library: it provides library functions that do nothing and return a success code,
+ * and keeps track of the handles they receive. The handle of a stream is the number of the stream;
+ */
+public class CUDALibraryMock implements CUDALibrary {
+
+    private final List<Object> handles = new ArrayList<>();
+    private int numCalls = 0;
+
+    @Override
+    public Object getHandle(CUDAStream stream) {
+        return stream.getStreamNumber();
+    }
+
+    @Override
+    public void checkReturnCode(Object result, String functionName) {
+        if (!Integer.valueOf(0).equals(result)) {
+            throw new GrCUDAException("unexpected return code " + result + " in " + functionName);
+        }
+    }
+
+    /**
+     * Create a library function that does nothing, to be called by {@link com.nvidia.grcuda.gpu.computation.CUDALibraryExecution};
+     */
+    public Function createFunction(String name) {
+        return new Function(name) {
+            @Override
+            protected Object call(Object[] arguments) {
+                numCalls++;
+                handles.add(arguments[0]);
+                return 0;
+            }
+        };
+    }
+
+    /**
+     * @return the handles received by the library functions, in the order of the calls
+     */
+    public List<Object> getHandles() {
+        return handles;
+    }
+
+    public int getNumCalls() {
+        return numCalls;
+    }
+}
@@ -1,5 +1,6 @@
 package com.nvidia.grcuda.test.mock;
 
+import com.nvidia.grcuda.gpu.Kernel;
 import com.nvidia.grcuda.gpu.computation.ArrayStreamArchitecturePolicy;
 import com.nvidia.grcuda.gpu.computation.PrePascalArrayStreamAssociation;
 import com.nvidia.grcuda.gpu.computation.dependency.DependencyPolicyEnum;
@@ -13,6 +14,8 @@ import com.nvidia.grcuda.gpu.stream.RetrieveParentStreamPolicyEnum;
  */
 public class GrCUDAExecutionContextMock extends GrCUDAExecutionContext {
 
+    private int numKernelsBuilt = 0;
+
     public GrCUDAExecutionContextMock() {
         super(null, null,
                 new GrCUDAStreamManagerMock(null), DependencyPolicyEnum.DEFAULT, PrefetcherEnum.NONE);
@@ -30,6 +33,27 @@ public class GrCUDAExecutionContextMock extends GrCUDAExecutionContext {
                 new GrCUDAStreamManagerMock(null, retrieveStreamPolicy, parentStreamPolicyEnum), dependencyPolicy, PrefetcherEnum.NONE);
     }
 
+    public GrCUDAExecutionContextMock(DependencyPolicyEnum dependencyPolicy,
+                                      RetrieveNewStreamPolicyEnum retrieveStreamPolicy,
+                                      RetrieveParentStreamPolicyEnum parentStreamPolicyEnum,
+                                      int dagRetentionWindow) {
+        super(null, null,
+                new GrCUDAStreamManagerMock(null, retrieveStreamPolicy, parentStreamPolicyEnum), dependencyPolicy, PrefetcherEnum.NONE, dagRetentionWindow);
+    }
+
+    /**
+     * Kernels are not compiled, and they don't belong to any module;
+     */
+    @Override
+    protected Kernel buildNewKernel(String code, String kernelName, String signature) {
+        numKernelsBuilt++;
+        return new Kernel(this, kernelName, kernelName, 0, signature, null, code);
+    }
+
+    public int getNumKernelsBuilt() {
+        return numKernelsBuilt;
+    }
+
     public ArrayStreamArchitecturePolicy getArrayStreamArchitecturePolicy() {
         return new PrePascalArrayStreamAssociation();
     }
@@ -2,6 +2,7 @@ package com.nvidia.grcuda.test.mock;
 
 import com.nvidia.grcuda.gpu.computation.dependency.DependencyPolicyEnum;
 import com.nvidia.grcuda.gpu.computation.prefetch.PrefetcherEnum;
+import com.nvidia.grcuda.gpu.executioncontext.ExecutionDAG;
 import com.nvidia.grcuda.gpu.stream.RetrieveNewStreamPolicyEnum;
 import com.nvidia.grcuda.gpu.stream.RetrieveParentStreamPolicyEnum;
 
@@ -10,9 +11,10 @@ public class GrCUDAExecutionContextMockBuilder {
     DependencyPolicyEnum dependencyPolicy = DependencyPolicyEnum.DEFAULT;
     RetrieveNewStreamPolicyEnum retrieveStreamPolicy = RetrieveNewStreamPolicyEnum.FIFO;
     RetrieveParentStreamPolicyEnum parentStreamPolicyEnum = RetrieveParentStreamPolicyEnum.DEFAULT;
+    int dagRetentionWindow = ExecutionDAG.KEEP_ALL_VERTICES;
 
     public GrCUDAExecutionContextMock build() {
-        return new GrCUDAExecutionContextMock(dependencyPolicy, retrieveStreamPolicy, parentStreamPolicyEnum);
+        return new GrCUDAExecutionContextMock(dependencyPolicy, retrieveStreamPolicy, parentStreamPolicyEnum, dagRetentionWindow);
     }
 
     public GrCUDAExecutionContextMockBuilder setDependencyPolicy(DependencyPolicyEnum dependencyPolicy) {
@@ -29,4 +31,9 @@ public class GrCUDAExecutionContextMockBuilder {
         this.parentStreamPolicyEnum = retrieveStreamPolicy;
         return this;
     }
+
+    public GrCUDAExecutionContextMockBuilder setDAGRetentionWindow(int dagRetentionWindow) {
+        this.dagRetentionWindow = dagRetentionWindow;
+        return this;
+    }
 }
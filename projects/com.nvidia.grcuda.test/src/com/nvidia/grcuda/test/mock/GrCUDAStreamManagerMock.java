@@ -10,6 +10,7 @@ import com.nvidia.grcuda.gpu.stream.RetrieveNewStreamPolicyEnum;
 import com.nvidia.grcuda.gpu.stream.RetrieveParentStreamPolicyEnum;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -42,17 +43,87 @@ public class GrCUDAStreamManagerMock extends GrCUDAStreamManager {
         return newStream;
     }
 
+    int numEventsCreated = 0;
+    int numEventsDestroyed = 0;
+    int numEventQueries = 0;
+
     @Override
-    public void assignEvent(ExecutionDAG.DAGVertex vertex) { }
+    protected CUDAEvent createEvent() {
+        return new CUDAEvent(0, numEventsCreated++);
+    }
+
+    /**
+     * Events whose computations have been completed by the (simulated) GPU;
+     */
+    final Set<CUDAEvent> completedEvents = new HashSet<>();
+
+    /**
+     * If true, computations are considered completed by the GPU as soon as their event is recorded,
+     * e.g. if the computation mocks simulate their execution time synchronously;
+     */
+    boolean completeEventsOnRecord = false;
+
+    GrCUDAStreamManagerMock setCompleteEventsOnRecord(boolean completeEventsOnRecord) {
+        this.completeEventsOnRecord = completeEventsOnRecord;
+        return this;
+    }
 
     @Override
-    public void syncStream(CUDAStream stream) { }
+    protected void recordEvent(CUDAEvent event, CUDAStream stream) {
+        if (completeEventsOnRecord) {
+            completedEvents.add(event);
+        } else {
+            completedEvents.remove(event);
+        }
+    }
+
+    @Override
+    protected boolean isEventCompleted(CUDAEvent event) {
+        numEventQueries++;
+        return completedEvents.contains(event);
+    }
+
+    /**
+     * Simulate the completion of a computation on the GPU, without informing the stream manager.
+     * Computations scheduled before it on the same stream are also completed;
+     * @param computation a computation associated to an event
+     */
+    public void setComputationCompletedOnDevice(GrCUDAComputationalElement computation) {
+        for (ExecutionDAG.DAGVertex v : this.activeComputationsPerStream.get(computation.getStream())) {
+            v.getComputation().getEvent().ifPresent(completedEvents::add);
+            if (v.getComputation() == computation) {
+                break;
+            }
+        }
+    }
 
+    /**
+     * Synchronizing an event completes its computation, and the ones that precede it on the same stream;
+     */
     @Override
-    protected void setComputationFinishedInner(GrCUDAComputationalElement computation) {
-        computation.setComputationFinished();
+    protected void syncEvent(CUDAEvent event) {
+        for (Set<ExecutionDAG.DAGVertex> computations : this.activeComputationsPerStream.values()) {
+            for (ExecutionDAG.DAGVertex v : computations) {
+                if (v.getComputation().getEvent().equals(Optional.of(event))) {
+                    setComputationCompletedOnDevice(v.getComputation());
+                    return;
+                }
+            }
+        }
     }
 
+    @Override
+    protected void destroyEvent(CUDAEvent event) {
+        event.setDead();
+        numEventsDestroyed++;
+    }
+
+    @Override
+    protected void destroyStream(CUDAStream stream) { }
+
+    @Override
+    public void syncStream(CUDAStream stream) { }
+
     @Override
     protected void syncStreamsUsingEvents(ExecutionDAG.DAGVertex vertex) { }
 
@@ -61,6 +132,10 @@ public class GrCUDAStreamManagerMock extends GrCUDAStreamManager {
 
     public List<CUDAStream> getStreams() { return this.streams; }
 
+    public int getNumEventsDestroyed() { return this.numEventsDestroyed; }
+
+    public int getNumEventQueries() { return this.numEventQueries; }
+
     public Map<CUDAStream, Set<GrCUDAComputationalElement>> getActiveComputationsMap() {
         Map<CUDAStream, Set<GrCUDAComputationalElement>> activeComputations = new HashMap<>();
         for (Map.Entry<CUDAStream, Set<ExecutionDAG.DAGVertex>> e : this.activeComputationsPerStream.entrySet()) {
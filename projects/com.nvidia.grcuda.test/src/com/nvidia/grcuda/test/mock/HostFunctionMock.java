@@ -0,0 +1,32 @@
+package com.nvidia.grcuda.test.mock;
+
+import com.nvidia.grcuda.FunctionBinding;
+import com.nvidia.grcuda.Type;
+import com.nvidia.grcuda.functions.HostFunction;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Host function bound to a given callable instead of a symbol of the CUDA runtime;
+ */
+public class HostFunctionMock extends HostFunction {
+
+    private final Object callable;
+    private final AtomicInteger numResolutions = new AtomicInteger(0);
+
+    public HostFunctionMock(String name, Object callable) {
+        super(FunctionBinding.newCBinding(name, new ArrayList<>(), Type.SINT32), null);
+        this.callable = callable;
+    }
+
+    @Override
+    protected Object resolveCallable() {
+        numResolutions.incrementAndGet();
+        return callable;
+    }
+
+    public int getNumResolutions() {
+        return numResolutions.get();
+    }
+}
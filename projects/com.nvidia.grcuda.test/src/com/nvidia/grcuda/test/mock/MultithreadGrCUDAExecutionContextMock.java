@@ -9,7 +9,6 @@ import com.nvidia.grcuda.gpu.executioncontext.MultithreadGrCUDAExecutionContext;
 import com.nvidia.grcuda.gpu.stream.RetrieveNewStreamPolicyEnum;
 import com.nvidia.grcuda.gpu.stream.RetrieveParentStreamPolicyEnum;
 
-import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
@@ -22,19 +21,19 @@ public class MultithreadGrCUDAExecutionContextMock extends MultithreadGrCUDAExec
 
     public MultithreadGrCUDAExecutionContextMock() {
         super(null, new GrCUDAThreadManagerMock(THREAD_NUM),
-                new GrCUDAStreamManagerMock(null), DependencyPolicyEnum.DEFAULT);
+                new GrCUDAStreamManagerMock(null).setCompleteEventsOnRecord(true), DependencyPolicyEnum.DEFAULT);
     }
 
     public MultithreadGrCUDAExecutionContextMock(DependencyPolicyEnum dependencyPolicy) {
         super(null, new GrCUDAThreadManagerMock(THREAD_NUM),
-                new GrCUDAStreamManagerMock(null), dependencyPolicy);
+                new GrCUDAStreamManagerMock(null).setCompleteEventsOnRecord(true), dependencyPolicy);
     }
 
     public MultithreadGrCUDAExecutionContextMock(DependencyPolicyEnum dependencyPolicy,
                                                  RetrieveNewStreamPolicyEnum retrieveStreamPolicy,
                                                  RetrieveParentStreamPolicyEnum parentStreamPolicyEnum) {
         super(null, new GrCUDAThreadManagerMock(THREAD_NUM),
-                new GrCUDAStreamManagerMock(null, retrieveStreamPolicy, parentStreamPolicyEnum), dependencyPolicy);
+                new GrCUDAStreamManagerMock(null, retrieveStreamPolicy, parentStreamPolicyEnum).setCompleteEventsOnRecord(true), dependencyPolicy);
     }
 
     public ArrayStreamArchitecturePolicy getArrayStreamArchitecturePolicy() {
@@ -44,31 +43,23 @@ public class MultithreadGrCUDAExecutionContextMock extends MultithreadGrCUDAExec
     // Used to wait the end of a specific computation;
     public void waitFinish(GrCUDAComputationalElement computation) {
         System.out.println("-- forcing wait of " + computation);
-        for (Map.Entry<ExecutionDAG.DAGVertex, CompletableFuture<Object>> entry : activeComputations.entrySet()) {
-            if (entry.getKey().getComputation().equals(computation)) {
-                try {
-                    CompletableFuture<Object> task = entry.getValue();
-                    task.get();
-                } catch (InterruptedException | ExecutionException e) {
-                    System.out.println("failed to wait for computation " + computation + " to finish");
-                    e.printStackTrace();
+        for (ExecutionDAG.DAGVertex vertex : dag.getVertices()) {
+            if (vertex.getComputation().equals(computation)) {
+                // The result is cleared once the computation is finished;
+                CompletableFuture<Object> task = vertex.getResult();
+                if (task != null) {
+                    try {
+                        task.get();
+                    } catch (InterruptedException | ExecutionException e) {
+                        System.out.println("failed to wait for computation " + computation + " to finish");
+                        e.printStackTrace();
+                    }
                 }
             }
         }
     }
 
+    // Don't do anything;
     @Override
-    protected ComputationThread getNewComputationThread(ExecutionDAG.DAGVertex vertex) {
-        return new ComputationThreadMock(vertex);
-    }
-
-    protected class ComputationThreadMock extends ComputationThread {
-
-        public ComputationThreadMock(ExecutionDAG.DAGVertex vertex) {
-            super(vertex);
-        }
-
-        // Don't do anything;
-        protected void setContext() { }
-    }
+    protected void setContext() { }
 }
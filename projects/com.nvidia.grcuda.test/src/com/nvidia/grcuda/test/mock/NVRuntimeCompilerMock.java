@@ -0,0 +1,38 @@
+package com.nvidia.grcuda.test.mock;
+
+import com.nvidia.grcuda.gpu.NVRuntimeCompiler;
+import com.nvidia.grcuda.gpu.PTXKernel;
+
+/**
+ * Stub of the NVRTC compiler that does not require a GPU: "compiled" kernels contain a fake PTX
+ * derived from the source code, and we keep track of how many compilations are performed;
+ */
+public class NVRuntimeCompilerMock extends NVRuntimeCompiler {
+
+    private int numCompilations = 0;
+    private String version = "11.0";
+
+    public NVRuntimeCompilerMock() {
+        super(null);
+    }
+
+    @Override
+    public PTXKernel compileKernel(String code, String kernelName, String moduleName, String... compileOpts) {
+        numCompilations++;
+        return new PTXKernel("// PTX of " + kernelName + "\n" + code + "\n" + String.join(" ", compileOpts),
+                kernelName, "_Z" + kernelName.length() + kernelName + "v");
+    }
+
+    @Override
+    public String nvrtcVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    public int getNumCompilations() {
+        return numCompilations;
+    }
+}
@@ -0,0 +1,152 @@
+package com.nvidia.grcuda;
+
+import com.nvidia.grcuda.gpu.computation.GrCUDAComputationalElement;
+import com.nvidia.grcuda.gpu.executioncontext.AbstractGrCUDAExecutionContext;
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Cached.Shared;
+import com.oracle.truffle.api.interop.ArityException;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.interop.UnknownIdentifierException;
+import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.oracle.truffle.api.interop.UnsupportedTypeException;
+import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.library.ExportLibrary;
+import com.oracle.truffle.api.library.ExportMessage;
+import com.oracle.truffle.api.profiles.ValueProfile;
+
+/**
+ * Handle returned by asynchronous operations, e.g. {@link com.nvidia.grcuda.gpu.computation.ArrayCopyAsyncExecution}.
+ * It allows the guest language to check if the underlying computation is completed, or to wait for its completion,
+ * without synchronizing the whole device;
+ */
+@ExportLibrary(InteropLibrary.class)
+public final class CompletionHandle implements TruffleObject {
+
+    private static final String WAIT = "wait";
+    private static final String IS_DONE = "isDone";
+
+    private static final MemberSet MEMBERS = new MemberSet(WAIT, IS_DONE);
+
+    private final AbstractGrCUDAExecutionContext grCUDAExecutionContext;
+    private final GrCUDAComputationalElement computation;
+
+    public CompletionHandle(AbstractGrCUDAExecutionContext grCUDAExecutionContext, GrCUDAComputationalElement computation) {
+        this.grCUDAExecutionContext = grCUDAExecutionContext;
+        this.computation = computation;
+    }
+
+    public GrCUDAComputationalElement getComputation() {
+        return computation;
+    }
+
+    /**
+     * Block the host until the computation is completed. If the computation, or a computation it depends on, failed,
+     * its exception is raised;
+     */
+    @TruffleBoundary
+    public void waitForCompletion() {
+        grCUDAExecutionContext.waitForComputation(computation);
+        computation.checkComputationException();
+    }
+
+    /**
+     * Check, without blocking, if the computation is completed;
+     */
+    @TruffleBoundary
+    public boolean isDone() {
+        return grCUDAExecutionContext.isComputationCompleted(computation);
+    }
+
+    @Override
+    public String toString() {
+        return "CompletionHandle(" + computation + ")";
+    }
+
+    @ExportMessage
+    @SuppressWarnings("static-method")
+    boolean hasMembers() {
+        return true;
+    }
+
+    @ExportMessage
+    @SuppressWarnings("static-method")
+    Object getMembers(@SuppressWarnings("unused") boolean includeInternal) {
+        return MEMBERS;
+    }
+
+    @ExportMessage(name = "isMemberReadable")
+    @ExportMessage(name = "isMemberInvocable")
+    @SuppressWarnings("static-method")
+    boolean isMemberExisting(String memberName,
+                    @Shared("memberName") @Cached("createIdentityProfile()") ValueProfile memberProfile) {
+        String name = memberProfile.profile(memberName);
+        return WAIT.equals(name) || IS_DONE.equals(name);
+    }
+
+    @ExportMessage
+    Object readMember(String memberName,
+                    @Shared("memberName") @Cached("createIdentityProfile()") ValueProfile memberProfile) throws UnknownIdentifierException {
+        String name = memberProfile.profile(memberName);
+        if (WAIT.equals(name)) {
+            return new CompletionHandleWaitFunction();
+        } else if (IS_DONE.equals(name)) {
+            return new CompletionHandleIsDoneFunction();
+        }
+        CompilerDirectives.transferToInterpreter();
+        throw UnknownIdentifierException.create(memberName);
+    }
+
+    @ExportMessage
+    Object invokeMember(String memberName,
+                    Object[] arguments,
+                    @CachedLibrary("this") InteropLibrary interopRead,
+                    @CachedLibrary(limit = "1") InteropLibrary interopExecute)
+                    throws UnsupportedTypeException, ArityException, UnsupportedMessageException, UnknownIdentifierException {
+        return interopExecute.execute(interopRead.readMember(this, memberName), arguments);
+    }
+
+    @ExportMessage
+    Object toDisplayString(@SuppressWarnings("unused") boolean allowSideEffect) {
+        return this.toString();
+    }
+
+    @ExportLibrary(InteropLibrary.class)
+    final class CompletionHandleWaitFunction implements TruffleObject {
+        @ExportMessage
+        @SuppressWarnings("static-method")
+        boolean isExecutable() {
+            return true;
+        }
+
+        @ExportMessage
+        Object execute(Object[] arguments) throws ArityException {
+            if (arguments.length != 0) {
+                CompilerDirectives.transferToInterpreter();
+                throw ArityException.create(0, arguments.length);
+            }
+            waitForCompletion();
+            return NoneValue.get();
+        }
+    }
+
+    @ExportLibrary(InteropLibrary.class)
+    final class CompletionHandleIsDoneFunction implements TruffleObject {
+        @ExportMessage
+        @SuppressWarnings("static-method")
+        boolean isExecutable() {
+            return true;
+        }
+
+        @ExportMessage
+        Object execute(Object[] arguments) throws ArityException {
+            if (arguments.length != 0) {
+                CompilerDirectives.transferToInterpreter();
+                throw ArityException.create(0, arguments.length);
+            }
+            return isDone();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.nvidia.grcuda;
 
+import com.nvidia.grcuda.array.AbstractArray;
 import com.nvidia.grcuda.gpu.computation.GrCUDAComputationalElement;
 
 import java.util.Objects;
@@ -25,6 +26,42 @@ public class ComputationArgumentWithValue extends ComputationArgument {
 
     public Object getArgumentValue() { return this.argumentValue; }
 
+    /**
+     * Arguments that can refer to the same memory have the same key, e.g. slices and views of the same array;
+     * @return the parent array for array arguments, and the argument value otherwise
+     */
+    public Object getDependencyKey() {
+        if (argumentValue instanceof AbstractArray) {
+            return ((AbstractArray) argumentValue).getParentArray();
+        }
+        return argumentValue;
+    }
+
+    /**
+     * Check if this argument and another argument can refer to the same memory,
+     * e.g. if they are the same array or overlapping slices of the same array;
+     * @param other another argument
+     * @return if a computation on this argument can conflict with a computation on the other argument
+     */
+    public boolean overlaps(ComputationArgumentWithValue other) {
+        if (argumentValue instanceof AbstractArray && other.argumentValue instanceof AbstractArray) {
+            return ((AbstractArray) argumentValue).overlaps((AbstractArray) other.argumentValue);
+        }
+        return this.equals(other);
+    }
+
+    /**
+     * Check if this argument refers to all the memory that another argument refers to;
+     * @param other another argument
+     * @return if a computation on this argument supersedes a computation on the other argument
+     */
+    public boolean covers(ComputationArgumentWithValue other) {
+        if (argumentValue instanceof AbstractArray && other.argumentValue instanceof AbstractArray) {
+            return ((AbstractArray) argumentValue).covers((AbstractArray) other.argumentValue);
+        }
+        return this.equals(other);
+    }
+
     @Override
     public String toString() {
         return "ComputationArgumentWithValue(" +
@@ -37,6 +37,7 @@ import com.nvidia.grcuda.functions.BuildKernelFunction;
 import com.nvidia.grcuda.functions.DeviceArrayFunction;
 import com.nvidia.grcuda.functions.GetDeviceFunction;
 import com.nvidia.grcuda.functions.GetDevicesFunction;
+import com.nvidia.grcuda.functions.LoadArrayFunction;
 import com.nvidia.grcuda.functions.map.MapFunction;
 import com.nvidia.grcuda.functions.map.ShredFunction;
 import com.nvidia.grcuda.gpu.CUDARuntime;
@@ -45,6 +46,7 @@ import com.nvidia.grcuda.gpu.computation.prefetch.PrefetcherEnum;
 import com.nvidia.grcuda.gpu.executioncontext.AbstractGrCUDAExecutionContext;
 import com.nvidia.grcuda.gpu.executioncontext.ExecutionPolicyEnum;
 import com.nvidia.grcuda.gpu.executioncontext.GrCUDAExecutionContext;
+import com.nvidia.grcuda.gpu.executioncontext.MultithreadGrCUDAExecutionContext;
 import com.nvidia.grcuda.gpu.executioncontext.SyncGrCUDAExecutionContext;
 import com.nvidia.grcuda.gpu.stream.RetrieveNewStreamPolicyEnum;
 import com.nvidia.grcuda.gpu.stream.RetrieveParentStreamPolicyEnum;
@@ -69,6 +71,17 @@ public final class GrCUDAContext {
     public static final RetrieveNewStreamPolicyEnum DEFAULT_RETRIEVE_STREAM_POLICY = RetrieveNewStreamPolicyEnum.FIFO;
     public static final RetrieveParentStreamPolicyEnum DEFAULT_PARENT_STREAM_POLICY = RetrieveParentStreamPolicyEnum.DEFAULT;
     public static final boolean DEFAULT_FORCE_STREAM_ATTACH = false;
+    public static final int DEFAULT_DAG_RETENTION_WINDOW = 1024;
+    public static final boolean DEFAULT_PTX_CACHE_ENABLED = false;
+    public static final int DEFAULT_PTX_CACHE_MAX_SIZE_MB = 256;
+    public static final String DEFAULT_PTX_CACHE_DIRECTORY = System.getProperty("user.home") + "/.grcuda/ptx_cache";
+    public static final boolean DEFAULT_MEMORY_POOL_ENABLED = false;
+    public static final int DEFAULT_MEMORY_POOL_MAX_CACHED_MB = 1024;
+    public static final int DEFAULT_STAGING_BUFFER_POOL_SIZE = 4;
+    public static final int DEFAULT_STAGING_BUFFER_CHUNK_SIZE_KB = 4096;
+    public static final boolean DEFAULT_KERNEL_AUTOTUNING_ENABLED = false;
+    public static final int DEFAULT_KERNEL_AUTOTUNING_REEXPLORATION_PERIOD = 1000;
+    public static final String DEFAULT_KERNEL_AUTOTUNING_FILE = System.getProperty("user.home") + "/.grcuda/kernel_tuning.tsv";
 
     private static final String ROOT_NAMESPACE = "CU";
 
@@ -82,6 +95,7 @@ public final class GrCUDAContext {
     private final RetrieveParentStreamPolicyEnum retrieveParentStreamPolicyEnum;
     private final boolean forceStreamAttach;
     private final boolean inputPrefetch;
+    private final int dagRetentionWindow;
 
     // this is used to look up pre-existing call targets for "map" operations, see MapArrayNode
     private final ConcurrentHashMap<Class<?>, CallTarget> uncachedMapCallTargets = new ConcurrentHashMap<>();
@@ -95,6 +109,9 @@ public final class GrCUDAContext {
         // Retrieve if we should prefetch input data to GPU;
         inputPrefetch = env.getOptions().get(GrCUDAOptions.InputPrefetch);
 
+        // Retrieve how many finished computations are kept in the execution DAG;
+        dagRetentionWindow = env.getOptions().get(GrCUDAOptions.ExecutionDAGRetentionWindow);
+
         // Retrieve the stream retrieval policy;
         retrieveNewStreamPolicy = parseRetrieveStreamPolicy(env.getOptions().get(GrCUDAOptions.RetrieveNewStreamPolicy));
         
@@ -116,6 +133,9 @@ public final class GrCUDAContext {
             case DEFAULT:
                 this.grCUDAExecutionContext = new GrCUDAExecutionContext(this, env ,dependencyPolicy, inputPrefetch ? PrefetcherEnum.DEFAULT : PrefetcherEnum.NONE);
                 break;
+            case MULTITHREAD:
+                this.grCUDAExecutionContext = new MultithreadGrCUDAExecutionContext(this, env, dependencyPolicy);
+                break;
             default:
                 this.grCUDAExecutionContext = new GrCUDAExecutionContext(this, env, dependencyPolicy, inputPrefetch ? PrefetcherEnum.DEFAULT : PrefetcherEnum.NONE);
         }
@@ -124,6 +144,7 @@ public final class GrCUDAContext {
         namespace.addNamespace(namespace);
         namespace.addFunction(new BindFunction());
         namespace.addFunction(new DeviceArrayFunction(this.grCUDAExecutionContext));
+        namespace.addFunction(new LoadArrayFunction(this.grCUDAExecutionContext));
         namespace.addFunction(new BindAllFunction(this));
         namespace.addFunction(new MapFunction());
         namespace.addFunction(new ShredFunction());
@@ -204,6 +225,10 @@ public final class GrCUDAContext {
         return forceStreamAttach;
     }
 
+    public int getDAGRetentionWindow() {
+        return dagRetentionWindow;
+    }
+
     /**
      * Compute the maximum number of concurrent threads that can be spawned by GrCUDA.
      * This value is usually smaller or equal than the number of logical CPU threads available on the machine.
@@ -225,6 +250,8 @@ public final class GrCUDAContext {
                 return ExecutionPolicyEnum.SYNC;
             case "default":
                 return ExecutionPolicyEnum.DEFAULT;
+            case "multithread":
+                return ExecutionPolicyEnum.MULTITHREAD;
             default:
                 System.out.println("Warning: unknown execution policy=" + policyString + "; using default=" + GrCUDAContext.DEFAULT_EXECUTION_POLICY);
                 return GrCUDAContext.DEFAULT_EXECUTION_POLICY;
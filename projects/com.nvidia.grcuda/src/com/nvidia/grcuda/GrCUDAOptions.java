@@ -73,6 +73,39 @@ public final class GrCUDAOptions {
     @Option(category = OptionCategory.USER, help = "Always prefetch input arrays to GPU if possible (e.g. post-Pascal GPUs)", stability = OptionStability.EXPERIMENTAL) //
     public static final OptionKey<Boolean> InputPrefetch = new OptionKey<>(false);
 
+    @Option(category = OptionCategory.USER, help = "Number of finished computations kept in the execution DAG, older ones are retired. If negative, keep all of them", stability = OptionStability.EXPERIMENTAL) //
+    public static final OptionKey<Integer> ExecutionDAGRetentionWindow = new OptionKey<>(GrCUDAContext.DEFAULT_DAG_RETENTION_WINDOW);
+
+    @Option(category = OptionCategory.USER, help = "Cache kernels compiled with NVRTC on disk, and reuse them across runs", stability = OptionStability.EXPERIMENTAL) //
+    public static final OptionKey<Boolean> PTXCacheEnabled = new OptionKey<>(GrCUDAContext.DEFAULT_PTX_CACHE_ENABLED);
+
+    @Option(category = OptionCategory.USER, help = "Set the directory of the PTX cache. If empty, use a directory in the user home", stability = OptionStability.EXPERIMENTAL) //
+    public static final OptionKey<String> PTXCacheDirectory = new OptionKey<>("");
+
+    @Option(category = OptionCategory.USER, help = "Maximum size of the PTX cache directory, in MB. Least recently used kernels are evicted first", stability = OptionStability.EXPERIMENTAL) //
+    public static final OptionKey<Integer> PTXCacheMaxSizeMB = new OptionKey<>(GrCUDAContext.DEFAULT_PTX_CACHE_MAX_SIZE_MB);
+
+    @Option(category = OptionCategory.USER, help = "Cache freed GPU memory and reuse it for new arrays, instead of calling cudaFree, cudaMalloc and cudaMallocManaged every time", stability = OptionStability.EXPERIMENTAL) //
+    public static final OptionKey<Boolean> MemoryPoolEnabled = new OptionKey<>(GrCUDAContext.DEFAULT_MEMORY_POOL_ENABLED);
+
+    @Option(category = OptionCategory.USER, help = "Maximum amount of freed GPU memory kept by the memory pool, in MB", stability = OptionStability.EXPERIMENTAL) //
+    public static final OptionKey<Integer> MemoryPoolMaxCachedMB = new OptionKey<>(GrCUDAContext.DEFAULT_MEMORY_POOL_MAX_CACHED_MB);
+
+    @Option(category = OptionCategory.USER, help = "Maximum number of pinned host buffers used to stage large copies from and to pageable host memory. If 0, copies are not staged", stability = OptionStability.EXPERIMENTAL) //
+    public static final OptionKey<Integer> StagingBufferPoolSize = new OptionKey<>(GrCUDAContext.DEFAULT_STAGING_BUFFER_POOL_SIZE);
+
+    @Option(category = OptionCategory.USER, help = "Size of each pinned staging buffer, in KB. Smaller copies are not staged", stability = OptionStability.EXPERIMENTAL) //
+    public static final OptionKey<Integer> StagingBufferChunkSizeKB = new OptionKey<>(GrCUDAContext.DEFAULT_STAGING_BUFFER_CHUNK_SIZE_KB);
+
+    @Option(category = OptionCategory.USER, help = "Tune the block size of kernels configured with autoConfig, by timing their first launches", stability = OptionStability.EXPERIMENTAL) //
+    public static final OptionKey<Boolean> KernelAutotuningEnabled = new OptionKey<>(GrCUDAContext.DEFAULT_KERNEL_AUTOTUNING_ENABLED);
+
+    @Option(category = OptionCategory.USER, help = "Set the file where tuned block sizes are stored across runs. If empty, use a file in the user home", stability = OptionStability.EXPERIMENTAL) //
+    public static final OptionKey<String> KernelAutotuningFile = new OptionKey<>("");
+
+    @Option(category = OptionCategory.USER, help = "After tuning, time again a block size once every this many launches of a kernel. If 0, never time again", stability = OptionStability.EXPERIMENTAL) //
+    public static final OptionKey<Integer> KernelAutotuningReexplorationPeriod = new OptionKey<>(GrCUDAContext.DEFAULT_KERNEL_AUTOTUNING_REEXPLORATION_PERIOD);
+
     @Option(category = OptionCategory.USER, help = "Enable TensorRT support.", stability = OptionStability.STABLE) //
     public static final OptionKey<Boolean> TensorRTEnabled = new OptionKey<>(true);
 
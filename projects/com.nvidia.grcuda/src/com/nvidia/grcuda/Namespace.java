@@ -34,6 +34,7 @@ import java.util.TreeMap;
 import com.nvidia.grcuda.MemberSet;
 import com.nvidia.grcuda.functions.Function;
 import com.nvidia.grcuda.gpu.LazyKernel;
+import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.interop.ArityException;
 import com.oracle.truffle.api.interop.InteropLibrary;
@@ -44,6 +45,7 @@ import com.oracle.truffle.api.interop.UnsupportedTypeException;
 import com.oracle.truffle.api.library.CachedLibrary;
 import com.oracle.truffle.api.library.ExportLibrary;
 import com.oracle.truffle.api.library.ExportMessage;
+import com.oracle.truffle.api.utilities.CyclicAssumption;
 
 /**
  * A namespace that exposes a simple interface via {@link InteropLibrary}. It is immutable from the
@@ -56,6 +58,17 @@ public final class Namespace implements TruffleObject {
 
     private final String name;
 
+    /**
+     * Namespace that contains this namespace, null for the root namespace;
+     */
+    private Namespace parent = null;
+
+    /**
+     * Valid until an element is added to this namespace or to one of its nested namespaces.
+     * Call sites cache the result of lookups as long as the assumption is valid;
+     */
+    private final CyclicAssumption unchanged = new CyclicAssumption("namespace unchanged");
+
     public Namespace(String name) {
         this.name = name;
     }
@@ -73,6 +86,16 @@ public final class Namespace implements TruffleObject {
             throw new GrCUDAInternalException("'" + newName + "' already exists in namespace '" + name + "'");
         }
         map.put(newName, newElement);
+        for (Namespace namespace = this; namespace != null; namespace = namespace.parent) {
+            namespace.unchanged.invalidate();
+        }
+    }
+
+    /**
+     * @return an assumption that is invalidated when the content of this namespace, or of its nested namespaces, changes
+     */
+    public Assumption getUnchangedAssumption() {
+        return unchanged.getAssumption();
     }
 
     public void addFunction(Function function) {
@@ -85,6 +108,7 @@ public final class Namespace implements TruffleObject {
 
     public void addNamespace(Namespace namespace) {
         addInternal(namespace.name, namespace);
+        namespace.parent = this;
     }
 
     @TruffleBoundary
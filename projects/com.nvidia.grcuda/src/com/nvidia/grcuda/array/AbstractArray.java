@@ -4,7 +4,9 @@ import com.nvidia.grcuda.GrCUDAException;
 import com.nvidia.grcuda.MemberSet;
 import com.nvidia.grcuda.NoneValue;
 import com.nvidia.grcuda.Type;
+import com.nvidia.grcuda.functions.DeviceArrayBulkCopyFunction;
 import com.nvidia.grcuda.functions.DeviceArrayCopyFunction;
+import com.nvidia.grcuda.functions.DeviceArraySliceFunction;
 import com.nvidia.grcuda.gpu.executioncontext.AbstractGrCUDAExecutionContext;
 import com.nvidia.grcuda.gpu.executioncontext.ExecutionDAG;
 import com.nvidia.grcuda.gpu.stream.CUDAStream;
@@ -23,6 +25,8 @@ import com.oracle.truffle.api.library.ExportLibrary;
 import com.oracle.truffle.api.library.ExportMessage;
 import com.oracle.truffle.api.profiles.ValueProfile;
 
+import java.util.Collection;
+
 /**
  * Simple wrapper around each class that represents device arrays in GrCUDA.
  * It can be used to keep track of generic arrays during execution, and monitor dependencies.
@@ -33,12 +37,17 @@ public abstract class AbstractArray implements TruffleObject {
     protected static final String POINTER = "pointer";
     protected static final String COPY_FROM = "copyFrom";
     protected static final String COPY_TO = "copyTo";
+    protected static final String COPY_FROM_HOST = "copyFromHost";
+    protected static final String COPY_TO_HOST = "copyToHost";
+    protected static final String COPY_FROM_ASYNC = "copyFromAsync";
+    protected static final String COPY_TO_ASYNC = "copyToAsync";
+    protected static final String SLICE = "slice";
     protected static final String FREE = "free";
     protected static final String IS_MEMORY_FREED = "isMemoryFreed";
     protected static final String ACCESSED_FREED_MEMORY_MESSAGE = "memory of array freed";
 
-    protected static final MemberSet PUBLIC_MEMBERS = new MemberSet(COPY_FROM, COPY_TO, FREE, IS_MEMORY_FREED);
-    protected static final MemberSet MEMBERS = new MemberSet(POINTER, COPY_FROM, COPY_TO, FREE, IS_MEMORY_FREED);
+    protected static final MemberSet PUBLIC_MEMBERS = new MemberSet(COPY_FROM, COPY_TO, COPY_FROM_HOST, COPY_TO_HOST, COPY_FROM_ASYNC, COPY_TO_ASYNC, SLICE, FREE, IS_MEMORY_FREED);
+    protected static final MemberSet MEMBERS = new MemberSet(POINTER, COPY_FROM, COPY_TO, COPY_FROM_HOST, COPY_TO_HOST, COPY_FROM_ASYNC, COPY_TO_ASYNC, SLICE, FREE, IS_MEMORY_FREED);
 
     /**
      * Reference to the underlying CUDA runtime that manages the array memory.
@@ -69,6 +78,16 @@ public abstract class AbstractArray implements TruffleObject {
      */
     private boolean isLastComputationArrayAccess = true;
 
+    /**
+     * Where the up-to-date content of this array is located, used to skip prefetches of arrays already valid on the GPU.
+     * Arrays that share memory use the residency of their parent array;
+     */
+    private ArrayResidency residency = ArrayResidency.HOST_DIRTY;
+    /**
+     * True IFF the memory of this array has been advised as read-mostly. Tracked by the parent array;
+     */
+    private boolean isReadMostly = false;
+
     /** Flag set when underlying off-heap memory has been freed. */
     protected boolean arrayFreed = false;
 
@@ -117,6 +136,49 @@ public abstract class AbstractArray implements TruffleObject {
         isLastComputationArrayAccess = lastComputationArrayAccess;
     }
 
+    public ArrayResidency getResidency() {
+        return getParentArray().residency;
+    }
+
+    public void setResidency(ArrayResidency residency) {
+        getParentArray().residency = residency;
+    }
+
+    public boolean isReadMostly() {
+        return getParentArray().isReadMostly;
+    }
+
+    public void setReadMostly(boolean readMostly) {
+        getParentArray().isReadMostly = readMostly;
+    }
+
+    /**
+     * Update the residency of the array after a host access. Writes always leave the up-to-date data on the host.
+     * Reads migrate the pages of the array to the host, unless the array is read-mostly and the host reads its own copy;
+     * @param isWrite if the host access modifies the array
+     */
+    public void updateResidencyOnHostAccess(boolean isWrite) {
+        AbstractArray parent = getParentArray();
+        if (isWrite || parent.residency == ArrayResidency.DEVICE_VALID) {
+            parent.residency = ArrayResidency.HOST_DIRTY;
+        }
+    }
+
+    /**
+     * @return the streams whose computations might still be using the memory of the array, e.g. readers of a const array on different streams
+     */
+    protected Collection<CUDAStream> getStreamsInUse() {
+        return grCUDAExecutionContext.getStreamsInUse(this);
+    }
+
+    /**
+     * @return if the array is stored in managed memory, or false if it uses pinned host memory
+     * that can be accessed by the GPU but cannot be attached to streams or prefetched
+     */
+    public boolean isManagedMemory() {
+        return true;
+    }
+
     public abstract long getPointer();
     public abstract long getSizeBytes();
     public abstract void freeMemory();
@@ -125,14 +187,86 @@ public abstract class AbstractArray implements TruffleObject {
         return arrayFreed;
     }
 
+    /**
+     * Create an array that shares the memory of this array, and accesses only the elements in [fromIndex, toIndex).
+     * Computations on disjoint slices of the same array do not depend on each other;
+     * @param fromIndex index of the first element of the slice
+     * @param toIndex index after the last element of the slice
+     * @return a slice of this array
+     */
+    public AbstractArray slice(long fromIndex, long toIndex) {
+        CompilerDirectives.transferToInterpreter();
+        throw new GrCUDAException("slices are supported only on one-dimensional device arrays");
+    }
+
+    /**
+     * Arrays that share memory, such as slices and views, have the same parent array.
+     * Computations on arrays with different parents never depend on each other;
+     * @return the array that owns the memory of this array, or the array itself if it owns its memory
+     */
+    public AbstractArray getParentArray() {
+        return this;
+    }
+
+    /**
+     * @return the offset of the first byte that this array can access, w.r.t. the memory of its parent array
+     */
+    public long getParentRangeStartBytes() {
+        return 0;
+    }
+
+    /**
+     * @return the offset after the last byte that this array can access, w.r.t. the memory of its parent array
+     */
+    public long getParentRangeEndBytes() {
+        return getSizeBytes();
+    }
+
+    /**
+     * Check if this array and another array can access the same memory,
+     * i.e. if they have the same parent array and their byte ranges intersect;
+     * @param other another array
+     * @return if the two arrays overlap
+     */
+    public boolean overlaps(AbstractArray other) {
+        if (this == other) {
+            return true;
+        }
+        return this.getParentArray() == other.getParentArray() &&
+                this.getParentRangeStartBytes() < other.getParentRangeEndBytes() &&
+                other.getParentRangeStartBytes() < this.getParentRangeEndBytes();
+    }
+
+    /**
+     * Check if this array can access all the memory that another array can access;
+     * @param other another array
+     * @return if the byte range of this array contains the byte range of the other array
+     */
+    public boolean covers(AbstractArray other) {
+        if (this == other) {
+            return true;
+        }
+        return this.getParentArray() == other.getParentArray() &&
+                this.getParentRangeStartBytes() <= other.getParentRangeStartBytes() &&
+                other.getParentRangeEndBytes() <= this.getParentRangeEndBytes();
+    }
+
     /**
      * Check if this array can be accessed by the host (read/write) without having to schedule a {@link com.nvidia.grcuda.gpu.computation.ArrayAccessExecution}.
      * This is possible if the last computation on this array was also a host array access,
      * and the array is not exposed on the default stream while other GPU computations are running.
+     * Before giving up on the fast path, check if the running GPU computations have finished in the meantime;
      * @return if this array can be accessed by the host without scheduling a computation
      */
     protected boolean canSkipScheduling() {
-        return this.isLastComputationArrayAccess() && !(this.streamMapping.isDefaultStream() && grCUDAExecutionContext.isAnyComputationActive());
+        if (!this.isLastComputationArrayAccess()) {
+            return false;
+        }
+        if (this.getStreamMapping().isDefaultStream() && grCUDAExecutionContext.isAnyComputationActive()) {
+            grCUDAExecutionContext.updateFinishedComputations();
+            return !grCUDAExecutionContext.isAnyComputationActive();
+        }
+        return true;
     }
 
     // Implementation of InteropLibrary
@@ -174,7 +308,8 @@ public abstract class AbstractArray implements TruffleObject {
     boolean isMemberReadable(String memberName,
                              @Cached.Shared("memberName") @Cached("createIdentityProfile()") ValueProfile memberProfile) {
         String name = memberProfile.profile(memberName);
-        return POINTER.equals(name) || COPY_FROM.equals(name) || COPY_TO.equals(name) || FREE.equals(name) || IS_MEMORY_FREED.equals(name);
+        return POINTER.equals(name) || COPY_FROM.equals(name) || COPY_TO.equals(name) || COPY_FROM_HOST.equals(name) || COPY_TO_HOST.equals(name) ||
+                COPY_FROM_ASYNC.equals(name) || COPY_TO_ASYNC.equals(name) || SLICE.equals(name) || FREE.equals(name) || IS_MEMORY_FREED.equals(name);
     }
 
     @ExportMessage
@@ -193,6 +328,21 @@ public abstract class AbstractArray implements TruffleObject {
         if (COPY_TO.equals(memberName)) {
             return new DeviceArrayCopyFunction(this, DeviceArrayCopyFunction.CopyDirection.TO_POINTER);
         }
+        if (COPY_FROM_HOST.equals(memberName)) {
+            return new DeviceArrayBulkCopyFunction(this, DeviceArrayCopyFunction.CopyDirection.FROM_POINTER);
+        }
+        if (COPY_TO_HOST.equals(memberName)) {
+            return new DeviceArrayBulkCopyFunction(this, DeviceArrayCopyFunction.CopyDirection.TO_POINTER);
+        }
+        if (COPY_FROM_ASYNC.equals(memberName)) {
+            return new DeviceArrayCopyFunction(this, DeviceArrayCopyFunction.CopyDirection.FROM_POINTER, true);
+        }
+        if (COPY_TO_ASYNC.equals(memberName)) {
+            return new DeviceArrayCopyFunction(this, DeviceArrayCopyFunction.CopyDirection.TO_POINTER, true);
+        }
+        if (SLICE.equals(memberName)) {
+            return new DeviceArraySliceFunction(this);
+        }
         if (FREE.equals(memberName)) {
             return new DeviceArray.DeviceArrayFreeFunction();
         }
@@ -206,7 +356,8 @@ public abstract class AbstractArray implements TruffleObject {
     @ExportMessage
     @SuppressWarnings("static-method")
     boolean isMemberInvocable(String memberName) {
-        return COPY_FROM.equals(memberName) || COPY_TO.equals(memberName) || FREE.equals(memberName);
+        return COPY_FROM.equals(memberName) || COPY_TO.equals(memberName) || COPY_FROM_HOST.equals(memberName) || COPY_TO_HOST.equals(memberName) ||
+                COPY_FROM_ASYNC.equals(memberName) || COPY_TO_ASYNC.equals(memberName) || SLICE.equals(memberName) || FREE.equals(memberName);
     }
 
     @ExportMessage
@@ -227,10 +378,6 @@ public abstract class AbstractArray implements TruffleObject {
     @ExportMessage
     public abstract long getArraySize();
 
-    // TODO: equals must be smarter than checking memory address, as a MultiDimView should be considered as part of its parent,
-    //   similarly to what "isLastComputationArrayAccess" is doing.
-    //   The hash instead should be different. We might also not touch equals, and have another method "isPartOf"
-
 
     @ExportLibrary(InteropLibrary.class)
     final class DeviceArrayFreeFunction implements TruffleObject {
@@ -33,8 +33,10 @@ import com.nvidia.grcuda.Type;
 import com.nvidia.grcuda.functions.DeviceArrayCopyFunction;
 import com.nvidia.grcuda.gpu.executioncontext.AbstractGrCUDAExecutionContext;
 import com.nvidia.grcuda.gpu.LittleEndianNativeArrayView;
+import com.nvidia.grcuda.gpu.MemoryReclaimer;
 import com.nvidia.grcuda.gpu.computation.DeviceArrayReadExecution;
 import com.nvidia.grcuda.gpu.computation.DeviceArrayWriteExecution;
+import com.nvidia.grcuda.gpu.stream.CUDAStream;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.Cached.Shared;
@@ -62,18 +64,156 @@ public final class DeviceArray extends AbstractArray implements TruffleObject {
     /** Mutable view onto the underlying memory buffer. */
     private final LittleEndianNativeArrayView nativeView;
 
+    /**
+     * Registration of the array memory, used to free it explicitly. If the array is not freed explicitly,
+     * its memory is freed once the array becomes unreachable;
+     */
+    private final MemoryReclaimer.Registration memory;
+
+    /** True if the array is stored in managed memory, false if it wraps pinned host memory. */
+    private final boolean isManagedMemory;
+
+    /** Array that owns the memory of this array if this array is a slice, or null. */
+    private final DeviceArray parentArray;
+
+    /** Offset in bytes of the first element of this array in the memory of its parent array. */
+    private final long parentOffsetBytes;
+
     public DeviceArray(AbstractGrCUDAExecutionContext grCUDAExecutionContext, long numElements, Type elementType) {
         super(grCUDAExecutionContext, elementType);
         this.numElements = numElements;
         this.sizeBytes = numElements * elementType.getSizeBytes();
-        this.nativeView = grCUDAExecutionContext.getCudaRuntime().cudaMallocManaged(sizeBytes);
+        this.memory = grCUDAExecutionContext.getCudaRuntime().cudaMallocManaged(this, sizeBytes);
+        this.nativeView = memory.getMemory();
+        this.isManagedMemory = true;
+        this.parentArray = null;
+        this.parentOffsetBytes = 0;
         // Register the array in the GrCUDAExecutionContext;
         this.registerArray();
     }
 
+    /**
+     * Create an array that wraps existing host memory, without copying it. The memory is registered as pinned memory,
+     * so that the GPU can access it directly. Freeing the array unregisters the memory, but doesn't free it;
+     * @param hostOwner the object that owns the host memory, e.g. a direct buffer. It is kept alive while the array uses the memory
+     * @param hostAddress start address of the host memory
+     */
+    public DeviceArray(AbstractGrCUDAExecutionContext grCUDAExecutionContext, long numElements, Type elementType, Object hostOwner, long hostAddress) {
+        super(grCUDAExecutionContext, elementType);
+        this.numElements = numElements;
+        this.sizeBytes = numElements * elementType.getSizeBytes();
+        this.memory = grCUDAExecutionContext.getCudaRuntime().cudaHostRegister(this, hostOwner, hostAddress, sizeBytes);
+        this.nativeView = memory.getMemory();
+        this.isManagedMemory = false;
+        this.parentArray = null;
+        this.parentOffsetBytes = 0;
+        // Register the array in the GrCUDAExecutionContext;
+        this.registerArray();
+    }
+
+    /**
+     * Create a slice of an array, that shares the memory of the array. The slice doesn't own its memory,
+     * and the parent array is kept alive while the slice is in use;
+     * @param parentArray the array that owns the memory
+     * @param fromIndex index of the first element of the slice, w.r.t. the parent array
+     * @param numElements number of elements in the slice
+     */
+    private DeviceArray(DeviceArray parentArray, long fromIndex, long numElements) {
+        super(parentArray.grCUDAExecutionContext, parentArray.elementType, parentArray.isLastComputationArrayAccess());
+        this.numElements = numElements;
+        this.sizeBytes = numElements * elementType.getSizeBytes();
+        this.parentArray = parentArray;
+        this.parentOffsetBytes = fromIndex * elementType.getSizeBytes();
+        this.memory = parentArray.memory;
+        this.nativeView = parentArray.nativeView.slice(parentOffsetBytes, sizeBytes);
+        this.isManagedMemory = parentArray.isManagedMemory;
+        this.streamMapping = parentArray.getStreamMapping();
+        // Register the array in the GrCUDAExecutionContext;
+        this.registerArray();
+    }
+
+    @Override
+    public DeviceArray slice(long fromIndex, long toIndex) {
+        if (isMemoryFreed()) {
+            CompilerDirectives.transferToInterpreter();
+            throw new GrCUDAException(ACCESSED_FREED_MEMORY_MESSAGE);
+        }
+        if (fromIndex < 0 || toIndex > numElements || fromIndex > toIndex) {
+            CompilerDirectives.transferToInterpreter();
+            throw new GrCUDAException("invalid slice [" + fromIndex + ", " + toIndex + ") of array with " + numElements + " elements");
+        }
+        // Slices of slices refer directly to the array that owns the memory;
+        if (parentArray != null) {
+            return new DeviceArray(parentArray, parentOffsetBytes / elementType.getSizeBytes() + fromIndex, toIndex - fromIndex);
+        } else {
+            return new DeviceArray(this, fromIndex, toIndex - fromIndex);
+        }
+    }
+
+    public boolean isSlice() {
+        return parentArray != null;
+    }
+
+    @Override
+    public AbstractArray getParentArray() {
+        return parentArray != null ? parentArray : this;
+    }
+
+    @Override
+    public long getParentRangeStartBytes() {
+        return parentOffsetBytes;
+    }
+
+    @Override
+    public long getParentRangeEndBytes() {
+        return parentOffsetBytes + sizeBytes;
+    }
+
+    /**
+     * Slices share the stream mapping of their parent, as the memory is attached to streams as a whole;
+     */
+    @Override
+    public CUDAStream getStreamMapping() {
+        return parentArray != null ? parentArray.getStreamMapping() : this.streamMapping;
+    }
+
+    @Override
+    public void setStreamMapping(CUDAStream streamMapping) {
+        if (parentArray != null) {
+            parentArray.setStreamMapping(streamMapping);
+        }
+        this.streamMapping = streamMapping;
+    }
+
+    /**
+     * Slices share the flag with their parent, so that host accesses on the parent are aware of computations on its slices;
+     */
+    @Override
+    public boolean isLastComputationArrayAccess() {
+        return parentArray != null ? parentArray.isLastComputationArrayAccess() : super.isLastComputationArrayAccess();
+    }
+
+    @Override
+    public void setLastComputationArrayAccess(boolean lastComputationArrayAccess) {
+        super.setLastComputationArrayAccess(lastComputationArrayAccess);
+        if (parentArray != null) {
+            parentArray.setLastComputationArrayAccess(lastComputationArrayAccess);
+        }
+    }
+
+    @Override
+    public boolean isMemoryFreed() {
+        return arrayFreed || (parentArray != null && parentArray.isMemoryFreed());
+    }
+
+    @Override
+    public boolean isManagedMemory() {
+        return isManagedMemory;
+    }
+
     @Override
     final public long getSizeBytes() {
-        if (arrayFreed) {
+        if (isMemoryFreed()) {
             CompilerDirectives.transferToInterpreter();
             throw new GrCUDAException(ACCESSED_FREED_MEMORY_MESSAGE);
         }
@@ -82,7 +222,7 @@ public final class DeviceArray extends AbstractArray implements TruffleObject {
 
     @Override
     public long getPointer() {
-        if (arrayFreed) {
+        if (isMemoryFreed()) {
             CompilerDirectives.transferToInterpreter();
             throw new GrCUDAException(ACCESSED_FREED_MEMORY_MESSAGE);
         }
@@ -90,7 +230,7 @@ public final class DeviceArray extends AbstractArray implements TruffleObject {
     }
 
     public Type getElementType() {
-        if (arrayFreed) {
+        if (isMemoryFreed()) {
             CompilerDirectives.transferToInterpreter();
             throw new GrCUDAException(ACCESSED_FREED_MEMORY_MESSAGE);
         }
@@ -99,19 +239,12 @@ public final class DeviceArray extends AbstractArray implements TruffleObject {
 
     @Override
     public String toString() {
-        if (arrayFreed) {
+        if (isMemoryFreed()) {
             return "DeviceArray(memory freed)";
         } else {
-            return "DeviceArray(elementType=" + elementType + ", numElements=" + numElements + ", nativeView=" + nativeView + ')';
-        }
-    }
-
-    @Override
-    protected void finalize() throws Throwable {
-        if (!arrayFreed) {
-            grCUDAExecutionContext.getCudaRuntime().cudaFree(nativeView);
+            return "DeviceArray(elementType=" + elementType + ", numElements=" + numElements + ", nativeView=" + nativeView +
+                    (parentArray != null ? ", parentOffsetBytes=" + parentOffsetBytes : "") + ')';
         }
-        super.finalize();
     }
 
 //    public void copyFrom(long fromPointer, long numCopyElements) throws IndexOutOfBoundsException {
@@ -142,10 +275,15 @@ public final class DeviceArray extends AbstractArray implements TruffleObject {
 
     @Override
     public void freeMemory() {
+        if (parentArray != null) {
+            // The memory is owned by the parent array;
+            CompilerDirectives.transferToInterpreter();
+            throw new GrCUDAException("Freeing memory directly on a slice of a DeviceArray is not allowed");
+        }
         if (arrayFreed) {
             throw new GrCUDAException("device array already freed");
         }
-        grCUDAExecutionContext.getCudaRuntime().cudaFree(nativeView);
+        memory.free(getStreamsInUse());
         arrayFreed = true;
     }
 
@@ -153,7 +291,7 @@ public final class DeviceArray extends AbstractArray implements TruffleObject {
 
     @ExportMessage
     public long getArraySize() {
-        if (arrayFreed) {
+        if (isMemoryFreed()) {
             CompilerDirectives.transferToInterpreter();
             throw new GrCUDAException(ACCESSED_FREED_MEMORY_MESSAGE);
         }
@@ -162,7 +300,7 @@ public final class DeviceArray extends AbstractArray implements TruffleObject {
 
     @ExportMessage
     boolean isArrayElementReadable(long index) {
-        return !arrayFreed && index >= 0 && index < numElements;
+        return !isMemoryFreed() && index >= 0 && index < numElements;
     }
 
     @ExportMessage
@@ -179,7 +317,7 @@ public final class DeviceArray extends AbstractArray implements TruffleObject {
     @ExportMessage
     Object readArrayElement(long index,
                     @Shared("elementType") @Cached("createIdentityProfile()") ValueProfile elementTypeProfile) throws InvalidArrayIndexException {
-        if (arrayFreed) {
+        if (isMemoryFreed()) {
             CompilerDirectives.transferToInterpreter();
             throw new GrCUDAException(ACCESSED_FREED_MEMORY_MESSAGE);
         }
@@ -222,7 +360,7 @@ public final class DeviceArray extends AbstractArray implements TruffleObject {
     public void writeArrayElement(long index, Object value,
                     @CachedLibrary(limit = "3") InteropLibrary valueLibrary,
                     @Shared("elementType") @Cached("createIdentityProfile()") ValueProfile elementTypeProfile) throws UnsupportedTypeException, InvalidArrayIndexException {
-        if (arrayFreed) {
+        if (isMemoryFreed()) {
             CompilerDirectives.transferToInterpreter();
             throw new GrCUDAException(ACCESSED_FREED_MEMORY_MESSAGE);
         }
@@ -231,7 +369,8 @@ public final class DeviceArray extends AbstractArray implements TruffleObject {
             throw InvalidArrayIndexException.create(index);
         }
         if (this.canSkipScheduling()) {
-            // Fast path, skip the DAG scheduling;
+            // Fast path, skip the DAG scheduling. Data written by the host must be prefetched again;
+            updateResidencyOnHostAccess(true);
             writeArrayElementImpl(index, value, valueLibrary, elementTypeProfile);
         } else {
             new DeviceArrayWriteExecution(this, index, value, valueLibrary, elementTypeProfile).schedule();
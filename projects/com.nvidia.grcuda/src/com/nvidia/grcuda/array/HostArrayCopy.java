@@ -0,0 +1,445 @@
+/*
+ * Copyright (c) 2019, NVIDIA CORPORATION. All rights reserved.
+ * Copyright (c) 2019, 2020, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *  * Neither the name of NVIDIA CORPORATION nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY
+ * OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.nvidia.grcuda.array;
+
+import java.lang.reflect.Array;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+
+import com.nvidia.grcuda.GrCUDAException;
+import com.nvidia.grcuda.Type;
+import com.nvidia.grcuda.gpu.UnsafeHelper;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.interop.InteropException;
+import com.oracle.truffle.api.interop.InteropLibrary;
+
+/**
+ * Bulk copies between native memory (e.g. the memory of a {@link DeviceArray}) and host containers,
+ * i.e. Java primitive arrays, {@link java.nio.Buffer} and polyglot arrays.
+ * If the host container stores elements of the same type of the native memory, data are moved with a single memcpy,
+ * otherwise elements are converted one by one;
+ */
+public final class HostArrayCopy {
+
+    // using this slow/uncached instance since bulk copies access each polyglot array only once
+    private static final InteropLibrary INTEROP = InteropLibrary.getFactory().getUncached();
+
+    private HostArrayCopy() {
+        // no instances
+    }
+
+    /**
+     * Check if a host container is a Java primitive array or a buffer, whose memory can be copied in bulk to native memory;
+     */
+    public static boolean isBulkCopySupported(Object host, Type elementType) {
+        switch (elementType) {
+            case CHAR:
+            case SINT16:
+            case SINT32:
+            case SINT64:
+            case FLOAT:
+            case DOUBLE:
+                return getHostElementType(host) != null;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Obtain the address of the first remaining element of a direct buffer, so that its memory can be used in place.
+     * Buffers other than byte buffers must use the native byte order;
+     */
+    @TruffleBoundary
+    public static long getDirectBufferAddress(Buffer buffer) {
+        Type hostType = getHostElementType(buffer);
+        if (!buffer.isDirect() || hostType == null) {
+            throw new GrCUDAException("expected direct buffer, got " + buffer.getClass().getName());
+        } else if (!isBufferInNativeOrder(buffer)) {
+            throw new GrCUDAException("buffer does not use the native byte order");
+        }
+        return UnsafeHelper.getDirectBufferAddress(buffer) + (long) buffer.position() * hostType.getSizeBytes();
+    }
+
+    /**
+     * Obtain the size in bytes of the remaining elements of a buffer;
+     */
+    public static long getBufferSizeBytes(Buffer buffer) {
+        Type hostType = getHostElementType(buffer);
+        if (hostType == null) {
+            throw new GrCUDAException("unsupported buffer " + buffer.getClass().getName());
+        }
+        return (long) buffer.remaining() * hostType.getSizeBytes();
+    }
+
+    /**
+     * Obtain the number of elements of a host container;
+     */
+    @TruffleBoundary
+    public static long getNumElements(Object host) {
+        if (host instanceof Buffer) {
+            return ((Buffer) host).remaining();
+        } else if (host.getClass().isArray()) {
+            return Array.getLength(host);
+        } else if (INTEROP.hasArrayElements(host)) {
+            try {
+                return INTEROP.getArraySize(host);
+            } catch (InteropException e) {
+                throw new GrCUDAException("cannot obtain size of " + host + ": " + e.getMessage());
+            }
+        }
+        throw new GrCUDAException("expected Java array, buffer or polyglot array, got " + host.getClass().getName());
+    }
+
+    /**
+     * Copy elements from the beginning of a host container (or from its position, for buffers) to native memory;
+     * @param host source of the copy
+     * @param address destination of the copy
+     * @param elementType type of the elements stored in native memory
+     * @param numElements number of elements to copy
+     */
+    @TruffleBoundary
+    public static void copyFromHost(Object host, long address, Type elementType, long numElements) {
+        checkNumElements(host, numElements);
+        long numBytes = numElements * elementType.getSizeBytes();
+        Type hostType = getHostElementType(host);
+        if (hostType == elementType) {
+            if (host.getClass().isArray()) {
+                UnsafeHelper.copyFromArray(host, 0, address, numBytes);
+                return;
+            } else if (host instanceof Buffer && isBufferInNativeOrder((Buffer) host)) {
+                Buffer buffer = (Buffer) host;
+                if (buffer.isDirect()) {
+                    long bufferAddress = UnsafeHelper.getDirectBufferAddress(buffer) + (long) buffer.position() * elementType.getSizeBytes();
+                    UnsafeHelper.copyMemory(bufferAddress, address, numBytes);
+                    return;
+                } else if (buffer.hasArray()) {
+                    Object array = buffer.array();
+                    long arrayOffset = (long) (buffer.arrayOffset() + buffer.position()) * elementType.getSizeBytes();
+                    UnsafeHelper.copyFromArray(array, arrayOffset, address, numBytes);
+                    return;
+                }
+            }
+        } else if (hostType != null && host.getClass().isArray() && copyFromHostArrayWithConversion(host, address, elementType, (int) numElements)) {
+            return;
+        }
+        // Slow path, convert each element;
+        for (long i = 0; i < numElements; i++) {
+            writeNative(address, elementType, i, readHost(host, i));
+        }
+    }
+
+    /**
+     * Copy a Java primitive array whose elements have a different type than native memory,
+     * if the elements can be converted without loss of precision (e.g. from doubles or integers to floats, or from ints to longs).
+     * Elements are converted and written straight into native memory, without temporary arrays;
+     * @return false if the conversion is not supported, and elements must be converted one at a time
+     */
+    private static boolean copyFromHostArrayWithConversion(Object host, long address, Type elementType, int numElements) {
+        if (elementType == Type.FLOAT || elementType == Type.DOUBLE) {
+            if (host instanceof double[]) {
+                double[] array = (double[]) host;
+                for (int i = 0; i < numElements; i++) {
+                    writeFloatingPoint(address, elementType, i, array[i]);
+                }
+            } else if (host instanceof float[]) {
+                float[] array = (float[]) host;
+                for (int i = 0; i < numElements; i++) {
+                    writeFloatingPoint(address, elementType, i, array[i]);
+                }
+            } else if (host instanceof int[] || host instanceof short[] || host instanceof byte[]) {
+                for (int i = 0; i < numElements; i++) {
+                    writeFloatingPoint(address, elementType, i, getIntegerElement(host, i));
+                }
+            } else {
+                // Longs cannot always be represented exactly by doubles;
+                return false;
+            }
+            return true;
+        } else if (elementType == Type.SINT16 || elementType == Type.SINT32 || elementType == Type.SINT64) {
+            // Only conversions to a larger integer type are supported;
+            if (getHostElementType(host).getSizeBytes() > elementType.getSizeBytes() || !(host instanceof int[] || host instanceof short[] || host instanceof byte[])) {
+                return false;
+            }
+            for (int i = 0; i < numElements; i++) {
+                long elementAddress = address + (long) i * elementType.getSizeBytes();
+                long value = getIntegerElement(host, i);
+                if (elementType == Type.SINT16) {
+                    UnsafeHelper.putShort(elementAddress, (short) value);
+                } else if (elementType == Type.SINT32) {
+                    UnsafeHelper.putInt(elementAddress, (int) value);
+                } else {
+                    UnsafeHelper.putLong(elementAddress, value);
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Write a float or a double element. Floats use the same conversion used when writing a single element, see writeNative;
+     */
+    private static void writeFloatingPoint(long address, Type elementType, int index, double value) {
+        if (elementType == Type.DOUBLE) {
+            UnsafeHelper.putDouble(address + (long) index * Double.BYTES, value);
+        } else {
+            UnsafeHelper.putFloat(address + (long) index * Float.BYTES, (float) value);
+        }
+    }
+
+    /**
+     * Read an element of an int, short or byte array;
+     */
+    private static long getIntegerElement(Object host, int index) {
+        if (host instanceof int[]) {
+            return ((int[]) host)[index];
+        } else if (host instanceof short[]) {
+            return ((short[]) host)[index];
+        } else {
+            return ((byte[]) host)[index];
+        }
+    }
+
+    /**
+     * Copy elements from native memory to the beginning of a host container (or to its position, for buffers);
+     * @param host destination of the copy
+     * @param address source of the copy
+     * @param elementType type of the elements stored in native memory
+     * @param numElements number of elements to copy
+     */
+    @TruffleBoundary
+    public static void copyToHost(Object host, long address, Type elementType, long numElements) {
+        checkNumElements(host, numElements);
+        long numBytes = numElements * elementType.getSizeBytes();
+        Type hostType = getHostElementType(host);
+        if (hostType == elementType) {
+            if (host.getClass().isArray()) {
+                UnsafeHelper.copyToArray(address, host, 0, numBytes);
+                return;
+            } else if (host instanceof Buffer && isBufferInNativeOrder((Buffer) host) && !((Buffer) host).isReadOnly()) {
+                Buffer buffer = (Buffer) host;
+                if (buffer.isDirect()) {
+                    long bufferAddress = UnsafeHelper.getDirectBufferAddress(buffer) + (long) buffer.position() * elementType.getSizeBytes();
+                    UnsafeHelper.copyMemory(address, bufferAddress, numBytes);
+                    return;
+                } else if (buffer.hasArray()) {
+                    Object array = buffer.array();
+                    long arrayOffset = (long) (buffer.arrayOffset() + buffer.position()) * elementType.getSizeBytes();
+                    UnsafeHelper.copyToArray(address, array, arrayOffset, numBytes);
+                    return;
+                }
+            }
+        }
+        // Slow path, convert each element;
+        for (long i = 0; i < numElements; i++) {
+            writeHost(host, i, readNative(address, elementType, i));
+        }
+    }
+
+    private static void checkNumElements(Object host, long numElements) {
+        long numHostElements = getNumElements(host);
+        if (numElements < 0 || numElements > numHostElements) {
+            throw new GrCUDAException("cannot copy " + numElements + " elements, the host container has " + numHostElements + " elements");
+        }
+    }
+
+    /**
+     * Obtain the type of elements stored in Java arrays and buffers, or null for other containers;
+     */
+    private static Type getHostElementType(Object host) {
+        if (host instanceof byte[] || host instanceof ByteBuffer) {
+            return Type.CHAR;
+        } else if (host instanceof short[] || host instanceof ShortBuffer) {
+            return Type.SINT16;
+        } else if (host instanceof int[] || host instanceof IntBuffer) {
+            return Type.SINT32;
+        } else if (host instanceof long[] || host instanceof LongBuffer) {
+            return Type.SINT64;
+        } else if (host instanceof float[] || host instanceof FloatBuffer) {
+            return Type.FLOAT;
+        } else if (host instanceof double[] || host instanceof DoubleBuffer) {
+            return Type.DOUBLE;
+        }
+        return null;
+    }
+
+    /**
+     * Native memory is accessed with the native byte order, so buffers with a different order cannot be copied directly.
+     * Byte buffers do not depend on the byte order;
+     */
+    private static boolean isBufferInNativeOrder(Buffer buffer) {
+        ByteOrder order;
+        if (buffer instanceof ByteBuffer) {
+            return true;
+        } else if (buffer instanceof ShortBuffer) {
+            order = ((ShortBuffer) buffer).order();
+        } else if (buffer instanceof IntBuffer) {
+            order = ((IntBuffer) buffer).order();
+        } else if (buffer instanceof LongBuffer) {
+            order = ((LongBuffer) buffer).order();
+        } else if (buffer instanceof FloatBuffer) {
+            order = ((FloatBuffer) buffer).order();
+        } else if (buffer instanceof DoubleBuffer) {
+            order = ((DoubleBuffer) buffer).order();
+        } else {
+            return false;
+        }
+        return order == ByteOrder.nativeOrder();
+    }
+
+    private static Object readHost(Object host, long index) {
+        int i = (int) index;
+        if (host instanceof Buffer) {
+            Buffer buffer = (Buffer) host;
+            int position = buffer.position() + i;
+            if (buffer instanceof ByteBuffer) {
+                return ((ByteBuffer) buffer).get(position);
+            } else if (buffer instanceof ShortBuffer) {
+                return ((ShortBuffer) buffer).get(position);
+            } else if (buffer instanceof IntBuffer) {
+                return ((IntBuffer) buffer).get(position);
+            } else if (buffer instanceof LongBuffer) {
+                return ((LongBuffer) buffer).get(position);
+            } else if (buffer instanceof FloatBuffer) {
+                return ((FloatBuffer) buffer).get(position);
+            } else if (buffer instanceof DoubleBuffer) {
+                return ((DoubleBuffer) buffer).get(position);
+            }
+            throw new GrCUDAException("unsupported buffer type " + host.getClass().getName());
+        } else if (host.getClass().isArray()) {
+            return Array.get(host, i);
+        } else {
+            try {
+                return INTEROP.readArrayElement(host, index);
+            } catch (InteropException e) {
+                throw new GrCUDAException("cannot read element " + index + " of " + host + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static void writeHost(Object host, long index, Number value) {
+        int i = (int) index;
+        if (host instanceof Buffer) {
+            Buffer buffer = (Buffer) host;
+            int position = buffer.position() + i;
+            if (buffer instanceof ByteBuffer) {
+                ((ByteBuffer) buffer).put(position, value.byteValue());
+            } else if (buffer instanceof ShortBuffer) {
+                ((ShortBuffer) buffer).put(position, value.shortValue());
+            } else if (buffer instanceof IntBuffer) {
+                ((IntBuffer) buffer).put(position, value.intValue());
+            } else if (buffer instanceof LongBuffer) {
+                ((LongBuffer) buffer).put(position, value.longValue());
+            } else if (buffer instanceof FloatBuffer) {
+                ((FloatBuffer) buffer).put(position, value.floatValue());
+            } else if (buffer instanceof DoubleBuffer) {
+                ((DoubleBuffer) buffer).put(position, value.doubleValue());
+            } else {
+                throw new GrCUDAException("unsupported buffer type " + host.getClass().getName());
+            }
+        } else if (host instanceof byte[]) {
+            ((byte[]) host)[i] = value.byteValue();
+        } else if (host instanceof short[]) {
+            ((short[]) host)[i] = value.shortValue();
+        } else if (host instanceof int[]) {
+            ((int[]) host)[i] = value.intValue();
+        } else if (host instanceof long[]) {
+            ((long[]) host)[i] = value.longValue();
+        } else if (host instanceof float[]) {
+            ((float[]) host)[i] = value.floatValue();
+        } else if (host instanceof double[]) {
+            ((double[]) host)[i] = value.doubleValue();
+        } else if (host.getClass().isArray()) {
+            throw new GrCUDAException("unsupported array type " + host.getClass().getName());
+        } else {
+            try {
+                INTEROP.writeArrayElement(host, index, value);
+            } catch (InteropException e) {
+                throw new GrCUDAException("cannot write element " + index + " of " + host + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static Number readNative(long address, Type elementType, long index) {
+        long elementAddress = address + index * elementType.getSizeBytes();
+        switch (elementType) {
+            case CHAR:
+                return UnsafeHelper.getByte(elementAddress);
+            case SINT16:
+                return UnsafeHelper.getShort(elementAddress);
+            case SINT32:
+                return UnsafeHelper.getInt(elementAddress);
+            case SINT64:
+                return UnsafeHelper.getLong(elementAddress);
+            case FLOAT:
+                return UnsafeHelper.getFloat(elementAddress);
+            case DOUBLE:
+                return UnsafeHelper.getDouble(elementAddress);
+            default:
+                throw new GrCUDAException("unsupported element type " + elementType);
+        }
+    }
+
+    private static void writeNative(long address, Type elementType, long index, Object value) {
+        long elementAddress = address + index * elementType.getSizeBytes();
+        try {
+            switch (elementType) {
+                case CHAR:
+                    UnsafeHelper.putByte(elementAddress, INTEROP.asByte(value));
+                    break;
+                case SINT16:
+                    UnsafeHelper.putShort(elementAddress, INTEROP.asShort(value));
+                    break;
+                case SINT32:
+                    UnsafeHelper.putInt(elementAddress, INTEROP.asInt(value));
+                    break;
+                case SINT64:
+                    UnsafeHelper.putLong(elementAddress, INTEROP.asLong(value));
+                    break;
+                case FLOAT:
+                    // going via "double" to allow floats to be initialized with doubles
+                    UnsafeHelper.putFloat(elementAddress, (float) INTEROP.asDouble(value));
+                    break;
+                case DOUBLE:
+                    UnsafeHelper.putDouble(elementAddress, INTEROP.asDouble(value));
+                    break;
+                default:
+                    throw new GrCUDAException("unsupported element type " + elementType);
+            }
+        } catch (InteropException e) {
+            throw new GrCUDAException("value " + value + " cannot be coerced to " + elementType);
+        }
+    }
+}
@@ -34,6 +34,7 @@ import com.nvidia.grcuda.NoneValue;
 import com.nvidia.grcuda.Type;
 import com.nvidia.grcuda.gpu.executioncontext.AbstractGrCUDAExecutionContext;
 import com.nvidia.grcuda.gpu.LittleEndianNativeArrayView;
+import com.nvidia.grcuda.gpu.MemoryReclaimer;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.Cached.Shared;
@@ -69,6 +70,12 @@ public class MultiDimDeviceArray extends AbstractArray implements TruffleObject
     /** Mutable view onto the underlying memory buffer. */
     private final LittleEndianNativeArrayView nativeView;
 
+    /**
+     * Registration of the array memory, used to free it explicitly. If the array is not freed explicitly,
+     * its memory is freed once the array becomes unreachable;
+     */
+    private final MemoryReclaimer.Registration memory;
+
     public MultiDimDeviceArray(AbstractGrCUDAExecutionContext grCUDAExecutionContext, Type elementType, long[] dimensions,
                                boolean useColumnMajor) {
         super(grCUDAExecutionContext, elementType);
@@ -91,7 +98,8 @@ public class MultiDimDeviceArray extends AbstractArray implements TruffleObject
         System.arraycopy(dimensions, 0, this.elementsPerDimension, 0, dimensions.length);
         this.stridePerDimension = computeStride(dimensions, columnMajor);
         this.numElements = prod;
-        this.nativeView = grCUDAExecutionContext.getCudaRuntime().cudaMallocManaged(getSizeBytes());
+        this.memory = grCUDAExecutionContext.getCudaRuntime().cudaMallocManaged(this, getSizeBytes());
+        this.nativeView = memory.getMemory();
         // Register the array in the GrCUDAExecutionContext;
         this.registerArray();
     }
@@ -183,20 +191,12 @@ public class MultiDimDeviceArray extends AbstractArray implements TruffleObject
                         ", nativeView=" + nativeView + ')';
     }
 
-    @Override
-    protected void finalize() throws Throwable {
-        if (!arrayFreed) {
-            grCUDAExecutionContext.getCudaRuntime().cudaFree(nativeView);
-        }
-        super.finalize();
-    }
-
     @Override
     public void freeMemory() {
         if (arrayFreed) {
             throw new GrCUDAException("device array already freed");
         }
-        grCUDAExecutionContext.getCudaRuntime().cudaFree(nativeView);
+        memory.free(getStreamsInUse());
         arrayFreed = true;
     }
 
@@ -75,6 +75,29 @@ public final class MultiDimDeviceArrayView extends AbstractArray implements Truf
         return stride;
     }
 
+    @Override
+    public AbstractArray getParentArray() {
+        return mdDeviceArray;
+    }
+
+    @Override
+    public long getParentRangeStartBytes() {
+        return offset * elementType.getSizeBytes();
+    }
+
+    /**
+     * The view accesses the elements at "offset + sum(index_k * stride_k)", for each dimension k starting from the dimension of the view.
+     * Column-major views are not contiguous, so their range also contains elements of other views;
+     */
+    @Override
+    public long getParentRangeEndBytes() {
+        long lastElement = offset;
+        for (int k = thisDimension; k < mdDeviceArray.getNumberDimensions(); k++) {
+            lastElement += (mdDeviceArray.getElementsInDimension(k) - 1) * mdDeviceArray.getStrideInDimension(k);
+        }
+        return (lastElement + 1) * elementType.getSizeBytes();
+    }
+
     // FIXME: when column-major, low-level memcpy is accessing columns instead of rows!
     @Override
     public final long getPointer() {
@@ -218,7 +241,8 @@ public final class MultiDimDeviceArrayView extends AbstractArray implements Truf
             throw InvalidArrayIndexException.create(index);
         }
         if (this.canSkipScheduling()) {
-            // Fast path, skip the DAG scheduling;
+            // Fast path, skip the DAG scheduling. Data written by the host must be prefetched again;
+            updateResidencyOnHostAccess(true);
             writeArrayElementImpl(index, value, valueLibrary, elementTypeProfile);
         } else {
             new MultiDimDeviceArrayViewWriteExecution(this, index, value, valueLibrary, elementTypeProfile).schedule();
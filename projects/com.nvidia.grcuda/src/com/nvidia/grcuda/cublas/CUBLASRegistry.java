@@ -31,16 +31,22 @@ package com.nvidia.grcuda.cublas;
 import static com.nvidia.grcuda.functions.Function.INTEROP;
 import static com.nvidia.grcuda.functions.Function.expectLong;
 
-import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import com.nvidia.grcuda.GrCUDAContext;
 import com.nvidia.grcuda.GrCUDAException;
 import com.nvidia.grcuda.GrCUDAInternalException;
 import com.nvidia.grcuda.GrCUDAOptions;
 import com.nvidia.grcuda.Namespace;
+import com.nvidia.grcuda.functions.CUDALibraryFunction;
 import com.nvidia.grcuda.functions.ExternalFunctionFactory;
 import com.nvidia.grcuda.functions.Function;
 import com.nvidia.grcuda.gpu.UnsafeHelper;
+import com.nvidia.grcuda.gpu.computation.CUDALibrary;
+import com.nvidia.grcuda.gpu.computation.CUDALibraryExecution;
+import com.nvidia.grcuda.gpu.stream.CUDAStream;
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
@@ -52,7 +58,7 @@ import com.oracle.truffle.api.interop.TruffleObject;
 import com.oracle.truffle.api.interop.UnsupportedMessageException;
 import com.oracle.truffle.api.interop.UnsupportedTypeException;
 
-public class CUBLASRegistry {
+public class CUBLASRegistry implements CUDALibrary {
     public static final String DEFAULT_LIBRARY = "libcublas.so";
     public static final String DEFAULT_LIBRARY_HINT = " (CuBLAS library location can be set via the --grcuda.CuBLASLibrary= option. " +
                     "CuBLAS support can be disabled via --grcuda.CuBLASEnabled=false.";
@@ -65,8 +71,14 @@ public class CUBLASRegistry {
     @CompilationFinal private TruffleObject cublasDestroyFunction;
     @CompilationFinal private TruffleObject cublasCreateFunctionNFI;
     @CompilationFinal private TruffleObject cublasDestroyFunctionNFI;
+    @CompilationFinal private TruffleObject cublasSetStreamFunctionNFI;
 
-    private Long cublasHandle = null;
+    /**
+     * Pool of cuBLAS handles, one for each stream where cuBLAS functions are executed.
+     * Each handle is bound to its stream when it is created, so calls on different streams do not share a handle
+     * (a cuBLAS handle is not meant to be used concurrently by different streams);
+     */
+    private final Map<CUDAStream, Long> cublasHandles = new HashMap<>();
 
     public CUBLASRegistry(GrCUDAContext context) {
         this.context = context;
@@ -74,13 +86,14 @@ public class CUBLASRegistry {
     }
 
     private void ensureInitialized() {
-        if (cublasHandle == null) {
+        if (cublasCreateFunction == null) {
             CompilerDirectives.transferToInterpreterAndInvalidate();
 
-            // create NFI function objects for handle creation and destruction
+            // create NFI function objects for handle creation, destruction and stream binding
 
             cublasCreateFunctionNFI = CUBLAS_CUBLASCREATE.makeFunction(context.getCUDARuntime(), libraryPath, DEFAULT_LIBRARY_HINT);
             cublasDestroyFunctionNFI = CUBLAS_CUBLASDESTROY.makeFunction(context.getCUDARuntime(), libraryPath, DEFAULT_LIBRARY_HINT);
+            cublasSetStreamFunctionNFI = CUBLAS_CUBLASSETSTREAM.makeFunction(context.getCUDARuntime(), libraryPath, DEFAULT_LIBRARY_HINT);
 
             // create wrapper for cublasCreate: cublasError_t cublasCreate(long* handle) -> int
             // cublasCreate()
@@ -117,59 +130,77 @@ public class CUBLASRegistry {
                 }
             };
 
-            try {
-                Object result = INTEROP.execute(cublasCreateFunction);
-                cublasHandle = expectLong(result);
+            context.addDisposable(this::cuBLASShutdown);
+        }
+    }
 
-                context.addDisposable(this::cuBLASShutdown);
+    private synchronized void cuBLASShutdown() {
+        CompilerAsserts.neverPartOfCompilation();
+        for (Long handle : cublasHandles.values()) {
+            try {
+                Object result = InteropLibrary.getFactory().getUncached().execute(cublasDestroyFunction, handle);
+                checkCUBLASReturnCode(result, CUBLAS_CUBLASDESTROY.getName());
             } catch (InteropException e) {
                 throw new GrCUDAInternalException(e);
             }
         }
+        cublasHandles.clear();
     }
 
-    private void cuBLASShutdown() {
-        CompilerAsserts.neverPartOfCompilation();
-        if (cublasHandle != null) {
+    /**
+     * Retrieve the cuBLAS handle bound to a stream, creating a new handle the first time a stream is used;
+     */
+    @Override
+    @TruffleBoundary
+    public synchronized Object getHandle(CUDAStream stream) {
+        ensureInitialized();
+        Long handle = cublasHandles.get(stream);
+        if (handle == null) {
             try {
-                Object result = InteropLibrary.getFactory().getUncached().execute(cublasDestroyFunction, cublasHandle);
-                checkCUBLASReturnCode(result, CUBLAS_CUBLASDESTROY.getName());
-                cublasHandle = null;
+                handle = expectLong(INTEROP.execute(cublasCreateFunction));
+                Object result = INTEROP.execute(cublasSetStreamFunctionNFI, handle, stream.getRawPointer());
+                checkCUBLASReturnCode(result, CUBLAS_CUBLASSETSTREAM.getName());
             } catch (InteropException e) {
                 throw new GrCUDAInternalException(e);
             }
+            cublasHandles.put(stream, handle);
         }
+        return handle;
+    }
+
+    @Override
+    public void checkReturnCode(Object result, String functionName) {
+        checkCUBLASReturnCode(result, functionName);
     }
 
     public void registerCUBLASFunctions(Namespace namespace) {
         // Create function wrappers (decorators for all functions except handle con- and
-        // destruction)
-        for (ExternalFunctionFactory factory : functions) {
-            final Function wrapperFunction = new Function(factory.getName()) {
+        // destruction). Each call is scheduled as a computation on the execution DAG,
+        // and it receives the handle bound to its stream when it is executed;
+        for (Map.Entry<ExternalFunctionFactory, String> entry : functions.entrySet()) {
+            final ExternalFunctionFactory factory = entry.getKey();
+            final CUDALibraryFunction wrapperFunction = new CUDALibraryFunction(factory.getName(), entry.getValue()) {
 
                 private Function nfiFunction;
 
                 @Override
                 @TruffleBoundary
-                protected Object call(Object[] arguments) {
+                protected Object call(Object[] arguments) throws ArityException, UnsupportedTypeException {
+                    // The handle is not provided by the user;
+                    checkArgumentLength(arguments, computationArguments.size() - 1);
                     ensureInitialized();
 
+                    // The handle depends on the stream assigned to the computation, so it is not known yet;
                     Object[] argsWithHandle = new Object[arguments.length + 1];
                     System.arraycopy(arguments, 0, argsWithHandle, 1, arguments.length);
-                    argsWithHandle[0] = cublasHandle;
+                    argsWithHandle[0] = 0L;
 
-                    try {
-                        if (nfiFunction == null) {
-                            CompilerDirectives.transferToInterpreterAndInvalidate();
-                            nfiFunction = factory.makeFunction(context.getCUDARuntime(), libraryPath, DEFAULT_LIBRARY_HINT);
-                        }
-                        Object result = INTEROP.execute(nfiFunction, argsWithHandle);
-                        context.getCUDARuntime().cudaDeviceSynchronize();
-                        checkCUBLASReturnCode(result, nfiFunction.getName());
-                        return result;
-                    } catch (InteropException e) {
-                        throw new GrCUDAInternalException(e);
+                    if (nfiFunction == null) {
+                        CompilerDirectives.transferToInterpreterAndInvalidate();
+                        nfiFunction = factory.makeFunction(context.getCUDARuntime(), libraryPath, DEFAULT_LIBRARY_HINT);
                     }
+                    return new CUDALibraryExecution(context.getGrCUDAExecutionContext(), CUBLASRegistry.this, nfiFunction, getName(),
+                                    argsWithHandle, createComputationArgumentWithValueList(argsWithHandle)).schedule();
                 }
             };
             namespace.addFunction(wrapperFunction);
@@ -219,16 +250,32 @@ public class CUBLASRegistry {
     private static final ExternalFunctionFactory CUBLAS_CUBLASCREATE = new ExternalFunctionFactory("cublasCreate", "cublasCreate_v2", "(pointer): sint32");
     private static final ExternalFunctionFactory CUBLAS_CUBLASDESTROY = new ExternalFunctionFactory("cublasDestroy", "cublasDestroy_v2", "(sint64): sint32");
 
-    private static final ArrayList<ExternalFunctionFactory> functions = new ArrayList<>();
+    private static final ExternalFunctionFactory CUBLAS_CUBLASSETSTREAM = new ExternalFunctionFactory("cublasSetStream", "cublasSetStream_v2", "(sint64, pointer): sint32");
+
+    /**
+     * cuBLAS functions, with the NIDL signature of their arguments (including the handle).
+     * The direction of pointer arguments is used to compute dependencies with other computations;
+     */
+    private static final LinkedHashMap<ExternalFunctionFactory, String> functions = new LinkedHashMap<>();
+
+    private static void addFunction(String name, String symbolName, String nidlSignature) {
+        functions.put(new ExternalFunctionFactory(name, symbolName, CUDALibraryFunction.toNFISignature(nidlSignature)), nidlSignature);
+    }
 
     static {
         for (char type : new char[]{'S', 'D', 'C', 'Z'}) {
-            functions.add(new ExternalFunctionFactory("cublas" + type + "axpy", "cublas" + type + "axpy_v2",
-                            "(sint64, sint32, pointer, pointer, sint32, pointer, sint32): sint32"));
-            functions.add(new ExternalFunctionFactory("cublas" + type + "gemv", "cublas" + type + "gemv_v2",
-                            "(sint64, sint32, sint32, sint32, pointer, pointer, sint32, pointer, sint32, pointer, pointer, sint32): sint32"));
-            functions.add(new ExternalFunctionFactory("cublas" + type + "gemm", "cublas" + type + "gemm_v2",
-                            "(sint64, sint32, sint32, sint32, sint32, sint32, pointer, pointer, sint32, pointer, sint32, pointer, pointer, sint32): sint32"));
+            // Complex numbers are pairs of floats (C) or doubles (Z);
+            String t = (type == 'S' || type == 'C') ? "float" : "double";
+            addFunction("cublas" + type + "axpy", "cublas" + type + "axpy_v2",
+                            "handle: sint64, n: sint32, alpha: in pointer " + t + ", x: in pointer " + t + ", incx: sint32, " +
+                                            "y: inout pointer " + t + ", incy: sint32");
+            addFunction("cublas" + type + "gemv", "cublas" + type + "gemv_v2",
+                            "handle: sint64, trans: sint32, m: sint32, n: sint32, alpha: in pointer " + t + ", A: in pointer " + t + ", lda: sint32, " +
+                                            "x: in pointer " + t + ", incx: sint32, beta: in pointer " + t + ", y: inout pointer " + t + ", incy: sint32");
+            addFunction("cublas" + type + "gemm", "cublas" + type + "gemm_v2",
+                            "handle: sint64, transa: sint32, transb: sint32, m: sint32, n: sint32, k: sint32, alpha: in pointer " + t + ", " +
+                                            "A: in pointer " + t + ", lda: sint32, B: in pointer " + t + ", ldb: sint32, beta: in pointer " + t + ", " +
+                                            "C: inout pointer " + t + ", ldc: sint32");
         }
     }
 }
@@ -30,18 +30,22 @@ package com.nvidia.grcuda.cuml;
 
 import static com.nvidia.grcuda.functions.Function.expectInt;
 
-import java.util.Arrays;
-import java.util.EnumSet;
-import java.util.List;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import com.nvidia.grcuda.GrCUDAContext;
 import com.nvidia.grcuda.GrCUDAException;
 import com.nvidia.grcuda.GrCUDAInternalException;
 import com.nvidia.grcuda.GrCUDAOptions;
 import com.nvidia.grcuda.Namespace;
+import com.nvidia.grcuda.functions.CUDALibraryFunction;
 import com.nvidia.grcuda.functions.ExternalFunctionFactory;
 import com.nvidia.grcuda.functions.Function;
 import com.nvidia.grcuda.gpu.UnsafeHelper;
+import com.nvidia.grcuda.gpu.computation.CUDALibrary;
+import com.nvidia.grcuda.gpu.computation.CUDALibraryExecution;
+import com.nvidia.grcuda.gpu.stream.CUDAStream;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
@@ -52,7 +56,7 @@ import com.oracle.truffle.api.interop.TruffleObject;
 import com.oracle.truffle.api.interop.UnsupportedMessageException;
 import com.oracle.truffle.api.interop.UnsupportedTypeException;
 
-public class CUMLRegistry {
+public class CUMLRegistry implements CUDALibrary {
 
     private static final InteropLibrary INTEROP = InteropLibrary.getFactory().getUncached();
 
@@ -72,7 +76,13 @@ public class CUMLRegistry {
 
     @CompilationFinal private TruffleObject cumlDestroyFunctionNFI;
 
-    private Integer cumlHandle = null;
+    @CompilationFinal private TruffleObject cumlSetStreamFunctionNFI;
+
+    /**
+     * Pool of cuML handles, one for each stream where cuML functions are executed.
+     * Each handle is bound to its stream when it is created, so calls on different streams do not share a handle;
+     */
+    private final Map<CUDAStream, Integer> cumlHandles = new HashMap<>();
 
     public CUMLRegistry(GrCUDAContext context) {
         this.context = context;
@@ -80,16 +90,17 @@ public class CUMLRegistry {
     }
 
     private void ensureInitialized() {
-        if (cumlHandle == null) {
+        if (cumlCreateFunction == null) {
             CompilerDirectives.transferToInterpreterAndInvalidate();
 
-            // create NFI function objects for handle creation and destruction
-            cumlCreateFunctionNFI = CUMLFunctionNFI.CUML_CUMLCREATE.getFunctionFactory().makeFunction(context.getCUDARuntime(), libraryPath, DEFAULT_LIBRARY_HINT);
-            cumlDestroyFunctionNFI = CUMLFunctionNFI.CUML_CUMLDESTROY.getFunctionFactory().makeFunction(context.getCUDARuntime(), libraryPath, DEFAULT_LIBRARY_HINT);
+            // create NFI function objects for handle creation, destruction and stream binding
+            cumlCreateFunctionNFI = CUML_CUMLCREATE.makeFunction(context.getCUDARuntime(), libraryPath, DEFAULT_LIBRARY_HINT);
+            cumlDestroyFunctionNFI = CUML_CUMLDESTROY.makeFunction(context.getCUDARuntime(), libraryPath, DEFAULT_LIBRARY_HINT);
+            cumlSetStreamFunctionNFI = CUML_CUMLSETSTREAM.makeFunction(context.getCUDARuntime(), libraryPath, DEFAULT_LIBRARY_HINT);
 
             // create wrapper for cumlCreate: cumlError_t cumlCreate(int* handle) -> int
             // cumlCreate()
-            cumlCreateFunction = new Function(CUMLFunctionNFI.CUML_CUMLCREATE.getFunctionFactory().getName()) {
+            cumlCreateFunction = new Function(CUML_CUMLCREATE.getName()) {
                 @Override
                 @TruffleBoundary
                 public Object call(Object[] arguments) throws ArityException {
@@ -107,7 +118,7 @@ public class CUMLRegistry {
 
             // create wrapper for cumlDestroy: cumlError_t cumlDestroy(int handle) -> void
             // cumlDestroy(int handle)
-            cumlDestroyFunction = new Function(CUMLFunctionNFI.CUML_CUMLDESTROY.getFunctionFactory().getName()) {
+            cumlDestroyFunction = new Function(CUML_CUMLDESTROY.getName()) {
                 @Override
                 @TruffleBoundary
                 public Object call(Object[] arguments) throws ArityException, UnsupportedTypeException {
@@ -124,67 +135,82 @@ public class CUMLRegistry {
                 }
             };
 
+            context.addDisposable(this::cuMLShutdown);
+        }
+    }
+
+    private synchronized void cuMLShutdown() {
+        for (Integer handle : cumlHandles.values()) {
             try {
-                Object result = INTEROP.execute(cumlCreateFunction);
-                cumlHandle = expectInt(result);
-                context.addDisposable(this::cuMLShutdown);
+                Object result = INTEROP.execute(cumlDestroyFunction, handle);
+                checkCUMLReturnCode(result, CUML_CUMLDESTROY.getName());
             } catch (InteropException e) {
                 CompilerDirectives.transferToInterpreter();
                 throw new GrCUDAInternalException(e);
             }
         }
+        cumlHandles.clear();
     }
 
-    private void cuMLShutdown() {
-        if (cumlHandle != null) {
+    /**
+     * Retrieve the cuML handle bound to a stream, creating a new handle the first time a stream is used;
+     */
+    @Override
+    @TruffleBoundary
+    public synchronized Object getHandle(CUDAStream stream) {
+        ensureInitialized();
+        Integer handle = cumlHandles.get(stream);
+        if (handle == null) {
             try {
-                Object result = INTEROP.execute(cumlDestroyFunction, cumlHandle);
-                checkCUMLReturnCode(result, CUMLFunctionNFI.CUML_CUMLDESTROY.getFunctionFactory().getName());
-                cumlHandle = null;
+                handle = expectInt(INTEROP.execute(cumlCreateFunction));
+                Object result = INTEROP.execute(cumlSetStreamFunctionNFI, handle, stream.getRawPointer());
+                checkCUMLReturnCode(result, CUML_CUMLSETSTREAM.getName());
             } catch (InteropException e) {
                 CompilerDirectives.transferToInterpreter();
                 throw new GrCUDAInternalException(e);
             }
+            cumlHandles.put(stream, handle);
         }
+        return handle;
+    }
+
+    @Override
+    public void checkReturnCode(Object result, String functionName) {
+        checkCUMLReturnCode(result, functionName);
     }
 
     public void registerCUMLFunctions(Namespace namespace) {
         // Create function wrappers (decorators for all functions except handle con- and
-        // destruction)
-        List<CUMLFunctionNFI> hiddenFunctions = Arrays.asList(CUMLFunctionNFI.CUML_CUMLCREATE, CUMLFunctionNFI.CUML_CUMLDESTROY);
-        EnumSet.allOf(CUMLFunctionNFI.class).stream().filter(func -> !hiddenFunctions.contains(func)).forEach(func -> {
-            final ExternalFunctionFactory factory = func.getFunctionFactory();
-            final Function wrapperFunction = new Function(factory.getName()) {
+        // destruction). Each call is scheduled as a computation on the execution DAG,
+        // and it receives the handle bound to its stream when it is executed;
+        for (Map.Entry<ExternalFunctionFactory, String> entry : functions.entrySet()) {
+            final ExternalFunctionFactory factory = entry.getKey();
+            final CUDALibraryFunction wrapperFunction = new CUDALibraryFunction(factory.getName(), entry.getValue()) {
 
                 private Function nfiFunction;
 
                 @Override
                 @TruffleBoundary
-                public Object call(Object[] arguments) {
+                protected Object call(Object[] arguments) throws ArityException, UnsupportedTypeException {
+                    // The handle is not provided by the user;
+                    checkArgumentLength(arguments, computationArguments.size() - 1);
                     ensureInitialized();
 
-                    // Argument 0 is the function name in the frame, removing argument 0 and
-                    // replacing
-                    // it with the handle argument does not change the size of the argument array.
+                    // The handle depends on the stream assigned to the computation, so it is not known yet;
                     Object[] argsWithHandle = new Object[arguments.length + 1];
                     System.arraycopy(arguments, 0, argsWithHandle, 1, arguments.length);
-                    argsWithHandle[0] = cumlHandle;
-                    try {
-                        if (nfiFunction == null) {
-                            CompilerDirectives.transferToInterpreterAndInvalidate();
-                            nfiFunction = factory.makeFunction(context.getCUDARuntime(), libraryPath, DEFAULT_LIBRARY_HINT);
-                        }
-                        Object result = INTEROP.execute(nfiFunction, argsWithHandle);
-                        checkCUMLReturnCode(result, nfiFunction.getName());
-                        return result;
-                    } catch (InteropException e) {
-                        CompilerDirectives.transferToInterpreter();
-                        throw new GrCUDAInternalException(e);
+                    argsWithHandle[0] = 0;
+
+                    if (nfiFunction == null) {
+                        CompilerDirectives.transferToInterpreterAndInvalidate();
+                        nfiFunction = factory.makeFunction(context.getCUDARuntime(), libraryPath, DEFAULT_LIBRARY_HINT);
                     }
+                    return new CUDALibraryExecution(context.getGrCUDAExecutionContext(), CUMLRegistry.this, nfiFunction, getName(),
+                                    argsWithHandle, createComputationArgumentWithValueList(argsWithHandle)).schedule();
                 }
             };
             namespace.addFunction(wrapperFunction);
-        });
+        }
     }
 
     private static void checkCUMLReturnCode(Object result, String... function) {
@@ -214,20 +240,26 @@ public class CUMLRegistry {
         }
     }
 
-    public enum CUMLFunctionNFI {
-        CUML_CUMLCREATE(new ExternalFunctionFactory("cumlCreate", "cumlCreate", "(pointer): sint32")),
-        CUML_CUMLDESTROY(new ExternalFunctionFactory("cumlDestroy", "cumlDestroy", "(sint32): sint32")),
-        CUML_DBSCANFITDOUBLE(new ExternalFunctionFactory("cumlDpDbscanFit", "cumlDpDbscanFit", "(sint32, pointer, sint32, sint32, double, sint32, pointer, uint64, sint32): sint32")),
-        CUML_DBSCANFITFLOAT(new ExternalFunctionFactory("cumlSpDbscanFit", "cumlSpDbscanFit", "(sint32, pointer, sint32, sint32, float, sint32, pointer, uint64, sint32): sint32"));
+    private static final ExternalFunctionFactory CUML_CUMLCREATE = new ExternalFunctionFactory("cumlCreate", "cumlCreate", "(pointer): sint32");
+    private static final ExternalFunctionFactory CUML_CUMLDESTROY = new ExternalFunctionFactory("cumlDestroy", "cumlDestroy", "(sint32): sint32");
+    private static final ExternalFunctionFactory CUML_CUMLSETSTREAM = new ExternalFunctionFactory("cumlSetStream", "cumlSetStream", "(sint32, pointer): sint32");
 
-        private final ExternalFunctionFactory factory;
+    /**
+     * cuML functions, with the NIDL signature of their arguments (including the handle).
+     * The direction of pointer arguments is used to compute dependencies with other computations;
+     */
+    private static final LinkedHashMap<ExternalFunctionFactory, String> functions = new LinkedHashMap<>();
 
-        public ExternalFunctionFactory getFunctionFactory() {
-            return factory;
-        }
+    private static void addFunction(String name, String symbolName, String nidlSignature) {
+        functions.put(new ExternalFunctionFactory(name, symbolName, CUDALibraryFunction.toNFISignature(nidlSignature)), nidlSignature);
+    }
 
-        CUMLFunctionNFI(ExternalFunctionFactory functionFactory) {
-            this.factory = functionFactory;
-        }
+    static {
+        addFunction("cumlDpDbscanFit", "cumlDpDbscanFit",
+                        "handle: sint32, input: in pointer double, n_rows: sint32, n_cols: sint32, eps: double, min_samples: sint32, " +
+                                        "labels: out pointer sint32, max_bytes_per_batch: uint64, verbose: sint32");
+        addFunction("cumlSpDbscanFit", "cumlSpDbscanFit",
+                        "handle: sint32, input: in pointer float, n_rows: sint32, n_cols: sint32, eps: float, min_samples: sint32, " +
+                                        "labels: out pointer sint32, max_bytes_per_batch: uint64, verbose: sint32");
     }
 }
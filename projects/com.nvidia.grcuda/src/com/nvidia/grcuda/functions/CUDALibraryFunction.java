@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2019, NVIDIA CORPORATION. All rights reserved.
+ * Copyright (c) 2019, 2020, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *  * Neither the name of NVIDIA CORPORATION nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY
+ * OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.nvidia.grcuda.functions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.nvidia.grcuda.ComputationArgument;
+import com.nvidia.grcuda.ComputationArgumentWithValue;
+import com.nvidia.grcuda.GrCUDAInternalException;
+import com.nvidia.grcuda.TypeException;
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.interop.ArityException;
+
+/**
+ * Function of an external CUDA library (e.g. cuBLAS), whose arguments are described by a NIDL signature.
+ * The direction of pointer arguments (in, out, inout) is used to compute dependencies between the library call
+ * and other computations, so that the call can be scheduled asynchronously as a
+ * {@link com.nvidia.grcuda.gpu.computation.CUDALibraryExecution};
+ */
+public abstract class CUDALibraryFunction extends Function {
+
+    protected final List<ComputationArgument> computationArguments;
+
+    /**
+     * @param name name of the function
+     * @param nidlSignature NIDL signature of the arguments of the function, e.g. "n: sint32, x: in pointer float"
+     */
+    protected CUDALibraryFunction(String name, String nidlSignature) {
+        super(name);
+        this.computationArguments = parseSignature(nidlSignature);
+    }
+
+    private static List<ComputationArgument> parseSignature(String nidlSignature) {
+        try {
+            return ComputationArgument.parseParameterSignature(nidlSignature);
+        } catch (TypeException e) {
+            throw new GrCUDAInternalException("invalid signature of library function: " + nidlSignature + ", " + e.getMessage());
+        }
+    }
+
+    /**
+     * Obtain the NFI signature that corresponds to the NIDL signature of a library function, assuming that it returns an error code;
+     */
+    public static String toNFISignature(String nidlSignature) {
+        return "(" + parseSignature(nidlSignature).stream().map(ComputationArgument::toNFISignatureElement).collect(Collectors.joining(", ")) + "): sint32";
+    }
+
+    /**
+     * Associate the values provided to the library function to its arguments;
+     * @param args the values provided to the library function, including its handle (if any)
+     * @return the arguments of the function, with their values
+     */
+    public List<ComputationArgumentWithValue> createComputationArgumentWithValueList(Object[] args) throws ArityException {
+        if (args.length != computationArguments.size()) {
+            CompilerDirectives.transferToInterpreter();
+            throw ArityException.create(computationArguments.size(), args.length);
+        }
+        List<ComputationArgumentWithValue> argumentsWithValue = new ArrayList<>(args.length);
+        for (int i = 0; i < args.length; i++) {
+            argumentsWithValue.add(new ComputationArgumentWithValue(computationArguments.get(i), args[i]));
+        }
+        return argumentsWithValue;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2019, NVIDIA CORPORATION. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *  * Neither the name of NVIDIA CORPORATION nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY
+ * OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.nvidia.grcuda.functions;
+
+import com.nvidia.grcuda.GrCUDAException;
+import com.nvidia.grcuda.GrCUDALanguage;
+import com.nvidia.grcuda.array.AbstractArray;
+import com.nvidia.grcuda.array.HostArrayCopy;
+import com.nvidia.grcuda.gpu.computation.ArrayBulkCopyExecution;
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.TruffleLanguage;
+import com.oracle.truffle.api.interop.ArityException;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.oracle.truffle.api.interop.UnsupportedTypeException;
+import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.library.ExportLibrary;
+import com.oracle.truffle.api.library.ExportMessage;
+
+/**
+ * Copy data between an array and a host container with a single computation.
+ * Host containers can be Java primitive arrays, {@link java.nio.Buffer} or polyglot arrays.
+ * Arguments are the host container, and optionally the index of the first element of the array to copy and the number of elements to copy.
+ * By default, all the elements of the host container are copied to (or from) the beginning of the array;
+ */
+@ExportLibrary(InteropLibrary.class)
+public class DeviceArrayBulkCopyFunction implements TruffleObject {
+
+    private final AbstractArray array;
+    private final DeviceArrayCopyFunction.CopyDirection direction;
+
+    public DeviceArrayBulkCopyFunction(AbstractArray array, DeviceArrayCopyFunction.CopyDirection direction) {
+        this.array = array;
+        this.direction = direction;
+    }
+
+    @ExportMessage
+    @SuppressWarnings("static-method")
+    boolean isExecutable() {
+        return true;
+    }
+
+    private static long extractNumber(Object valueObj, String argumentName, InteropLibrary access) throws UnsupportedTypeException {
+        try {
+            return access.asLong(valueObj);
+        } catch (UnsupportedMessageException e) {
+            CompilerDirectives.transferToInterpreter();
+            throw UnsupportedTypeException.create(new Object[]{valueObj}, "integer expected for " + argumentName);
+        }
+    }
+
+    /**
+     * Java objects provided by other languages are wrapped as host objects, retrieve the actual Java object;
+     */
+    @TruffleBoundary
+    private static Object unwrapHostObject(Object host) {
+        TruffleLanguage.Env env = GrCUDALanguage.getCurrentContext().getEnv();
+        return env.isHostObject(host) ? env.asHostObject(host) : host;
+    }
+
+    @ExportMessage
+    Object execute(Object[] arguments,
+                    @CachedLibrary(limit = "3") InteropLibrary offsetAccess,
+                    @CachedLibrary(limit = "3") InteropLibrary numElementsAccess) throws UnsupportedTypeException, ArityException {
+        if (arguments.length < 1 || arguments.length > 3) {
+            CompilerDirectives.transferToInterpreter();
+            throw ArityException.create(1, arguments.length);
+        }
+        Object host = unwrapHostObject(arguments[0]);
+        long offset = arguments.length > 1 ? extractNumber(arguments[1], "offset", offsetAccess) : 0;
+        long numElements = arguments.length > 2 ? extractNumber(arguments[2], "numElements", numElementsAccess) : HostArrayCopy.getNumElements(host);
+        long arraySize = array.getSizeBytes() / array.getElementType().getSizeBytes();
+        if (offset < 0 || numElements < 0 || offset + numElements > arraySize) {
+            CompilerDirectives.transferToInterpreter();
+            throw new GrCUDAException("cannot copy " + numElements + " elements starting from " + offset + " in array of size " + arraySize);
+        }
+        new ArrayBulkCopyExecution(array, direction, host, offset, numElements).schedule();
+        return array;
+    }
+
+    @Override
+    public String toString() {
+        return "DeviceArrayBulkCopyFunction(deviceArray=" + array + ", direction=" + direction.name() + ")";
+    }
+}
@@ -27,7 +27,9 @@
  */
 package com.nvidia.grcuda.functions;
 
+import com.nvidia.grcuda.CompletionHandle;
 import com.nvidia.grcuda.array.AbstractArray;
+import com.nvidia.grcuda.gpu.computation.ArrayCopyAsyncExecution;
 import com.nvidia.grcuda.gpu.computation.ArrayReadWriteFunctionExecution;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.interop.ArityException;
@@ -49,10 +51,19 @@ public class DeviceArrayCopyFunction implements TruffleObject {
 
     private final AbstractArray array;
     private final CopyDirection direction;
+    /**
+     * If true, the copy is scheduled on a stream and a {@link CompletionHandle} is returned instead of the array;
+     */
+    private final boolean isAsync;
 
     public DeviceArrayCopyFunction(AbstractArray array, CopyDirection direction) {
+        this(array, direction, false);
+    }
+
+    public DeviceArrayCopyFunction(AbstractArray array, CopyDirection direction, boolean isAsync) {
         this.array = array;
         this.direction = direction;
+        this.isAsync = isAsync;
     }
 
     @ExportMessage
@@ -96,12 +107,19 @@ public class DeviceArrayCopyFunction implements TruffleObject {
             throw ArityException.create(1, arguments.length);
         }
         long pointer = extractPointer(arguments[0], "fromPointer", pointerAccess);
+        if (isAsync) {
+            // If the pointer is another array, the copy depends on the computations that use it;
+            AbstractArray peer = arguments[0] instanceof AbstractArray ? (AbstractArray) arguments[0] : null;
+            ArrayCopyAsyncExecution copy = new ArrayCopyAsyncExecution(array, direction, pointer, peer, numElements);
+            copy.schedule();
+            return new CompletionHandle(array.getGrCUDAExecutionContext(), copy);
+        }
         new ArrayReadWriteFunctionExecution(array, direction, pointer, numElements).schedule();
         return array;
     }
 
     @Override
     public String toString() {
-        return "DeviceArrayCopyFunction(deviceArray=" + array + ", direction=" + direction.name() + ")";
+        return "DeviceArrayCopyFunction(deviceArray=" + array + ", direction=" + direction.name() + ", async=" + isAsync + ")";
     }
 }
@@ -56,8 +56,9 @@ import com.oracle.truffle.api.profiles.ValueProfile;
 public final class DeviceArrayFunction extends Function {
 
     private static final String MAP = "map";
+    private static final String WRAP = "wrap";
 
-    private static final MemberSet MEMBERS = new MemberSet(MAP);
+    private static final MemberSet MEMBERS = new MemberSet(MAP, WRAP);
 
     private final AbstractGrCUDAExecutionContext grCUDAExecutionContext;
 
@@ -137,14 +138,17 @@ public final class DeviceArrayFunction extends Function {
     boolean isMemberExisting(String memberName,
                     @Shared("memberName") @Cached("createIdentityProfile()") ValueProfile memberProfile) {
         String name = memberProfile.profile(memberName);
-        return MAP.equals(name);
+        return MAP.equals(name) || WRAP.equals(name);
     }
 
     @ExportMessage
     Object readMember(String memberName,
                     @Shared("memberName") @Cached("createIdentityProfile()") ValueProfile memberProfile) throws UnknownIdentifierException {
-        if (MAP.equals(memberProfile.profile(memberName))) {
+        String name = memberProfile.profile(memberName);
+        if (MAP.equals(name)) {
             return new MapDeviceArrayFunction(grCUDAExecutionContext);
+        } else if (WRAP.equals(name)) {
+            return new WrapDeviceArrayFunction(grCUDAExecutionContext);
         }
         CompilerDirectives.transferToInterpreter();
         throw UnknownIdentifierException.create(memberName);
@@ -31,17 +31,29 @@ package com.nvidia.grcuda.functions;
 import com.nvidia.grcuda.FunctionBinding;
 import com.nvidia.grcuda.GrCUDAException;
 import com.nvidia.grcuda.gpu.CUDARuntime;
+import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.interop.ArityException;
+import com.oracle.truffle.api.interop.InteropLibrary;
 import com.oracle.truffle.api.interop.UnknownIdentifierException;
 import com.oracle.truffle.api.interop.UnsupportedMessageException;
 import com.oracle.truffle.api.interop.UnsupportedTypeException;
+import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.library.ExportLibrary;
+import com.oracle.truffle.api.library.ExportMessage;
 
+@ExportLibrary(InteropLibrary.class)
 public class HostFunction extends Function {
 
     private final CUDARuntime cudaRuntime;
     private final FunctionBinding binding;
-    private Object nfiCallable = null;
+    /**
+     * The NFI callable never changes once it has been resolved. The field is volatile so that
+     * the callable is safely published to other threads, which can then read it without locking;
+     */
+    private volatile Object nfiCallable = null;
 
     public HostFunction(FunctionBinding binding, CUDARuntime runtime) {
         super(binding.getName());
@@ -52,8 +64,27 @@ public class HostFunction extends Function {
     @Override
     @TruffleBoundary
     protected Object call(Object[] arguments) throws ArityException, UnsupportedTypeException, UnsupportedMessageException {
-        assertFunctionResolved();
-        return INTEROP.execute(nfiCallable, arguments);
+        return INTEROP.execute(getNfiCallable(), arguments);
+    }
+
+    /**
+     * Calls from the same call site to the same host function use the NFI callable and the interop library
+     * cached at the first call, without looking up the callable again. Other calls go through the uncached library;
+     */
+    @ExportMessage
+    static class Execute {
+        @Specialization(guards = "function == cachedFunction", limit = "3")
+        static Object doCached(HostFunction function, Object[] arguments,
+                               @Cached("function") HostFunction cachedFunction,
+                               @Cached("cachedFunction.getNfiCallable()") Object cachedCallable,
+                               @CachedLibrary("cachedCallable") InteropLibrary callableInterop) throws ArityException, UnsupportedTypeException, UnsupportedMessageException {
+            return callableInterop.execute(cachedCallable, arguments);
+        }
+
+        @Specialization(replaces = "doCached")
+        static Object doUncached(HostFunction function, Object[] arguments) throws ArityException, UnsupportedTypeException, UnsupportedMessageException {
+            return function.call(arguments);
+        }
     }
 
     @Override
@@ -64,22 +95,35 @@ public class HostFunction extends Function {
     public void resolveSymbol() throws UnknownIdentifierException {
         synchronized (this) {
             if (nfiCallable == null) {
-                nfiCallable = cudaRuntime.getSymbol(binding);
+                nfiCallable = resolveCallable();
                 assert nfiCallable != null : "NFI callable non-null";
             }
         }
     }
 
-    private void assertFunctionResolved() {
-        synchronized (this) {
-            if (nfiCallable == null) {
-                try {
-                    nfiCallable = cudaRuntime.getSymbol(binding);
-                } catch (UnknownIdentifierException e) {
-                    throw new GrCUDAException("symbol " + binding.getSymbolName() + " not found: " + e);
-                }
-                assert nfiCallable != null : "NFI callable non-null";
+    /**
+     * Look up the NFI callable of the function in the CUDA runtime;
+     */
+    protected Object resolveCallable() throws UnknownIdentifierException {
+        return cudaRuntime.getSymbol(binding);
+    }
+
+    /**
+     * Retrieve the NFI callable, resolving it at the first call. Only the resolution takes a lock,
+     * calls on a function whose callable is already resolved only read a volatile field;
+     * @return the NFI callable of this function
+     */
+    Object getNfiCallable() {
+        Object callable = nfiCallable;
+        if (callable == null) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            try {
+                resolveSymbol();
+            } catch (UnknownIdentifierException e) {
+                throw new GrCUDAException("symbol " + binding.getSymbolName() + " not found: " + e);
             }
+            callable = nfiCallable;
         }
+        return callable;
     }
 }
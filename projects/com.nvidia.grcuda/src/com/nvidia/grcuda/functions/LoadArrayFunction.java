@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2019, NVIDIA CORPORATION. All rights reserved.
+ * Copyright (c) 2019, 2020, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *  * Neither the name of NVIDIA CORPORATION nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY
+ * OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.nvidia.grcuda.functions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.nvidia.grcuda.GrCUDAException;
+import com.nvidia.grcuda.Type;
+import com.nvidia.grcuda.TypeException;
+import com.nvidia.grcuda.array.AbstractArray;
+import com.nvidia.grcuda.array.DeviceArray;
+import com.nvidia.grcuda.gpu.computation.ArrayFileReadExecution;
+import com.nvidia.grcuda.gpu.executioncontext.AbstractGrCUDAExecutionContext;
+import com.nvidia.grcuda.gpu.stream.CUDAStream;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.interop.ArityException;
+import com.oracle.truffle.api.interop.UnsupportedTypeException;
+
+/**
+ * Load a binary file into a device array, without reading its elements one by one.
+ * The file is memory-mapped and copied to the array in large chunks, by a single computation.
+ *
+ * <code>loadarray(type, fileName, [stream])</code> creates a new array that holds the whole file, while
+ * <code>loadarray(array, fileName, [stream])</code> fills an existing array with the beginning of the file.
+ * If a stream is given, chunks are copied asynchronously on the stream, and the function waits for all of them at the end.
+ * Elements in the file must be stored in the native byte order.
+ */
+public class LoadArrayFunction extends Function {
+
+    private final AbstractGrCUDAExecutionContext grCUDAExecutionContext;
+
+    public LoadArrayFunction(AbstractGrCUDAExecutionContext grCUDAExecutionContext) {
+        super("loadarray");
+        this.grCUDAExecutionContext = grCUDAExecutionContext;
+    }
+
+    @Override
+    @TruffleBoundary
+    public Object call(Object[] arguments) throws UnsupportedTypeException, ArityException {
+        if (arguments.length != 2 && arguments.length != 3) {
+            throw ArityException.create(2, arguments.length);
+        }
+        Path file = Paths.get(expectString(arguments[1], "argument 2 of loadarray must be string (file name)"));
+        CUDAStream copyStream = null;
+        if (arguments.length == 3) {
+            if (!(arguments[2] instanceof CUDAStream)) {
+                throw new GrCUDAException("expected CUDAStream object");
+            }
+            copyStream = (CUDAStream) arguments[2];
+        }
+        long fileSize;
+        try {
+            fileSize = Files.size(file);
+        } catch (IOException e) {
+            throw new GrCUDAException("cannot read file " + file + ": " + e.getMessage());
+        }
+
+        AbstractArray array;
+        if (arguments[0] instanceof AbstractArray) {
+            array = (AbstractArray) arguments[0];
+            if (fileSize < array.getSizeBytes()) {
+                throw new GrCUDAException("file " + file + " has " + fileSize + " bytes, the array requires " + array.getSizeBytes() + " bytes");
+            }
+        } else {
+            Type elementType;
+            try {
+                elementType = Type.fromGrCUDATypeString(expectString(arguments[0], "argument 1 of loadarray must be an array or a string (type name)"));
+            } catch (TypeException e) {
+                throw new GrCUDAException(e.getMessage());
+            }
+            if (fileSize == 0 || fileSize % elementType.getSizeBytes() != 0) {
+                throw new GrCUDAException("file " + file + " has " + fileSize + " bytes, which is not a multiple of the size of " + elementType);
+            }
+            array = new DeviceArray(grCUDAExecutionContext, fileSize / elementType.getSizeBytes(), elementType);
+        }
+        long numElements = array.getSizeBytes() / array.getElementType().getSizeBytes();
+        new ArrayFileReadExecution(array, file, numElements, copyStream).schedule();
+        return array;
+    }
+}
@@ -28,6 +28,9 @@
  */
 package com.nvidia.grcuda.functions;
 
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.concurrent.ConcurrentHashMap;
 
 import com.nvidia.grcuda.array.DeviceArray;
@@ -39,9 +42,12 @@ import com.nvidia.grcuda.GrCUDALanguage;
 import com.nvidia.grcuda.NoneValue;
 import com.nvidia.grcuda.TypeException;
 import com.nvidia.grcuda.array.DeviceArray;
+import com.nvidia.grcuda.array.HostArrayCopy;
+import com.nvidia.grcuda.gpu.computation.ArrayBulkCopyExecution;
 import com.nvidia.grcuda.gpu.executioncontext.AbstractGrCUDAExecutionContext;
 import com.oracle.truffle.api.CallTarget;
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.CachedContext;
@@ -172,16 +178,72 @@ abstract class MapArrayNode extends Node {
         return uncachedCallTargets.computeIfAbsent(clazz, c -> Truffle.getRuntime().createCallTarget(new LoopRootNode(source, c)));
     }
 
+    /**
+     * Java primitive arrays and buffers can be copied to the {@link DeviceArray} with a single memory copy,
+     * instead of reading and writing each element through interop;
+     * @return the Java array or buffer wrapped by the source, or null if the source is not a Java array or buffer
+     */
+    @TruffleBoundary
+    static Object getBulkCopySource(Object source, Type elementType, GrCUDAContext context) {
+        if (!context.getEnv().isHostObject(source)) {
+            return null;
+        }
+        Object hostSource = context.getEnv().asHostObject(source);
+        return HostArrayCopy.isBulkCopySupported(hostSource, elementType) ? hostSource : null;
+    }
+
+    @TruffleBoundary
+    static DeviceArray mapWithBulkCopy(Object hostSource, Type elementType, AbstractGrCUDAExecutionContext grCUDAExecutionContext) {
+        if (hostSource instanceof ByteBuffer && elementType != Type.CHAR) {
+            // Byte buffers are raw memory, their content is copied without conversion;
+            hostSource = asTypedBuffer((ByteBuffer) hostSource, elementType);
+        }
+        long size = HostArrayCopy.getNumElements(hostSource);
+        DeviceArray result = new DeviceArray(grCUDAExecutionContext, size, elementType);
+        try {
+            new ArrayBulkCopyExecution(result, DeviceArrayCopyFunction.CopyDirection.FROM_POINTER, hostSource, 0, size).schedule();
+        } catch (UnsupportedTypeException e) {
+            throw new GrCUDAException("cannot copy " + hostSource.getClass().getSimpleName() + " to DeviceArray: " + e.getMessage());
+        }
+        return result;
+    }
+
+    private static Buffer asTypedBuffer(ByteBuffer buffer, Type elementType) {
+        if (buffer.remaining() % elementType.getSizeBytes() != 0) {
+            throw new GrCUDAException("cannot map buffer of " + buffer.remaining() + " bytes to DeviceArray of " + elementType);
+        }
+        ByteBuffer nativeOrderBuffer = buffer.duplicate().order(ByteOrder.nativeOrder());
+        switch (elementType) {
+            case SINT16:
+                return nativeOrderBuffer.asShortBuffer();
+            case SINT32:
+                return nativeOrderBuffer.asIntBuffer();
+            case SINT64:
+                return nativeOrderBuffer.asLongBuffer();
+            case FLOAT:
+                return nativeOrderBuffer.asFloatBuffer();
+            case DOUBLE:
+                return nativeOrderBuffer.asDoubleBuffer();
+            default:
+                throw new GrCUDAException("cannot map buffer to DeviceArray of " + elementType);
+        }
+    }
+
     @Specialization(limit = "3")
     Object doMap(Object source, Type elementType, AbstractGrCUDAExecutionContext grCUDAExecutionContext,
                     @CachedLibrary("source") InteropLibrary interop,
-                    @CachedContext(GrCUDALanguage.class) @SuppressWarnings("unused") GrCUDAContext context,
+                    @CachedContext(GrCUDALanguage.class) GrCUDAContext context,
                     @Cached(value = "createLoop(source)", uncached = "createUncachedLoop(source, context)") CallTarget loop) {
 
         if (source instanceof DeviceArray && ((DeviceArray) source).getElementType() == elementType) {
             return source;
         }
 
+        Object hostSource = getBulkCopySource(source, elementType, context);
+        if (hostSource != null) {
+            return mapWithBulkCopy(hostSource, elementType, grCUDAExecutionContext);
+        }
+
         if (!interop.hasArrayElements(source)) {
             CompilerDirectives.transferToInterpreter();
             throw new GrCUDAException("cannot map from non-array to DeviceArray");
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2019, NVIDIA CORPORATION. All rights reserved.
+ * Copyright (c) 2019, 2020, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *  * Neither the name of NVIDIA CORPORATION nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY
+ * OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.nvidia.grcuda.functions;
+
+import java.nio.Buffer;
+
+import com.nvidia.grcuda.GrCUDAException;
+import com.nvidia.grcuda.GrCUDALanguage;
+import com.nvidia.grcuda.Type;
+import com.nvidia.grcuda.TypeException;
+import com.nvidia.grcuda.array.DeviceArray;
+import com.nvidia.grcuda.array.HostArrayCopy;
+import com.nvidia.grcuda.gpu.OffheapMemory;
+import com.nvidia.grcuda.gpu.executioncontext.AbstractGrCUDAExecutionContext;
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.TruffleLanguage;
+import com.oracle.truffle.api.interop.ArityException;
+import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.oracle.truffle.api.interop.UnsupportedTypeException;
+
+/**
+ * Create a {@link DeviceArray} that uses existing off-heap host memory in place, without copying it.
+ * The memory is registered as pinned memory that kernels access directly, and it is never freed by the array.
+ * Arguments are the element type, the memory (a direct buffer, an {@link OffheapMemory} or a native pointer),
+ * and the number of elements, which is optional unless the memory is a native pointer.
+ * For example, {@code DeviceArray.wrap("float", buffer)};
+ */
+public final class WrapDeviceArrayFunction extends Function {
+
+    private final AbstractGrCUDAExecutionContext grCUDAExecutionContext;
+
+    public WrapDeviceArrayFunction(AbstractGrCUDAExecutionContext grCUDAExecutionContext) {
+        super("wrap");
+        this.grCUDAExecutionContext = grCUDAExecutionContext;
+    }
+
+    @Override
+    @TruffleBoundary
+    public Object call(Object[] arguments) throws ArityException, UnsupportedTypeException {
+        if (arguments.length < 2 || arguments.length > 3) {
+            CompilerDirectives.transferToInterpreter();
+            throw ArityException.create(2, arguments.length);
+        }
+        String typeName = expectString(arguments[0], "first argument of wrap must be string (type name)");
+        Type elementType;
+        try {
+            elementType = Type.fromGrCUDATypeString(typeName);
+        } catch (TypeException e) {
+            throw new GrCUDAException(e.getMessage());
+        }
+        TruffleLanguage.Env env = GrCUDALanguage.getCurrentContext().getEnv();
+        Object memory = env.isHostObject(arguments[1]) ? env.asHostObject(arguments[1]) : arguments[1];
+
+        long address;
+        long sizeBytes;
+        if (memory instanceof Buffer) {
+            address = HostArrayCopy.getDirectBufferAddress((Buffer) memory);
+            sizeBytes = HostArrayCopy.getBufferSizeBytes((Buffer) memory);
+        } else if (memory instanceof OffheapMemory) {
+            address = ((OffheapMemory) memory).getPointer();
+            sizeBytes = ((OffheapMemory) memory).getSizeBytes();
+        } else if (INTEROP.isPointer(memory)) {
+            try {
+                address = INTEROP.asPointer(memory);
+            } catch (UnsupportedMessageException e) {
+                throw new GrCUDAException("cannot obtain native pointer of " + memory);
+            }
+            if (arguments.length < 3) {
+                throw new GrCUDAException("number of elements is required to wrap a native pointer");
+            }
+            sizeBytes = Long.MAX_VALUE;
+        } else {
+            throw UnsupportedTypeException.create(new Object[]{arguments[1]}, "expected direct buffer, OffheapMemory or native pointer");
+        }
+        if (address == 0) {
+            throw new GrCUDAException("cannot wrap null pointer");
+        }
+
+        long maxNumElements = sizeBytes / elementType.getSizeBytes();
+        long numElements = arguments.length > 2 ? expectPositiveLong(arguments[2]) : maxNumElements;
+        if (numElements < 1 || numElements > maxNumElements) {
+            throw new GrCUDAException("cannot wrap " + numElements + " elements of type " + elementType + ", the memory holds " + maxNumElements + " elements");
+        }
+        return new DeviceArray(grCUDAExecutionContext, numElements, elementType, memory, address);
+    }
+}
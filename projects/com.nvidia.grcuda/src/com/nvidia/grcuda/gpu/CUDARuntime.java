@@ -34,6 +34,10 @@ import static com.nvidia.grcuda.functions.Function.expectInt;
 import static com.nvidia.grcuda.functions.Function.expectLong;
 import static com.nvidia.grcuda.functions.Function.expectPositiveLong;
 
+import java.lang.ref.Reference;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import org.graalvm.collections.Pair;
 
@@ -42,6 +46,7 @@ import com.nvidia.grcuda.FunctionBinding;
 import com.nvidia.grcuda.GPUPointer;
 import com.nvidia.grcuda.GrCUDAContext;
 import com.nvidia.grcuda.GrCUDAException;
+import com.nvidia.grcuda.GrCUDAOptions;
 import com.nvidia.grcuda.Namespace;
 import com.nvidia.grcuda.NoneValue;
 import com.nvidia.grcuda.array.AbstractArray;
@@ -75,9 +80,49 @@ public final class CUDARuntime {
     public static final String CUDA_LIBRARY_NAME = "cuda";
     static final String NVRTC_LIBRARY_NAME = "nvrtc";
 
+    /**
+     * Return code of queries on asynchronous operations (e.g. events) that have not been completed yet;
+     */
+    static final int CUDA_ERROR_NOT_READY = 600;
+
     private final GrCUDAContext context;
     private final NVRuntimeCompiler nvrtc;
 
+    /**
+     * Optional on-disk cache of kernels compiled with NVRTC, null if disabled;
+     */
+    private final PTXCache ptxCache;
+
+    /**
+     * Optional cache of freed managed memory, null if disabled;
+     */
+    private final CachingDeviceAllocator managedMemoryPool;
+
+    /**
+     * Optional cache of freed device memory, null if disabled;
+     */
+    private final CachingDeviceAllocator deviceMemoryPool;
+
+    /**
+     * Optional pool of pinned host buffers used to stage large copies from and to pageable host memory, null if disabled;
+     */
+    private final PinnedStagingBufferPool stagingBufferPool;
+
+    /**
+     * Optional tuner of the block size of kernels configured with autoConfig, null if disabled;
+     */
+    private final KernelAutotuner kernelAutotuner;
+
+    /**
+     * Release the managed memory of arrays that are no longer reachable;
+     */
+    private final MemoryReclaimer memoryReclaimer = new MemoryReclaimer(this::cudaFree);
+
+    /**
+     * Maximum time spent waiting for the garbage collector to find unreachable arrays, when the GPU is out of memory;
+     */
+    private static final long RECLAIM_TIMEOUT_MS = 100;
+
     /**
      * Users can manually create streams that are not managed directly by a {@link com.nvidia.grcuda.gpu.stream.GrCUDAStreamManager}.
      * We keep track of how many of these streams have been created;
@@ -145,6 +190,133 @@ public final class CUDARuntime {
 
         // Use pre-Pascal stream attachment policy if the CC is < 6 or if the attachment is forced by options;
         this.arrayStreamArchitecturePolicy = (!architectureIsPascalOrNewer || context.isForceStreamAttach()) ? new PrePascalArrayStreamAssociation() : new PostPascalArrayStreamAssociation();
+
+        ptxCache = context.getOption(GrCUDAOptions.PTXCacheEnabled) ? createPTXCache() : null;
+
+        if (context.getOption(GrCUDAOptions.MemoryPoolEnabled)) {
+            long maxCachedBytes = context.getOption(GrCUDAOptions.MemoryPoolMaxCachedMB) * 1024L * 1024L;
+            managedMemoryPool = new CachingDeviceAllocator(new CachingDeviceAllocator.NativeAllocator() {
+                @Override
+                public long allocate(long numBytes) {
+                    return cudaMallocManagedImpl(numBytes);
+                }
+
+                @Override
+                public void free(long address) {
+                    cudaFreeImpl(address);
+                }
+
+                @Override
+                public void reset(long address, long numBytes) {
+                    resetManagedMemory(address, numBytes);
+                }
+            }, this::cudaStreamQuery, maxCachedBytes);
+            deviceMemoryPool = new CachingDeviceAllocator(new CachingDeviceAllocator.NativeAllocator() {
+                @Override
+                public long allocate(long numBytes) {
+                    return cudaMallocImpl(numBytes);
+                }
+
+                @Override
+                public void free(long address) {
+                    cudaFreeImpl(address);
+                }
+            }, this::cudaStreamQuery, maxCachedBytes);
+        } else {
+            managedMemoryPool = null;
+            deviceMemoryPool = null;
+        }
+
+        int stagingBufferPoolSize = context.getOption(GrCUDAOptions.StagingBufferPoolSize);
+        if (stagingBufferPoolSize > 0) {
+            long chunkSizeBytes = context.getOption(GrCUDAOptions.StagingBufferChunkSizeKB) * 1024L;
+            stagingBufferPool = new PinnedStagingBufferPool(new PinnedStagingBufferPool.StagingRuntime() {
+                @Override
+                public long allocatePinned(long numBytes) {
+                    return cudaMallocHost(numBytes);
+                }
+
+                @Override
+                public void freePinned(long address) {
+                    cudaFreeHost(address);
+                }
+
+                @Override
+                public void copyAsync(long destPointer, long fromPointer, long numBytes, CUDAStream stream) {
+                    cudaMemcpyAsync(destPointer, fromPointer, numBytes, stream);
+                }
+
+                @Override
+                public CUDAEvent createEvent() {
+                    return cudaEventCreate();
+                }
+
+                @Override
+                public void destroyEvent(CUDAEvent event) {
+                    cudaEventDestroy(event);
+                }
+
+                @Override
+                public void recordEvent(CUDAEvent event, CUDAStream stream) {
+                    cudaEventRecord(event, stream);
+                }
+
+                @Override
+                public void synchronizeEvent(CUDAEvent event) {
+                    cudaEventSynchronize(event);
+                }
+            }, stagingBufferPoolSize, chunkSizeBytes);
+        } else {
+            stagingBufferPool = null;
+        }
+
+        kernelAutotuner = context.getOption(GrCUDAOptions.KernelAutotuningEnabled) ? createKernelAutotuner() : null;
+    }
+
+    private KernelAutotuner createKernelAutotuner() {
+        String tuningFile = context.getOption(GrCUDAOptions.KernelAutotuningFile);
+        if (tuningFile.isEmpty()) {
+            tuningFile = GrCUDAContext.DEFAULT_KERNEL_AUTOTUNING_FILE;
+        }
+        System.out.println("-- tuning kernel block sizes, stored in " + tuningFile);
+        return new KernelAutotuner(new KernelAutotuner.TimingRuntime() {
+            @Override
+            public CUDAEvent createEvent() {
+                return cudaEventCreate();
+            }
+
+            @Override
+            public void destroyEvent(CUDAEvent event) {
+                cudaEventDestroy(event);
+            }
+
+            @Override
+            public void recordEvent(CUDAEvent event, CUDAStream stream) {
+                cudaEventRecord(event, stream);
+            }
+
+            @Override
+            public boolean isEventCompleted(CUDAEvent event) {
+                return cudaEventQuery(event);
+            }
+
+            @Override
+            public float getElapsedTimeMs(CUDAEvent start, CUDAEvent end) {
+                return cudaEventElapsedTime(start, end);
+            }
+        }, Paths.get(tuningFile), context.getOption(GrCUDAOptions.KernelAutotuningReexplorationPeriod));
+    }
+
+    private PTXCache createPTXCache() {
+        String directory = context.getOption(GrCUDAOptions.PTXCacheDirectory);
+        if (directory.isEmpty()) {
+            directory = GrCUDAContext.DEFAULT_PTX_CACHE_DIRECTORY;
+        }
+        // Kernels in the cache are compiled for the architecture of the GPU;
+        String architecture = "compute_" + cudaDeviceGetAttribute(CUDADeviceAttribute.COMPUTE_CAPABILITY_MAJOR, 0) +
+                        cudaDeviceGetAttribute(CUDADeviceAttribute.COMPUTE_CAPABILITY_MINOR, 0);
+        System.out.println("-- using PTX cache in " + directory);
+        return new PTXCache(nvrtc, architecture, Paths.get(directory), context.getOption(GrCUDAOptions.PTXCacheMaxSizeMB) * 1024L * 1024L);
     }
 
     // using this slow/uncached instance since all calls are non-critical
@@ -174,36 +346,177 @@ public final class CUDARuntime {
 
     @TruffleBoundary
     public GPUPointer cudaMalloc(long numBytes) {
+        return new GPUPointer(deviceMemoryPool != null ? deviceMemoryPool.allocate(numBytes) : cudaMallocImpl(numBytes));
+    }
+
+    @TruffleBoundary
+    public LittleEndianNativeArrayView cudaMallocManaged(long numBytes) {
+        memoryReclaimer.reclaim();
+        long address;
+        try {
+            address = allocateManagedMemory(numBytes);
+        } catch (GrCUDAException e) {
+            // Memory might be held by arrays that are no longer reachable, release it and try again;
+            if (memoryReclaimer.reclaimAfterGC(RECLAIM_TIMEOUT_MS) == 0) {
+                throw e;
+            }
+            address = allocateManagedMemory(numBytes);
+        }
+        return new LittleEndianNativeArrayView(address, numBytes);
+    }
+
+    private long allocateManagedMemory(long numBytes) {
+        return managedMemoryPool != null ? managedMemoryPool.allocate(numBytes) : cudaMallocManagedImpl(numBytes);
+    }
+
+    /**
+     * Allocate managed memory for an array. The memory is freed when the array is freed,
+     * or once the array becomes unreachable and all the computations that use it are completed;
+     * @param array the array that owns the memory
+     * @param numBytes size of the allocation, in bytes
+     * @return the allocated memory, and the registration used to free it
+     */
+    @TruffleBoundary
+    public MemoryReclaimer.Registration cudaMallocManaged(Object array, long numBytes) {
+        return memoryReclaimer.register(array, cudaMallocManaged(numBytes));
+    }
+
+    /**
+     * Free managed memory that is not used by any computation;
+     */
+    @TruffleBoundary
+    public void cudaFree(LittleEndianNativeArrayView memory) {
+        cudaFree(memory, Collections.emptyList());
+    }
+
+    /**
+     * Free managed memory. If the memory pool is enabled, the memory is cached and
+     * it is reused only once the computations on all the given streams are completed;
+     * @param memory memory to free
+     * @param streams streams whose computations might still use the memory, empty if the memory is not in use
+     */
+    @TruffleBoundary
+    public void cudaFree(LittleEndianNativeArrayView memory, Collection<CUDAStream> streams) {
+        if (managedMemoryPool == null || !managedMemoryPool.free(memory.getStartAddress(), streams)) {
+            cudaFreeImpl(memory.getStartAddress());
+        }
+    }
+
+    /**
+     * Free device memory. The computations that use a raw pointer are not tracked, so if the memory pool is enabled
+     * the memory is reused only once all the streams that might be running computations are idle;
+     */
+    @TruffleBoundary
+    public void cudaFree(GPUPointer pointer) {
+        if (deviceMemoryPool == null || !deviceMemoryPool.free(pointer.getRawPointer(), context.getGrCUDAExecutionContext().getStreamsInUse())) {
+            cudaFreeImpl(pointer.getRawPointer());
+        }
+    }
+
+    /**
+     * Restore the default state of managed memory that returns to the memory pool.
+     * Memory attached to a stream is made visible to all streams again; the attachment is enqueued on the default stream,
+     * so it follows the computations that might still use the memory. The read-mostly advice is also removed;
+     */
+    private void resetManagedMemory(long address, long numBytes) {
+        final int MEM_ATTACH_GLOBAL = 0x01;
+        final int MEM_ADVISE_UNSET_READ_MOSTLY = 2;
+        try {
+            // Arrays are attached to streams only with the pre-Pascal policy;
+            if (arrayStreamArchitecturePolicy instanceof PrePascalArrayStreamAssociation) {
+                Object result = INTEROP.execute(CUDARuntimeFunction.CUDA_STREAMATTACHMEMASYNC.getSymbol(this), DefaultStream.get().getRawPointer(), address, numBytes, MEM_ATTACH_GLOBAL);
+                checkCUDAReturnCode(result, "cudaStreamAttachMemAsync");
+            }
+            // Arrays are advised only if the GPU supports prefetching;
+            if (architectureIsPascalOrNewer) {
+                Object result = INTEROP.execute(CUDARuntimeFunction.CUDA_MEMADVISE.getSymbol(this), address, numBytes, MEM_ADVISE_UNSET_READ_MOSTLY, 0);
+                checkCUDAReturnCode(result, "cudaMemAdvise");
+            }
+        } catch (InteropException e) {
+            throw new GrCUDAException(e);
+        }
+    }
+
+    /**
+     * Register host memory as pinned memory that the GPU can access directly, and use it as the memory of an array.
+     * The memory is unregistered when the array is freed, or once the array becomes unreachable, but it is never freed,
+     * as it is owned by the host;
+     * @param array the array that uses the memory
+     * @param hostOwner the object that owns the host memory, it is kept alive while the memory is registered (it can be null)
+     * @param address start address of the host memory
+     * @param numBytes size of the host memory, in bytes
+     * @return the registered memory, and the registration used to unregister it
+     */
+    @TruffleBoundary
+    public MemoryReclaimer.Registration cudaHostRegister(Object array, Object hostOwner, long address, long numBytes) {
+        cudaHostRegister(address, numBytes);
+        long devicePointer;
+        try {
+            devicePointer = cudaHostGetDevicePointer(address);
+        } catch (GrCUDAException e) {
+            cudaHostUnregister(address);
+            throw e;
+        }
+        if (devicePointer != address) {
+            // Kernels and library functions receive the host address of arrays, so we need unified addressing;
+            cudaHostUnregister(address);
+            throw new GrCUDAException("registered host memory has a different device address, unified addressing is required");
+        }
+        return memoryReclaimer.register(array, new LittleEndianNativeArrayView(address, numBytes), (memory, streams) -> {
+            // Computations that use the memory must be completed before it is unregistered;
+            streams.forEach(this::cudaStreamSynchronize);
+            cudaHostUnregister(memory.getStartAddress());
+            Reference.reachabilityFence(hostOwner);
+        });
+    }
+
+    public CachingDeviceAllocator getManagedMemoryPool() {
+        return managedMemoryPool;
+    }
+
+    public CachingDeviceAllocator getDeviceMemoryPool() {
+        return deviceMemoryPool;
+    }
+
+    public PinnedStagingBufferPool getStagingBufferPool() {
+        return stagingBufferPool;
+    }
+
+    public KernelAutotuner getKernelAutotuner() {
+        return kernelAutotuner;
+    }
+
+    public MemoryReclaimer getMemoryReclaimer() {
+        return memoryReclaimer;
+    }
+
+    private long cudaMallocImpl(long numBytes) {
         try (UnsafeHelper.PointerObject outPointer = UnsafeHelper.createPointerObject()) {
             Object callable = CUDARuntimeFunction.CUDA_MALLOC.getSymbol(this);
             Object result = INTEROP.execute(callable, outPointer.getAddress(), numBytes);
             checkCUDAReturnCode(result, "cudaMalloc");
-            long addressAllocatedMemory = outPointer.getValueOfPointer();
-            return new GPUPointer(addressAllocatedMemory);
+            return outPointer.getValueOfPointer();
         } catch (InteropException e) {
             throw new GrCUDAException(e);
         }
     }
 
-    @TruffleBoundary
-    public LittleEndianNativeArrayView cudaMallocManaged(long numBytes) {
+    private long cudaMallocManagedImpl(long numBytes) {
         final int cudaMemAttachGlobal = 0x01;
         try (UnsafeHelper.PointerObject outPointer = UnsafeHelper.createPointerObject()) {
             Object callable = CUDARuntimeFunction.CUDA_MALLOCMANAGED.getSymbol(this);
             Object result = INTEROP.execute(callable, outPointer.getAddress(), numBytes, cudaMemAttachGlobal);
             checkCUDAReturnCode(result, "cudaMallocManaged");
-            long addressAllocatedMemory = outPointer.getValueOfPointer();
-            return new LittleEndianNativeArrayView(addressAllocatedMemory, numBytes);
+            return outPointer.getValueOfPointer();
         } catch (InteropException e) {
             throw new GrCUDAException(e);
         }
     }
 
-    @TruffleBoundary
-    public void cudaFree(LittleEndianNativeArrayView memory) {
+    private void cudaFreeImpl(long address) {
         try {
             Object callable = CUDARuntimeFunction.CUDA_FREE.getSymbol(this);
-            Object result = INTEROP.execute(callable, memory.getStartAddress());
+            Object result = INTEROP.execute(callable, address);
             checkCUDAReturnCode(result, "cudaFree");
         } catch (InteropException e) {
             throw new GrCUDAException(e);
@@ -211,11 +524,40 @@ public final class CUDARuntime {
     }
 
     @TruffleBoundary
-    public void cudaFree(GPUPointer pointer) {
+    public void cudaHostRegister(long address, long numBytes) {
+        final int cudaHostRegisterPortable = 0x01;
+        final int cudaHostRegisterMapped = 0x02;
         try {
-            Object callable = CUDARuntimeFunction.CUDA_FREE.getSymbol(this);
-            Object result = INTEROP.execute(callable, pointer.getRawPointer());
-            checkCUDAReturnCode(result, "cudaFree");
+            Object callable = CUDARuntimeFunction.CUDA_HOSTREGISTER.getSymbol(this);
+            Object result = INTEROP.execute(callable, address, numBytes, cudaHostRegisterPortable | cudaHostRegisterMapped);
+            checkCUDAReturnCode(result, "cudaHostRegister");
+        } catch (InteropException e) {
+            throw new GrCUDAException(e);
+        }
+    }
+
+    @TruffleBoundary
+    public void cudaHostUnregister(long address) {
+        try {
+            Object callable = CUDARuntimeFunction.CUDA_HOSTUNREGISTER.getSymbol(this);
+            Object result = INTEROP.execute(callable, address);
+            checkCUDAReturnCode(result, "cudaHostUnregister");
+        } catch (InteropException e) {
+            throw new GrCUDAException(e);
+        }
+    }
+
+    /**
+     * @param address start address of registered host memory
+     * @return the address used by the GPU to access the host memory
+     */
+    @TruffleBoundary
+    public long cudaHostGetDevicePointer(long address) {
+        try (UnsafeHelper.PointerObject outPointer = UnsafeHelper.createPointerObject()) {
+            Object callable = CUDARuntimeFunction.CUDA_HOSTGETDEVICEPOINTER.getSymbol(this);
+            Object result = INTEROP.execute(callable, outPointer.getAddress(), address, 0);
+            checkCUDAReturnCode(result, "cudaHostGetDevicePointer");
+            return outPointer.getValueOfPointer();
         } catch (InteropException e) {
             throw new GrCUDAException(e);
         }
@@ -267,6 +609,98 @@ public final class CUDARuntime {
         }
     }
 
+    /**
+     * Copy memory on a stream without waiting for the copy to complete. The source memory must stay valid
+     * until the stream is synchronized;
+     */
+    @TruffleBoundary
+    public void cudaMemcpyAsync(long destPointer, long fromPointer, long numBytesToCopy, CUDAStream stream) {
+        try {
+            Object callable = CUDARuntimeFunction.CUDA_MEMCPYASYNC.getSymbol(this);
+            if (numBytesToCopy < 0) {
+                throw new IllegalArgumentException("requested negative number of bytes to copy " + numBytesToCopy);
+            }
+            final long cudaMemcpyDefault = 4;
+            Object result = INTEROP.execute(callable, destPointer, fromPointer, numBytesToCopy, cudaMemcpyDefault, stream.getRawPointer());
+            checkCUDAReturnCode(result, "cudaMemcpyAsync");
+        } catch (InteropException e) {
+            throw new GrCUDAException(e);
+        }
+    }
+
+    /**
+     * Copy from host memory to the GPU through the pinned staging buffers, if the copy is large enough
+     * and the host memory is pageable. The copy is completed when this function returns;
+     * @return false if the copy was not staged, and it must be done with a plain memcpy
+     */
+    @TruffleBoundary
+    public boolean cudaMemcpyStagedToDevice(long destPointer, long fromPointer, long numBytesToCopy, CUDAStream stream) {
+        return canStageCopy(fromPointer, numBytesToCopy) && stagingBufferPool.copyToDevice(destPointer, fromPointer, numBytesToCopy, stream);
+    }
+
+    /**
+     * Copy from the GPU to host memory through the pinned staging buffers, if the copy is large enough
+     * and the host memory is pageable. The copy is completed when this function returns;
+     * @return false if the copy was not staged, and it must be done with a plain memcpy
+     */
+    @TruffleBoundary
+    public boolean cudaMemcpyStagedToHost(long destPointer, long fromPointer, long numBytesToCopy, CUDAStream stream) {
+        return canStageCopy(destPointer, numBytesToCopy) && stagingBufferPool.copyToHost(destPointer, fromPointer, numBytesToCopy, stream);
+    }
+
+    private boolean canStageCopy(long hostPointer, long numBytesToCopy) {
+        // Smaller copies are not worth the extra host copy;
+        return stagingBufferPool != null && numBytesToCopy >= stagingBufferPool.getChunkSizeBytes() && isPageableHostMemory(hostPointer);
+    }
+
+    /**
+     * Check if a pointer refers to host memory that is neither pinned nor managed, so it can only be copied synchronously;
+     */
+    @TruffleBoundary
+    public boolean isPageableHostMemory(long pointer) {
+        final String symbol = "cudaPointerGetAttributes";
+        final String nfiSignature = "(pointer, pointer): sint32";
+        final int cudaMemoryTypeUnregistered = 0;
+        final int cudaErrorInvalidValue = 1;
+        // cudaPointerAttributes starts with the memory type, the buffer is larger than the struct in all CUDA versions;
+        try (OffheapMemory attributes = new OffheapMemory(64)) {
+            UnsafeHelper.getUnsafe().setMemory(attributes.getPointer(), attributes.getSizeBytes(), (byte) 0);
+            Object callable = getSymbol(CUDA_RUNTIME_LIBRARY_NAME, symbol, nfiSignature);
+            Object result = INTEROP.execute(callable, attributes.getPointer(), pointer);
+            int returnCode = INTEROP.asInt(result);
+            if (returnCode == 0) {
+                return UnsafeHelper.getUnsafe().getInt(attributes.getPointer()) == cudaMemoryTypeUnregistered;
+            }
+            // Before CUDA 11, pageable memory is not known to CUDA and it is reported as an invalid value;
+            return returnCode == cudaErrorInvalidValue;
+        } catch (InteropException e) {
+            throw new GrCUDAException(e);
+        }
+    }
+
+    @TruffleBoundary
+    public long cudaMallocHost(long numBytes) {
+        try (UnsafeHelper.PointerObject outPointer = UnsafeHelper.createPointerObject()) {
+            Object callable = CUDARuntimeFunction.CUDA_MALLOCHOST.getSymbol(this);
+            Object result = INTEROP.execute(callable, outPointer.getAddress(), numBytes);
+            checkCUDAReturnCode(result, "cudaMallocHost");
+            return outPointer.getValueOfPointer();
+        } catch (InteropException e) {
+            throw new GrCUDAException(e);
+        }
+    }
+
+    @TruffleBoundary
+    public void cudaFreeHost(long address) {
+        try {
+            Object callable = CUDARuntimeFunction.CUDA_FREEHOST.getSymbol(this);
+            Object result = INTEROP.execute(callable, address);
+            checkCUDAReturnCode(result, "cudaFreeHost");
+        } catch (InteropException e) {
+            throw new GrCUDAException(e);
+        }
+    }
+
     @TruffleBoundary
     public DeviceMemoryInfo cudaMemGetInfo() {
         final String symbol = "cudaMemGetInfo";
@@ -379,6 +813,26 @@ public final class CUDARuntime {
         }
     }
 
+    /**
+     * @param stream a CUDA stream
+     * @return if all the computations on the stream have been completed
+     */
+    @TruffleBoundary
+    public boolean cudaStreamQuery(CUDAStream stream) {
+        try {
+            Object callable = CUDARuntimeFunction.CUDA_STREAMQUERY.getSymbol(this);
+            Object result = INTEROP.execute(callable, stream.getRawPointer());
+            // Computations on the stream are still running, this is not an error;
+            if (result instanceof Integer && (Integer) result == CUDA_ERROR_NOT_READY) {
+                return false;
+            }
+            checkCUDAReturnCode(result, "cudaStreamQuery");
+            return true;
+        } catch (InteropException e) {
+            throw new GrCUDAException(e);
+        }
+    }
+
     @TruffleBoundary
     public void cudaStreamDestroy(CUDAStream stream) {
         try {
@@ -408,8 +862,14 @@ public final class CUDARuntime {
 
             // Book-keeping of the stream attachment within the array;
             array.setStreamMapping(stream);
+            // Pinned host memory is always accessible by the GPU and by the host, it cannot be attached to a stream;
+            if (!array.isManagedMemory()) {
+                return;
+            }
 
-            Object result = INTEROP.execute(callable, stream.getRawPointer(), array.getPointer(), array.getSizeBytes(), flag);
+            // Memory is attached to streams as a whole allocation, so slices and views attach their parent array;
+            AbstractArray allocation = array.getParentArray();
+            Object result = INTEROP.execute(callable, stream.getRawPointer(), allocation.getPointer(), allocation.getSizeBytes(), flag);
             checkCUDAReturnCode(result, "cudaStreamAttachMemAsync");
         } catch (InteropException e) {
             throw new GrCUDAException(e);
@@ -429,6 +889,10 @@ public final class CUDARuntime {
 
     @TruffleBoundary
     public void cudaMemPrefetchAsync(AbstractArray array, CUDAStream stream) {
+        // Pinned host memory is not migrated to the GPU, so there is nothing to prefetch;
+        if (!array.isManagedMemory()) {
+            return;
+        }
         try {
             Object callable = CUDARuntimeFunction.CUDA_MEMPREFETCHASYNC.getSymbol(this);
             Object result = INTEROP.execute(callable, array.getPointer(), array.getSizeBytes(), 0, stream.getRawPointer());
@@ -438,6 +902,31 @@ public final class CUDARuntime {
         }
     }
 
+    /**
+     * Advise the driver that an array is mostly read. Host and GPU can then hold read-only copies of the array,
+     * and reading the array from the host does not migrate it away from the GPU. Writes invalidate all the other copies;
+     * @param array the array to advise
+     * @param isReadMostly if true, set the advice, otherwise unset it
+     */
+    @TruffleBoundary
+    public void cudaMemAdviseReadMostly(AbstractArray array, boolean isReadMostly) {
+        final int MEM_ADVISE_SET_READ_MOSTLY = 1;
+        final int MEM_ADVISE_UNSET_READ_MOSTLY = 2;
+        // Pinned host memory is never migrated, so there is nothing to advise;
+        if (!array.isManagedMemory()) {
+            return;
+        }
+        try {
+            Object callable = CUDARuntimeFunction.CUDA_MEMADVISE.getSymbol(this);
+            // The device is ignored by this advice;
+            Object result = INTEROP.execute(callable, array.getPointer(), array.getSizeBytes(),
+                    isReadMostly ? MEM_ADVISE_SET_READ_MOSTLY : MEM_ADVISE_UNSET_READ_MOSTLY, 0);
+            checkCUDAReturnCode(result, "cudaMemAdvise");
+        } catch (InteropException e) {
+            throw new GrCUDAException(e);
+        }
+    }
+
     @TruffleBoundary
     public GPUPointer getInnerCudaContext() {
         if (this.innerCudaContext == null) {
@@ -510,6 +999,69 @@ public final class CUDARuntime {
         }
     }
 
+    /**
+     * Check, without blocking the host, if all the work captured by the last record of a given event has been completed;
+     * @param event a CUDA event
+     * @return if the event has been completed, i.e. the computations that precede it on its stream are finished
+     */
+    @TruffleBoundary
+    public boolean cudaEventQuery(CUDAEvent event) {
+        if (!event.isAlive()) {
+            throw new RuntimeException("CUDA event=" + event + " has already been destroyed");
+        }
+        try {
+            Object callable = CUDARuntimeFunction.CUDA_EVENTQUERY.getSymbol(this);
+            Object result = INTEROP.execute(callable, event.getRawPointer());
+            // The event has not been completed yet, this is not an error;
+            if (result instanceof Integer && (Integer) result == CUDA_ERROR_NOT_READY) {
+                return false;
+            }
+            checkCUDAReturnCode(result, "cudaEventQuery");
+            return true;
+        } catch (InteropException e) {
+            throw new GrCUDAException(e);
+        }
+    }
+
+    /**
+     * Measure the time elapsed between two completed events, recorded on a stream;
+     * @param start a CUDA event recorded before the timed work
+     * @param end a CUDA event recorded after the timed work
+     * @return the elapsed time in milliseconds
+     */
+    @TruffleBoundary
+    public float cudaEventElapsedTime(CUDAEvent start, CUDAEvent end) {
+        if (!start.isAlive() || !end.isAlive()) {
+            throw new RuntimeException("CUDA event=" + (start.isAlive() ? end : start) + " has already been destroyed");
+        }
+        try (UnsafeHelper.Float32Object elapsedTimeMs = UnsafeHelper.createFloat32Object()) {
+            Object callable = CUDARuntimeFunction.CUDA_EVENTELAPSEDTIME.getSymbol(this);
+            Object result = INTEROP.execute(callable, elapsedTimeMs.getAddress(), start.getRawPointer(), end.getRawPointer());
+            checkCUDAReturnCode(result, "cudaEventElapsedTime");
+            return elapsedTimeMs.getValue();
+        } catch (InteropException e) {
+            throw new GrCUDAException(e);
+        }
+    }
+
+    /**
+     * Block the host until all the work captured by the last record of a given event has been completed;
+     * @param event a CUDA event
+     */
+    @TruffleBoundary
+    public void cudaEventSynchronize(CUDAEvent event) {
+        if (!event.isAlive()) {
+            throw new RuntimeException("CUDA event=" + event + " has already been destroyed");
+        }
+        try {
+            Object callable = CUDARuntimeFunction.CUDA_EVENTSYNCHRONIZE.getSymbol(this);
+            Object result = INTEROP.execute(callable, event.getRawPointer());
+            checkCUDAReturnCode(result, "cudaEventSynchronize");
+        } catch (InteropException e) {
+            throw new GrCUDAException(e);
+        }
+    }
+
     /**
      * Tell a stream to wait for a given event to occur on another stream before executing any other computation;
      * @param stream a CUDA stream to which the event is associated
@@ -644,20 +1196,27 @@ public final class CUDARuntime {
                 return NoneValue.get();
             }
         },
+        CUDA_FREEHOST("cudaFreeHost", "(pointer): sint32") {
+            @Override
+            @TruffleBoundary
+            public Object call(CUDARuntime cudaRuntime, Object[] args) throws ArityException, UnsupportedTypeException, InteropException {
+                checkArgumentLength(args, 1);
+                callSymbol(cudaRuntime, extractArrayPointer(args[0]));
+                return NoneValue.get();
+            }
+        },
         CUDA_FREE("cudaFree", "(pointer): sint32") {
             @Override
             public Object call(CUDARuntime cudaRuntime, Object[] args) throws ArityException, UnsupportedTypeException, InteropException {
                 checkArgumentLength(args, 1);
                 Object pointerObj = args[0];
-                long addr;
                 if (pointerObj instanceof GPUPointer) {
-                    addr = ((GPUPointer) pointerObj).getRawPointer();
+                    cudaRuntime.cudaFree((GPUPointer) pointerObj);
                 } else if (pointerObj instanceof LittleEndianNativeArrayView) {
-                    addr = ((LittleEndianNativeArrayView) pointerObj).getStartAddress();
+                    cudaRuntime.cudaFree((LittleEndianNativeArrayView) pointerObj, cudaRuntime.context.getGrCUDAExecutionContext().getStreamsInUse());
                 } else {
                     throw new GrCUDAException("expected GPUPointer or LittleEndianNativeArrayView");
                 }
-                callSymbol(cudaRuntime, addr);
                 return NoneValue.get();
             }
         },
@@ -693,7 +1252,50 @@ public final class CUDARuntime {
                 return INTEROP.asString(result);
             }
         },
+        CUDA_HOSTREGISTER("cudaHostRegister", "(pointer, uint64, uint32): sint32") {
+            @Override
+            @TruffleBoundary
+            public Object call(CUDARuntime cudaRuntime, Object[] args) throws ArityException, UnsupportedTypeException, InteropException {
+                checkArgumentLength(args, 3);
+                long addr = extractArrayPointer(args[0]);
+                long numBytes = expectLong(args[1]);
+                int flags = expectInt(args[2]);
+                callSymbol(cudaRuntime, addr, numBytes, flags);
+                return NoneValue.get();
+            }
+        },
+        CUDA_HOSTUNREGISTER("cudaHostUnregister", "(pointer): sint32") {
+            @Override
+            @TruffleBoundary
+            public Object call(CUDARuntime cudaRuntime, Object[] args) throws ArityException, UnsupportedTypeException, InteropException {
+                checkArgumentLength(args, 1);
+                long addr = extractArrayPointer(args[0]);
+                callSymbol(cudaRuntime, addr);
+                return NoneValue.get();
+            }
+        },
+        CUDA_HOSTGETDEVICEPOINTER("cudaHostGetDevicePointer", "(pointer, pointer, uint32): sint32") {
+            @Override
+            @TruffleBoundary
+            public Object call(CUDARuntime cudaRuntime, Object[] args) throws ArityException, UnsupportedTypeException, InteropException {
+                checkArgumentLength(args, 1);
+                long addr = extractArrayPointer(args[0]);
+                try (UnsafeHelper.PointerObject outPointer = UnsafeHelper.createPointerObject()) {
+                    callSymbol(cudaRuntime, outPointer.getAddress(), addr, 0);
+                    return new GPUPointer(outPointer.getValueOfPointer());
+                }
+            }
+        },
         CUDA_MALLOC("cudaMalloc", "(pointer, uint64): sint32") {
+            @Override
+            @TruffleBoundary
+            public Object call(CUDARuntime cudaRuntime, Object[] args) throws ArityException, UnsupportedTypeException, InteropException {
+                checkArgumentLength(args, 1);
+                long numBytes = expectLong(args[0]);
+                return cudaRuntime.cudaMalloc(numBytes);
+            }
+        },
+        CUDA_MALLOCHOST("cudaMallocHost", "(pointer, uint64): sint32") {
             @Override
             @TruffleBoundary
             public Object call(CUDARuntime cudaRuntime, Object[] args) throws ArityException, UnsupportedTypeException, InteropException {
@@ -701,8 +1303,7 @@ public final class CUDARuntime {
                 long numBytes = expectLong(args[0]);
                 try (UnsafeHelper.PointerObject outPointer = UnsafeHelper.createPointerObject()) {
                     callSymbol(cudaRuntime, outPointer.getAddress(), numBytes);
-                    long addressAllocatedMemory = outPointer.getValueOfPointer();
-                    return new GPUPointer(addressAllocatedMemory);
+                    return new GPUPointer(outPointer.getValueOfPointer());
                 }
             }
         },
@@ -774,6 +1375,19 @@ public final class CUDARuntime {
                 }
             }
         },
+        CUDA_STREAMQUERY("cudaStreamQuery", "(pointer): sint32") {
+            @Override
+            @TruffleBoundary
+            public Object call(CUDARuntime cudaRuntime, Object[] args) throws ArityException, UnsupportedTypeException, InteropException {
+                checkArgumentLength(args, 1);
+                Object streamObj = args[0];
+                if (streamObj instanceof CUDAStream) {
+                    return cudaRuntime.cudaStreamQuery((CUDAStream) streamObj);
+                } else {
+                    throw new GrCUDAException("expected CUDAStream object");
+                }
+            }
+        },
         CUDA_STREAMSYNCHRONIZE("cudaStreamSynchronize", "(pointer): sint32") {
             @Override
             @TruffleBoundary
@@ -860,6 +1474,19 @@ public final class CUDARuntime {
                 return NoneValue.get();
             }
         },
+        CUDA_MEMADVISE("cudaMemAdvise", "(pointer, uint64, sint32, sint32): sint32") {
+            @Override
+            @TruffleBoundary
+            public Object call(CUDARuntime cudaRuntime, Object[] args) throws ArityException, UnsupportedTypeException, InteropException {
+                checkArgumentLength(args, 4);
+                long addr = extractArrayPointer(args[0]);
+                long numBytes = expectLong(args[1]);
+                int advice = expectInt(args[2]);
+                int device = expectInt(args[3]);
+                callSymbol(cudaRuntime, addr, numBytes, advice, device);
+                return NoneValue.get();
+            }
+        },
         CUDA_MEMPREFETCHASYNC("cudaMemPrefetchAsync", "(pointer, uint64, sint32, pointer): sint32") {
             @Override
             @TruffleBoundary
@@ -933,6 +1560,20 @@ public final class CUDARuntime {
                 return NoneValue.get();
             }
         },
+        CUDA_EVENTSYNCHRONIZE("cudaEventSynchronize", "(pointer): sint32") {
+            @Override
+            @TruffleBoundary
+            public Object call(CUDARuntime cudaRuntime, Object[] args) throws ArityException, UnsupportedTypeException, InteropException {
+                checkArgumentLength(args, 1);
+                Object eventObj = args[0];
+                if (eventObj instanceof CUDAEvent) {
+                    cudaRuntime.cudaEventSynchronize((CUDAEvent) eventObj);
+                    return NoneValue.get();
+                } else {
+                    throw new GrCUDAException("expected CUDAEvent object");
+                }
+            }
+        },
         CUDA_EVENTRECORD("cudaEventRecord", "(pointer, pointer): sint32") {
             @Override
             @TruffleBoundary
@@ -955,6 +1596,31 @@ public final class CUDARuntime {
                 return NoneValue.get();
             }
         },
+        CUDA_EVENTQUERY("cudaEventQuery", "(pointer): sint32") {
+            @Override
+            @TruffleBoundary
+            public Object call(CUDARuntime cudaRuntime, Object[] args) throws ArityException, UnsupportedTypeException, InteropException {
+                checkArgumentLength(args, 1);
+                Object eventObj = args[0];
+                if (eventObj instanceof CUDAEvent) {
+                    return cudaRuntime.cudaEventQuery((CUDAEvent) eventObj);
+                } else {
+                    throw new GrCUDAException("expected CUDAEvent object");
+                }
+            }
+        },
+        CUDA_EVENTELAPSEDTIME("cudaEventElapsedTime", "(pointer, pointer, pointer): sint32") {
+            @Override
+            @TruffleBoundary
+            public Object call(CUDARuntime cudaRuntime, Object[] args) throws ArityException, UnsupportedTypeException, InteropException {
+                checkArgumentLength(args, 2);
+                if (args[0] instanceof CUDAEvent && args[1] instanceof CUDAEvent) {
+                    return cudaRuntime.cudaEventElapsedTime((CUDAEvent) args[0], (CUDAEvent) args[1]);
+                } else {
+                    throw new GrCUDAException("expected CUDAEvent objects");
+                }
+            }
+        },
         CUDA_STREAMWAITEVENT("cudaStreamWaitEvent", "(pointer, pointer, uint32): sint32") {
             @Override
             @TruffleBoundary
@@ -1071,7 +1737,8 @@ public final class CUDARuntime {
     @TruffleBoundary
     public Kernel buildKernel(AbstractGrCUDAExecutionContext grCUDAExecutionContext, String code, String kernelName, String signature) {
         String moduleName = "truffle" + context.getNextModuleId();
-        PTXKernel ptx = nvrtc.compileKernel(code, kernelName, moduleName, "--std=c++14");
+        PTXKernel ptx = ptxCache != null ? ptxCache.getKernel(code, kernelName, moduleName, "--std=c++14") :
+                        nvrtc.compileKernel(code, kernelName, moduleName, "--std=c++14");
         CUModule module = cuModuleLoadData(ptx.getPtxSource(), moduleName);
         loadedModules.put(moduleName, module);
         long kernelFunctionHandle = cuModuleGetFunction(module, ptx.getLoweredKernelName());
@@ -1143,6 +1810,21 @@ public final class CUDARuntime {
         }
     }
 
+    /**
+     * Read an attribute of a kernel, such as the number of registers used by each thread;
+     */
+    @TruffleBoundary
+    public int cuFuncGetAttribute(CUFunctionAttribute attribute, Kernel kernel) {
+        try (Integer32Object value = UnsafeHelper.createInteger32Object()) {
+            Object callable = CUDADriverFunction.CU_FUNCGETATTRIBUTE.getSymbol(this);
+            Object result = INTEROP.execute(callable, value.getAddress(), attribute.getAttributeCode(), kernel.getKernelFunctionHandle());
+            checkCUReturnCode(result, "cuFuncGetAttribute");
+            return value.getValue();
+        } catch (InteropException e) {
+            throw new GrCUDAException(e);
+        }
+    }
+
     @TruffleBoundary
     public void cuCtxSynchronize() {
         assertCUDAInitialized();
@@ -1160,6 +1842,25 @@ public final class CUDARuntime {
         this.cuLaunchKernel(kernel, config, args, config.getStream());
     }
 
+    /**
+     * Launch a kernel with a block size chosen by the {@link KernelAutotuner}, timing the launch if the tuner requires it;
+     */
+    @TruffleBoundary
+    public void cuLaunchKernel(Kernel kernel, KernelConfig config, KernelArguments args, CUDAStream stream, KernelAutotuner.Trial trial) {
+        if (trial == null || kernelAutotuner == null) {
+            cuLaunchKernel(kernel, config, args, stream);
+            return;
+        }
+        KernelAutotuner.Measurement measurement = kernelAutotuner.startMeasurement(trial, stream);
+        try {
+            cuLaunchKernel(kernel, config, args, stream);
+        } catch (RuntimeException e) {
+            kernelAutotuner.cancelMeasurement(measurement);
+            throw e;
+        }
+        kernelAutotuner.stopMeasurement(measurement, stream);
+    }
+
     @TruffleBoundary
     public void cuLaunchKernel(Kernel kernel, KernelConfig config, KernelArguments args, CUDAStream stream) {
         try {
@@ -1323,6 +2024,22 @@ public final class CUDARuntime {
     }
 
     private void shutdown() {
+        // release the memory of unreachable arrays
+        memoryReclaimer.reclaim();
+        // release the memory cached by the memory pool
+        if (managedMemoryPool != null) {
+            managedMemoryPool.trim();
+        }
+        if (deviceMemoryPool != null) {
+            deviceMemoryPool.trim();
+        }
+        if (stagingBufferPool != null) {
+            stagingBufferPool.free();
+        }
+        // store the tuned block sizes, before the events used for timing are destroyed
+        if (kernelAutotuner != null) {
+            kernelAutotuner.free();
+        }
         // unload all modules
         for (CUModule module : loadedModules.values()) {
             try {
@@ -1344,6 +2061,7 @@ public final class CUDARuntime {
         CU_DEVICEGET("cuDeviceGet", "(pointer, sint32): sint32"),
         CU_DEVICEGETNAME("cuDeviceGetName", "(pointer, sint32, sint32): sint32"),
         CU_DEVICEPRIMARYCTXRETAIN("cuDevicePrimaryCtxRetain", "(pointer, sint32): sint32"),
+        CU_FUNCGETATTRIBUTE("cuFuncGetAttribute", "(pointer, sint32, uint64): sint32"),
         CU_INIT("cuInit", "(uint32): sint32"),
         CU_LAUNCHKERNEL("cuLaunchKernel", "(uint64, uint32, uint32, uint32, uint32, uint32, uint32, uint32, uint64, pointer, pointer): sint32"),
         CU_MODULELOAD("cuModuleLoad", "(pointer, string): sint32"),
@@ -1364,6 +2082,23 @@ public final class CUDARuntime {
         }
     }
 
+    /** Kernel attributes from the CUfunction_attribute enum of the cuda.h CUDA header. */
+    public enum CUFunctionAttribute {
+        MAX_THREADS_PER_BLOCK(0),
+        SHARED_SIZE_BYTES(1),
+        NUM_REGS(4);
+
+        final int attributeCode;
+
+        int getAttributeCode() {
+            return attributeCode;
+        }
+
+        CUFunctionAttribute(int code) {
+            this.attributeCode = code;
+        }
+    }
+
     /** CUDA device attributes from driver_types.h CUDA header. */
     public enum CUDADeviceAttribute {
         MAX_THREADS_PER_BLOCK("maxThreadsPerBlock", 1),
@@ -1486,6 +2221,8 @@ public final class CUDARuntime {
         /** Pointer to the native CUmodule object. */
         final long modulePointer;
         boolean closed = false;
+        /** Number of kernels that use this module, guarded by the module itself since kernels can be released concurrently. */
+        private int refCount = 0;
 
         CUModule(String cubinFile, long modulePointer) {
             this.cubinFile = cubinFile;
@@ -1505,6 +2242,27 @@ public final class CUDARuntime {
             return closed;
         }
 
+        public synchronized int getRefCount() {
+            return refCount;
+        }
+
+        /**
+         * Keep track of a new kernel that uses this module;
+         */
+        public synchronized void retain() {
+            refCount++;
+        }
+
+        /**
+         * Keep track that a kernel no longer uses this module. When no kernel uses it, the module is unloaded;
+         */
+        public synchronized void release() {
+            if (refCount > 0 && --refCount == 0) {
+                close();
+                loadedModules.remove(cubinFile);
+            }
+        }
+
         @Override
         public boolean equals(Object other) {
             if (other instanceof CUModule) {
@@ -1521,7 +2279,7 @@ public final class CUDARuntime {
         }
 
         @Override
-        public void close() {
+        public synchronized void close() {
             if (!closed) {
                 cuModuleUnload(this);
                 closed = true;
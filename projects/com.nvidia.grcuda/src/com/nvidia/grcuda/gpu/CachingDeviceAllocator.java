@@ -0,0 +1,370 @@
+/*
+ * Copyright (c) 2019, NVIDIA CORPORATION. All rights reserved.
+ * Copyright (c) 2019, 2020, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *  * Neither the name of NVIDIA CORPORATION nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY
+ * OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.nvidia.grcuda.gpu;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import com.nvidia.grcuda.GrCUDAException;
+import com.nvidia.grcuda.gpu.stream.CUDAStream;
+
+/**
+ * Caching allocator that keeps freed GPU memory blocks and reuses them for later allocations,
+ * to avoid calling cudaFree (which implicitly synchronizes the whole device) and cudaMalloc for every array.
+ * Requested sizes are rounded up to power-of-two size classes, so that blocks can be reused by arrays of similar size.
+ * Blocks freed while computations on some streams might still be using them are kept in separate free lists per size class,
+ * and they are reused only once all these streams are idle. Cached blocks are released when the cache grows too large,
+ * and when an allocation fails because the GPU is out of memory;
+ */
+public class CachingDeviceAllocator {
+
+    /**
+     * Allocator that actually provides memory to the cache, e.g. cudaMallocManaged and cudaFree;
+     */
+    public interface NativeAllocator {
+        long allocate(long numBytes);
+
+        void free(long address);
+
+        /**
+         * Restore the default state of a block that returns to the cache, e.g. its stream attachment,
+         * so that the array that reuses it does not inherit the state of the previous array;
+         */
+        default void reset(long address, long numBytes) { }
+    }
+
+    /**
+     * Blocks are at least 512 bytes, smaller arrays share the same size class;
+     */
+    public static final long MIN_BLOCK_SIZE = 512;
+    /**
+     * Larger allocations are not rounded up and are not cached, as rounding them would waste too much memory;
+     */
+    public static final long DEFAULT_MAX_BLOCK_SIZE = 64 * 1024 * 1024;
+
+    private final NativeAllocator allocator;
+    private final Predicate<CUDAStream> isStreamIdle;
+    private final long maxCachedBytes;
+    private final long maxBlockSize;
+
+    private static class Block {
+        private final long address;
+        private final long sizeBytes;
+        private final long requestedBytes;
+        private final boolean cached;
+
+        Block(long address, long sizeBytes, long requestedBytes, boolean cached) {
+            this.address = address;
+            this.sizeBytes = sizeBytes;
+            this.requestedBytes = requestedBytes;
+            this.cached = cached;
+        }
+    }
+
+    /**
+     * Blocks in use, identified by their address;
+     */
+    private final Map<Long, Block> allocatedBlocks = new HashMap<>();
+    /**
+     * Free blocks that are not used by any computation, grouped by size class;
+     */
+    private final TreeMap<Long, ArrayDeque<Long>> idleBlocks = new TreeMap<>();
+    /**
+     * A free block that might still be used by computations running on some streams;
+     */
+    private static class PendingBlock {
+        private final long address;
+        private final Collection<CUDAStream> streams;
+
+        PendingBlock(long address, Collection<CUDAStream> streams) {
+            this.address = address;
+            this.streams = streams;
+        }
+    }
+
+    /**
+     * Free blocks that might still be used by computations running on some streams, grouped by size class
+     * and in the order they were freed;
+     */
+    private final TreeMap<Long, ArrayDeque<PendingBlock>> pendingBlocks = new TreeMap<>();
+
+    private long inUseBytes = 0;
+    private long requestedBytes = 0;
+    private long cachedBytes = 0;
+    private long highWaterMarkBytes = 0;
+    private long numAllocations = 0;
+    private long numReusedAllocations = 0;
+    private long numNativeAllocations = 0;
+    private long numNativeFrees = 0;
+
+    public CachingDeviceAllocator(NativeAllocator allocator, Predicate<CUDAStream> isStreamIdle, long maxCachedBytes) {
+        this(allocator, isStreamIdle, maxCachedBytes, DEFAULT_MAX_BLOCK_SIZE);
+    }
+
+    public CachingDeviceAllocator(NativeAllocator allocator, Predicate<CUDAStream> isStreamIdle, long maxCachedBytes, long maxBlockSize) {
+        this.allocator = allocator;
+        this.isStreamIdle = isStreamIdle;
+        this.maxCachedBytes = maxCachedBytes;
+        this.maxBlockSize = maxBlockSize;
+    }
+
+    /**
+     * Round the requested size to the size class of the block that stores it;
+     */
+    public static long getSizeClass(long numBytes) {
+        if (numBytes <= MIN_BLOCK_SIZE) {
+            return MIN_BLOCK_SIZE;
+        }
+        long sizeClass = Long.highestOneBit(numBytes);
+        return sizeClass == numBytes ? sizeClass : sizeClass << 1;
+    }
+
+    /**
+     * Allocate a block with at least the requested size, reusing a cached block if possible;
+     * @param numBytes size of the allocation, in bytes
+     * @return the address of the allocated block
+     */
+    public synchronized long allocate(long numBytes) {
+        boolean cached = numBytes <= maxBlockSize;
+        long sizeBytes = cached ? getSizeClass(numBytes) : numBytes;
+        Long address = cached ? takeFreeBlock(sizeBytes) : null;
+        if (address != null) {
+            numReusedAllocations++;
+            cachedBytes -= sizeBytes;
+        } else {
+            address = allocateNative(sizeBytes);
+        }
+        allocatedBlocks.put(address, new Block(address, sizeBytes, numBytes, cached));
+        numAllocations++;
+        inUseBytes += sizeBytes;
+        requestedBytes += numBytes;
+        highWaterMarkBytes = Math.max(highWaterMarkBytes, getReservedBytes());
+        return address;
+    }
+
+    /**
+     * Return a block to the cache;
+     * @param address address of a block provided by this allocator
+     * @param streams streams whose computations might still be using the block, empty if the block is not used by the GPU
+     * @return false if the block was not provided by this allocator, and nothing was done
+     */
+    public synchronized boolean free(long address, Collection<CUDAStream> streams) {
+        Block block = allocatedBlocks.remove(address);
+        if (block == null) {
+            return false;
+        }
+        inUseBytes -= block.sizeBytes;
+        requestedBytes -= block.requestedBytes;
+        if (!block.cached) {
+            freeNative(address);
+            return true;
+        }
+        allocator.reset(address, block.sizeBytes);
+        if (streams.isEmpty()) {
+            idleBlocks.computeIfAbsent(block.sizeBytes, s -> new ArrayDeque<>()).push(address);
+        } else {
+            pendingBlocks.computeIfAbsent(block.sizeBytes, s -> new ArrayDeque<>()).add(new PendingBlock(address, new ArrayList<>(streams)));
+        }
+        cachedBytes += block.sizeBytes;
+        if (cachedBytes > maxCachedBytes) {
+            trim(maxCachedBytes);
+        }
+        return true;
+    }
+
+    public synchronized boolean isAllocated(long address) {
+        return allocatedBlocks.containsKey(address);
+    }
+
+    /**
+     * Release all cached blocks to the native allocator. Blocks that are still in use are not affected;
+     */
+    public synchronized void trim() {
+        trim(0);
+    }
+
+    /**
+     * Release cached blocks, starting from the largest idle ones and then the largest pending ones,
+     * until the cache is not larger than the target size.
+     * Releasing blocks still used by a stream is safe, as cudaFree waits for the completion of all computations;
+     */
+    private void trim(long targetCachedBytes) {
+        trimBlocks(idleBlocks, address -> address, targetCachedBytes);
+        trimBlocks(pendingBlocks, block -> block.address, targetCachedBytes);
+    }
+
+    private <T> void trimBlocks(TreeMap<Long, ArrayDeque<T>> blocks, Function<T, Long> getAddress, long targetCachedBytes) {
+        Iterator<Map.Entry<Long, ArrayDeque<T>>> iterator = blocks.descendingMap().entrySet().iterator();
+        while (cachedBytes > targetCachedBytes && iterator.hasNext()) {
+            Map.Entry<Long, ArrayDeque<T>> entry = iterator.next();
+            ArrayDeque<T> sizeClassBlocks = entry.getValue();
+            while (cachedBytes > targetCachedBytes && !sizeClassBlocks.isEmpty()) {
+                freeNative(getAddress.apply(sizeClassBlocks.pop()));
+                cachedBytes -= entry.getKey();
+            }
+            if (sizeClassBlocks.isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private Long takeFreeBlock(long sizeClass) {
+        Long address = pop(idleBlocks, sizeClass);
+        if (address == null && pendingBlocks.containsKey(sizeClass)) {
+            releaseCompletedBlocks(sizeClass);
+            address = pop(idleBlocks, sizeClass);
+        }
+        return address;
+    }
+
+    /**
+     * Blocks of a size class whose streams have all completed their computations can be used by any array.
+     * Each stream is queried at most once;
+     */
+    private void releaseCompletedBlocks(long sizeClass) {
+        ArrayDeque<PendingBlock> blocks = pendingBlocks.get(sizeClass);
+        Map<CUDAStream, Boolean> idleStreams = new HashMap<>();
+        Iterator<PendingBlock> iterator = blocks.iterator();
+        while (iterator.hasNext()) {
+            PendingBlock block = iterator.next();
+            if (block.streams.stream().allMatch(s -> idleStreams.computeIfAbsent(s, isStreamIdle::test))) {
+                idleBlocks.computeIfAbsent(sizeClass, k -> new ArrayDeque<>()).push(block.address);
+                iterator.remove();
+            }
+        }
+        if (blocks.isEmpty()) {
+            pendingBlocks.remove(sizeClass);
+        }
+    }
+
+    private static Long pop(Map<Long, ArrayDeque<Long>> freeBlocks, long sizeClass) {
+        ArrayDeque<Long> addresses = freeBlocks.get(sizeClass);
+        if (addresses == null || addresses.isEmpty()) {
+            return null;
+        }
+        Long address = addresses.pop();
+        if (addresses.isEmpty()) {
+            freeBlocks.remove(sizeClass);
+        }
+        return address;
+    }
+
+    private long allocateNative(long sizeBytes) {
+        long address;
+        try {
+            address = allocator.allocate(sizeBytes);
+        } catch (GrCUDAException e) {
+            if (cachedBytes == 0) {
+                throw e;
+            }
+            // The allocation might have failed because too much memory is cached, release it and try again;
+            trim();
+            address = allocator.allocate(sizeBytes);
+        }
+        numNativeAllocations++;
+        return address;
+    }
+
+    private void freeNative(long address) {
+        allocator.free(address);
+        numNativeFrees++;
+    }
+
+    /**
+     * @return bytes of the blocks currently in use, including the padding of size classes
+     */
+    public synchronized long getInUseBytes() {
+        return inUseBytes;
+    }
+
+    /**
+     * @return bytes requested by the allocations currently in use
+     */
+    public synchronized long getRequestedBytes() {
+        return requestedBytes;
+    }
+
+    /**
+     * @return bytes of the free blocks kept in the cache
+     */
+    public synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    /**
+     * @return bytes currently obtained from the native allocator, i.e. blocks in use and cached blocks
+     */
+    public synchronized long getReservedBytes() {
+        return inUseBytes + cachedBytes;
+    }
+
+    /**
+     * @return the maximum number of bytes ever obtained from the native allocator at the same time
+     */
+    public synchronized long getHighWaterMarkBytes() {
+        return highWaterMarkBytes;
+    }
+
+    /**
+     * @return fraction of the reserved memory that is not used by any allocation, because of padding or caching
+     */
+    public synchronized double getFragmentation() {
+        long reservedBytes = getReservedBytes();
+        return reservedBytes == 0 ? 0 : 1 - (double) requestedBytes / reservedBytes;
+    }
+
+    public synchronized long getNumAllocations() {
+        return numAllocations;
+    }
+
+    public synchronized long getNumReusedAllocations() {
+        return numReusedAllocations;
+    }
+
+    public synchronized long getNumNativeAllocations() {
+        return numNativeAllocations;
+    }
+
+    public synchronized long getNumNativeFrees() {
+        return numNativeFrees;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "CachingDeviceAllocator(inUse=" + inUseBytes + " bytes, cached=" + cachedBytes + " bytes, highWaterMark=" + highWaterMarkBytes +
+                " bytes, allocations=" + numAllocations + ", reused=" + numReusedAllocations + ")";
+    }
+}
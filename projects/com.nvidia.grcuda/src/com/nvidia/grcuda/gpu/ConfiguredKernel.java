@@ -45,9 +45,24 @@ public class ConfiguredKernel implements TruffleObject {
 
     private final KernelConfig config;
 
+    /**
+     * If the block size is tuned by the {@link KernelAutotuner}, the key of the kernel in the tuning table,
+     * the block sizes that can be tried, and the number of elements that define the grid size. Otherwise, the key is null;
+     */
+    private final String tuningKey;
+    private final int[] blockSizeCandidates;
+    private final long numElements;
+
     public ConfiguredKernel(Kernel kernel, KernelConfig config) {
+        this(kernel, config, null, null, 0);
+    }
+
+    public ConfiguredKernel(Kernel kernel, KernelConfig config, String tuningKey, int[] blockSizeCandidates, long numElements) {
         this.kernel = kernel;
         this.config = config;
+        this.tuningKey = tuningKey;
+        this.blockSizeCandidates = blockSizeCandidates;
+        this.numElements = numElements;
     }
 
     @ExportMessage
@@ -65,18 +80,43 @@ public class ConfiguredKernel implements TruffleObject {
                     @CachedLibrary(limit = "3") InteropLibrary int64Access,
                     @CachedLibrary(limit = "3") InteropLibrary doubleAccess) throws UnsupportedTypeException, ArityException {
         kernel.incrementLaunchCount();
-        try (KernelArguments args = kernel.createKernelArguments(arguments, boolAccess, int8Access, int16Access,
-                        int32Access, int64Access, doubleAccess)) {
-            // If using a manually specified stream, do not schedule it automatically, but execute it immediately;
-            if (!config.useCustomStream()) {
-                new KernelExecution(this, args).schedule();
-            } else {
-                kernel.getGrCUDAExecutionContext().getCudaRuntime().cuLaunchKernel(kernel, config, args, config.getStream());
+        KernelArguments args = kernel.createKernelArguments(arguments, boolAccess, int8Access, int16Access,
+                        int32Access, int64Access, doubleAccess);
+        // Choose the block size of this launch, if it is tuned;
+        KernelConfig launchConfig = config;
+        KernelAutotuner.Trial trial = null;
+        if (tuningKey != null) {
+            trial = kernel.getGrCUDAExecutionContext().getCudaRuntime().getKernelAutotuner().nextTrial(tuningKey, blockSizeCandidates);
+            launchConfig = getTunedConfig(trial.getBlockSize());
+        }
+        // If using a manually specified stream, do not schedule it automatically, but execute it immediately;
+        if (!config.useCustomStream()) {
+            // The arguments are released by the computation once the kernel is launched, as the launch might be deferred;
+            try {
+                new KernelExecution(this, launchConfig, args, trial).schedule();
+            } catch (UnsupportedTypeException | RuntimeException e) {
+                args.close();
+                if (trial != null) {
+                    kernel.getGrCUDAExecutionContext().getCudaRuntime().getKernelAutotuner().cancelTrial(trial);
+                }
+                throw e;
+            }
+        } else {
+            try (KernelArguments launchArgs = args) {
+                kernel.getGrCUDAExecutionContext().getCudaRuntime().cuLaunchKernel(kernel, launchConfig, launchArgs, config.getStream(), trial);
             }
         }
         return this;
     }
 
+    private KernelConfig getTunedConfig(int blockSize) {
+        if (blockSize == config.getBlockSize().getX()) {
+            return config;
+        }
+        return new KernelConfig(new Dim3(OccupancyCalculator.getGridSize(numElements, blockSize)), new Dim3(blockSize),
+                        config.getDynamicSharedMemoryBytes(), config.getStream(), config.useCustomStream());
+    }
+
     public Kernel getKernel() {
         return kernel;
     }
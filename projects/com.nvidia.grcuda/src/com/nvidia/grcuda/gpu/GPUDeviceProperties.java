@@ -95,6 +95,14 @@ public final class GPUDeviceProperties implements TruffleObject {
         return value;
     }
 
+    /**
+     * Read a device attribute from Java. Attributes are static, so they are cached like the properties read through interop;
+     */
+    @TruffleBoundary
+    public int getDeviceAttribute(CUDADeviceAttribute attribute) {
+        return (int) properties.computeIfAbsent(attribute.getAttributeName(), name -> runtime.cudaDeviceGetAttribute(attribute, deviceId));
+    }
+
     @Override
     public String toString() {
         return "GPUDeviceProperties(deviceId=" + deviceId + ")";
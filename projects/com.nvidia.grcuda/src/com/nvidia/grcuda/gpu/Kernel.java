@@ -31,19 +31,30 @@ package com.nvidia.grcuda.gpu;
 import com.nvidia.grcuda.GrCUDAInternalException;
 import com.nvidia.grcuda.array.DeviceArray;
 import com.nvidia.grcuda.MemberSet;
+import com.nvidia.grcuda.NoneValue;
 import com.nvidia.grcuda.array.MultiDimDeviceArray;
+import com.nvidia.grcuda.array.MultiDimDeviceArrayView;
+import com.nvidia.grcuda.gpu.computation.KernelExecution;
 import com.nvidia.grcuda.gpu.executioncontext.AbstractGrCUDAExecutionContext;
 import com.nvidia.grcuda.gpu.stream.CUDAStream;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
 
 import com.nvidia.grcuda.ComputationArgument;
 import com.nvidia.grcuda.GrCUDAException;
 import com.nvidia.grcuda.Type;
 import com.nvidia.grcuda.TypeException;
+import com.nvidia.grcuda.gpu.CUDARuntime.CUFunctionAttribute;
 import com.nvidia.grcuda.gpu.CUDARuntime.CUModule;
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Fallback;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.interop.ArityException;
@@ -66,8 +77,28 @@ public class Kernel implements TruffleObject {
     private final long nativeKernelFunctionHandle;
     private final CUModule module;
     private final ComputationArgument[] kernelComputationArguments;
+    private final String kernelSignature;
     private int launchCount = 0;
     private String ptxCode;
+    /**
+     * Hash of the code of the kernel, used to identify it in the {@link KernelAutotuner}. Computed when first needed;
+     */
+    private volatile String codeHash;
+    private volatile boolean released = false;
+    /**
+     * Packed argument array, laid out when the kernel is created and reused by each launch,
+     * to avoid allocating off-heap memory for every argument of every launch.
+     * It is null while a launch is using it;
+     */
+    private final AtomicReference<UnsafeHelper.ArgumentArray> cachedArgumentArray = new AtomicReference<>();
+    /**
+     * Block sizes that can be chosen by the automatic launch configuration, for each device and amount of dynamic shared memory;
+     */
+    private final Map<Long, int[]> blockSizeCandidates = new ConcurrentHashMap<>();
+    /**
+     * Launches of this kernel that might not be finished yet. The module of the kernel cannot be unloaded until they are done;
+     */
+    private final Queue<KernelExecution> pendingLaunches = new ConcurrentLinkedQueue<>();
 
     /**
      * Create a kernel without PTX code.
@@ -110,12 +141,67 @@ public class Kernel implements TruffleObject {
         this.grCUDAExecutionContext = grCUDAExecutionContext;
         this.kernelName = kernelName;
         this.kernelSymbol = kernelSymbol;
+        this.kernelSignature = kernelSignature;
         this.nativeKernelFunctionHandle = kernelFunction;
         this.module = module;
         this.ptxCode = ptx;
+        this.cachedArgumentArray.set(UnsafeHelper.createArgumentArray(kernelComputationArguments.length));
+        if (module != null) {
+            module.retain();
+        }
         this.grCUDAExecutionContext.registerKernel(this);
     }
 
+    /**
+     * Release the resources held by this kernel, and the reference to its module.
+     * The module is unloaded when no other kernel uses it, after that the kernel can no longer be launched.
+     * Launches that are still queued or running are waited for, as they use the module;
+     */
+    public void release() {
+        KernelExecution launch;
+        while ((launch = pendingLaunches.poll()) != null) {
+            grCUDAExecutionContext.waitForComputation(launch);
+        }
+        releaseNow();
+    }
+
+    /**
+     * Release this kernel without waiting for its pending launches,
+     * e.g. if the device was already synchronized;
+     */
+    public synchronized void releaseNow() {
+        if (!released) {
+            released = true;
+            UnsafeHelper.ArgumentArray argumentArray = cachedArgumentArray.getAndSet(null);
+            if (argumentArray != null) {
+                argumentArray.close();
+            }
+            if (module != null) {
+                module.release();
+            }
+        }
+    }
+
+    public boolean isReleased() {
+        return released;
+    }
+
+    /**
+     * Keep track of a launch of this kernel that was scheduled. Launches finish roughly in order,
+     * so launches that are already finished are removed from the head of the queue;
+     */
+    public void registerLaunch(KernelExecution launch) {
+        KernelExecution oldestLaunch;
+        while ((oldestLaunch = pendingLaunches.peek()) != null && oldestLaunch.isComputationFinished()) {
+            pendingLaunches.remove(oldestLaunch);
+        }
+        pendingLaunches.add(launch);
+    }
+
+    public int getNumPendingLaunches() {
+        return pendingLaunches.size();
+    }
+
     public void incrementLaunchCount() {
         launchCount++;
     }
@@ -128,7 +214,25 @@ public class Kernel implements TruffleObject {
         return kernelComputationArguments;
     }
 
-    KernelArguments createKernelArguments(Object[] args, InteropLibrary booleanAccess,
+    /**
+     * Obtain the packed argument array of this kernel, or a new one if it is currently used by another launch;
+     */
+    private UnsafeHelper.ArgumentArray acquireArgumentArray() {
+        UnsafeHelper.ArgumentArray argumentArray = cachedArgumentArray.getAndSet(null);
+        return argumentArray != null ? argumentArray : UnsafeHelper.createArgumentArray(kernelComputationArguments.length);
+    }
+
+    /**
+     * Give back an argument array once a launch is done with it. It is kept for the next launch,
+     * unless another argument array is already available or the kernel was released;
+     */
+    void releaseArgumentArray(UnsafeHelper.ArgumentArray argumentArray) {
+        if (released || !cachedArgumentArray.compareAndSet(null, argumentArray)) {
+            argumentArray.close();
+        }
+    }
+
+    public KernelArguments createKernelArguments(Object[] args, InteropLibrary booleanAccess,
                     InteropLibrary int8Access, InteropLibrary int16Access,
                     InteropLibrary int32Access, InteropLibrary int64Access, InteropLibrary doubleAccess)
                     throws UnsupportedTypeException, ArityException {
@@ -136,135 +240,125 @@ public class Kernel implements TruffleObject {
             CompilerDirectives.transferToInterpreter();
             throw ArityException.create(kernelComputationArguments.length, args.length);
         }
-        KernelArguments kernelArgs = new KernelArguments(args, this.kernelComputationArguments);
-        for (int paramIdx = 0; paramIdx < kernelComputationArguments.length; paramIdx++) {
-            Object arg = args[paramIdx];
-            ComputationArgument param = kernelComputationArguments[paramIdx];
-            Type paramType = param.getType();
-            try {
-                if (param.isPointer()) {
-                    if (arg instanceof DeviceArray) {
-                        DeviceArray deviceArray = (DeviceArray) arg;
-                        if (!param.isSynonymousWithPointerTo(deviceArray.getElementType())) {
-                            throw new GrCUDAException("device array of " + deviceArray.getElementType() + " cannot be used as pointer argument " + paramType);
-                        }
-                        UnsafeHelper.PointerObject pointer = UnsafeHelper.createPointerObject();
-                        pointer.setValueOfPointer(deviceArray.getPointer());
-                        kernelArgs.setArgument(paramIdx, pointer);
-                    } else if (arg instanceof MultiDimDeviceArray) {
-                        MultiDimDeviceArray deviceArray = (MultiDimDeviceArray) arg;
-                        if (!param.isSynonymousWithPointerTo(deviceArray.getElementType())) {
-                            throw new GrCUDAException("multi-dimensional device array of " +
-                                    deviceArray.getElementType() + " cannot be used as pointer argument " + paramType);
-                        }
-                        UnsafeHelper.PointerObject pointer = UnsafeHelper.createPointerObject();
-                        pointer.setValueOfPointer(deviceArray.getPointer());
-                        kernelArgs.setArgument(paramIdx, pointer);
-                    } else {
-                        CompilerDirectives.transferToInterpreter();
-                        throw UnsupportedTypeException.create(new Object[]{arg}, "expected DeviceArray type");
+        UnsafeHelper.ArgumentArray argumentArray = acquireArgumentArray();
+        KernelArguments kernelArgs = new KernelArguments(args, this.kernelComputationArguments, argumentArray, this);
+        try {
+            for (int paramIdx = 0; paramIdx < kernelComputationArguments.length; paramIdx++) {
+                setKernelArgument(argumentArray, paramIdx, args[paramIdx], booleanAccess, int8Access, int16Access, int32Access, int64Access, doubleAccess);
+            }
+        } catch (UnsupportedTypeException | RuntimeException e) {
+            kernelArgs.close();
+            throw e;
+        }
+        return kernelArgs;
+    }
+
+    /**
+     * Write the value of an argument in its slot of the argument array;
+     */
+    private void setKernelArgument(UnsafeHelper.ArgumentArray argumentArray, int paramIdx, Object arg, InteropLibrary booleanAccess,
+                    InteropLibrary int8Access, InteropLibrary int16Access,
+                    InteropLibrary int32Access, InteropLibrary int64Access, InteropLibrary doubleAccess) throws UnsupportedTypeException {
+        ComputationArgument param = kernelComputationArguments[paramIdx];
+        Type paramType = param.getType();
+        try {
+            if (param.isPointer()) {
+                if (arg instanceof DeviceArray) {
+                    DeviceArray deviceArray = (DeviceArray) arg;
+                    if (!param.isSynonymousWithPointerTo(deviceArray.getElementType())) {
+                        throw new GrCUDAException("device array of " + deviceArray.getElementType() + " cannot be used as pointer argument " + paramType);
+                    }
+                    argumentArray.setPointerAt(paramIdx, deviceArray.getPointer());
+                } else if (arg instanceof MultiDimDeviceArray) {
+                    MultiDimDeviceArray deviceArray = (MultiDimDeviceArray) arg;
+                    if (!param.isSynonymousWithPointerTo(deviceArray.getElementType())) {
+                        throw new GrCUDAException("multi-dimensional device array of " +
+                                deviceArray.getElementType() + " cannot be used as pointer argument " + paramType);
                     }
+                    argumentArray.setPointerAt(paramIdx, deviceArray.getPointer());
+                } else if (arg instanceof MultiDimDeviceArrayView) {
+                    // Views are passed as a pointer to their first element, e.g. to process a row of a row-major matrix;
+                    MultiDimDeviceArrayView view = (MultiDimDeviceArrayView) arg;
+                    if (!param.isSynonymousWithPointerTo(view.getElementType())) {
+                        throw new GrCUDAException("multi-dimensional device array view of " +
+                                view.getElementType() + " cannot be used as pointer argument " + paramType);
+                    }
+                    argumentArray.setPointerAt(paramIdx, view.getPointer());
                 } else {
-                    // by-value argument
-                    switch (paramType) {
-                        case BOOLEAN: {
-                            UnsafeHelper.Integer8Object int8 = UnsafeHelper.createInteger8Object();
-                            int8.setValue(booleanAccess.asBoolean(arg) ? ((byte) 1) : ((byte) 0));
-                            kernelArgs.setArgument(paramIdx, int8);
-                            break;
-                        }
-                        case SINT8:
-                        case CHAR: {
-                            UnsafeHelper.Integer8Object int8 = UnsafeHelper.createInteger8Object();
-                            int8.setValue(int8Access.asByte(arg));
-                            kernelArgs.setArgument(paramIdx, int8);
-                            break;
-                        }
-                        case SINT16: {
-                            UnsafeHelper.Integer16Object int16 = UnsafeHelper.createInteger16Object();
-                            int16.setValue(int16Access.asShort(arg));
-                            kernelArgs.setArgument(paramIdx, int16);
-                            break;
-                        }
-                        case SINT32:
-                        case WCHAR: {
-                            UnsafeHelper.Integer32Object int32 = UnsafeHelper.createInteger32Object();
-                            int32.setValue(int32Access.asInt(arg));
-                            kernelArgs.setArgument(paramIdx, int32);
-                            break;
-                        }
-                        case SINT64:
-                        case SLL64:
-                            // no larger primitive type than long -> interpret long as unsigned
-                        case UINT64:
-                        case ULL64: {
-                            UnsafeHelper.Integer64Object int64 = UnsafeHelper.createInteger64Object();
-                            int64.setValue(int64Access.asLong(arg));
-                            kernelArgs.setArgument(paramIdx, int64);
-                            break;
-                        }
-                        case UINT8:
-                        case CHAR8: {
-                            int uint8 = int16Access.asShort(arg);
-                            if (uint8 < 0 || uint8 > 0xff) {
-                                CompilerDirectives.transferToInterpreter();
-                                throw createExceptionValueOutOfRange(paramType, uint8);
-                            }
-                            UnsafeHelper.Integer8Object int8 = UnsafeHelper.createInteger8Object();
-                            int8.setValue((byte) (0xff & uint8));
-                            kernelArgs.setArgument(paramIdx, int8);
-                            break;
-                        }
-                        case UINT16:
-                        case CHAR16: {
-                            int uint16 = int32Access.asInt(arg);
-                            if (uint16 < 0 || uint16 > 0xffff) {
-                                CompilerDirectives.transferToInterpreter();
-                                throw createExceptionValueOutOfRange(paramType, uint16);
-                            }
-                            UnsafeHelper.Integer16Object int16 = UnsafeHelper.createInteger16Object();
-                            int16.setValue((short) (0xffff & uint16));
-                            kernelArgs.setArgument(paramIdx, int16);
-                            break;
-                        }
-                        case UINT32: {
-                            long uint32 = int64Access.asLong(arg);
-                            if (uint32 < 0 || uint32 > 0xffffffffL) {
-                                CompilerDirectives.transferToInterpreter();
-                                throw createExceptionValueOutOfRange(paramType, uint32);
-                            }
-                            UnsafeHelper.Integer32Object int32 = UnsafeHelper.createInteger32Object();
-                            int32 = UnsafeHelper.createInteger32Object();
-                            int32.setValue((int) (0xffffffffL & uint32));
-                            kernelArgs.setArgument(paramIdx, int32);
-                            break;
-                        }
-                        case FLOAT: {
-                            UnsafeHelper.Float32Object fp32 = UnsafeHelper.createFloat32Object();
-                            // going via "double" to allow floats to be initialized with doubles
-                            fp32.setValue((float) doubleAccess.asDouble(arg));
-                            kernelArgs.setArgument(paramIdx, fp32);
-                            break;
+                    CompilerDirectives.transferToInterpreter();
+                    throw UnsupportedTypeException.create(new Object[]{arg}, "expected DeviceArray type");
+                }
+            } else {
+                // by-value argument
+                switch (paramType) {
+                    case BOOLEAN:
+                        argumentArray.setByteAt(paramIdx, booleanAccess.asBoolean(arg) ? ((byte) 1) : ((byte) 0));
+                        break;
+                    case SINT8:
+                    case CHAR:
+                        argumentArray.setByteAt(paramIdx, int8Access.asByte(arg));
+                        break;
+                    case SINT16:
+                        argumentArray.setShortAt(paramIdx, int16Access.asShort(arg));
+                        break;
+                    case SINT32:
+                    case WCHAR:
+                        argumentArray.setIntAt(paramIdx, int32Access.asInt(arg));
+                        break;
+                    case SINT64:
+                    case SLL64:
+                        // no larger primitive type than long -> interpret long as unsigned
+                    case UINT64:
+                    case ULL64:
+                        argumentArray.setLongAt(paramIdx, int64Access.asLong(arg));
+                        break;
+                    case UINT8:
+                    case CHAR8: {
+                        int uint8 = int16Access.asShort(arg);
+                        if (uint8 < 0 || uint8 > 0xff) {
+                            CompilerDirectives.transferToInterpreter();
+                            throw createExceptionValueOutOfRange(paramType, uint8);
                         }
-                        case DOUBLE: {
-                            UnsafeHelper.Float64Object fp64 = UnsafeHelper.createFloat64Object();
-                            fp64.setValue(doubleAccess.asDouble(arg));
-                            kernelArgs.setArgument(paramIdx, fp64);
-                            break;
+                        argumentArray.setByteAt(paramIdx, (byte) (0xff & uint8));
+                        break;
+                    }
+                    case UINT16:
+                    case CHAR16: {
+                        int uint16 = int32Access.asInt(arg);
+                        if (uint16 < 0 || uint16 > 0xffff) {
+                            CompilerDirectives.transferToInterpreter();
+                            throw createExceptionValueOutOfRange(paramType, uint16);
                         }
-                        default:
+                        argumentArray.setShortAt(paramIdx, (short) (0xffff & uint16));
+                        break;
+                    }
+                    case UINT32: {
+                        long uint32 = int64Access.asLong(arg);
+                        if (uint32 < 0 || uint32 > 0xffffffffL) {
                             CompilerDirectives.transferToInterpreter();
-                            throw UnsupportedTypeException.create(new Object[]{arg},
-                                    "unsupported by-value parameter type: " + paramType);
+                            throw createExceptionValueOutOfRange(paramType, uint32);
+                        }
+                        argumentArray.setIntAt(paramIdx, (int) (0xffffffffL & uint32));
+                        break;
                     }
+                    case FLOAT:
+                        // going via "double" to allow floats to be initialized with doubles
+                        argumentArray.setFloatAt(paramIdx, (float) doubleAccess.asDouble(arg));
+                        break;
+                    case DOUBLE:
+                        argumentArray.setDoubleAt(paramIdx, doubleAccess.asDouble(arg));
+                        break;
+                    default:
+                        CompilerDirectives.transferToInterpreter();
+                        throw UnsupportedTypeException.create(new Object[]{arg},
+                                "unsupported by-value parameter type: " + paramType);
                 }
-            } catch (UnsupportedMessageException e) {
-                CompilerDirectives.transferToInterpreter();
-                throw UnsupportedTypeException.create(new Object[]{arg},
-                        "expected type " + paramType + " in argument " + arg);
             }
+        } catch (UnsupportedMessageException e) {
+            CompilerDirectives.transferToInterpreter();
+            throw UnsupportedTypeException.create(new Object[]{arg},
+                    "expected type " + paramType + " in argument " + arg);
         }
-        return kernelArgs;
     }
 
     private static GrCUDAException createExceptionValueOutOfRange(Type type, long value) {
@@ -272,6 +366,10 @@ public class Kernel implements TruffleObject {
     }
 
     public long getKernelFunctionHandle() {
+        if (released) {
+            CompilerDirectives.transferToInterpreter();
+            throw new GrCUDAException("kernel " + kernelName + " was already freed");
+        }
         if (module.isClosed()) {
             CompilerDirectives.transferToInterpreter();
             throw new GrCUDAException("CUmodule containing kernel " + kernelName + " is already closed");
@@ -300,12 +398,72 @@ public class Kernel implements TruffleObject {
         return launchCount;
     }
 
+    /**
+     * Block sizes tried by the {@link KernelAutotuner}, besides the one that maximizes the occupancy;
+     */
+    private static final int[] TUNED_BLOCK_SIZES = {64, 128, 256, 512, 1024};
+
+    /**
+     * Compute the block sizes that the kernel can be launched with on a device, given the registers and the shared memory
+     * used by the kernel. The first one maximizes the occupancy of the device. The block sizes are computed once for each device;
+     */
+    private int[] getBlockSizeCandidates(CUDARuntime runtime, int deviceId, int dynamicSharedMemoryBytes) {
+        long key = ((long) deviceId << 32) | dynamicSharedMemoryBytes;
+        return blockSizeCandidates.computeIfAbsent(key, k -> {
+            OccupancyCalculator calculator = new OccupancyCalculator(
+                            OccupancyCalculator.DeviceLimits.fromDeviceProperties(new GPUDeviceProperties(deviceId, runtime)));
+            OccupancyCalculator.KernelResources resources = new OccupancyCalculator.KernelResources(
+                            runtime.cuFuncGetAttribute(CUFunctionAttribute.NUM_REGS, this),
+                            runtime.cuFuncGetAttribute(CUFunctionAttribute.SHARED_SIZE_BYTES, this),
+                            runtime.cuFuncGetAttribute(CUFunctionAttribute.MAX_THREADS_PER_BLOCK, this));
+            int bestBlockSize = calculator.chooseBlockSize(resources, dynamicSharedMemoryBytes);
+            return IntStream.concat(IntStream.of(bestBlockSize), Arrays.stream(TUNED_BLOCK_SIZES)
+                            .filter(blockSize -> blockSize != bestBlockSize)
+                            .filter(blockSize -> calculator.getActiveBlocksPerMultiprocessor(resources, blockSize, dynamicSharedMemoryBytes) > 0))
+                            .toArray();
+        });
+    }
+
+    /**
+     * Kernels with the same name but a different code (e.g. rebuilt after an edit) must not share the tuned block sizes;
+     */
+    private String getCodeHash() {
+        if (codeHash == null) {
+            codeHash = KernelAutotuner.computeCodeHash(ptxCode != null ? ptxCode : "", kernelSymbol, kernelSignature);
+        }
+        return codeHash;
+    }
+
+    /**
+     * Configure the kernel with a thread for each element, using the block size that maximizes the occupancy of the current device.
+     * If kernel tuning is enabled, the block size of each launch is chosen by the {@link KernelAutotuner} instead;
+     */
+    @TruffleBoundary
+    public ConfiguredKernel autoConfigure(long numElements, int dynamicSharedMemoryBytes, CUDAStream stream) {
+        CUDARuntime runtime = grCUDAExecutionContext.getCudaRuntime();
+        int deviceId = runtime.cudaGetDevice();
+        int[] candidates = getBlockSizeCandidates(runtime, deviceId, dynamicSharedMemoryBytes);
+        KernelConfigBuilder configBuilder = new KernelConfigBuilder(
+                        new Dim3(OccupancyCalculator.getGridSize(numElements, candidates[0])), new Dim3(candidates[0]));
+        configBuilder.dynamicSharedMemoryBytes(dynamicSharedMemoryBytes);
+        if (stream != null) {
+            configBuilder.stream(stream);
+        }
+        if (runtime.getKernelAutotuner() == null) {
+            return new ConfiguredKernel(this, configBuilder.build());
+        }
+        String tuningKey = KernelAutotuner.getTuningKey(kernelName, getCodeHash(), deviceId, dynamicSharedMemoryBytes, KernelAutotuner.getSizeClass(numElements));
+        return new ConfiguredKernel(this, configBuilder.build(), tuningKey, candidates, numElements);
+    }
+
     // implementation of InteropLibrary
 
     protected static final String PTX = "ptx";
     protected static final String NAME = "name";
     protected static final String LAUNCH_COUNT = "launchCount";
-    static final MemberSet MEMBERS = new MemberSet(PTX, NAME, LAUNCH_COUNT);
+    protected static final String FREE = "free";
+    protected static final String AUTO_CONFIG = "autoConfig";
+    static final MemberSet MEMBERS = new MemberSet(PTX, NAME, LAUNCH_COUNT, FREE, AUTO_CONFIG);
 
     @ExportMessage
     @SuppressWarnings("static-method")
@@ -322,7 +480,22 @@ public class Kernel implements TruffleObject {
     @ExportMessage
     @SuppressWarnings("static-method")
     boolean isMemberReadable(String member) {
-        return PTX.equals(member) || NAME.equals(member) || LAUNCH_COUNT.equals(member);
+        return PTX.equals(member) || NAME.equals(member) || LAUNCH_COUNT.equals(member) || FREE.equals(member) || AUTO_CONFIG.equals(member);
+    }
+
+    @ExportMessage
+    @SuppressWarnings("static-method")
+    boolean isMemberInvocable(String member) {
+        return FREE.equals(member) || AUTO_CONFIG.equals(member);
+    }
+
+    @ExportMessage
+    Object invokeMember(String member,
+                    Object[] arguments,
+                    @CachedLibrary("this") InteropLibrary interopRead,
+                    @CachedLibrary(limit = "1") InteropLibrary interopExecute)
+                    throws UnsupportedTypeException, ArityException, UnsupportedMessageException, UnknownIdentifierException {
+        return interopExecute.execute(interopRead.readMember(this, member), arguments);
     }
 
     @ExportMessage
@@ -348,6 +521,16 @@ public class Kernel implements TruffleObject {
             return receiver.getLaunchCount();
         }
 
+        @Specialization(guards = "FREE.equals(member)")
+        public static Object readMemberFree(Kernel receiver, String member) {
+            return new KernelFreeFunction(receiver);
+        }
+
+        @Specialization(guards = "AUTO_CONFIG.equals(member)")
+        public static Object readMemberAutoConfig(Kernel receiver, String member) {
+            return new KernelAutoConfigFunction(receiver);
+        }
+
         @Fallback
         public static Object readMemberOther(Kernel receiver, String member) throws UnknownIdentifierException {
             throw UnknownIdentifierException.create(member);
@@ -363,6 +546,15 @@ public class Kernel implements TruffleObject {
         }
     }
 
+    private static long extractLong(Object valueObj, String argumentName, InteropLibrary access) throws UnsupportedTypeException {
+        try {
+            return access.asLong(valueObj);
+        } catch (UnsupportedMessageException e) {
+            CompilerDirectives.transferToInterpreter();
+            throw UnsupportedTypeException.create(new Object[]{valueObj}, "integer expected for " + argumentName);
+        }
+    }
+
     private static Dim3 extractDim3(Object valueObj, String argumentName, InteropLibrary access, InteropLibrary elementAccess) throws UnsupportedTypeException {
         if (access.hasArrayElements(valueObj)) {
             long size;
@@ -442,6 +634,82 @@ public class Kernel implements TruffleObject {
         }
         return new ConfiguredKernel(this, configBuilder.build());
     }
-}
 
+    /**
+     * Release a reference to the kernel. Kernels built multiple times from the same code are shared,
+     * so the kernel is released only when all the references obtained from buildkernel are released;
+     */
+    @ExportLibrary(InteropLibrary.class)
+    static final class KernelFreeFunction implements TruffleObject {
+        private final Kernel kernel;
+
+        KernelFreeFunction(Kernel kernel) {
+            this.kernel = kernel;
+        }
+
+        @ExportMessage
+        @SuppressWarnings("static-method")
+        boolean isExecutable() {
+            return true;
+        }
+
+        @ExportMessage
+        Object execute(Object[] arguments) throws ArityException {
+            if (arguments.length != 0) {
+                CompilerDirectives.transferToInterpreter();
+                throw ArityException.create(0, arguments.length);
+            }
+            kernel.getGrCUDAExecutionContext().releaseKernel(kernel);
+            return NoneValue.get();
+        }
+    }
+
+    /**
+     * Configure the kernel to launch one thread for each of the given elements, using the block size
+     * that maximizes the occupancy of the device: autoConfig(numElements[, dynamicSharedMemory[, stream]]);
+     */
+    @ExportLibrary(InteropLibrary.class)
+    static final class KernelAutoConfigFunction implements TruffleObject {
+        private final Kernel kernel;
 
+        KernelAutoConfigFunction(Kernel kernel) {
+            this.kernel = kernel;
+        }
+
+        @ExportMessage
+        @SuppressWarnings("static-method")
+        boolean isExecutable() {
+            return true;
+        }
+
+        @ExportMessage
+        Object execute(Object[] arguments,
+                        @CachedLibrary(limit = "3") InteropLibrary numElementsAccess,
+                        @CachedLibrary(limit = "3") InteropLibrary sharedMemoryAccess) throws UnsupportedTypeException, ArityException {
+            if (arguments.length < 1 || arguments.length > 3) {
+                CompilerDirectives.transferToInterpreter();
+                throw ArityException.create(1, arguments.length);
+            }
+            long numElements = extractLong(arguments[0], "numElements", numElementsAccess);
+            int dynamicSharedMemoryBytes = 0;
+            CUDAStream stream = null;
+            if (arguments.length == 2) {
+                if (sharedMemoryAccess.isNumber(arguments[1])) {
+                    // Dynamic shared memory specified;
+                    dynamicSharedMemoryBytes = extractNumber(arguments[1], "dynamicSharedMemory", sharedMemoryAccess);
+                } else {
+                    // Stream specified;
+                    stream = extractStream(arguments[1]);
+                }
+            } else if (arguments.length == 3) {
+                dynamicSharedMemoryBytes = extractNumber(arguments[1], "dynamicSharedMemory", sharedMemoryAccess);
+                stream = extractStream(arguments[2]);
+            }
+            if (numElements < 1 || dynamicSharedMemoryBytes < 0) {
+                CompilerDirectives.transferToInterpreter();
+                throw UnsupportedTypeException.create(arguments, "numElements must be positive and dynamicSharedMemory cannot be negative");
+            }
+            return kernel.autoConfigure(numElements, dynamicSharedMemoryBytes, stream);
+        }
+    }
+}
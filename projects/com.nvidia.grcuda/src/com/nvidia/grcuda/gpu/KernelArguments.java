@@ -4,7 +4,6 @@ import com.nvidia.grcuda.ComputationArgument;
 import com.nvidia.grcuda.ComputationArgumentWithValue;
 
 import java.io.Closeable;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -16,25 +15,38 @@ public final class KernelArguments implements Closeable {
      * Associate each input object to the characteristics of its argument, such as its type and if it's constant;
      */
     private final List<ComputationArgumentWithValue> kernelArgumentWithValues = new ArrayList<>();
-    private final UnsafeHelper.PointerArray argumentArray;
-    private final ArrayList<Closeable> argumentValues = new ArrayList<>();
+    /**
+     * Off-heap values of the arguments, as expected by cuLaunchKernel;
+     */
+    private final UnsafeHelper.ArgumentArray argumentArray;
+    /**
+     * Kernel that provided the argument array, which is given back to it when these arguments are closed.
+     * If null, the argument array is owned by these arguments;
+     */
+    private final Kernel owner;
+    private boolean isClosed = false;
 
     public KernelArguments(Object[] args, ComputationArgument[] kernelArgumentList) {
+        this(args, kernelArgumentList, UnsafeHelper.createArgumentArray(args.length), null);
+    }
+
+    KernelArguments(Object[] args, ComputationArgument[] kernelArgumentList, UnsafeHelper.ArgumentArray argumentArray, Kernel owner) {
         this.originalArgs = args;
-        this.argumentArray = UnsafeHelper.createPointerArray(args.length);
+        this.argumentArray = argumentArray;
+        this.owner = owner;
         assert(args.length == kernelArgumentList.length);
+        assert(args.length == argumentArray.getNumElements());
         // Initialize the list of arguments and object references;
         for (int i = 0; i < args.length; i++) {
             kernelArgumentWithValues.add(new ComputationArgumentWithValue(kernelArgumentList[i], args[i]));
         }
     }
 
-    public void setArgument(int argIdx, UnsafeHelper.MemoryObject obj) {
-        argumentArray.setValueAt(argIdx, obj.getAddress());
-        argumentValues.add(obj);
+    UnsafeHelper.ArgumentArray getArgumentArray() {
+        return argumentArray;
     }
 
-    long getPointer() {
+    public long getPointer() {
         return argumentArray.getAddress();
     }
 
@@ -55,15 +67,19 @@ public final class KernelArguments implements Closeable {
         return "KernelArgs=" + Arrays.toString(originalArgs);
     }
 
+    /**
+     * Release the argument array. This can be called more than once, e.g. both by the launch and by the caller;
+     */
     @Override
-    public void close() {
-        this.argumentArray.close();
-        for (Closeable c : argumentValues) {
-            try {
-                c.close();
-            } catch (IOException e) {
-                /* ignored */
-            }
+    public synchronized void close() {
+        if (isClosed) {
+            return;
+        }
+        isClosed = true;
+        if (owner != null) {
+            owner.releaseArgumentArray(argumentArray);
+        } else {
+            argumentArray.close();
         }
     }
 }
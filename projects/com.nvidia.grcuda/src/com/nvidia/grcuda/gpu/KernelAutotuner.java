@@ -0,0 +1,461 @@
+/*
+ * Copyright (c) 2019, NVIDIA CORPORATION. All rights reserved.
+ * Copyright (c) 2019, 2020, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *  * Neither the name of NVIDIA CORPORATION nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY
+ * OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.nvidia.grcuda.gpu;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.nvidia.grcuda.CUDAEvent;
+import com.nvidia.grcuda.GrCUDAException;
+import com.nvidia.grcuda.gpu.stream.CUDAStream;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+/**
+ * Learn the block size of kernels configured with autoConfig from their measured execution time.
+ * Kernels are tuned separately for each version of their code, device, amount of dynamic shared memory and size class of the input,
+ * i.e. the power of 2 that bounds the number of elements.
+ * The first launches try each candidate block size a few times, timing them with CUDA events recorded around the launch,
+ * then the fastest block size is used. Every once in a while, another candidate is timed again,
+ * so that the choice adapts if the first measurements were not representative.
+ * The fastest block sizes can be stored in a file and loaded by later runs, which skip the first exploration;
+ */
+public class KernelAutotuner {
+
+    /**
+     * Operations of the CUDA runtime used to time kernels, e.g. cudaEventRecord and cudaEventElapsedTime;
+     */
+    public interface TimingRuntime {
+        CUDAEvent createEvent();
+
+        void destroyEvent(CUDAEvent event);
+
+        void recordEvent(CUDAEvent event, CUDAStream stream);
+
+        boolean isEventCompleted(CUDAEvent event);
+
+        float getElapsedTimeMs(CUDAEvent start, CUDAEvent end);
+    }
+
+    /**
+     * Number of timed launches of each candidate block size, before choosing the fastest one;
+     */
+    public static final int SAMPLES_PER_CANDIDATE = 3;
+    /**
+     * Measurements older than this number of samples have a smaller weight, so that re-exploration can change the choice;
+     */
+    private static final int MAX_AVERAGED_SAMPLES = 16;
+    private static final String FIELD_SEPARATOR = "\t";
+    private static final String HASH_ALGORITHM = "SHA-256";
+    /**
+     * Number of hexadecimal digits of the hash of the kernel code that are kept in the tuning key;
+     */
+    private static final int CODE_HASH_LENGTH = 16;
+
+    private final TimingRuntime runtime;
+    /**
+     * File that stores the tuned block sizes, null if they are not persisted;
+     */
+    private final Path tuningFile;
+    /**
+     * After the first exploration, one launch every this many re-measures a candidate block size. If 0, never re-explore;
+     */
+    private final int reexplorationPeriod;
+
+    private final Map<String, TuningEntry> entries = new HashMap<>();
+    /**
+     * Block sizes and execution times loaded from the tuning file, used when a kernel is first tuned;
+     */
+    private final Map<String, TunedBlockSize> loadedBlockSizes = new HashMap<>();
+    private final List<Measurement> pendingMeasurements = new ArrayList<>();
+    private final ArrayDeque<CUDAEvent> freeEvents = new ArrayDeque<>();
+
+    private long numMeasuredLaunches = 0;
+
+    /**
+     * Block size read from the tuning file;
+     */
+    private static final class TunedBlockSize {
+        private final int blockSize;
+        private final double timeMs;
+
+        TunedBlockSize(int blockSize, double timeMs) {
+            this.blockSize = blockSize;
+            this.timeMs = timeMs;
+        }
+    }
+
+    /**
+     * Measured execution times of the candidate block sizes of a kernel, for a device, dynamic shared memory and input size;
+     */
+    private static final class TuningEntry {
+        private final int[] candidates;
+        private final double[] meanTimeMs;
+        private final int[] numSamples;
+        /**
+         * Timed launches issued for each candidate, including the ones that have not been completed yet;
+         */
+        private final int[] numIssuedSamples;
+        private int bestIndex = -1;
+        private long numLaunches = 0;
+        private int nextReexplorationIndex = 0;
+
+        TuningEntry(int[] candidates) {
+            this.candidates = candidates;
+            this.meanTimeMs = new double[candidates.length];
+            this.numSamples = new int[candidates.length];
+            this.numIssuedSamples = new int[candidates.length];
+        }
+
+        void addSample(int index, double timeMs) {
+            numSamples[index]++;
+            meanTimeMs[index] += (timeMs - meanTimeMs[index]) / Math.min(numSamples[index], MAX_AVERAGED_SAMPLES);
+            if (bestIndex < 0 || numSamples[bestIndex] == 0 || meanTimeMs[index] < meanTimeMs[bestIndex]) {
+                bestIndex = index;
+            } else if (index == bestIndex) {
+                // The best block size became slower, check if another measured candidate is now faster;
+                for (int i = 0; i < candidates.length; i++) {
+                    if (numSamples[i] > 0 && meanTimeMs[i] < meanTimeMs[bestIndex]) {
+                        bestIndex = i;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The block size chosen for a launch. If the launch is timed, {@link KernelAutotuner#startMeasurement}
+     * and {@link KernelAutotuner#stopMeasurement} must be called around it;
+     */
+    public static final class Trial {
+        private final TuningEntry entry;
+        private final int index;
+        private final boolean isMeasured;
+        /**
+         * True if the trial is measured, and its launch has not started timing yet. A pending trial can be cancelled;
+         */
+        private boolean isPending;
+
+        Trial(TuningEntry entry, int index, boolean isMeasured) {
+            this.entry = entry;
+            this.index = index;
+            this.isMeasured = isMeasured;
+            this.isPending = isMeasured;
+        }
+
+        public int getBlockSize() {
+            return entry.candidates[index];
+        }
+
+        public boolean isMeasured() {
+            return isMeasured;
+        }
+    }
+
+    /**
+     * A timed launch, whose events might not have been completed yet;
+     */
+    public static final class Measurement {
+        private final Trial trial;
+        private final CUDAEvent start;
+        private CUDAEvent end;
+
+        Measurement(Trial trial, CUDAEvent start) {
+            this.trial = trial;
+            this.start = start;
+        }
+    }
+
+    public KernelAutotuner(TimingRuntime runtime, Path tuningFile, int reexplorationPeriod) {
+        this.runtime = runtime;
+        this.tuningFile = tuningFile;
+        this.reexplorationPeriod = reexplorationPeriod;
+        if (tuningFile != null) {
+            load();
+        }
+    }
+
+    /**
+     * @return the size class of an input with the given number of elements, i.e. the exponent of the next power of 2
+     */
+    public static int getSizeClass(long numElements) {
+        return numElements <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(numElements - 1);
+    }
+
+    /**
+     * @return a hash of the code of a kernel, i.e. its PTX (if available), symbol and signature
+     */
+    public static String computeCodeHash(String ptx, String kernelSymbol, String kernelSignature) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+            // Fields are separated by a character that cannot appear in any of them, to avoid ambiguous concatenations;
+            digest.update(ptx.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(kernelSymbol.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(kernelSignature.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hash = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hash.append(String.format("%02x", b));
+            }
+            return hash.substring(0, CODE_HASH_LENGTH);
+        } catch (NoSuchAlgorithmException e) {
+            throw new GrCUDAException("cannot compute hash of kernel " + kernelSymbol + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return the key that identifies a kernel in the tuning table, and in the tuning file
+     */
+    public static String getTuningKey(String kernelName, String codeHash, int deviceId, int dynamicSharedMemoryBytes, int sizeClass) {
+        return kernelName + FIELD_SEPARATOR + codeHash + FIELD_SEPARATOR + deviceId + FIELD_SEPARATOR + dynamicSharedMemoryBytes + FIELD_SEPARATOR + sizeClass;
+    }
+
+    /**
+     * Choose the block size of the next launch of a kernel;
+     * @param key identifier of the kernel, see {@link KernelAutotuner#getTuningKey}
+     * @param candidates block sizes that can be tried, the first one is used until a measurement is available
+     * @return the chosen block size, and if the launch must be timed
+     */
+    @TruffleBoundary
+    public synchronized Trial nextTrial(String key, int[] candidates) {
+        collectMeasurements();
+        TuningEntry entry = entries.computeIfAbsent(key, k -> createEntry(k, candidates));
+        entry.numLaunches++;
+        // First exploration: time each candidate a few times;
+        for (int i = 0; i < entry.candidates.length; i++) {
+            if (entry.numIssuedSamples[i] < SAMPLES_PER_CANDIDATE && entry.numSamples[i] < SAMPLES_PER_CANDIDATE) {
+                entry.numIssuedSamples[i]++;
+                return new Trial(entry, i, true);
+            }
+        }
+        int bestIndex = Math.max(entry.bestIndex, 0);
+        // Periodic re-exploration: time again one of the candidates, the best one included;
+        if (reexplorationPeriod > 0 && entry.numLaunches % reexplorationPeriod == 0) {
+            int index = entry.nextReexplorationIndex;
+            entry.nextReexplorationIndex = (index + 1) % entry.candidates.length;
+            entry.numIssuedSamples[index]++;
+            return new Trial(entry, index, true);
+        }
+        return new Trial(entry, bestIndex, false);
+    }
+
+    private TuningEntry createEntry(String key, int[] candidates) {
+        TuningEntry entry = new TuningEntry(candidates.clone());
+        TunedBlockSize tuned = loadedBlockSizes.get(key);
+        if (tuned != null) {
+            for (int i = 0; i < candidates.length; i++) {
+                if (candidates[i] == tuned.blockSize) {
+                    // Skip the first exploration, the other candidates are measured by re-exploration;
+                    entry.addSample(i, tuned.timeMs);
+                    Arrays.fill(entry.numIssuedSamples, SAMPLES_PER_CANDIDATE);
+                    break;
+                }
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Record an event on the stream of the launch, before the kernel is launched;
+     * @return the measurement of the launch, or null if the launch is not timed
+     */
+    @TruffleBoundary
+    public synchronized Measurement startMeasurement(Trial trial, CUDAStream stream) {
+        if (!trial.isMeasured) {
+            return null;
+        }
+        trial.isPending = false;
+        Measurement measurement = new Measurement(trial, retrieveEvent());
+        runtime.recordEvent(measurement.start, stream);
+        return measurement;
+    }
+
+    /**
+     * Record an event on the stream of the launch, after the kernel is launched.
+     * The execution time is collected once the kernel is completed, without blocking the host;
+     */
+    @TruffleBoundary
+    public synchronized void stopMeasurement(Measurement measurement, CUDAStream stream) {
+        if (measurement == null) {
+            return;
+        }
+        measurement.end = retrieveEvent();
+        runtime.recordEvent(measurement.end, stream);
+        pendingMeasurements.add(measurement);
+    }
+
+    /**
+     * A launch that failed is not timed, its events can be reused;
+     */
+    @TruffleBoundary
+    public synchronized void cancelMeasurement(Measurement measurement) {
+        if (measurement != null) {
+            freeEvents.add(measurement.start);
+            measurement.trial.entry.numIssuedSamples[measurement.trial.index]--;
+        }
+    }
+
+    /**
+     * A trial whose launch failed before being timed (e.g. while scheduling it) is not counted as issued.
+     * Trials that already started timing are handled by {@link KernelAutotuner#cancelMeasurement} instead;
+     */
+    @TruffleBoundary
+    public synchronized void cancelTrial(Trial trial) {
+        if (trial != null && trial.isPending) {
+            trial.isPending = false;
+            trial.entry.numIssuedSamples[trial.index]--;
+        }
+    }
+
+    private CUDAEvent retrieveEvent() {
+        CUDAEvent event = freeEvents.poll();
+        return event != null ? event : runtime.createEvent();
+    }
+
+    /**
+     * Add the execution times of the completed kernels to the tuning table;
+     */
+    private void collectMeasurements() {
+        Iterator<Measurement> it = pendingMeasurements.iterator();
+        while (it.hasNext()) {
+            Measurement measurement = it.next();
+            if (runtime.isEventCompleted(measurement.end)) {
+                measurement.trial.entry.addSample(measurement.trial.index, runtime.getElapsedTimeMs(measurement.start, measurement.end));
+                numMeasuredLaunches++;
+                freeEvents.add(measurement.start);
+                freeEvents.add(measurement.end);
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * @return the fastest block size measured so far for a kernel, or 0 if the kernel has not been measured yet
+     */
+    @TruffleBoundary
+    public synchronized int getBestBlockSize(String key) {
+        collectMeasurements();
+        TuningEntry entry = entries.get(key);
+        if (entry == null || entry.bestIndex < 0) {
+            TunedBlockSize tuned = loadedBlockSizes.get(key);
+            return tuned != null ? tuned.blockSize : 0;
+        }
+        return entry.candidates[entry.bestIndex];
+    }
+
+    public synchronized long getNumMeasuredLaunches() {
+        return numMeasuredLaunches;
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(tuningFile)) {
+            return;
+        }
+        try {
+            for (String line : Files.readAllLines(tuningFile, StandardCharsets.UTF_8)) {
+                // Each line is: kernel name, code hash, device, dynamic shared memory, size class, block size, time;
+                String[] fields = line.split(FIELD_SEPARATOR);
+                if (fields.length != 7) {
+                    continue;
+                }
+                try {
+                    String key = getTuningKey(fields[0], fields[1], Integer.parseInt(fields[2]), Integer.parseInt(fields[3]), Integer.parseInt(fields[4]));
+                    loadedBlockSizes.put(key, new TunedBlockSize(Integer.parseInt(fields[5]), Double.parseDouble(fields[6])));
+                } catch (NumberFormatException e) {
+                    System.out.println("-- skipping malformed line in kernel tuning file " + tuningFile + ": " + line);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("-- cannot read kernel tuning file " + tuningFile + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Write the fastest block sizes to the tuning file, together with the ones loaded and not used by this run.
+     * The file is replaced atomically, so that concurrent runs never read a partially written file;
+     */
+    @TruffleBoundary
+    public synchronized void save() {
+        if (tuningFile == null) {
+            return;
+        }
+        collectMeasurements();
+        Map<String, TunedBlockSize> tuned = new HashMap<>(loadedBlockSizes);
+        entries.forEach((key, entry) -> {
+            if (entry.bestIndex >= 0) {
+                tuned.put(key, new TunedBlockSize(entry.candidates[entry.bestIndex], entry.meanTimeMs[entry.bestIndex]));
+            }
+        });
+        List<String> lines = new ArrayList<>();
+        tuned.forEach((key, value) -> lines.add(key + FIELD_SEPARATOR + value.blockSize + FIELD_SEPARATOR + value.timeMs));
+        try {
+            Path directory = tuningFile.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporaryFile = Files.createTempFile(directory, tuningFile.getFileName().toString(), ".tmp");
+            Files.write(temporaryFile, lines, StandardCharsets.UTF_8);
+            try {
+                Files.move(temporaryFile, tuningFile, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile, tuningFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.out.println("-- cannot write kernel tuning file " + tuningFile + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Save the tuning table and destroy the events used for timing. Pending measurements are dropped;
+     */
+    @TruffleBoundary
+    public synchronized void free() {
+        save();
+        for (Measurement measurement : pendingMeasurements) {
+            freeEvents.add(measurement.start);
+            freeEvents.add(measurement.end);
+        }
+        pendingMeasurements.clear();
+        for (CUDAEvent event : freeEvents) {
+            runtime.destroyEvent(event);
+        }
+        freeEvents.clear();
+    }
+}
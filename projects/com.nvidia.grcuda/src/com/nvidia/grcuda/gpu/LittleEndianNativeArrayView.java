@@ -110,6 +110,15 @@ public class LittleEndianNativeArrayView {
                         startAddress, sizeInBytes);
     }
 
+    /**
+     * Create a view over a part of the memory of this view, e.g. for a slice of an array;
+     * @param offsetBytes offset in bytes of the new view, w.r.t. the start of this view
+     * @param sizeInBytes size in bytes of the new view
+     */
+    public LittleEndianNativeArrayView slice(long offsetBytes, long sizeInBytes) {
+        return new LittleEndianNativeArrayView(startAddress + offsetBytes, sizeInBytes);
+    }
+
     LittleEndianNativeArrayView(long startAddress, long sizeInBytes) {
         this.startAddress = startAddress;
         this.sizeInBytes = sizeInBytes;
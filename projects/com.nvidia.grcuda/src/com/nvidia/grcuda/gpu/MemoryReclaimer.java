@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2019, NVIDIA CORPORATION. All rights reserved.
+ * Copyright (c) 2019, 2020, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *  * Neither the name of NVIDIA CORPORATION nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY
+ * OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.nvidia.grcuda.gpu;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.nvidia.grcuda.gpu.stream.CUDAStream;
+
+/**
+ * Release the GPU memory of arrays that are no longer reachable, without relying on finalizers.
+ * Arrays register their memory when they are created, and are tracked with phantom references.
+ * Memory of unreachable arrays is released by the thread that allocates new memory, instead of the finalizer thread.
+ * An array is reachable as long as a computation that uses it is active in the {@link com.nvidia.grcuda.gpu.executioncontext.ExecutionDAG},
+ * so its memory is released only after all the computations on it are completed;
+ */
+public class MemoryReclaimer {
+
+    /**
+     * Function that frees memory, e.g. {@link CUDARuntime#cudaFree(LittleEndianNativeArrayView, Collection)};
+     */
+    public interface MemoryRelease {
+        void free(LittleEndianNativeArrayView memory, Collection<CUDAStream> streamsInUse);
+    }
+
+    /**
+     * Memory of an array, freed when the array is explicitly freed or when the array becomes unreachable;
+     */
+    public final class Registration extends PhantomReference<Object> {
+        private final LittleEndianNativeArrayView memory;
+        private final MemoryRelease memoryRelease;
+
+        private Registration(Object owner, LittleEndianNativeArrayView memory, MemoryRelease memoryRelease) {
+            super(owner, queue);
+            this.memory = memory;
+            this.memoryRelease = memoryRelease;
+        }
+
+        public LittleEndianNativeArrayView getMemory() {
+            return memory;
+        }
+
+        /**
+         * Free the memory explicitly. The memory will not be freed again when its owner becomes unreachable;
+         * @param streamsInUse streams whose computations might still use the memory, empty if the memory is not in use
+         */
+        public void free(Collection<CUDAStream> streamsInUse) {
+            if (unregister(this)) {
+                memoryRelease.free(memory, streamsInUse);
+            }
+        }
+    }
+
+    private final MemoryRelease release;
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+    /**
+     * Registrations must be reachable until their memory is freed, otherwise they are never enqueued;
+     */
+    private final Set<Registration> registrations = new HashSet<>();
+    private long numReclaimed = 0;
+
+    public MemoryReclaimer(MemoryRelease release) {
+        this.release = release;
+    }
+
+    /**
+     * Track the memory of an array, and free it when the array becomes unreachable;
+     * @param owner the array that owns the memory, it must not be referenced by the release function
+     * @param memory memory of the array
+     * @return a registration used to free the memory explicitly
+     */
+    public Registration register(Object owner, LittleEndianNativeArrayView memory) {
+        return register(owner, memory, release);
+    }
+
+    /**
+     * Track memory that must be released with a specific function, e.g. host memory that is not owned by the array;
+     * @param owner the array that owns the memory, it must not be referenced by the release function
+     * @param memory memory of the array
+     * @param memoryRelease function used to release the memory
+     * @return a registration used to free the memory explicitly
+     */
+    public synchronized Registration register(Object owner, LittleEndianNativeArrayView memory, MemoryRelease memoryRelease) {
+        Registration registration = new Registration(owner, memory, memoryRelease);
+        registrations.add(registration);
+        return registration;
+    }
+
+    private synchronized boolean unregister(Registration registration) {
+        registration.clear();
+        return registrations.remove(registration);
+    }
+
+    /**
+     * Free the memory of all the arrays found unreachable by the garbage collector so far. This does not block;
+     * @return the number of arrays whose memory has been freed
+     */
+    public int reclaim() {
+        int numFreed = 0;
+        Reference<?> reference;
+        while ((reference = queue.poll()) != null) {
+            numFreed += reclaim((Registration) reference);
+        }
+        return numFreed;
+    }
+
+    /**
+     * Run the garbage collector and free the memory of unreachable arrays, e.g. when the GPU is out of memory;
+     * @param timeoutMs maximum time spent waiting for the garbage collector to find unreachable arrays
+     * @return the number of arrays whose memory has been freed
+     */
+    public int reclaimAfterGC(long timeoutMs) {
+        if (getNumRegistered() == 0) {
+            return 0;
+        }
+        System.gc();
+        int numFreed = 0;
+        try {
+            Reference<?> reference = queue.remove(timeoutMs);
+            if (reference != null) {
+                numFreed += reclaim((Registration) reference);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return numFreed + reclaim();
+    }
+
+    private int reclaim(Registration registration) {
+        if (!unregister(registration)) {
+            return 0;
+        }
+        registration.memoryRelease.free(registration.memory, Collections.emptyList());
+        synchronized (this) {
+            numReclaimed++;
+        }
+        return 1;
+    }
+
+    /**
+     * @return the number of arrays whose memory has not been freed yet
+     */
+    public synchronized int getNumRegistered() {
+        return registrations.size();
+    }
+
+    /**
+     * @return the number of arrays whose memory has been freed because they became unreachable
+     */
+    public synchronized long getNumReclaimed() {
+        return numReclaimed;
+    }
+}
@@ -213,6 +213,24 @@ public class NVRuntimeCompiler {
         }
     }
 
+    /**
+     * Version of the NVRTC library, e.g. "11.2";
+     */
+    @TruffleBoundary
+    public String nvrtcVersion() {
+        try (UnsafeHelper.Integer32Object major = UnsafeHelper.createInteger32Object();
+             UnsafeHelper.Integer32Object minor = UnsafeHelper.createInteger32Object()) {
+            try {
+                Object callable = getSymbol(NVRTCFunction.NVRTC_VERSION);
+                Object result = INTEROP.execute(callable, major.getAddress(), minor.getAddress());
+                checkNVRTCReturnCode(result, NVRTCFunction.NVRTC_VERSION.symbolName);
+                return major.getValue() + "." + minor.getValue();
+            } catch (InteropException e) {
+                throw new GrCUDAInternalException(e);
+            }
+        }
+    }
+
     @TruffleBoundary
     public String nvrtcGetErrorString(int errorCode) {
         NVRTCFunction function = NVRTCFunction.NVRTC_GETERRORSTRING;
@@ -304,7 +322,8 @@ public class NVRuntimeCompiler {
         NVRTC_GETPROGRAMLOG("nvrtcGetProgramLog", "(pointer, pointer): sint32"),
         NVRTC_GETLOWEREDNAME("nvrtcGetLoweredName", "(pointer, string, pointer): sint32"),
         NVRTC_GETPTXSIZE("nvrtcGetPTXSize", "(pointer, pointer): sint32"),
-        NVRTC_GETPTX("nvrtcGetPTX", "(pointer, pointer): sint32");
+        NVRTC_GETPTX("nvrtcGetPTX", "(pointer, pointer): sint32"),
+        NVRTC_VERSION("nvrtcVersion", "(pointer, pointer): sint32");
 
         final String symbolName;
         final String signature;
@@ -347,32 +366,3 @@ public class NVRuntimeCompiler {
         }
     }
 }
-
-class PTXKernel {
-    private final String ptxSource;
-    private final String kernelName;
-    private final String loweredKernelName;
-
-    PTXKernel(String ptxSource, String kernelName, String loweredKernelName) {
-        this.ptxSource = ptxSource;
-        this.kernelName = kernelName;
-        this.loweredKernelName = loweredKernelName;
-    }
-
-    public String getPtxSource() {
-        return ptxSource;
-    }
-
-    public String getKernelName() {
-        return kernelName;
-    }
-
-    public String getLoweredKernelName() {
-        return loweredKernelName;
-    }
-
-    @Override
-    public String toString() {
-        return "PTXKernel(" + kernelName + "\n" + ptxSource + "\n)";
-    }
-}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2019, NVIDIA CORPORATION. All rights reserved.
+ * Copyright (c) 2019, 2020, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *  * Neither the name of NVIDIA CORPORATION nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY
+ * OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.nvidia.grcuda.gpu;
+
+import com.nvidia.grcuda.GrCUDAException;
+import com.nvidia.grcuda.gpu.CUDARuntime.CUDADeviceAttribute;
+
+/**
+ * Model of the occupancy of a GPU, used to choose the block size of kernels launched without an explicit configuration.
+ * The occupancy of a block size is the number of warps that can be active at the same time on a multiprocessor,
+ * given the resources (registers, shared memory, threads) used by each block of the kernel.
+ * As the CUDA occupancy API, the model picks the largest block size that achieves the maximum occupancy;
+ */
+public final class OccupancyCalculator {
+
+    /**
+     * Registers are allocated to warps in chunks of this size;
+     */
+    private static final int REGISTER_ALLOCATION_UNIT = 256;
+
+    private final DeviceLimits device;
+
+    public OccupancyCalculator(DeviceLimits device) {
+        this.device = device;
+    }
+
+    /**
+     * Resource limits of a multiprocessor of a device;
+     */
+    public static final class DeviceLimits {
+        private final int warpSize;
+        private final int maxThreadsPerBlock;
+        private final int maxThreadsPerMultiprocessor;
+        private final int maxBlocksPerMultiprocessor;
+        private final int maxRegistersPerMultiprocessor;
+        private final int maxRegistersPerBlock;
+        private final int maxSharedMemoryPerMultiprocessor;
+        private final int maxSharedMemoryPerBlock;
+        /**
+         * Shared memory reserved by the system for each block, in addition to the memory used by the kernel;
+         */
+        private final int reservedSharedMemoryPerBlock;
+        /**
+         * Shared memory is allocated to blocks in chunks of this size;
+         */
+        private final int sharedMemoryAllocationUnit;
+
+        public DeviceLimits(int warpSize, int maxThreadsPerBlock, int maxThreadsPerMultiprocessor, int maxBlocksPerMultiprocessor,
+                            int maxRegistersPerMultiprocessor, int maxRegistersPerBlock,
+                            int maxSharedMemoryPerMultiprocessor, int maxSharedMemoryPerBlock,
+                            int reservedSharedMemoryPerBlock, int sharedMemoryAllocationUnit) {
+            this.warpSize = warpSize;
+            this.maxThreadsPerBlock = maxThreadsPerBlock;
+            this.maxThreadsPerMultiprocessor = maxThreadsPerMultiprocessor;
+            this.maxBlocksPerMultiprocessor = maxBlocksPerMultiprocessor;
+            this.maxRegistersPerMultiprocessor = maxRegistersPerMultiprocessor;
+            this.maxRegistersPerBlock = maxRegistersPerBlock;
+            this.maxSharedMemoryPerMultiprocessor = maxSharedMemoryPerMultiprocessor;
+            this.maxSharedMemoryPerBlock = maxSharedMemoryPerBlock;
+            this.reservedSharedMemoryPerBlock = reservedSharedMemoryPerBlock;
+            this.sharedMemoryAllocationUnit = sharedMemoryAllocationUnit;
+        }
+
+        /**
+         * Read the limits of a device from its properties;
+         */
+        public static DeviceLimits fromDeviceProperties(GPUDeviceProperties properties) {
+            int major = properties.getDeviceAttribute(CUDADeviceAttribute.COMPUTE_CAPABILITY_MAJOR);
+            int minor = properties.getDeviceAttribute(CUDADeviceAttribute.COMPUTE_CAPABILITY_MINOR);
+            return new DeviceLimits(properties.getDeviceAttribute(CUDADeviceAttribute.WARPSIZE),
+                    properties.getDeviceAttribute(CUDADeviceAttribute.MAX_THREADS_PER_BLOCK),
+                    properties.getDeviceAttribute(CUDADeviceAttribute.MAX_THREADS_PER_MULTIPROCESSOR),
+                    maxBlocksPerMultiprocessor(major, minor),
+                    properties.getDeviceAttribute(CUDADeviceAttribute.MAX_REGISTERS_PER_MULTIPROCESSOR),
+                    properties.getDeviceAttribute(CUDADeviceAttribute.MAX_REGISTERS_PER_BLOCK),
+                    properties.getDeviceAttribute(CUDADeviceAttribute.MAX_SHARED_MEMORY_PER_MULTIPROCESSOR),
+                    properties.getDeviceAttribute(CUDADeviceAttribute.MAX_SHARED_MEMORY_PER_BLOCK),
+                    reservedSharedMemoryPerBlock(major),
+                    sharedMemoryAllocationUnit(major));
+        }
+
+        /**
+         * The maximum number of resident blocks per multiprocessor is not a device attribute in all the CUDA versions,
+         * so it is derived from the compute capability;
+         */
+        static int maxBlocksPerMultiprocessor(int major, int minor) {
+            if (major < 5) {
+                return 16;
+            } else if (major == 7 && minor == 5) {
+                return 16;
+            } else if (major == 8 && minor == 9) {
+                return 24;
+            } else if (major == 8 && minor > 0) {
+                return 16;
+            } else {
+                return 32;
+            }
+        }
+
+        /**
+         * Since compute capability 8.0, the system reserves 1 KB of shared memory for each block;
+         */
+        static int reservedSharedMemoryPerBlock(int major) {
+            return major >= 8 ? 1024 : 0;
+        }
+
+        /**
+         * Granularity of the shared memory allocated to blocks, as in the CUDA occupancy calculator;
+         */
+        static int sharedMemoryAllocationUnit(int major) {
+            return major >= 7 ? 128 : 256;
+        }
+    }
+
+    /**
+     * Resources used by each thread and block of a kernel;
+     */
+    public static final class KernelResources {
+        private final int registersPerThread;
+        private final int staticSharedMemoryBytes;
+        private final int maxThreadsPerBlock;
+
+        /**
+         * @param registersPerThread registers used by each thread of the kernel
+         * @param staticSharedMemoryBytes shared memory statically allocated by each block of the kernel
+         * @param maxThreadsPerBlock maximum block size that the kernel can be launched with
+         */
+        public KernelResources(int registersPerThread, int staticSharedMemoryBytes, int maxThreadsPerBlock) {
+            this.registersPerThread = registersPerThread;
+            this.staticSharedMemoryBytes = staticSharedMemoryBytes;
+            this.maxThreadsPerBlock = maxThreadsPerBlock;
+        }
+    }
+
+    private static int roundUp(int value, int unit) {
+        return (value + unit - 1) / unit * unit;
+    }
+
+    /**
+     * Compute how many blocks of the kernel can be active at the same time on a multiprocessor;
+     * @param kernel resources used by the kernel
+     * @param blockSize number of threads in each block
+     * @param dynamicSharedMemoryBytes shared memory dynamically allocated by each block
+     * @return the number of active blocks per multiprocessor, 0 if the kernel cannot be launched with this configuration
+     */
+    public int getActiveBlocksPerMultiprocessor(KernelResources kernel, int blockSize, int dynamicSharedMemoryBytes) {
+        if (blockSize <= 0 || blockSize > Math.min(device.maxThreadsPerBlock, kernel.maxThreadsPerBlock)) {
+            return 0;
+        }
+        int warpsPerBlock = roundUp(blockSize, device.warpSize) / device.warpSize;
+        // Limit given by the number of threads and blocks of the multiprocessor;
+        int activeBlocks = Math.min(device.maxBlocksPerMultiprocessor, device.maxThreadsPerMultiprocessor / device.warpSize / warpsPerBlock);
+        // Limit given by registers, allocated to each warp;
+        if (kernel.registersPerThread > 0) {
+            int registersPerWarp = roundUp(kernel.registersPerThread * device.warpSize, REGISTER_ALLOCATION_UNIT);
+            if (registersPerWarp * warpsPerBlock > device.maxRegistersPerBlock) {
+                return 0;
+            }
+            activeBlocks = Math.min(activeBlocks, device.maxRegistersPerMultiprocessor / registersPerWarp / warpsPerBlock);
+        }
+        // Limit given by shared memory. The reserved memory is used by every block, even if the kernel doesn't use shared memory;
+        int kernelSharedMemoryPerBlock = kernel.staticSharedMemoryBytes + dynamicSharedMemoryBytes;
+        if (kernelSharedMemoryPerBlock > device.maxSharedMemoryPerBlock) {
+            return 0;
+        }
+        int sharedMemoryPerBlock = roundUp(kernelSharedMemoryPerBlock + device.reservedSharedMemoryPerBlock, device.sharedMemoryAllocationUnit);
+        if (sharedMemoryPerBlock > 0) {
+            activeBlocks = Math.min(activeBlocks, device.maxSharedMemoryPerMultiprocessor / sharedMemoryPerBlock);
+        }
+        return activeBlocks;
+    }
+
+    /**
+     * Choose the block size that maximizes the number of active warps per multiprocessor.
+     * Among block sizes with the same occupancy, the largest one is chosen;
+     * @param kernel resources used by the kernel
+     * @param dynamicSharedMemoryBytes shared memory dynamically allocated by each block
+     * @return the block size, a multiple of the warp size
+     */
+    public int chooseBlockSize(KernelResources kernel, int dynamicSharedMemoryBytes) {
+        int maxBlockSize = Math.min(device.maxThreadsPerBlock, kernel.maxThreadsPerBlock) / device.warpSize * device.warpSize;
+        int bestBlockSize = 0;
+        int bestActiveWarps = 0;
+        for (int blockSize = maxBlockSize; blockSize > 0; blockSize -= device.warpSize) {
+            int activeWarps = getActiveBlocksPerMultiprocessor(kernel, blockSize, dynamicSharedMemoryBytes) * (blockSize / device.warpSize);
+            if (activeWarps > bestActiveWarps) {
+                bestActiveWarps = activeWarps;
+                bestBlockSize = blockSize;
+            }
+        }
+        if (bestBlockSize == 0) {
+            throw new GrCUDAException("kernel cannot be launched with " + dynamicSharedMemoryBytes + " bytes of dynamic shared memory");
+        }
+        return bestBlockSize;
+    }
+
+    /**
+     * @return the number of blocks of the given size required to have a thread for each element
+     */
+    public static int getGridSize(long numElements, int blockSize) {
+        long gridSize = (numElements + blockSize - 1) / blockSize;
+        if (gridSize > Integer.MAX_VALUE) {
+            throw new GrCUDAException("too many elements for a one-dimensional grid: " + numElements);
+        }
+        return (int) Math.max(gridSize, 1);
+    }
+}
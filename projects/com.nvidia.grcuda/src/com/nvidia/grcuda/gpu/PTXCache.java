@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2019, NVIDIA CORPORATION. All rights reserved.
+ * Copyright (c) 2019, 2020, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *  * Neither the name of NVIDIA CORPORATION nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY
+ * OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.nvidia.grcuda.gpu;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.nvidia.grcuda.GrCUDAException;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+/**
+ * Content-addressed cache of kernels compiled by {@link NVRuntimeCompiler}.
+ * Kernels are identified by a hash of their source code, kernel name, compilation options, target architecture
+ * and NVRTC version, so that building the same kernel in a later run can skip NVRTC compilation entirely.
+ * Kernels are compiled for the target architecture of the cache, which is passed to NVRTC as well.
+ * Compiled kernels are stored in a local directory (one file per kernel, with the lowered kernel name and the PTX),
+ * and the most recently used ones are also kept in memory.
+ * The directory is bounded in size: when it grows too large, the least recently used kernels are evicted;
+ */
+public class PTXCache {
+
+    public static final String CACHE_FILE_EXTENSION = ".ptx";
+    public static final int DEFAULT_MAX_IN_MEMORY_ENTRIES = 128;
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    private final NVRuntimeCompiler compiler;
+    private final String architecture;
+    private final String compilerVersion;
+    private final Path directory;
+    private final long maxDirectorySizeBytes;
+    private final int maxInMemoryEntries;
+
+    /**
+     * In-memory layer of the cache, kept in access order to evict the least recently used kernels;
+     */
+    private final LinkedHashMap<String, PTXKernel> inMemoryKernels;
+
+    /**
+     * Estimated size of the cache directory, updated by each write. The directory is scanned again,
+     * and the estimate corrected, only when it exceeds the maximum size. Negative if the directory was never scanned;
+     */
+    private long estimatedDirectorySizeBytes = -1;
+
+    private int numMemoryHits = 0;
+    private int numDiskHits = 0;
+    private int numMisses = 0;
+
+    public PTXCache(NVRuntimeCompiler compiler, String architecture, Path directory, long maxDirectorySizeBytes) {
+        this(compiler, architecture, directory, maxDirectorySizeBytes, DEFAULT_MAX_IN_MEMORY_ENTRIES);
+    }
+
+    /**
+     * @param compiler NVRTC compiler used for kernels that are not in the cache
+     * @param architecture target virtual architecture of the compilation (e.g. "compute_70")
+     * @param directory directory where compiled kernels are stored
+     * @param maxDirectorySizeBytes maximum size of the directory, after which old kernels are evicted
+     * @param maxInMemoryEntries maximum number of kernels kept in memory
+     */
+    public PTXCache(NVRuntimeCompiler compiler, String architecture, Path directory, long maxDirectorySizeBytes, int maxInMemoryEntries) {
+        this.compiler = compiler;
+        this.architecture = architecture;
+        this.compilerVersion = compiler.nvrtcVersion();
+        this.directory = directory;
+        this.maxDirectorySizeBytes = maxDirectorySizeBytes;
+        this.maxInMemoryEntries = maxInMemoryEntries;
+        this.inMemoryKernels = new LinkedHashMap<String, PTXKernel>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PTXKernel> eldest) {
+                return size() > PTXCache.this.maxInMemoryEntries;
+            }
+        };
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new GrCUDAException("cannot create PTX cache directory " + directory + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieve the PTX of a kernel from the cache, or compile it with NVRTC if it's not in the cache yet;
+     * @param code source code of the kernel
+     * @param kernelName name of the kernel in the source code
+     * @param moduleName name of the NVRTC program, used only if the kernel has to be compiled
+     * @param compileOpts NVRTC compilation options, besides the target architecture
+     * @return the compiled kernel
+     */
+    @TruffleBoundary
+    public synchronized PTXKernel getKernel(String code, String kernelName, String moduleName, String... compileOpts) {
+        String key = computeKey(code, kernelName, compilerVersion, architecture, compileOpts);
+        PTXKernel kernel = inMemoryKernels.get(key);
+        if (kernel != null) {
+            numMemoryHits++;
+            return kernel;
+        }
+        kernel = readFromDisk(key, kernelName);
+        if (kernel != null) {
+            numDiskHits++;
+        } else {
+            numMisses++;
+            String[] opts = Arrays.copyOf(compileOpts, compileOpts.length + 1);
+            opts[compileOpts.length] = "--gpu-architecture=" + architecture;
+            kernel = compiler.compileKernel(code, kernelName, moduleName, opts);
+            writeToDisk(key, kernel);
+        }
+        inMemoryKernels.put(key, kernel);
+        return kernel;
+    }
+
+    static String computeKey(String code, String kernelName, String compilerVersion, String architecture, String... compileOpts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+            // Fields are separated by a character that cannot appear in any of them, to avoid ambiguous concatenations;
+            digest.update(code.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(kernelName.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(compilerVersion.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(architecture.getBytes(StandardCharsets.UTF_8));
+            for (String opt : compileOpts) {
+                digest.update((byte) 0);
+                digest.update(opt.getBytes(StandardCharsets.UTF_8));
+            }
+            StringBuilder key = new StringBuilder();
+            for (byte b : digest.digest()) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new GrCUDAException("cannot compute hash of kernel " + kernelName + ": " + e.getMessage());
+        }
+    }
+
+    private Path getCacheFile(String key) {
+        return directory.resolve(key + CACHE_FILE_EXTENSION);
+    }
+
+    /**
+     * Read a kernel from the cache directory. The first line of the file is the lowered kernel name, followed by the PTX.
+     * Missing or malformed files are treated as cache misses;
+     */
+    private PTXKernel readFromDisk(String key, String kernelName) {
+        Path file = getCacheFile(key);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            int endOfName = content.indexOf('\n');
+            if (endOfName <= 0) {
+                System.out.println("-- ignoring malformed PTX cache file " + file);
+                return null;
+            }
+            // Update the modification time, so that eviction removes the least recently used kernels;
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return new PTXKernel(content.substring(endOfName + 1), kernelName, content.substring(0, endOfName));
+        } catch (IOException e) {
+            System.out.println("-- cannot read PTX cache file " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Write a kernel to the cache directory. The file is written to a temporary location and then moved,
+     * so that other processes sharing the cache never observe partially written kernels;
+     */
+    private void writeToDisk(String key, PTXKernel kernel) {
+        Path file = getCacheFile(key);
+        try {
+            if (estimatedDirectorySizeBytes < 0) {
+                estimatedDirectorySizeBytes = evict();
+            }
+            byte[] content = (kernel.getLoweredKernelName() + "\n" + kernel.getPtxSource()).getBytes(StandardCharsets.UTF_8);
+            Path tmpFile = Files.createTempFile(directory, key, ".tmp");
+            Files.write(tmpFile, content);
+            try {
+                Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            // Files written by other processes are not in the estimate, they are found when the directory is scanned;
+            estimatedDirectorySizeBytes += content.length;
+            if (estimatedDirectorySizeBytes > maxDirectorySizeBytes) {
+                estimatedDirectorySizeBytes = evict();
+            }
+        } catch (IOException e) {
+            System.out.println("-- cannot write PTX cache file " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Remove the least recently used kernels from the cache directory until its size is within the limit;
+     * @return the size of the directory after the eviction
+     */
+    private long evict() throws IOException {
+        List<Path> files = new ArrayList<>();
+        long totalSize = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + CACHE_FILE_EXTENSION)) {
+            for (Path f : stream) {
+                files.add(f);
+                totalSize += Files.size(f);
+            }
+        }
+        if (totalSize <= maxDirectorySizeBytes) {
+            return totalSize;
+        }
+        files.sort(Comparator.comparing(f -> {
+            try {
+                return Files.getLastModifiedTime(f);
+            } catch (IOException e) {
+                return FileTime.fromMillis(0);
+            }
+        }));
+        for (Path f : files) {
+            if (totalSize <= maxDirectorySizeBytes) {
+                break;
+            }
+            long size = Files.size(f);
+            if (Files.deleteIfExists(f)) {
+                totalSize -= size;
+            }
+        }
+        return totalSize;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public String getArchitecture() {
+        return architecture;
+    }
+
+    public int getNumMemoryHits() {
+        return numMemoryHits;
+    }
+
+    public int getNumDiskHits() {
+        return numDiskHits;
+    }
+
+    public int getNumMisses() {
+        return numMisses;
+    }
+
+    @Override
+    public String toString() {
+        return "PTXCache(directory=" + directory + ", architecture=" + architecture + ", nvrtc=" + compilerVersion + ", memoryHits=" + numMemoryHits + ", diskHits=" + numDiskHits + ", misses=" + numMisses + ")";
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2019, NVIDIA CORPORATION. All rights reserved.
+ * Copyright (c) 2019, 2020, Oracle and/or its affiliates. All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *  * Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *  * Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ *  * Neither the name of NVIDIA CORPORATION nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS ``AS IS'' AND ANY
+ * EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR
+ * PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY
+ * OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.nvidia.grcuda.gpu;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.nvidia.grcuda.CUDAEvent;
+import com.nvidia.grcuda.GrCUDAException;
+import com.nvidia.grcuda.gpu.stream.CUDAStream;
+
+/**
+ * Pool of pinned (page-locked) host buffers used to stage large copies between pageable host memory and the GPU.
+ * Copies from pageable memory are synchronous, as the driver stages them through its own buffer.
+ * Instead, copies are split in chunks that are packed into pinned buffers and transferred with cudaMemcpyAsync.
+ * Each copy uses two buffers, so that packing a chunk on the host overlaps with the transfer of the previous chunk.
+ * Buffers are allocated lazily, up to the maximum size of the pool, and they are reused by later copies;
+ */
+public class PinnedStagingBufferPool {
+
+    /**
+     * Operations of the CUDA runtime used to stage copies, e.g. cudaMallocHost and cudaMemcpyAsync;
+     */
+    public interface StagingRuntime {
+        long allocatePinned(long numBytes);
+
+        void freePinned(long address);
+
+        void copyAsync(long destPointer, long fromPointer, long numBytes, CUDAStream stream);
+
+        CUDAEvent createEvent();
+
+        void destroyEvent(CUDAEvent event);
+
+        void recordEvent(CUDAEvent event, CUDAStream stream);
+
+        void synchronizeEvent(CUDAEvent event);
+    }
+
+    /**
+     * Number of buffers used by each copy;
+     */
+    public static final int BUFFERS_PER_COPY = 2;
+
+    private final StagingRuntime runtime;
+    private final int maxBuffers;
+    private final long chunkSizeBytes;
+
+    private static class StagingBuffer {
+        private final long address;
+        /**
+         * Recorded after the last transfer that uses the buffer;
+         */
+        private final CUDAEvent event;
+
+        StagingBuffer(long address, CUDAEvent event) {
+            this.address = address;
+            this.event = event;
+        }
+    }
+
+    /**
+     * A chunk whose transfer has been issued, but not completed yet;
+     */
+    private static class PendingChunk {
+        private final StagingBuffer buffer;
+        private final long hostPointer;
+        private final long numBytes;
+
+        PendingChunk(StagingBuffer buffer, long hostPointer, long numBytes) {
+            this.buffer = buffer;
+            this.hostPointer = hostPointer;
+            this.numBytes = numBytes;
+        }
+    }
+
+    private final ArrayDeque<StagingBuffer> freeBuffers = new ArrayDeque<>();
+    private int numAllocatedBuffers = 0;
+    private long numStagedCopies = 0;
+    private long numStagedChunks = 0;
+
+    public PinnedStagingBufferPool(StagingRuntime runtime, int maxBuffers, long chunkSizeBytes) {
+        this.runtime = runtime;
+        this.maxBuffers = maxBuffers;
+        this.chunkSizeBytes = chunkSizeBytes;
+    }
+
+    /**
+     * Copy from pageable host memory to the GPU, on the given stream. The copy is completed when this function returns;
+     * @return false if no staging buffer is available, and the copy was not done
+     */
+    public boolean copyToDevice(long devicePointer, long hostPointer, long numBytes, CUDAStream stream) {
+        List<StagingBuffer> buffers = acquireBuffers();
+        if (buffers.isEmpty()) {
+            return false;
+        }
+        ArrayDeque<PendingChunk> pendingChunks = new ArrayDeque<>();
+        long numChunks = 0;
+        try {
+            for (long offset = 0; offset < numBytes; offset += chunkSizeBytes, numChunks++) {
+                StagingBuffer buffer = buffers.get((int) (numChunks % buffers.size()));
+                long size = Math.min(chunkSizeBytes, numBytes - offset);
+                // The buffer can be overwritten once its previous transfer is completed;
+                if (pendingChunks.size() == buffers.size()) {
+                    runtime.synchronizeEvent(pendingChunks.poll().buffer.event);
+                }
+                UnsafeHelper.copyMemory(hostPointer + offset, buffer.address, size);
+                runtime.copyAsync(devicePointer + offset, buffer.address, size, stream);
+                runtime.recordEvent(buffer.event, stream);
+                pendingChunks.add(new PendingChunk(buffer, hostPointer + offset, size));
+            }
+        } finally {
+            while (!pendingChunks.isEmpty()) {
+                runtime.synchronizeEvent(pendingChunks.poll().buffer.event);
+            }
+            releaseBuffers(buffers, numChunks);
+        }
+        return true;
+    }
+
+    /**
+     * Copy from the GPU to pageable host memory, on the given stream. The copy is completed when this function returns;
+     * @return false if no staging buffer is available, and the copy was not done
+     */
+    public boolean copyToHost(long hostPointer, long devicePointer, long numBytes, CUDAStream stream) {
+        List<StagingBuffer> buffers = acquireBuffers();
+        if (buffers.isEmpty()) {
+            return false;
+        }
+        ArrayDeque<PendingChunk> pendingChunks = new ArrayDeque<>();
+        long numChunks = 0;
+        try {
+            for (long offset = 0; offset < numBytes; offset += chunkSizeBytes, numChunks++) {
+                StagingBuffer buffer = buffers.get((int) (numChunks % buffers.size()));
+                long size = Math.min(chunkSizeBytes, numBytes - offset);
+                // Unpack the oldest chunk to free its buffer, while the transfer of the following chunk is running;
+                if (pendingChunks.size() == buffers.size()) {
+                    unpack(pendingChunks.poll());
+                }
+                runtime.copyAsync(buffer.address, devicePointer + offset, size, stream);
+                runtime.recordEvent(buffer.event, stream);
+                pendingChunks.add(new PendingChunk(buffer, hostPointer + offset, size));
+            }
+            while (!pendingChunks.isEmpty()) {
+                unpack(pendingChunks.poll());
+            }
+        } finally {
+            // Transfers must not write to buffers that are reused, even if the copy failed;
+            while (!pendingChunks.isEmpty()) {
+                runtime.synchronizeEvent(pendingChunks.poll().buffer.event);
+            }
+            releaseBuffers(buffers, numChunks);
+        }
+        return true;
+    }
+
+    private void unpack(PendingChunk chunk) {
+        runtime.synchronizeEvent(chunk.buffer.event);
+        UnsafeHelper.copyMemory(chunk.buffer.address, chunk.hostPointer, chunk.numBytes);
+    }
+
+    /**
+     * Take the buffers used by a copy, allocating new ones if the pool is not full.
+     * Concurrent copies might get fewer buffers, or none;
+     */
+    private synchronized List<StagingBuffer> acquireBuffers() {
+        List<StagingBuffer> buffers = new ArrayList<>(BUFFERS_PER_COPY);
+        while (buffers.size() < BUFFERS_PER_COPY) {
+            if (!freeBuffers.isEmpty()) {
+                buffers.add(freeBuffers.poll());
+            } else if (numAllocatedBuffers < maxBuffers) {
+                long address;
+                try {
+                    address = runtime.allocatePinned(chunkSizeBytes);
+                } catch (GrCUDAException e) {
+                    // Pinned memory is limited, copy with the buffers we already have (if any);
+                    break;
+                }
+                buffers.add(new StagingBuffer(address, runtime.createEvent()));
+                numAllocatedBuffers++;
+            } else {
+                break;
+            }
+        }
+        if (!buffers.isEmpty()) {
+            numStagedCopies++;
+        }
+        return buffers;
+    }
+
+    private synchronized void releaseBuffers(List<StagingBuffer> buffers, long numChunks) {
+        freeBuffers.addAll(buffers);
+        numStagedChunks += numChunks;
+    }
+
+    /**
+     * Release the pinned memory of all the buffers that are not in use;
+     */
+    public synchronized void free() {
+        for (StagingBuffer buffer : freeBuffers) {
+            runtime.freePinned(buffer.address);
+            runtime.destroyEvent(buffer.event);
+        }
+        numAllocatedBuffers -= freeBuffers.size();
+        freeBuffers.clear();
+    }
+
+    public long getChunkSizeBytes() {
+        return chunkSizeBytes;
+    }
+
+    public int getMaxBuffers() {
+        return maxBuffers;
+    }
+
+    public synchronized int getNumAllocatedBuffers() {
+        return numAllocatedBuffers;
+    }
+
+    public synchronized int getNumFreeBuffers() {
+        return freeBuffers.size();
+    }
+
+    public synchronized long getNumStagedCopies() {
+        return numStagedCopies;
+    }
+
+    public synchronized long getNumStagedChunks() {
+        return numStagedChunks;
+    }
+}
@@ -30,6 +30,8 @@ package com.nvidia.grcuda.gpu;
 
 import java.io.ByteArrayOutputStream;
 import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
@@ -40,12 +42,17 @@ import sun.misc.Unsafe;
 
 public class UnsafeHelper {
     private static final Unsafe unsafe;
+    /**
+     * Offset of the native address of direct buffers, see {@link Buffer};
+     */
+    private static final long BUFFER_ADDRESS_OFFSET;
 
     static {
         try {
             Field f = Unsafe.class.getDeclaredField("theUnsafe");
             f.setAccessible(true);
             unsafe = (Unsafe) f.get(null);
+            BUFFER_ADDRESS_OFFSET = unsafe.objectFieldOffset(Buffer.class.getDeclaredField("address"));
         } catch (NoSuchFieldException | IllegalAccessException e) {
             // this needs to be a RuntimeException since it is raised during static initialization
             throw new RuntimeException(e);
@@ -56,6 +63,117 @@ public class UnsafeHelper {
         return unsafe;
     }
 
+    /**
+     * Raw accessors to native memory, so that callers don't need to depend on {@link Unsafe} directly;
+     */
+    public static int addressSize() {
+        return unsafe.addressSize();
+    }
+
+    public static long getAddress(long address) {
+        return unsafe.getAddress(address);
+    }
+
+    public static byte getByte(long address) {
+        return unsafe.getByte(address);
+    }
+
+    public static short getShort(long address) {
+        return unsafe.getShort(address);
+    }
+
+    public static int getInt(long address) {
+        return unsafe.getInt(address);
+    }
+
+    public static long getLong(long address) {
+        return unsafe.getLong(address);
+    }
+
+    public static float getFloat(long address) {
+        return unsafe.getFloat(address);
+    }
+
+    public static double getDouble(long address) {
+        return unsafe.getDouble(address);
+    }
+
+    public static void putByte(long address, byte value) {
+        unsafe.putByte(address, value);
+    }
+
+    public static void putShort(long address, short value) {
+        unsafe.putShort(address, value);
+    }
+
+    public static void putInt(long address, int value) {
+        unsafe.putInt(address, value);
+    }
+
+    public static void putLong(long address, long value) {
+        unsafe.putLong(address, value);
+    }
+
+    public static void putFloat(long address, float value) {
+        unsafe.putFloat(address, value);
+    }
+
+    public static void putDouble(long address, double value) {
+        unsafe.putDouble(address, value);
+    }
+
+    public static long allocateMemory(long numBytes) {
+        return unsafe.allocateMemory(numBytes);
+    }
+
+    public static void setMemory(long address, long numBytes, byte value) {
+        unsafe.setMemory(address, numBytes, value);
+    }
+
+    public static void freeMemory(long address) {
+        unsafe.freeMemory(address);
+    }
+
+    public static void copyMemory(long fromAddress, long toAddress, long numBytes) {
+        unsafe.copyMemory(fromAddress, toAddress, numBytes);
+    }
+
+    /**
+     * Copy the memory of a Java primitive array to native memory;
+     * @param array source of the copy
+     * @param offsetBytes offset in bytes from the first element of the array
+     * @param address destination of the copy
+     * @param numBytes number of bytes to copy
+     */
+    public static void copyFromArray(Object array, long offsetBytes, long address, long numBytes) {
+        unsafe.copyMemory(array, unsafe.arrayBaseOffset(array.getClass()) + offsetBytes, null, address, numBytes);
+    }
+
+    /**
+     * Copy native memory to the memory of a Java primitive array;
+     * @param address source of the copy
+     * @param array destination of the copy
+     * @param offsetBytes offset in bytes from the first element of the array
+     * @param numBytes number of bytes to copy
+     */
+    public static void copyToArray(long address, Object array, long offsetBytes, long numBytes) {
+        unsafe.copyMemory(null, address, array, unsafe.arrayBaseOffset(array.getClass()) + offsetBytes, numBytes);
+    }
+
+    /**
+     * Obtain the native address of the first element of a direct buffer, regardless of its position;
+     */
+    public static long getDirectBufferAddress(Buffer buffer) {
+        return unsafe.getLong(buffer, BUFFER_ADDRESS_OFFSET);
+    }
+
+    /**
+     * Release the native memory of a direct buffer now, instead of waiting for the garbage collector;
+     */
+    public static void freeDirectBuffer(ByteBuffer buffer) {
+        unsafe.invokeCleaner(buffer);
+    }
+
     public static PointerObject createPointerObject() {
         return new PointerObject();
     }
@@ -92,6 +210,10 @@ public class UnsafeHelper {
         return new StringObject(numBytes);
     }
 
+    public static ArgumentArray createArgumentArray(int numElements) {
+        return new ArgumentArray(numElements);
+    }
+
     abstract static class MemoryObject implements java.io.Closeable {
         private final long address;
 
@@ -142,6 +264,73 @@ public class UnsafeHelper {
         }
     }
 
+    /**
+     * Packed array of by-value arguments, laid out in a single allocation: an array of pointers,
+     * followed by one slot for each argument. The i-th pointer refers to the i-th slot,
+     * so the array can be passed as it is to functions such as cuLaunchKernel,
+     * and argument values can be written in place without further allocations;
+     */
+    public static final class ArgumentArray extends MemoryObject {
+
+        /**
+         * Each slot can hold any scalar or pointer, and is aligned to its size;
+         */
+        private static final int SLOT_SIZE = 8;
+        private final int numElements;
+
+        ArgumentArray(int numElements) {
+            super(unsafe.allocateMemory(Math.max(1, numElements) * (long) (unsafe.addressSize() + SLOT_SIZE)));
+            this.numElements = numElements;
+            for (int i = 0; i < numElements; i++) {
+                unsafe.putAddress(getAddress() + (long) i * unsafe.addressSize(), getSlotAddress(i));
+            }
+        }
+
+        public int getNumElements() {
+            return numElements;
+        }
+
+        private long getSlotAddress(int index) {
+            return getAddress() + (long) numElements * unsafe.addressSize() + (long) index * SLOT_SIZE;
+        }
+
+        private long checkedSlotAddress(int index) {
+            if ((index < 0) || (index >= numElements)) {
+                CompilerDirectives.transferToInterpreter();
+                throw new IllegalArgumentException(index + " is out of range");
+            }
+            return getSlotAddress(index);
+        }
+
+        public void setByteAt(int index, byte value) {
+            unsafe.putByte(checkedSlotAddress(index), value);
+        }
+
+        public void setShortAt(int index, short value) {
+            unsafe.putShort(checkedSlotAddress(index), value);
+        }
+
+        public void setIntAt(int index, int value) {
+            unsafe.putInt(checkedSlotAddress(index), value);
+        }
+
+        public void setLongAt(int index, long value) {
+            unsafe.putLong(checkedSlotAddress(index), value);
+        }
+
+        public void setFloatAt(int index, float value) {
+            unsafe.putFloat(checkedSlotAddress(index), value);
+        }
+
+        public void setDoubleAt(int index, double value) {
+            unsafe.putDouble(checkedSlotAddress(index), value);
+        }
+
+        public void setPointerAt(int index, long pointerValue) {
+            unsafe.putAddress(checkedSlotAddress(index), pointerValue);
+        }
+    }
+
     static final class StringObject extends MemoryObject {
         private final int maxLength;
 
@@ -22,6 +22,7 @@ public abstract class ArrayAccessExecution<T extends AbstractArray> extends GrCU
     @Override
     public void updateIsComputationArrayAccess() {
         this.array.setLastComputationArrayAccess(isComputationArrayAccess);
+        this.array.updateResidencyOnHostAccess(!this.argumentList.get(0).isConst());
     }
 
     @Override
@@ -0,0 +1,74 @@
+package com.nvidia.grcuda.gpu.computation;
+
+import com.nvidia.grcuda.NoneValue;
+import com.nvidia.grcuda.array.AbstractArray;
+import com.nvidia.grcuda.array.HostArrayCopy;
+import com.nvidia.grcuda.functions.DeviceArrayCopyFunction;
+import com.nvidia.grcuda.gpu.stream.CUDAStream;
+
+import java.util.Optional;
+
+/**
+ * Copy a range of an {@link AbstractArray} from or to a host container (Java array, buffer or polyglot array).
+ * The whole range is copied by a single computation, instead of scheduling an access for each element;
+ */
+public class ArrayBulkCopyExecution extends GrCUDAComputationalElement {
+
+    /**
+     * The {@link AbstractArray} used in the copy;
+     */
+    private final AbstractArray array;
+    /**
+     * Whether this computations copies data to the array or from it;
+     */
+    private final DeviceArrayCopyFunction.CopyDirection direction;
+    /**
+     * The host container from which data are copied to the array, or to which data are written;
+     */
+    private final Object host;
+    /**
+     * Index of the first element of the array that is copied;
+     */
+    private final long offset;
+    /**
+     * Number of elements copied (expressed as number of elements, not as a size in bytes);
+     */
+    private final long numElements;
+
+    protected boolean isComputationArrayAccess = true;
+
+    public ArrayBulkCopyExecution(AbstractArray array, DeviceArrayCopyFunction.CopyDirection direction, Object host, long offset, long numElements) {
+        super(array.getGrCUDAExecutionContext(), new ArrayExecutionInitializer<>(array, direction.equals(DeviceArrayCopyFunction.CopyDirection.TO_POINTER)));
+        this.array = array;
+        this.direction = direction;
+        this.host = host;
+        this.offset = offset;
+        this.numElements = numElements;
+    }
+
+    @Override
+    public Object execute() {
+        long address = array.getPointer() + offset * array.getElementType().getSizeBytes();
+        if (direction == DeviceArrayCopyFunction.CopyDirection.FROM_POINTER) {
+            HostArrayCopy.copyFromHost(host, address, array.getElementType(), numElements);
+        } else {
+            HostArrayCopy.copyToHost(host, address, array.getElementType(), numElements);
+        }
+        this.setComputationFinished();
+        return NoneValue.get();
+    }
+
+    @Override
+    public void updateIsComputationArrayAccess() {
+        this.array.setLastComputationArrayAccess(isComputationArrayAccess);
+        this.array.updateResidencyOnHostAccess(direction == DeviceArrayCopyFunction.CopyDirection.FROM_POINTER);
+    }
+
+    @Override
+    protected Optional<CUDAStream> additionalStreamDependencyImpl() { return Optional.of(array.getStreamMapping()); }
+
+    @Override
+    public String toString() {
+        return "array bulk copy on " + System.identityHashCode(array) + "; direction=" + direction + "; offset=" + offset + "; size=" + numElements;
+    }
+}
@@ -0,0 +1,126 @@
+package com.nvidia.grcuda.gpu.computation;
+
+import com.nvidia.grcuda.ComputationArgument;
+import com.nvidia.grcuda.ComputationArgumentWithValue;
+import com.nvidia.grcuda.NoneValue;
+import com.nvidia.grcuda.Type;
+import com.nvidia.grcuda.array.AbstractArray;
+import com.nvidia.grcuda.functions.DeviceArrayCopyFunction;
+import com.nvidia.grcuda.gpu.stream.DefaultStream;
+import com.oracle.truffle.api.CompilerDirectives;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Computational element that represents an asynchronous memory copy from/to a {@link AbstractArray}.
+ * The copy is issued on the stream assigned by the execution context and synchronized with other computations
+ * through events, like kernels, so that it can overlap with independent computations.
+ * The host memory must stay valid until the copy is completed, and it should be pinned:
+ * copies from pageable memory are synchronous with respect to the host;
+ */
+public class ArrayCopyAsyncExecution extends GrCUDAComputationalElement {
+
+    /**
+     * The {@link AbstractArray} used in the copy;
+     */
+    private final AbstractArray array;
+    /**
+     * Whether this computations copies data from the array or writes to it;
+     */
+    private final DeviceArrayCopyFunction.CopyDirection direction;
+    /**
+     * A memory pointer from which data copied to the array are retrieved, or memory pointer to which data are written;
+     */
+    private final long pointer;
+    /**
+     * Number of elements copied (expressed as number of elements, not as a size in bytes);
+     */
+    private final long numElements;
+
+    public ArrayCopyAsyncExecution(AbstractArray array, DeviceArrayCopyFunction.CopyDirection direction, long pointer, long numElements) {
+        this(array, direction, pointer, null, numElements);
+    }
+
+    /**
+     * Copy between the array and the memory of another {@link AbstractArray}, e.g. when the pointer is a device array.
+     * The peer array is read by copyFrom and written by copyTo, so the copy is ordered with the computations that use it;
+     */
+    public ArrayCopyAsyncExecution(AbstractArray array, DeviceArrayCopyFunction.CopyDirection direction, long pointer, AbstractArray peer, long numElements) {
+        super(array.getGrCUDAExecutionContext(), new ArrayCopyInitializer(array, direction, peer));
+        // Check the size before scheduling the copy, as errors raised on the stream would not be visible to the caller;
+        if (numElements < 0 || numElements * array.getElementType().getSizeBytes() > array.getSizeBytes()) {
+            CompilerDirectives.transferToInterpreter();
+            throw new IndexOutOfBoundsException();
+        }
+        this.array = array;
+        this.direction = direction;
+        this.pointer = pointer;
+        this.numElements = numElements;
+    }
+
+    @Override
+    public Object execute() {
+        long numBytesToCopy = numElements * array.getElementType().getSizeBytes();
+        if (direction == DeviceArrayCopyFunction.CopyDirection.FROM_POINTER) {
+            grCUDAExecutionContext.getCudaRuntime().cudaMemcpyAsync(array.getPointer(), pointer, numBytesToCopy, this.getStream());
+        } else {
+            grCUDAExecutionContext.getCudaRuntime().cudaMemcpyAsync(pointer, array.getPointer(), numBytesToCopy, this.getStream());
+        }
+        return NoneValue.get();
+    }
+
+    @Override
+    public boolean canUseStream() { return true; }
+
+    @Override
+    public void associateArraysToStreamImpl() {
+        for (ComputationArgumentWithValue a : this.argumentList) {
+            AbstractArray arrayArgument = (AbstractArray) a.getArgumentValue();
+            if (getDependencyComputation().streamResetAttachFilter(a)) {
+                // If the array was attached to a stream, and now it is only read, reset its visibility to the default stream;
+                if (!arrayArgument.getStreamMapping().isDefaultStream()) {
+                    grCUDAExecutionContext.getCudaRuntime().cudaStreamAttachMemAsync(DefaultStream.get(), arrayArgument);
+                }
+            } else if (!arrayArgument.getStreamMapping().equals(this.getStream())) {
+                // Attach the array to the stream if the array isn't already attached to this stream;
+                grCUDAExecutionContext.getCudaRuntime().cudaStreamAttachMemAsync(this.getStream(), arrayArgument);
+            }
+        }
+    }
+
+    /**
+     * The arguments of the copy are the array and, if the pointer belongs to another array, the peer array;
+     */
+    private static class ArrayCopyInitializer implements InitializeArgumentList {
+        private final AbstractArray array;
+        private final DeviceArrayCopyFunction.CopyDirection direction;
+        private final AbstractArray peer;
+
+        ArrayCopyInitializer(AbstractArray array, DeviceArrayCopyFunction.CopyDirection direction, AbstractArray peer) {
+            this.array = array;
+            this.direction = direction;
+            this.peer = peer;
+        }
+
+        @Override
+        public List<ComputationArgumentWithValue> initialize() {
+            boolean toPointer = direction == DeviceArrayCopyFunction.CopyDirection.TO_POINTER;
+            List<ComputationArgumentWithValue> arguments = new ArrayList<>(2);
+            arguments.add(new ComputationArgumentWithValue("array_access", Type.NFI_POINTER,
+                    toPointer ? ComputationArgument.Kind.POINTER_IN : ComputationArgument.Kind.POINTER_INOUT, array));
+            if (peer != null) {
+                arguments.add(new ComputationArgumentWithValue("peer_access", Type.NFI_POINTER,
+                        toPointer ? ComputationArgument.Kind.POINTER_OUT : ComputationArgument.Kind.POINTER_IN, peer));
+            }
+            return arguments;
+        }
+    }
+
+    @Override
+    public String toString() {
+        String event = this.getEvent().isPresent() ? Long.toString(this.getEvent().get().getEventNumber()) : "NULL";
+        return "async array memcpy on " + System.identityHashCode(array) + "; direction=" + direction + "; target=" + pointer +
+                "; size=" + numElements + "; stream=" + this.getStream().getStreamNumber() + "; event=" + event;
+    }
+}
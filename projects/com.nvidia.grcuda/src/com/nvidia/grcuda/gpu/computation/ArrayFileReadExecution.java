@@ -0,0 +1,92 @@
+package com.nvidia.grcuda.gpu.computation;
+
+import com.nvidia.grcuda.GrCUDAException;
+import com.nvidia.grcuda.NoneValue;
+import com.nvidia.grcuda.array.AbstractArray;
+import com.nvidia.grcuda.functions.DeviceArrayCopyFunction;
+import com.nvidia.grcuda.gpu.CUDARuntime;
+import com.nvidia.grcuda.gpu.UnsafeHelper;
+import com.nvidia.grcuda.gpu.stream.CUDAStream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Low-level memory copy from a binary file to a {@link AbstractArray}. The file is read in chunks into a direct buffer,
+ * reused by all the chunks and released at the end of the copy, so no intermediate buffers are allocated in the Java heap.
+ * The whole file is read by a single computation, so the DAG sees a single write to the array;
+ */
+public class ArrayFileReadExecution extends ArrayReadWriteFunctionExecution {
+
+    /**
+     * Size of the file regions that are read and copied at once;
+     */
+    public static final long CHUNK_SIZE_BYTES = 64 * 1024 * 1024;
+
+    /**
+     * The file from which data are read;
+     */
+    private final Path file;
+    /**
+     * Stream used to stage the copies of the chunks through pinned buffers, or null to copy them with a plain memcpy;
+     */
+    private final CUDAStream copyStream;
+
+    public ArrayFileReadExecution(AbstractArray array, Path file, long numElements, CUDAStream copyStream) {
+        super(array, DeviceArrayCopyFunction.CopyDirection.FROM_POINTER, 0, numElements);
+        this.file = file;
+        this.copyStream = copyStream;
+    }
+
+    @Override
+    public Object execute() {
+        long numBytesToCopy = numElements * array.getElementType().getSizeBytes();
+        if (numBytesToCopy > array.getSizeBytes()) {
+            throw new IndexOutOfBoundsException();
+        }
+        CUDARuntime runtime = grCUDAExecutionContext.getCudaRuntime();
+        ByteBuffer chunk = ByteBuffer.allocateDirect((int) Math.min(CHUNK_SIZE_BYTES, numBytesToCopy));
+        long source = UnsafeHelper.getDirectBufferAddress(chunk);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (long position = 0; position < numBytesToCopy; position += CHUNK_SIZE_BYTES) {
+                long chunkSize = Math.min(CHUNK_SIZE_BYTES, numBytesToCopy - position);
+                readChunk(channel, chunk, position, (int) chunkSize);
+                if (copyStream != null) {
+                    // The buffer is pageable memory, so a plain async copy would be synchronous.
+                    // Through pinned buffers, the transfer of a part of the chunk overlaps with staging the next part;
+                    if (!runtime.cudaMemcpyStagedToDevice(array.getPointer() + position, source, chunkSize, copyStream)) {
+                        runtime.cudaMemcpy(array.getPointer() + position, source, chunkSize, copyStream);
+                    }
+                } else if (array.getStreamMapping().isDefaultStream()) {
+                    runtime.cudaMemcpy(array.getPointer() + position, source, chunkSize);
+                } else {
+                    runtime.cudaMemcpy(array.getPointer() + position, source, chunkSize, array.getStreamMapping());
+                }
+            }
+        } catch (IOException e) {
+            throw new GrCUDAException("cannot read file " + file + ": " + e.getMessage());
+        } finally {
+            UnsafeHelper.freeDirectBuffer(chunk);
+        }
+        this.setComputationFinished();
+        return NoneValue.get();
+    }
+
+    private void readChunk(FileChannel channel, ByteBuffer chunk, long position, int chunkSize) throws IOException {
+        chunk.clear().limit(chunkSize);
+        while (chunk.hasRemaining()) {
+            if (channel.read(chunk, position + chunk.position()) < 0) {
+                throw new GrCUDAException("unexpected end of file " + file + " at byte " + (position + chunk.position()));
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "array file read on " + System.identityHashCode(array) + "; file=" + file + "; size=" + numElements +
+                (copyStream != null ? "; copy stream=" + copyStream.getStreamNumber() : "");
+    }
+}
@@ -17,7 +17,7 @@ public class ArrayReadWriteFunctionExecution extends GrCUDAComputationalElement
     /**
      * The {@link AbstractArray} used in the copy;
      */
-    private final AbstractArray array;
+    protected final AbstractArray array;
     /**
      * Whether this computations copies data from the array or writes to it;
      */
@@ -29,7 +29,7 @@ public class ArrayReadWriteFunctionExecution extends GrCUDAComputationalElement
     /**
      * Number of elements copied (expressed as number of elements, not as a size in bytes);
      */
-    private final long numElements;
+    protected final long numElements;
 
     protected boolean isComputationArrayAccess = true;
 
@@ -59,6 +59,10 @@ public class ArrayReadWriteFunctionExecution extends GrCUDAComputationalElement
             CompilerDirectives.transferToInterpreter();
             throw new IndexOutOfBoundsException();
         }
+        // Large copies from pageable memory are staged through pinned buffers, on the stream of the array;
+        if (grCUDAExecutionContext.getCudaRuntime().cudaMemcpyStagedToDevice(array.getPointer(), pointer, numBytesToCopy, array.getStreamMapping())) {
+            return;
+        }
         // If the array visibility is restricted to a stream, provide the stream to memcpy;
         if (array.getStreamMapping().isDefaultStream()) {
             grCUDAExecutionContext.getCudaRuntime().cudaMemcpy(array.getPointer(), pointer, numBytesToCopy);
@@ -73,6 +77,10 @@ public class ArrayReadWriteFunctionExecution extends GrCUDAComputationalElement
             CompilerDirectives.transferToInterpreter();
             throw new IndexOutOfBoundsException();
         }
+        // Large copies to pageable memory are staged through pinned buffers, on the stream of the array;
+        if (grCUDAExecutionContext.getCudaRuntime().cudaMemcpyStagedToHost(pointer, array.getPointer(), numBytesToCopy, array.getStreamMapping())) {
+            return;
+        }
         // If the array visibility is restricted to a stream, provide the stream to memcpy;
         if (array.getStreamMapping().isDefaultStream()) {
             grCUDAExecutionContext.getCudaRuntime().cudaMemcpy(pointer, array.getPointer(), numBytesToCopy);
@@ -84,6 +92,7 @@ public class ArrayReadWriteFunctionExecution extends GrCUDAComputationalElement
     @Override
     public void updateIsComputationArrayAccess() {
         this.array.setLastComputationArrayAccess(isComputationArrayAccess);
+        this.array.updateResidencyOnHostAccess(direction == DeviceArrayCopyFunction.CopyDirection.FROM_POINTER);
     }
 
     @Override
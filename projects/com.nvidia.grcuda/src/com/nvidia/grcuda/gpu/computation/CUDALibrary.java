@@ -0,0 +1,24 @@
+package com.nvidia.grcuda.gpu.computation;
+
+import com.nvidia.grcuda.gpu.stream.CUDAStream;
+
+/**
+ * External CUDA library (e.g. cuBLAS) whose functions are scheduled as {@link CUDALibraryExecution}.
+ * Library functions use a handle for each stream, so that calls on different streams are not serialized;
+ */
+public interface CUDALibrary {
+
+    /**
+     * Retrieve the handle bound to a stream. The handle is passed as first argument to library functions;
+     * @param stream the stream where the library function is executed
+     * @return the handle bound to the stream
+     */
+    Object getHandle(CUDAStream stream);
+
+    /**
+     * Check the value returned by a function of this library, and raise an exception if it represents an error;
+     * @param result the value returned by the library function
+     * @param functionName name of the library function
+     */
+    void checkReturnCode(Object result, String functionName);
+}
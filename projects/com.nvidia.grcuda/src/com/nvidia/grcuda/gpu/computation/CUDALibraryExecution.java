@@ -0,0 +1,106 @@
+package com.nvidia.grcuda.gpu.computation;
+
+import com.nvidia.grcuda.ComputationArgument;
+import com.nvidia.grcuda.ComputationArgumentWithValue;
+import com.nvidia.grcuda.GrCUDAInternalException;
+import com.nvidia.grcuda.array.AbstractArray;
+import com.nvidia.grcuda.gpu.executioncontext.AbstractGrCUDAExecutionContext;
+import com.nvidia.grcuda.gpu.stream.CUDAStream;
+import com.nvidia.grcuda.gpu.stream.DefaultStream;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.interop.InteropException;
+import com.oracle.truffle.api.interop.InteropLibrary;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Computational element that wraps a call to a function of an external CUDA library (e.g. cuBLAS).
+ * The library function is executed asynchronously on the stream assigned by the execution context,
+ * and it is synchronized with other computations through events, like kernels;
+ */
+public class CUDALibraryExecution extends GrCUDAComputationalElement {
+
+    private static final InteropLibrary INTEROP = InteropLibrary.getFactory().getUncached();
+
+    private final CUDALibrary library;
+    private final Object nfiFunction;
+    private final String functionName;
+    private final Object[] args;
+
+    /**
+     * @param grCUDAExecutionContext execution context in which this computation is scheduled
+     * @param library the library that provides the function
+     * @param nfiFunction the library function to execute
+     * @param functionName name of the library function
+     * @param args the arguments of the library function, passed as they are to the function
+     * @param argumentsWithValue the arguments of the library function, annotated with their direction and used to compute dependencies
+     */
+    public CUDALibraryExecution(AbstractGrCUDAExecutionContext grCUDAExecutionContext, CUDALibrary library, Object nfiFunction,
+                                String functionName, Object[] args, List<ComputationArgumentWithValue> argumentsWithValue) {
+        super(grCUDAExecutionContext, new CUDALibraryExecutionInitializer(argumentsWithValue));
+        this.library = library;
+        this.nfiFunction = nfiFunction;
+        this.functionName = functionName;
+        this.args = args;
+    }
+
+    @Override
+    @TruffleBoundary
+    public Object execute() {
+        // The handle is already bound to the stream of this computation, and it replaces the first argument of the function;
+        Object[] argsWithHandle = args.clone();
+        argsWithHandle[0] = library.getHandle(this.getStream());
+        try {
+            Object result = INTEROP.execute(nfiFunction, argsWithHandle);
+            library.checkReturnCode(result, functionName);
+            return result;
+        } catch (InteropException e) {
+            throw new GrCUDAInternalException(e);
+        }
+    }
+
+    @Override
+    public boolean canUseStream() { return true; }
+
+    @Override
+    public void associateArraysToStreamImpl() {
+        for (ComputationArgumentWithValue a : this.argumentList) {
+            if (a.getArgumentValue() instanceof AbstractArray) {
+                AbstractArray array = (AbstractArray) a.getArgumentValue();
+                if (getDependencyComputation().streamResetAttachFilter(a)) {
+                    // If the array was attached to a stream, and now it is a const parameter, reset its visibility to the default stream;
+                    if (!array.getStreamMapping().isDefaultStream()) {
+                        grCUDAExecutionContext.getCudaRuntime().cudaStreamAttachMemAsync(DefaultStream.get(), array);
+                    }
+                } else if (!array.getStreamMapping().equals(this.getStream())) {
+                    // Attach the array to the stream if the array isn't already attached to this stream;
+                    grCUDAExecutionContext.getCudaRuntime().cudaStreamAttachMemAsync(this.getStream(), array);
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        String event = this.getEvent().isPresent() ? Long.toString(this.getEvent().get().getEventNumber()) : "NULL";
+        return "libraryFunction=" + functionName + "; args=[" +
+                argumentList.stream().map(a -> Integer.toString(System.identityHashCode(a.getArgumentValue()))).collect(Collectors.joining(", ")) +
+                "]" + "; stream=" + this.getStream().getStreamNumber() + "; event=" + event;
+    }
+
+    static class CUDALibraryExecutionInitializer implements InitializeArgumentList {
+        private final List<ComputationArgumentWithValue> argumentsWithValue;
+
+        CUDALibraryExecutionInitializer(List<ComputationArgumentWithValue> argumentsWithValue) {
+            this.argumentsWithValue = argumentsWithValue;
+        }
+
+        @Override
+        public List<ComputationArgumentWithValue> initialize() {
+            // Only arrays can introduce dependencies, scalars are copied by the library function;
+            return argumentsWithValue.stream()
+                    .filter(ComputationArgument::isArray).collect(Collectors.toList());
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.nvidia.grcuda.gpu.computation;
 
 import com.nvidia.grcuda.CUDAEvent;
 import com.nvidia.grcuda.ComputationArgumentWithValue;
+import com.nvidia.grcuda.GrCUDAException;
 import com.nvidia.grcuda.array.AbstractArray;
 import com.nvidia.grcuda.gpu.computation.dependency.DependencyComputation;
 import com.nvidia.grcuda.gpu.executioncontext.AbstractGrCUDAExecutionContext;
@@ -50,6 +51,10 @@ public abstract class GrCUDAComputationalElement {
      * Keep track of whether this computation has already been started, to avoid performing the same computation multiple times;
      */
     private boolean computationStarted = false;
+    /**
+     * Exception raised by this computation, or by a computation it depends on. Null if the computation did not fail;
+     */
+    private Throwable computationException;
     /**
      * Specify if this computational element represents an array access (read or write) on an {@link com.nvidia.grcuda.array.AbstractArray}
      * performed synchronously by the CPU. By default it returns false;
@@ -134,6 +139,31 @@ public abstract class GrCUDAComputationalElement {
         this.computationStarted = true;
     }
 
+    public Throwable getComputationException() {
+        return computationException;
+    }
+
+    public void setComputationException(Throwable computationException) {
+        this.computationException = computationException;
+    }
+
+    /**
+     * Raise the exception of a failed computation, e.g. after waiting for its completion;
+     */
+    public void checkComputationException() {
+        if (computationException != null) {
+            throw asGrCUDAException(computationException);
+        }
+    }
+
+    public static GrCUDAException asGrCUDAException(Throwable exception) {
+        if (exception instanceof GrCUDAException) {
+            return (GrCUDAException) exception;
+        } else {
+            return new GrCUDAException(exception.getClass().getSimpleName() + ": " + exception.getMessage());
+        }
+    }
+
     public Optional<CUDAEvent> getEvent() {
         if (event != null) {
             return Optional.of(event);
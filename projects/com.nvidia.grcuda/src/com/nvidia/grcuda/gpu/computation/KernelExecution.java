@@ -7,10 +7,12 @@ import com.nvidia.grcuda.array.AbstractArray;
 import com.nvidia.grcuda.gpu.ConfiguredKernel;
 import com.nvidia.grcuda.gpu.Kernel;
 import com.nvidia.grcuda.gpu.KernelArguments;
+import com.nvidia.grcuda.gpu.KernelAutotuner;
 import com.nvidia.grcuda.gpu.KernelConfig;
 import com.nvidia.grcuda.gpu.executioncontext.GrCUDAExecutionContext;
 import com.nvidia.grcuda.gpu.stream.CUDAStream;
 import com.nvidia.grcuda.gpu.stream.DefaultStream;
+import com.oracle.truffle.api.interop.UnsupportedTypeException;
 
 import java.util.Arrays;
 import java.util.List;
@@ -26,21 +28,45 @@ public class KernelExecution extends GrCUDAComputationalElement {
     private final ConfiguredKernel configuredKernel;
     private final KernelConfig config;
     private final KernelArguments args;
+    /**
+     * Block size chosen by the {@link KernelAutotuner} for this launch, null if the kernel is not tuned;
+     */
+    private final KernelAutotuner.Trial trial;
 
     public KernelExecution(ConfiguredKernel configuredKernel, KernelArguments args) {
+        this(configuredKernel, configuredKernel.getConfig(), args, null);
+    }
+
+    /**
+     * Launch a kernel whose configuration is chosen by the {@link KernelAutotuner}, and might differ across launches;
+     */
+    public KernelExecution(ConfiguredKernel configuredKernel, KernelConfig config, KernelArguments args, KernelAutotuner.Trial trial) {
         super(
             configuredKernel.getKernel().getGrCUDAExecutionContext(),
             new KernelExecutionInitializer(configuredKernel.getKernel(), args)
         );
         this.configuredKernel = configuredKernel;
         this.kernel = configuredKernel.getKernel();
-        this.config = configuredKernel.getConfig();
+        this.config = config;
         this.args = args;
+        this.trial = trial;
+    }
+
+    @Override
+    public Object schedule() throws UnsupportedTypeException {
+        Object result = super.schedule();
+        kernel.registerLaunch(this);
+        return result;
     }
 
     @Override
     public Object execute() {
-        grCUDAExecutionContext.getCudaRuntime().cuLaunchKernel(kernel, config, args, this.getStream());
+        // cuLaunchKernel copies the argument values, so the arguments can be released (and reused) after the launch;
+        try {
+            grCUDAExecutionContext.getCudaRuntime().cuLaunchKernel(kernel, config, args, this.getStream(), trial);
+        } finally {
+            args.close();
+        }
         return NoneValue.get();
     }
 
@@ -0,0 +1,163 @@
+package com.nvidia.grcuda.gpu.computation;
+
+import com.nvidia.grcuda.ComputationArgument;
+import com.nvidia.grcuda.ComputationArgumentWithValue;
+import com.nvidia.grcuda.GrCUDAException;
+import com.nvidia.grcuda.GrCUDAInternalException;
+import com.nvidia.grcuda.Type;
+import com.nvidia.grcuda.array.AbstractArray;
+import com.nvidia.grcuda.gpu.UnsafeHelper;
+import com.nvidia.grcuda.gpu.executioncontext.AbstractGrCUDAExecutionContext;
+import com.nvidia.grcuda.gpu.stream.DefaultStream;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.interop.InteropException;
+import com.oracle.truffle.api.interop.InteropLibrary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Computational element that enqueues the inference of a TensorRT engine on the stream assigned by the execution context.
+ * Input and output buffers are arguments of the computation, so inference is synchronized through events
+ * with the kernels that produce its inputs and consume its outputs. Enqueues on the same engine are serialized,
+ * as the execution context of an engine cannot run concurrently on different streams;
+ */
+public class TensorRTEnqueueExecution extends GrCUDAComputationalElement {
+
+    private static final InteropLibrary INTEROP = InteropLibrary.getFactory().getUncached();
+
+    private final Object nfiFunction;
+    private final int engineHandle;
+    private final int batchSize;
+    /**
+     * Device buffers of the engine bindings, either arrays or raw device pointers;
+     */
+    private final Object[] buffers;
+
+    /**
+     * @param grCUDAExecutionContext execution context in which this computation is scheduled
+     * @param nfiFunction the TensorRT "enqueue" function
+     * @param engineHandle handle of the engine that performs the inference
+     * @param batchSize number of elements in the batch
+     * @param buffers device buffers of the engine bindings
+     * @param bufferKinds direction of each buffer (POINTER_IN, POINTER_OUT or POINTER_INOUT), used to compute dependencies
+     */
+    public TensorRTEnqueueExecution(AbstractGrCUDAExecutionContext grCUDAExecutionContext, Object nfiFunction,
+                                    int engineHandle, int batchSize, Object[] buffers, ComputationArgument.Kind[] bufferKinds) {
+        super(grCUDAExecutionContext, new TensorRTEnqueueExecutionInitializer(engineHandle, buffers, bufferKinds));
+        this.nfiFunction = nfiFunction;
+        this.engineHandle = engineHandle;
+        this.batchSize = batchSize;
+        this.buffers = buffers;
+    }
+
+    @Override
+    @TruffleBoundary
+    public Object execute() {
+        // TensorRT reads the array of bindings while enqueueing, so it can be freed once enqueue returns;
+        try (UnsafeHelper.PointerArray pointerArray = UnsafeHelper.createPointerArray(buffers.length)) {
+            for (int i = 0; i < buffers.length; i++) {
+                long pointer = buffers[i] instanceof AbstractArray ? ((AbstractArray) buffers[i]).getPointer() : INTEROP.asPointer(buffers[i]);
+                pointerArray.setValueAt(i, pointer);
+            }
+            // Completion is tracked by the event recorded after the computation, not by an event signaled by TensorRT;
+            long eventConsumed = 0;
+            Object result = INTEROP.execute(nfiFunction, engineHandle, batchSize, pointerArray.getAddress(), this.getStream().getRawPointer(), eventConsumed);
+            if (!INTEROP.fitsInInt(result)) {
+                throw new GrCUDAInternalException("result of 'enqueue' is not an int");
+            }
+            // The result is not returned to the caller when the computation runs on another thread, so failures are raised;
+            if (INTEROP.asInt(result) == 0) {
+                throw new GrCUDAException("TensorRT 'enqueue' failed on engine " + engineHandle);
+            }
+            return true;
+        } catch (InteropException e) {
+            throw new GrCUDAInternalException(e);
+        }
+    }
+
+    @Override
+    public boolean canUseStream() { return true; }
+
+    @Override
+    public void associateArraysToStreamImpl() {
+        for (ComputationArgumentWithValue a : this.argumentList) {
+            if (a.getArgumentValue() instanceof AbstractArray) {
+                AbstractArray array = (AbstractArray) a.getArgumentValue();
+                if (getDependencyComputation().streamResetAttachFilter(a)) {
+                    // If the array was attached to a stream, and now it is a const parameter, reset its visibility to the default stream;
+                    if (!array.getStreamMapping().isDefaultStream()) {
+                        grCUDAExecutionContext.getCudaRuntime().cudaStreamAttachMemAsync(DefaultStream.get(), array);
+                    }
+                } else if (!array.getStreamMapping().equals(this.getStream())) {
+                    // Attach the array to the stream if the array isn't already attached to this stream;
+                    grCUDAExecutionContext.getCudaRuntime().cudaStreamAttachMemAsync(this.getStream(), array);
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        String event = this.getEvent().isPresent() ? Long.toString(this.getEvent().get().getEventNumber()) : "NULL";
+        return "tensorRTEnqueue; engine=" + engineHandle + "; batchSize=" + batchSize + "; args=[" +
+                argumentList.stream().map(a -> Integer.toString(System.identityHashCode(a.getArgumentValue()))).collect(Collectors.joining(", ")) +
+                "]" + "; stream=" + this.getStream().getStreamNumber() + "; event=" + event;
+    }
+
+    /**
+     * Stands for the execution context of a TensorRT engine in the dependency computation.
+     * It is a read-write argument of every enqueue on the engine, so that these enqueues are serialized;
+     */
+    static final class EngineContext {
+        private final int engineHandle;
+
+        EngineContext(int engineHandle) {
+            this.engineHandle = engineHandle;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            return engineHandle == ((EngineContext) o).engineHandle;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(engineHandle);
+        }
+
+        @Override
+        public String toString() {
+            return "TensorRTEngineContext(" + engineHandle + ")";
+        }
+    }
+
+    static class TensorRTEnqueueExecutionInitializer implements InitializeArgumentList {
+        private final int engineHandle;
+        private final Object[] buffers;
+        private final ComputationArgument.Kind[] bufferKinds;
+
+        TensorRTEnqueueExecutionInitializer(int engineHandle, Object[] buffers, ComputationArgument.Kind[] bufferKinds) {
+            this.engineHandle = engineHandle;
+            this.buffers = buffers;
+            this.bufferKinds = bufferKinds;
+        }
+
+        @Override
+        public List<ComputationArgumentWithValue> initialize() {
+            List<ComputationArgumentWithValue> arguments = new ArrayList<>(buffers.length + 1);
+            arguments.add(new ComputationArgumentWithValue("engine", Type.NFI_POINTER, ComputationArgument.Kind.POINTER_INOUT, new EngineContext(engineHandle)));
+            // Only arrays can introduce dependencies, raw device pointers are not tracked by the runtime;
+            for (int i = 0; i < buffers.length; i++) {
+                if (buffers[i] instanceof AbstractArray) {
+                    arguments.add(new ComputationArgumentWithValue("binding_" + i, Type.NFI_POINTER, bufferKinds[i], buffers[i]));
+                }
+            }
+            return arguments;
+        }
+    }
+}
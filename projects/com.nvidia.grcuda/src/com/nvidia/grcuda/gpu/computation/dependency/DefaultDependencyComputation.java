@@ -1,11 +1,13 @@
 package com.nvidia.grcuda.gpu.computation.dependency;
 
 import com.nvidia.grcuda.ComputationArgumentWithValue;
+import com.nvidia.grcuda.array.AbstractArray;
 import com.nvidia.grcuda.gpu.computation.GrCUDAComputationalElement;
 import com.nvidia.grcuda.gpu.computation.InitializeArgumentList;
 import com.oracle.truffle.api.CompilerDirectives;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -31,12 +33,29 @@ public class DefaultDependencyComputation extends DependencyComputation {
     public List<ComputationArgumentWithValue> computeDependencies(GrCUDAComputationalElement other) {
         Set<ComputationArgumentWithValue> dependencies = new HashSet<>();
         Set<ComputationArgumentWithValue> newArgumentSet = new HashSet<>();
+        Collection<ComputationArgumentWithValue> otherArgumentSet = other.getDependencyComputation().getActiveArgumentSet();
         for (ComputationArgumentWithValue arg : activeArgumentSet) {
             // The other computation requires the current argument, so we have found a new dependency;
-            if (other.getDependencyComputation().getActiveArgumentSet().contains(arg)) {
+            if (otherArgumentSet.contains(arg)) {
                 dependencies.add(arg);
-            } else {
-                // Otherwise, the current argument is still "active", and could enforce a dependency on a future computation;
+                continue;
+            }
+            // The other computation might require only a part of the current argument, e.g. a slice of the same array;
+            boolean isCovered = false;
+            if (arg.getArgumentValue() instanceof AbstractArray) {
+                for (ComputationArgumentWithValue otherArg : otherArgumentSet) {
+                    if (arg.overlaps(otherArg)) {
+                        dependencies.add(arg);
+                        if (otherArg.covers(arg)) {
+                            isCovered = true;
+                            break;
+                        }
+                    }
+                }
+            }
+            // Otherwise, the current argument is still "active", and could enforce a dependency on a future computation.
+            //   Arguments that are only partially used by the other computation are also still active;
+            if (!isCovered) {
                 newArgumentSet.add(arg);
             }
         }
@@ -22,20 +22,26 @@ public class WithConstDependencyComputation extends DependencyComputation {
         List<ComputationArgumentWithValue> newArgumentSet = new ArrayList<>();
         for (ComputationArgumentWithValue arg : activeArgumentSet) {
             boolean dependencyFound = false;
+            boolean isCovered = false;
             for (ComputationArgumentWithValue otherArg : other.getDependencyComputation().getActiveArgumentSet()) {
-                // If both arguments are const, we skip the dependency;
-                if (arg.equals(otherArg) && !(arg.isConst() && otherArg.isConst())) {
-                    dependencies.add(arg);
-                    dependencyFound = true;
-                    // If the other argument is const, the current argument must be added to newArgumentSet
-                    //   as it could cause other dependencies in the future;
-                    if (otherArg.isConst()) {
-                        newArgumentSet.add(arg);
+                // If both arguments are const, we skip the dependency.
+                //   Arguments create a dependency if they are equal, or if they are overlapping parts of the same array;
+                if (arg.overlaps(otherArg) && !(arg.isConst() && otherArg.isConst())) {
+                    if (!dependencyFound) {
+                        dependencies.add(arg);
+                        dependencyFound = true;
+                    }
+                    // If the other argument is const, or it covers only a part of the current argument,
+                    //   the current argument must be added to newArgumentSet as it could cause other dependencies in the future;
+                    if (!otherArg.isConst() && otherArg.covers(arg)) {
+                        isCovered = true;
+                    }
+                    if (isCovered || arg.equals(otherArg)) {
+                        break;
                     }
-                    break;
                 }
             }
-            if (!dependencyFound) {
+            if (!isCovered) {
                 // Otherwise, the current argument is still "active", and could enforce a dependency on a future computation;
                 newArgumentSet.add(arg);
             }
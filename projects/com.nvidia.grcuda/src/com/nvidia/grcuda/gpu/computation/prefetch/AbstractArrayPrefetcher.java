@@ -1,8 +1,12 @@
 package com.nvidia.grcuda.gpu.computation.prefetch;
 
+import com.nvidia.grcuda.ComputationArgumentWithValue;
+import com.nvidia.grcuda.array.AbstractArray;
+import com.nvidia.grcuda.array.ArrayResidency;
 import com.nvidia.grcuda.gpu.CUDARuntime;
 import com.nvidia.grcuda.gpu.computation.GrCUDAComputationalElement;
 import com.nvidia.grcuda.gpu.executioncontext.ExecutionDAG;
+import com.nvidia.grcuda.gpu.stream.CUDAStream;
 
 /**
  * Class that declares an interface to prefetch the data from CPU to GPU (and possibly viceversa).
@@ -12,6 +16,15 @@ public abstract class AbstractArrayPrefetcher {
 
     protected CUDARuntime runtime;
 
+    /**
+     * Number of array prefetches issued to the GPU;
+     */
+    private long numPrefetchesIssued = 0;
+    /**
+     * Number of array arguments of GPU computations that were not prefetched, as they were already valid on the GPU;
+     */
+    private long numPrefetchesSkipped = 0;
+
     public AbstractArrayPrefetcher(CUDARuntime runtime) {
         this.runtime = runtime;
     }
@@ -25,4 +38,71 @@ public abstract class AbstractArrayPrefetcher {
     public void prefetchToGpu(ExecutionDAG.DAGVertex vertex) {
         this.prefetchToGpu(vertex.getComputation());
     }
+
+    public long getNumPrefetchesIssued() {
+        return numPrefetchesIssued;
+    }
+
+    public long getNumPrefetchesSkipped() {
+        return numPrefetchesSkipped;
+    }
+
+    /**
+     * Prefetch on the stream of a GPU computation the arrays that are not valid on the GPU, and update their residency.
+     * Host accesses are never prefetched. Read-only arguments that span their whole parent array are advised as read-mostly,
+     * so that later host reads do not migrate them away from the GPU; arrays written by the GPU lose the advice.
+     * Slices that do not span their parent array are prefetched, but never make the parent valid on the GPU.
+     * Arrays that wrap pinned host memory are never migrated, so they are always skipped;
+     * @param computation a computational element whose array inputs can be prefetched from host to GPU
+     * @return if at least one array has been prefetched
+     */
+    protected boolean prefetchArguments(GrCUDAComputationalElement computation) {
+        if (!computation.canUseStream()) {
+            return false;
+        }
+        boolean prefetched = false;
+        for (ComputationArgumentWithValue a : computation.getArgumentList()) {
+            if (a.getArgumentValue() instanceof AbstractArray) {
+                AbstractArray array = (AbstractArray) a.getArgumentValue();
+                if (!array.isManagedMemory()) {
+                    numPrefetchesSkipped++;
+                    continue;
+                }
+                AbstractArray parent = array.getParentArray();
+                boolean coversParent = array.covers(parent);
+                if (a.isConst() && coversParent && !array.isReadMostly()) {
+                    adviseReadMostly(parent, true);
+                    array.setReadMostly(true);
+                } else if (!a.isConst() && array.isReadMostly()) {
+                    adviseReadMostly(parent, false);
+                    array.setReadMostly(false);
+                }
+                // Only data that are not valid on the GPU must be prefetched;
+                if (array.getResidency() == ArrayResidency.HOST_DIRTY) {
+                    prefetchArray(array, computation.getStream());
+                    numPrefetchesIssued++;
+                    prefetched = true;
+                } else {
+                    numPrefetchesSkipped++;
+                }
+                if (!a.isConst()) {
+                    // GPU writes invalidate the copy of the host;
+                    if (coversParent || array.getResidency() != ArrayResidency.HOST_DIRTY) {
+                        array.setResidency(ArrayResidency.DEVICE_VALID);
+                    }
+                } else if (coversParent) {
+                    array.setResidency(ArrayResidency.SHARED_READ_ONLY);
+                }
+            }
+        }
+        return prefetched;
+    }
+
+    protected void prefetchArray(AbstractArray array, CUDAStream stream) {
+        runtime.cudaMemPrefetchAsync(array, stream);
+    }
+
+    protected void adviseReadMostly(AbstractArray array, boolean isReadMostly) {
+        runtime.cudaMemAdviseReadMostly(array, isReadMostly);
+    }
 }
@@ -16,11 +16,21 @@ import com.nvidia.grcuda.gpu.computation.prefetch.DefaultArrayPrefetcher;
 import com.nvidia.grcuda.gpu.computation.prefetch.NoneArrayPrefetcher;
 import com.nvidia.grcuda.gpu.computation.prefetch.PrefetcherEnum;
 import com.nvidia.grcuda.gpu.computation.prefetch.SyncArrayPrefetcher;
+import com.nvidia.grcuda.gpu.stream.CUDAStream;
+import com.nvidia.grcuda.gpu.stream.DefaultStream;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.TruffleLanguage;
 import com.oracle.truffle.api.interop.UnsupportedTypeException;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 /**
  * Abstract class that defines how {@link GrCUDAComputationalElement} are registered and scheduled for execution.
@@ -36,14 +46,27 @@ public abstract class AbstractGrCUDAExecutionContext {
 
     /**
      * Set that contains all the arrays allocated so far.
+     * Arrays are weakly referenced, so that arrays that are no longer used can be reclaimed;
      */
-    protected final Set<AbstractArray> arraySet = new HashSet<>();
+    protected final Set<AbstractArray> arraySet = Collections.newSetFromMap(new WeakHashMap<>());
 
     /**
      * Set that contains all the CUDA kernels declared so far.
      */
     protected final Set<Kernel> kernelSet = new HashSet<>();
 
+    /**
+     * Kernels built from source code so far, identified by their source code, name and signature.
+     * Building the same kernel again returns the existing kernel, instead of compiling and loading a new module;
+     */
+    private final Map<BuiltKernelKey, BuiltKernel> builtKernels = new HashMap<>();
+
+    /**
+     * Map from built kernels to their entry in {@link AbstractGrCUDAExecutionContext#builtKernels},
+     * used when releasing kernels. Kernels are compared by identity;
+     */
+    private final Map<Kernel, BuiltKernel> builtKernelEntries = new IdentityHashMap<>();
+
     /**
      * Reference to the computational DAG that represents dependencies between computations;
      */
@@ -60,14 +83,18 @@ public abstract class AbstractGrCUDAExecutionContext {
     protected final AbstractArrayPrefetcher arrayPrefetcher;
 
     public AbstractGrCUDAExecutionContext(GrCUDAContext context, TruffleLanguage.Env env, DependencyPolicyEnum dependencyPolicy) {
-        this(new CUDARuntime(context, env), dependencyPolicy, PrefetcherEnum.NONE);
+        this(new CUDARuntime(context, env), dependencyPolicy, PrefetcherEnum.NONE, context.getDAGRetentionWindow());
     }
 
     public AbstractGrCUDAExecutionContext(GrCUDAContext context, TruffleLanguage.Env env, DependencyPolicyEnum dependencyPolicy, PrefetcherEnum inputPrefetch) {
-        this(new CUDARuntime(context, env), dependencyPolicy, inputPrefetch);
+        this(new CUDARuntime(context, env), dependencyPolicy, inputPrefetch, context.getDAGRetentionWindow());
     }
 
     public AbstractGrCUDAExecutionContext(CUDARuntime cudaRuntime, DependencyPolicyEnum dependencyPolicy, PrefetcherEnum inputPrefetch) {
+        this(cudaRuntime, dependencyPolicy, inputPrefetch, ExecutionDAG.KEEP_ALL_VERTICES);
+    }
+
+    public AbstractGrCUDAExecutionContext(CUDARuntime cudaRuntime, DependencyPolicyEnum dependencyPolicy, PrefetcherEnum inputPrefetch, int dagRetentionWindow) {
         this.cudaRuntime = cudaRuntime;
         // Compute the dependency policy to use;
         switch (dependencyPolicy) {
@@ -94,7 +121,7 @@ public abstract class AbstractGrCUDAExecutionContext {
             default:
                 arrayPrefetcher = new NoneArrayPrefetcher(this.cudaRuntime);
         }
-        this.dag = new ExecutionDAG(dependencyPolicy);
+        this.dag = new ExecutionDAG(dependencyPolicy, dagRetentionWindow);
     }
 
     /**
@@ -124,16 +151,63 @@ public abstract class AbstractGrCUDAExecutionContext {
         return dependencyBuilder;
     }
 
+    public AbstractArrayPrefetcher getArrayPrefetcher() {
+        return arrayPrefetcher;
+    }
+
     // Functions used to interface directly with the CUDA runtime;
 
     public Kernel loadKernel(Binding binding) {
         return cudaRuntime.loadKernel(this, binding);
     }
 
-    public Kernel buildKernel(String code, String kernelName, String signature) {
+    /**
+     * Build a kernel from source code. If a kernel with the same code, name and signature was already built
+     * (and not released yet), it is returned instead of building a new one;
+     */
+    @TruffleBoundary
+    public synchronized Kernel buildKernel(String code, String kernelName, String signature) {
+        BuiltKernelKey key = new BuiltKernelKey(code, kernelName, signature);
+        BuiltKernel builtKernel = builtKernels.get(key);
+        if (builtKernel == null) {
+            builtKernel = new BuiltKernel(key, buildNewKernel(code, kernelName, signature));
+            builtKernels.put(key, builtKernel);
+            builtKernelEntries.put(builtKernel.kernel, builtKernel);
+        }
+        builtKernel.numReferences++;
+        return builtKernel.kernel;
+    }
+
+    protected Kernel buildNewKernel(String code, String kernelName, String signature) {
         return cudaRuntime.buildKernel(this, code, kernelName, signature);
     }
 
+    /**
+     * Release a reference to a kernel. Kernels built from source code are released only when
+     * all references obtained from {@link AbstractGrCUDAExecutionContext#buildKernel} are released.
+     * The kernel waits for its pending launches, so it is released outside the lock of the context,
+     * which is needed to mark computations as finished;
+     */
+    @TruffleBoundary
+    public void releaseKernel(Kernel kernel) {
+        synchronized (this) {
+            BuiltKernel builtKernel = builtKernelEntries.get(kernel);
+            if (builtKernel != null) {
+                if (--builtKernel.numReferences > 0) {
+                    return;
+                }
+                builtKernels.remove(builtKernel.key);
+                builtKernelEntries.remove(kernel);
+            }
+            kernelSet.remove(kernel);
+        }
+        kernel.release();
+    }
+
+    public synchronized int getNumBuiltKernels() {
+        return builtKernels.size();
+    }
+
     public ArrayStreamArchitecturePolicy getArrayStreamArchitecturePolicy() {
         return cudaRuntime.getArrayStreamArchitecturePolicy();
     }
@@ -145,8 +219,122 @@ public abstract class AbstractGrCUDAExecutionContext {
      */
     public abstract boolean isAnyComputationActive();
 
+    /**
+     * Check, without blocking the host, if any active computation has finished in the meantime,
+     * and update the state of the context accordingly. By default, this has no effect;
+     */
+    public void updateFinishedComputations() { }
+
+    /**
+     * Check, without blocking the host, if a computation scheduled by this context is completed.
+     * By default, computations are completed when they are scheduled;
+     * @param computation a computation scheduled by this context
+     * @return if the computation is completed
+     */
+    public boolean isComputationCompleted(GrCUDAComputationalElement computation) {
+        return true;
+    }
+
+    /**
+     * Retrieve the streams of the computations that might still be using the memory of an array,
+     * e.g. the writer of the array and readers of a const array running on different streams.
+     * Computations that are not assigned to a stream yet are not considered;
+     * @param array an array
+     * @return the streams of the unfinished computations on the array, empty if the array is not in use
+     */
+    public synchronized Collection<CUDAStream> getStreamsInUse(AbstractArray array) {
+        Set<CUDAStream> streams = new HashSet<>();
+        for (GrCUDAComputationalElement computation : dag.getActiveComputationsWithArgument(array.getParentArray())) {
+            if (computation.getStream() != null) {
+                streams.add(computation.getStream());
+            }
+        }
+        return streams;
+    }
+
+    /**
+     * Retrieve the streams that might still be running computations, e.g. to free memory whose users are not tracked,
+     * such as raw device pointers. The default stream is always included, as computations can use it directly;
+     * @return the streams of the unfinished computations, and the default stream
+     */
+    public synchronized Collection<CUDAStream> getStreamsInUse() {
+        Set<CUDAStream> streams = new HashSet<>();
+        streams.add(DefaultStream.get());
+        for (ExecutionDAG.DAGVertex vertex : dag.getFrontier()) {
+            CUDAStream stream = vertex.getComputation().getStream();
+            if (stream != null && !vertex.getComputation().isComputationFinished()) {
+                streams.add(stream);
+            }
+        }
+        return streams;
+    }
+
+    /**
+     * Block the host until a computation scheduled by this context is completed.
+     * By default, computations are completed when they are scheduled, so there is nothing to wait;
+     * @param computation a computation scheduled by this context
+     */
+    public void waitForComputation(GrCUDAComputationalElement computation) { }
+
     /**
      * Delete internal structures that require manual cleanup operations;
      */
     public void cleanup() { }
+
+    /**
+     * Release all the kernels that are still alive, e.g. kernels loaded from a binding,
+     * so that their argument arrays and modules are freed with the context;
+     */
+    protected synchronized void releaseKernels() {
+        // Wait for all the pending launches at once, instead of waiting for each kernel;
+        if (cudaRuntime != null && !kernelSet.isEmpty()) {
+            cudaRuntime.cudaDeviceSynchronize();
+        }
+        kernelSet.forEach(Kernel::releaseNow);
+        kernelSet.clear();
+        builtKernels.clear();
+        builtKernelEntries.clear();
+    }
+
+    private static final class BuiltKernelKey {
+        private final String code;
+        private final String kernelName;
+        private final String signature;
+        private final int hash;
+
+        BuiltKernelKey(String code, String kernelName, String signature) {
+            this.code = code;
+            this.kernelName = kernelName;
+            this.signature = signature;
+            this.hash = Objects.hash(code, kernelName, signature);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof BuiltKernelKey)) {
+                return false;
+            }
+            BuiltKernelKey otherKey = (BuiltKernelKey) other;
+            return hash == otherKey.hash && code.equals(otherKey.code) && kernelName.equals(otherKey.kernelName) && signature.equals(otherKey.signature);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class BuiltKernel {
+        private final BuiltKernelKey key;
+        private final Kernel kernel;
+        private int numReferences = 0;
+
+        BuiltKernel(BuiltKernelKey key, Kernel kernel) {
+            this.key = key;
+            this.kernel = kernel;
+        }
+    }
 }
@@ -8,12 +8,18 @@ import com.oracle.truffle.api.interop.TruffleObject;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -29,10 +35,64 @@ public class ExecutionDAG implements TruffleObject {
 
     /**
      * Current frontier of the DAG, i.e. vertices with no children.
+     * Vertices whose computation has finished are removed lazily, see {@link ExecutionDAG#cleanFrontier()};
      */
-    private List<DAGVertex> frontier = new ArrayList<>();
+    private final Set<DAGVertex> frontier = new LinkedHashSet<>();
+
+    /**
+     * Index of the frontier, it associates each argument value to the frontier vertices that have it
+     * in their active argument set. Slices and views of an array are indexed by their parent array, as they can overlap. A new computation can only have dependencies with vertices that share
+     * at least one argument with it, so we don't have to inspect the whole frontier when appending a new vertex;
+     */
+    private final Map<Object, Set<DAGVertex>> frontierIndex = new HashMap<>();
+
+    /**
+     * Minimum size of the frontier before we try to remove vertices that are no longer part of it;
+     */
+    private static final int MIN_FRONTIER_SIZE_BEFORE_CLEANUP = 64;
+
+    /**
+     * Size of the frontier after the last cleanup. The frontier is cleaned again only if it doubles in size,
+     * so that the cost of the cleanup is amortized over the insertions;
+     */
+    private int frontierSizeAfterLastCleanup = 0;
+
+    /**
+     * Value of the retention window that disables the retirement of vertices, and keeps the whole DAG in memory;
+     */
+    public static final int KEEP_ALL_VERTICES = -1;
+
+    /**
+     * Maximum number of finished vertices that are kept in the DAG, e.g. for debugging.
+     * Older finished vertices are retired, and only tracked by counters.
+     * If negative, vertices are never retired;
+     */
+    private final int retentionWindow;
+
+    /**
+     * Minimum number of vertices in the DAG, beyond the retention window, before we try to retire finished vertices;
+     */
+    private static final int MIN_VERTICES_BEFORE_RETIREMENT = 64;
+
+    /**
+     * Number of vertices in the DAG after which we try to retire finished vertices. It doubles if few vertices can be retired,
+     * so that the cost of looking for finished vertices is amortized over the insertions;
+     */
+    private int retirementThreshold;
+
+    /**
+     * Number of vertices and edges that have been removed from the DAG, as their computation is over;
+     */
+    private long numRetiredVertices = 0;
+    private long numRetiredEdges = 0;
 
     public ExecutionDAG(DependencyPolicyEnum dependencyPolicy) {
+        this(dependencyPolicy, KEEP_ALL_VERTICES);
+    }
+
+    public ExecutionDAG(DependencyPolicyEnum dependencyPolicy, int retentionWindow) {
+        this.retentionWindow = retentionWindow;
+        this.retirementThreshold = retentionWindow + MIN_VERTICES_BEFORE_RETIREMENT;
         switch (dependencyPolicy) {
             case WITH_CONST:
                 this.keepDependency = new WithConstKeepDependency();
@@ -47,6 +107,8 @@ public class ExecutionDAG implements TruffleObject {
 
     /**
      * Add a new computation to the graph, and compute its dependencies.
+     * The cost of this operation depends on the number of arguments of the computation,
+     * and on the number of frontier vertices that share them, not on the size of the whole frontier;
      * @param kernel a kernel computation, containing kernel configuration and input arguments
      * @return the new vertex that has been appended to the DAG
      */
@@ -58,16 +120,18 @@ public class ExecutionDAG implements TruffleObject {
         // Compute dependencies with other vertices in the DAG frontier, and create edges;
         //////////////////////////////
 
-        // For each vertex in the frontier, compute dependencies of the vertex;
+        // For each vertex in the frontier that shares at least an argument with the new vertex, compute dependencies of the vertex;
 
         // Collect the vertices from which there are dependencies;
         Map<DAGVertex, Collection<ComputationArgumentWithValue>> dependentVerticesMap = new HashMap<>();
         List<DAGVertex> dependentVertices = new ArrayList<>();
-        for (DAGVertex frontierVertex : cleanFrontier()) {
+        for (DAGVertex frontierVertex : getFrontierVerticesWithSharedArguments(newVertex)) {
             Collection<ComputationArgumentWithValue> dependencies = computeDependencies(frontierVertex, newVertex);
             if (dependencies.size() > 0) {
                 dependentVerticesMap.put(frontierVertex, dependencies);
                 dependentVertices.add(frontierVertex);
+                // Some arguments of the frontier vertex might no longer be active;
+                updateFrontierIndex(frontierVertex, dependencies);
             }
         }
 
@@ -83,11 +147,20 @@ public class ExecutionDAG implements TruffleObject {
             new DAGEdge(dependentVertex, newVertex, dependentVerticesMap.get(dependentVertex));
         }
 
-        // Remove from the frontier vertices that no longer belong to it;
-        frontier = cleanFrontier();
         // Add the new vertex to the frontier if it has no children;
         if (newVertex.isFrontier()) {
             frontier.add(newVertex);
+            for (ComputationArgumentWithValue arg : newVertex.getComputation().getDependencyComputation().getActiveArgumentSet()) {
+                frontierIndex.computeIfAbsent(arg.getDependencyKey(), a -> new HashSet<>()).add(newVertex);
+            }
+        }
+        // Remove from the frontier vertices that no longer belong to it, if enough vertices have been added since the last time;
+        if (frontier.size() > Math.max(MIN_FRONTIER_SIZE_BEFORE_CLEANUP, 2 * frontierSizeAfterLastCleanup)) {
+            cleanFrontier();
+        }
+        // Remove from the DAG vertices whose computation is over, if the DAG has grown enough since the last time;
+        if (retentionWindow >= 0 && vertices.size() > retirementThreshold) {
+            retireFinishedVertices();
         }
         return newVertex;
     }
@@ -96,6 +169,94 @@ public class ExecutionDAG implements TruffleObject {
         return startVertex.getComputation().computeDependencies(endVertex.getComputation());
     }
 
+    /**
+     * Retrieve the vertices of the frontier that have at least one argument in common with the input vertex.
+     * These are the only vertices that could have a dependency with it.
+     * Vertices that are no longer part of the frontier are removed from the index as they are found;
+     * @param vertex a vertex for which we want to find possible dependencies
+     * @return the frontier vertices that share arguments with the input vertex, in insertion order
+     */
+    private List<DAGVertex> getFrontierVerticesWithSharedArguments(DAGVertex vertex) {
+        Set<DAGVertex> candidates = new HashSet<>();
+        for (ComputationArgumentWithValue arg : vertex.getComputation().getDependencyComputation().getActiveArgumentSet()) {
+            Set<DAGVertex> verticesWithArgument = frontierIndex.get(arg.getDependencyKey());
+            if (verticesWithArgument != null) {
+                verticesWithArgument.removeIf(v -> !v.isFrontier());
+                if (verticesWithArgument.isEmpty()) {
+                    frontierIndex.remove(arg.getDependencyKey());
+                } else {
+                    candidates.addAll(verticesWithArgument);
+                }
+            }
+        }
+        // Keep the same order in which vertices were added to the DAG, as the order of parents is relevant (e.g. for stream assignment);
+        List<DAGVertex> sortedCandidates = new ArrayList<>(candidates);
+        sortedCandidates.sort(Comparator.comparingLong(DAGVertex::getId));
+        return sortedCandidates;
+    }
+
+    /**
+     * Arguments that caused a dependency might have been removed from the active argument set of a frontier vertex.
+     * If so, the vertex cannot cause other dependencies through these arguments, and it is removed from the index;
+     * @param frontierVertex a frontier vertex whose active arguments have been updated
+     * @param dependencies arguments that caused a dependency between the frontier vertex and a new vertex
+     */
+    private void updateFrontierIndex(DAGVertex frontierVertex, Collection<ComputationArgumentWithValue> dependencies) {
+        Collection<ComputationArgumentWithValue> activeArguments = frontierVertex.getComputation().getDependencyComputation().getActiveArgumentSet();
+        for (ComputationArgumentWithValue arg : dependencies) {
+            // Other active arguments might share the same memory, e.g. disjoint slices of the same array;
+            if (activeArguments.stream().noneMatch(a -> Objects.equals(a.getDependencyKey(), arg.getDependencyKey()))) {
+                removeFromFrontierIndex(frontierVertex, arg.getDependencyKey());
+            }
+        }
+        if (!frontierVertex.isFrontier()) {
+            frontier.remove(frontierVertex);
+        }
+    }
+
+    private void removeFromFrontierIndex(DAGVertex vertex, Object dependencyKey) {
+        Set<DAGVertex> verticesWithArgument = frontierIndex.get(dependencyKey);
+        if (verticesWithArgument != null) {
+            verticesWithArgument.remove(vertex);
+            if (verticesWithArgument.isEmpty()) {
+                frontierIndex.remove(dependencyKey);
+            }
+        }
+    }
+
+    /**
+     * Remove from the DAG vertices whose computation is over, and that cannot be used anymore to compute dependencies
+     * or to synchronize other computations. The most recent {@link ExecutionDAG#retentionWindow} of these vertices are kept.
+     * Retired vertices are disconnected from the rest of the DAG, so they (and the arrays referenced by their computation)
+     * can be garbage-collected;
+     */
+    private void retireFinishedVertices() {
+        // Finished vertices must not be referenced by the frontier;
+        cleanFrontier();
+        // Visit vertices from the newest to the oldest, and keep the most recent ones;
+        int numVerticesToKeep = retentionWindow;
+        Set<DAGVertex> retiredVertices = new HashSet<>();
+        for (int i = vertices.size() - 1; i >= 0; i--) {
+            DAGVertex vertex = vertices.get(i);
+            if (vertex.canBeRetired()) {
+                if (numVerticesToKeep > 0) {
+                    numVerticesToKeep--;
+                } else {
+                    retiredVertices.add(vertex);
+                }
+            }
+        }
+        if (!retiredVertices.isEmpty()) {
+            retiredVertices.forEach(DAGVertex::disconnect);
+            vertices.removeIf(retiredVertices::contains);
+            int numEdges = edges.size();
+            edges.removeIf(e -> retiredVertices.contains(e.getStart()) || retiredVertices.contains(e.getEnd()));
+            numRetiredVertices += retiredVertices.size();
+            numRetiredEdges += numEdges - edges.size();
+        }
+        retirementThreshold = Math.max(2 * vertices.size(), retentionWindow + MIN_VERTICES_BEFORE_RETIREMENT);
+    }
+
     public List<DAGVertex> getVertices() {
         return vertices;
     }
@@ -112,19 +273,55 @@ public class ExecutionDAG implements TruffleObject {
         return edges.size();
     }
 
+    public long getNumRetiredVertices() {
+        return numRetiredVertices;
+    }
+
+    public long getNumRetiredEdges() {
+        return numRetiredEdges;
+    }
+
+    public int getRetentionWindow() {
+        return retentionWindow;
+    }
+
+    /**
+     * Retrieve the computations that are not finished yet, and that can access the memory of the given argument.
+     * Other unfinished computations on the same memory precede them through dependencies, so they complete earlier;
+     * @param dependencyKey the key of an argument, e.g. the parent array of an array
+     * @return the unfinished computations of the frontier that use the argument
+     */
+    public List<GrCUDAComputationalElement> getActiveComputationsWithArgument(Object dependencyKey) {
+        Set<DAGVertex> verticesWithArgument = frontierIndex.get(dependencyKey);
+        if (verticesWithArgument == null) {
+            return Collections.emptyList();
+        }
+        return verticesWithArgument.stream().filter(DAGVertex::isFrontier).map(DAGVertex::getComputation).collect(Collectors.toList());
+    }
+
     public List<DAGVertex> getFrontier() {
-        return cleanFrontier();
+        cleanFrontier();
+        return new ArrayList<>(frontier);
     }
 
     /**
      * Ensure that the internal representation of the frontier is up-to-date.
      * Whether a vertex is part of the frontier can change dynamically (e.g. if a vertex computation is over),
-     * and we have to ensure that the "cached" internal frontier is up-to-date every time it is accessed;
-     * @return the updated DAG frontier
+     * and we have to ensure that the "cached" internal frontier is up-to-date every time it is accessed.
+     * Vertices removed from the frontier are also removed from the frontier index;
      */
-    private List<DAGVertex> cleanFrontier() {
-        frontier = frontier.stream().filter(DAGVertex::isFrontier).collect(Collectors.toList());
-        return frontier;
+    private void cleanFrontier() {
+        Iterator<DAGVertex> iterator = frontier.iterator();
+        while (iterator.hasNext()) {
+            DAGVertex vertex = iterator.next();
+            if (!vertex.isFrontier()) {
+                iterator.remove();
+                for (ComputationArgumentWithValue arg : vertex.getComputation().getArgumentList()) {
+                    removeFromFrontierIndex(vertex, arg.getDependencyKey());
+                }
+            }
+        }
+        frontierSizeAfterLastCleanup = frontier.size();
     }
 
     @Override
@@ -132,6 +329,8 @@ public class ExecutionDAG implements TruffleObject {
         return "DAG(" +
                 "|V|=" + vertices.size() +
                 ", |E|=" + edges.size() +
+                ", retired |V|=" + numRetiredVertices +
+                ", retired |E|=" + numRetiredEdges +
                 "\nvertices=\n" + vertices.stream().map(Object::toString).collect(Collectors.joining(",\n")) +
                 ')';
     }
@@ -181,7 +380,10 @@ public class ExecutionDAG implements TruffleObject {
     public class DAGVertex {
 
         private final GrCUDAComputationalElement computation;
-        private final int id;
+        /**
+         * Ids keep increasing as vertices are retired, so they must not overflow in long-running processes;
+         */
+        private final long id;
 
         /**
          * False only if the vertex has parent vertices.
@@ -195,10 +397,20 @@ public class ExecutionDAG implements TruffleObject {
          * List of edges that connect this vertex to its children (they are the end of each edge).
          */
         private final List<DAGEdge> children = new ArrayList<>();
+        /**
+         * Number of parents whose computation is not finished yet. Used by asynchronous schedulers,
+         * that start this computation when the counter reaches zero;
+         */
+        private int numPendingParents = 0;
+        /**
+         * Result of this computation, if it is executed asynchronously.
+         * The reference is cleared once the computation is finished;
+         */
+        private volatile CompletableFuture<Object> result;
 
         DAGVertex(GrCUDAComputationalElement computation) {
             this.computation = computation;
-            this.id = getNumVertices();
+            this.id = getNumVertices() + getNumRetiredVertices();
             vertices.add(this);
         }
 
@@ -206,10 +418,34 @@ public class ExecutionDAG implements TruffleObject {
             return computation;
         }
 
-        int getId() {
+        long getId() {
             return id;
         }
 
+        void setNumPendingParents(int numPendingParents) {
+            this.numPendingParents = numPendingParents;
+        }
+
+        /**
+         * Notify this vertex that one of its parents has finished its computation;
+         * @return the number of parents whose computation is not finished yet
+         */
+        int decrementNumPendingParents() {
+            return --numPendingParents;
+        }
+
+        /**
+         * Obtain the result of this computation, if it is executed asynchronously and not finished yet;
+         * @return the future result of this computation, or null if the computation is not executed asynchronously or is finished
+         */
+        public CompletableFuture<Object> getResult() {
+            return result;
+        }
+
+        void setResult(CompletableFuture<Object> result) {
+            this.result = result;
+        }
+
         public boolean isStart() {
             return isStart;
         }
@@ -240,6 +476,37 @@ public class ExecutionDAG implements TruffleObject {
             return true;
         }
 
+        private boolean allChildrenHaveFinishedComputation() {
+            for (DAGEdge e : children) {
+                if (!e.getEnd().getComputation().isComputationFinished()) return false;
+            }
+            return true;
+        }
+
+        /**
+         * A vertex can be removed from the DAG if its computation is over, and so are the computations of its parents and children.
+         * Children that are still running might need this vertex to be synchronized (e.g. through its stream or event),
+         * while parents that are still running could require it to filter dependencies;
+         * @return if this vertex can be removed from the DAG
+         */
+        boolean canBeRetired() {
+            return computation.isComputationFinished() && allParentsHaveFinishedComputation() && allChildrenHaveFinishedComputation();
+        }
+
+        /**
+         * Remove the edges that connect this vertex to its parents and children, from both ends;
+         */
+        void disconnect() {
+            for (DAGEdge e : parents) {
+                e.getStart().children.remove(e);
+            }
+            for (DAGEdge e : children) {
+                e.getEnd().parents.remove(e);
+            }
+            parents.clear();
+            children.clear();
+        }
+
         public List<DAGEdge> getParents() {
             return parents;
         }
@@ -294,7 +561,7 @@ public class ExecutionDAG implements TruffleObject {
 
         final private DAGVertex start;
         final private DAGVertex end;
-        final private int id;
+        final private long id;
         /**
          * Set of objects that represents depenencies between the two vertices;
          */
@@ -303,7 +570,7 @@ public class ExecutionDAG implements TruffleObject {
         DAGEdge(DAGVertex start, DAGVertex end) {
             this.start = start;
             this.end = end;
-            this.id = getNumEdges();
+            this.id = getNumEdges() + getNumRetiredEdges();
 
             // Update parents and children of the two vertices;
             start.addChild(this);
@@ -325,7 +592,7 @@ public class ExecutionDAG implements TruffleObject {
             return end;
         }
 
-        public int getId() {
+        public long getId() {
             return id;
         }
 
@@ -2,7 +2,8 @@ package com.nvidia.grcuda.gpu.executioncontext;
 
 public enum ExecutionPolicyEnum {
     SYNC("sync"),
-    DEFAULT("default");
+    DEFAULT("default"),
+    MULTITHREAD("multithread");
 
     private final String name;
 
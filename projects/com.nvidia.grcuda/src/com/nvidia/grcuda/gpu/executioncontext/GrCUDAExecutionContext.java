@@ -22,14 +22,25 @@ public class GrCUDAExecutionContext extends AbstractGrCUDAExecutionContext {
      */
     private final GrCUDAStreamManager streamManager;
 
+    /**
+     * Finished computations are polled at most once every this many registrations, or once every as many registrations
+     * as the number of active streams, so that the cost of polling is constant for each registration;
+     */
+    private static final int MIN_REGISTRATIONS_BETWEEN_POLLS = 16;
+    private int numRegistrationsSinceLastPoll = 0;
+
     public GrCUDAExecutionContext(GrCUDAContext context, TruffleLanguage.Env env, DependencyPolicyEnum dependencyPolicy, PrefetcherEnum inputPrefetch) {
-        this(new CUDARuntime(context, env), new GrCUDAThreadManager(context), dependencyPolicy, inputPrefetch);
+        this(new CUDARuntime(context, env), new GrCUDAThreadManager(context), dependencyPolicy, inputPrefetch, context.getDAGRetentionWindow());
     }
 
     public GrCUDAExecutionContext(CUDARuntime cudaRuntime, GrCUDAThreadManager threadManager, DependencyPolicyEnum dependencyPolicy, PrefetcherEnum inputPrefetch) {
         this(cudaRuntime, threadManager, new GrCUDAStreamManager(cudaRuntime), dependencyPolicy, inputPrefetch);
     }
 
+    public GrCUDAExecutionContext(CUDARuntime cudaRuntime, GrCUDAThreadManager threadManager, DependencyPolicyEnum dependencyPolicy, PrefetcherEnum inputPrefetch, int dagRetentionWindow) {
+        this(cudaRuntime, threadManager, new GrCUDAStreamManager(cudaRuntime), dependencyPolicy, inputPrefetch, dagRetentionWindow);
+    }
+
     public GrCUDAExecutionContext(CUDARuntime cudaRuntime, GrCUDAThreadManager threadManager, GrCUDAStreamManager streamManager, DependencyPolicyEnum dependencyPolicy) {
         super(cudaRuntime, dependencyPolicy, PrefetcherEnum.NONE);
         this.streamManager = streamManager;
@@ -40,6 +51,11 @@ public class GrCUDAExecutionContext extends AbstractGrCUDAExecutionContext {
         this.streamManager = streamManager;
     }
 
+    public GrCUDAExecutionContext(CUDARuntime cudaRuntime, GrCUDAThreadManager threadManager, GrCUDAStreamManager streamManager, DependencyPolicyEnum dependencyPolicy, PrefetcherEnum inputPrefetch, int dagRetentionWindow) {
+        super(cudaRuntime, dependencyPolicy, inputPrefetch, dagRetentionWindow);
+        this.streamManager = streamManager;
+    }
+
     /**
      * Register this computation for future execution by the {@link GrCUDAExecutionContext},
      * and add it to the current computational DAG.
@@ -47,6 +63,14 @@ public class GrCUDAExecutionContext extends AbstractGrCUDAExecutionContext {
      */
     @Override
     public Object registerExecution(GrCUDAComputationalElement computation) throws UnsupportedTypeException {
+        // Check if some computations have finished in the meantime, so that we don't have to synchronize them.
+        //   Polling queries each active stream, so it is done only once every few registrations;
+        numRegistrationsSinceLastPoll++;
+        if (numRegistrationsSinceLastPoll >= Math.max(MIN_REGISTRATIONS_BETWEEN_POLLS, streamManager.getNumActiveStreams())) {
+            numRegistrationsSinceLastPoll = 0;
+            streamManager.updateFinishedComputations();
+        }
+
         // Add the new computation to the DAG
         ExecutionDAG.DAGVertex vertex = dag.append(computation);
 
@@ -72,6 +96,27 @@ public class GrCUDAExecutionContext extends AbstractGrCUDAExecutionContext {
         return this.streamManager.isAnyComputationActive();
     }
 
+    @Override
+    public void updateFinishedComputations() {
+        this.streamManager.updateFinishedComputations();
+    }
+
+    /**
+     * Computations on streams are active until their event is completed, other computations are completed when scheduled;
+     */
+    @Override
+    public boolean isComputationCompleted(GrCUDAComputationalElement computation) {
+        if (computation.getEvent().isPresent()) {
+            streamManager.updateFinishedComputations();
+        }
+        return computation.isComputationFinished() || !computation.getEvent().isPresent();
+    }
+
+    @Override
+    public void waitForComputation(GrCUDAComputationalElement computation) {
+        streamManager.syncComputation(computation);
+    }
+
     public GrCUDAStreamManager getStreamManager() {
         return streamManager;
     }
@@ -82,6 +127,7 @@ public class GrCUDAExecutionContext extends AbstractGrCUDAExecutionContext {
     @Override
     public void cleanup() {
         streamManager.cleanup();
+        releaseKernels();
     }
 
     private Object executeComputationSync(ExecutionDAG.DAGVertex vertex) throws UnsupportedTypeException {
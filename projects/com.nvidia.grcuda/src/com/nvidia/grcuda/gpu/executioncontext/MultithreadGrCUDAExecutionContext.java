@@ -2,6 +2,7 @@ package com.nvidia.grcuda.gpu.executioncontext;
 
 import com.nvidia.grcuda.GPUPointer;
 import com.nvidia.grcuda.GrCUDAContext;
+import com.nvidia.grcuda.GrCUDAException;
 import com.nvidia.grcuda.GrCUDAThreadManager;
 import com.nvidia.grcuda.NoneValue;
 import com.nvidia.grcuda.array.DeviceArray;
@@ -14,15 +15,23 @@ import com.nvidia.grcuda.gpu.stream.GrCUDAStreamManager;
 import com.oracle.truffle.api.TruffleLanguage;
 import com.oracle.truffle.api.interop.UnsupportedTypeException;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.concurrent.Callable;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Class used to monitor the state of GrCUDA execution, keep track of memory allocated,
  * kernels and other executable functions, and dependencies between elements.
+ * Computations that can use streams are started on a thread pool as soon as all their parents are finished.
+ * Their completion is detected by a single thread of the pool, that checks without blocking the oldest event of each stream.
+ * Threads that start computations are not blocked while the GPU is running.
+ * If a computation fails, the computations that depend on it are not started and fail with the same exception.
+ * The DAG, the stream manager and the scheduling state of each vertex are guarded by this context;
  */
 public class MultithreadGrCUDAExecutionContext extends AbstractGrCUDAExecutionContext {
 
@@ -36,21 +45,39 @@ public class MultithreadGrCUDAExecutionContext extends AbstractGrCUDAExecutionCo
      */
     private final GrCUDAThreadManager threadManager;
 
-    // TODO: vertices and threads have a 1:1 mapping, it makes sense to store threads in the vertex.
-    //   The DAG must be modified to accept custom vertices, e.g. VertexWithComputationThread;
-    protected final HashMap<ExecutionDAG.DAGVertex, CompletableFuture<Object>> activeComputations = new HashMap<>();
+    /**
+     * Computations that have been started on a stream, and whose completion is not known yet;
+     */
+    private final Set<ExecutionDAG.DAGVertex> inFlightComputations = new LinkedHashSet<>();
+    /**
+     * True if a task that waits for the completion of in-flight computations is running on the thread pool;
+     */
+    private boolean isCompletionPollerActive = false;
+    /**
+     * Pause between consecutive checks of the completion of in-flight computations;
+     */
+    private static final long COMPLETION_POLLING_INTERVAL_NS = 20_000;
 
     public MultithreadGrCUDAExecutionContext(GrCUDAContext context, TruffleLanguage.Env env, DependencyPolicyEnum dependencyPolicy) {
-        this(new CUDARuntime(context, env), new GrCUDAThreadManager(context), dependencyPolicy);
+        this(new CUDARuntime(context, env), new GrCUDAThreadManager(context), dependencyPolicy, context.getDAGRetentionWindow());
     }
 
     public MultithreadGrCUDAExecutionContext(CUDARuntime cudaRuntime, GrCUDAThreadManager threadManager, DependencyPolicyEnum dependencyPolicy) {
-        this(cudaRuntime, threadManager, new GrCUDAStreamManager(cudaRuntime), dependencyPolicy);
+        this(cudaRuntime, threadManager, dependencyPolicy, ExecutionDAG.KEEP_ALL_VERTICES);
+    }
+
+    public MultithreadGrCUDAExecutionContext(CUDARuntime cudaRuntime, GrCUDAThreadManager threadManager, DependencyPolicyEnum dependencyPolicy, int dagRetentionWindow) {
+        this(cudaRuntime, threadManager, new GrCUDAStreamManager(cudaRuntime), dependencyPolicy, dagRetentionWindow);
     }
 
     public MultithreadGrCUDAExecutionContext(CUDARuntime cudaRuntime, GrCUDAThreadManager threadManager,
                                              GrCUDAStreamManager streamManager, DependencyPolicyEnum dependencyPolicy) {
-        super(cudaRuntime, dependencyPolicy, PrefetcherEnum.NONE);
+        this(cudaRuntime, threadManager, streamManager, dependencyPolicy, ExecutionDAG.KEEP_ALL_VERTICES);
+    }
+
+    public MultithreadGrCUDAExecutionContext(CUDARuntime cudaRuntime, GrCUDAThreadManager threadManager,
+                                             GrCUDAStreamManager streamManager, DependencyPolicyEnum dependencyPolicy, int dagRetentionWindow) {
+        super(cudaRuntime, dependencyPolicy, PrefetcherEnum.NONE, dagRetentionWindow);
         this.threadManager = threadManager;
         this.streamManager = streamManager;
     }
@@ -62,57 +89,163 @@ public class MultithreadGrCUDAExecutionContext extends AbstractGrCUDAExecutionCo
      */
     @Override
     public Object registerExecution(GrCUDAComputationalElement computation) throws UnsupportedTypeException {
+        List<CompletableFuture<Object>> parentResults = new ArrayList<>();
+        ExecutionDAG.DAGVertex vertex;
+        synchronized (this) {
+            // Add the new computation to the DAG
+            vertex = dag.append(computation);
 
-        // Add the new computation to the DAG
-        ExecutionDAG.DAGVertex vertex = dag.append(computation);
+            // Update for each input array if the latest scheduled computation (i.e. this one) is an array access;
+            vertex.getComputation().updateIsComputationArrayAccess();
 
-        // Update for each input array if the latest scheduled computation (i.e. this one) is an array access;
-        vertex.getComputation().updateIsComputationArrayAccess();
+            // Schedule the computation on a thread if it support asynchronous execution on a stream,
+            //   else do it synchronously;
+            if (vertex.getComputation().canUseStream() && threadManager != null) {
+                // Compute the stream where the computation will be done;
+                streamManager.assignStream(vertex);
+                vertex.setResult(new CompletableFuture<>());
+                // The computation is started when all its parents are finished;
+                int numPendingParents = 0;
+                for (ExecutionDAG.DAGVertex parent : vertex.getParentVertices()) {
+                    if (!parent.getComputation().isComputationFinished()) {
+                        numPendingParents++;
+                    }
+                }
+                vertex.setNumPendingParents(numPendingParents);
+                if (numPendingParents == 0) {
+                    startComputation(vertex);
+                }
+                return NoneValue.get();
+            } else {
+                // Wait for the parents outside of the critical section, as their completion requires it;
+                for (ExecutionDAG.DAGVertex parent : vertex.getParentVertices()) {
+                    CompletableFuture<Object> result = parent.getResult();
+                    if (result != null) {
+                        parentResults.add(result);
+                    }
+                }
+            }
+        }
+        return executeComputationSync(vertex, parentResults);
+    }
 
-        // Schedule the computation on a thread if it support asynchronous execution on a stream,
-        //   else do it synchronously;
-        if (vertex.getComputation().canUseStream() && threadManager != null) {
+    protected ComputationThread getNewComputationThread(ExecutionDAG.DAGVertex vertex) {
+        return new ComputationThread(vertex);
+    }
 
-            // Compute the stream where the computation will be done;
-            streamManager.assignStream(vertex);
+    /**
+     * Set the device used by the current thread. Each thread of the pool must do it before using the CUDA runtime;
+     */
+    protected void setContext() {
+        cudaRuntime.cudaSetDevice(0);
+    }
 
-            System.out.println("-- schedule " + vertex.getComputation());
-            ComputationThread newThread = getNewComputationThread(vertex);
+    private void startComputation(ExecutionDAG.DAGVertex vertex) {
+        threadManager.submitRunnable(getNewComputationThread(vertex));
+    }
 
-            if (vertex.isExecutable()) {
-                // If the computation can be executed immediately, start it;
-                CompletableFuture<Object> futureResult = supplyAsyncComputationThread(newThread);
-                activeComputations.put(vertex, futureResult);
+    /**
+     * Called when the computation of a vertex is known to be finished:
+     * start the children whose parents are all finished, and complete the result of the computation.
+     * If the computation failed, its children are not started and fail with the same exception;
+     * @param vertex a vertex whose computation is finished
+     * @param exception the exception raised by the computation, or null if the computation was successful
+     */
+    private void onComputationFinished(ExecutionDAG.DAGVertex vertex, Throwable exception) {
+        if (exception != null) {
+            vertex.getComputation().setComputationException(exception);
+        }
+        vertex.getComputation().setComputationFinished();
+        for (ExecutionDAG.DAGVertex child : vertex.getChildVertices()) {
+            // Children executed synchronously don't have a result, and wait for their parents on their own.
+            // Children that already failed because of another parent don't have a result either;
+            if (child.getResult() == null) {
+                continue;
+            }
+            if (exception != null) {
+                streamManager.removeFailedComputation(child);
+                onComputationFinished(child, exception);
+            } else if (child.decrementNumPendingParents() == 0) {
+                startComputation(child);
+            }
+        }
+        CompletableFuture<Object> result = vertex.getResult();
+        vertex.setResult(null);
+        if (result != null) {
+            if (exception == null) {
+                result.complete(NoneValue.get());
             } else {
-                // If the computation has dependencies, add the callback logic;
-                List<ExecutionDAG.DAGVertex> parents = vertex.getParentVertices();
-                CompletableFuture<Void> parentResult = CompletableFuture.allOf(parents.stream().map(activeComputations::get).toArray(CompletableFuture[]::new));
-                CompletableFuture<Object> futureResult = parentResult.thenCompose((res) -> supplyAsyncComputationThread(newThread));
-                activeComputations.put(vertex, futureResult);
+                result.completeExceptionally(exception);
             }
-            return NoneValue.get();
-        } else {
-            return executeComputationSync(vertex);
         }
+        // Wake up the threads waiting for computations;
+        notifyAll();
     }
 
-    protected ComputationThread getNewComputationThread(ExecutionDAG.DAGVertex vertex) {
-        return new ComputationThread(vertex);
+    /**
+     * Track a computation that has been started on a stream, and ensure that its completion is polled;
+     * @param vertex a vertex whose computation has been started on a stream
+     */
+    private synchronized void addInFlightComputation(ExecutionDAG.DAGVertex vertex) {
+        // Associate a CUDA event to this computation, it is used to check when the computation is finished;
+        streamManager.assignEvent(vertex);
+        inFlightComputations.add(vertex);
+        if (!isCompletionPollerActive) {
+            isCompletionPollerActive = true;
+            threadManager.submitRunnable(new CompletionPoller());
+        }
     }
 
-    private CompletableFuture<Object> supplyAsyncComputationThread(ComputationThread thread) {
-        return CompletableFuture.supplyAsync(thread::call, threadManager.getThreadPool())
-                .exceptionally(ex -> {
-                    System.out.println("Exception encountered in computation thread of " + thread.getVertex().getComputation() + ": " + ex.getMessage());
-                    return NoneValue.get();
-                });
+    /**
+     * Check which in-flight computations are finished, and notify their children;
+     * @return if any computation is still in-flight
+     */
+    private synchronized boolean updateInFlightComputations() {
+        streamManager.updateFinishedComputations();
+        Iterator<ExecutionDAG.DAGVertex> iterator = inFlightComputations.iterator();
+        while (iterator.hasNext()) {
+            ExecutionDAG.DAGVertex vertex = iterator.next();
+            if (vertex.getComputation().isComputationFinished()) {
+                iterator.remove();
+                onComputationFinished(vertex, null);
+            }
+        }
+        if (inFlightComputations.isEmpty()) {
+            isCompletionPollerActive = false;
+        }
+        return isCompletionPollerActive;
     }
 
     @Override
-    public boolean isAnyComputationActive() {
+    public synchronized boolean isAnyComputationActive() {
         return this.streamManager.isAnyComputationActive();
     }
 
+    /**
+     * Computations on streams are finished once the {@link CompletionPoller} detects their completion,
+     * other computations are completed when scheduled;
+     */
+    @Override
+    public synchronized boolean isComputationCompleted(GrCUDAComputationalElement computation) {
+        return !computation.canUseStream() || threadManager == null || computation.isComputationFinished();
+    }
+
+    /**
+     * Block the host until the {@link CompletionPoller} detects the completion of the computation,
+     * or until the computation fails;
+     */
+    @Override
+    public synchronized void waitForComputation(GrCUDAComputationalElement computation) {
+        while (!isComputationCompleted(computation)) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
     public GrCUDAStreamManager getStreamManager() {
         return streamManager;
     }
@@ -124,48 +257,48 @@ public class MultithreadGrCUDAExecutionContext extends AbstractGrCUDAExecutionCo
     public void cleanup() {
         threadManager.finalizeManager();
         streamManager.cleanup();
+        releaseKernels();
     }
 
-    private Object executeComputationSync(ExecutionDAG.DAGVertex vertex) {
-        // Before starting this computation, ensure that all active threads are finished;
-        System.out.println("-- running sync " + vertex.getComputation());
-
-        List<ExecutionDAG.DAGVertex> parents = vertex.getParentVertices();
-        if (parents.size() == 1) {
-            CompletableFuture<Object> result = activeComputations.get(parents.get(0));
-            waitForComputationToEnd(result, vertex);
-        } else if (parents.size() > 1) {
-            System.out.println("\t* must sync " + parents.size() + " parents");
-            CompletableFuture<Void> result = CompletableFuture.allOf(parents.stream().map(activeComputations::get).toArray(CompletableFuture[]::new));
-            waitForComputationToEnd(result, vertex);
-        }
-        return executeComputationSyncInternal(vertex);
-    }
-
-    private <T> Object waitForComputationToEnd(CompletableFuture<T> result, ExecutionDAG.DAGVertex vertex) {
-//        System.out.println("\t* parents iscanc=" + result.isCancelled() + "; isdone=" + result.isDone() + "; isdoneexc=" + result.isCompletedExceptionally());
+    private Object executeComputationSync(ExecutionDAG.DAGVertex vertex, List<CompletableFuture<Object>> parentResults) throws UnsupportedTypeException {
         try {
-            return result.get();
-        } catch (InterruptedException | ExecutionException e) {
-            System.out.println("Error in sync execution of " + vertex.getComputation() + " = " + e.getMessage());
-            e.printStackTrace();
-            return NoneValue.get();
+            // Before starting this computation, ensure that all its parents are finished.
+            // If a parent failed, this computation is not executed;
+            if (!parentResults.isEmpty()) {
+                waitForParents(CompletableFuture.allOf(parentResults.toArray(new CompletableFuture<?>[0])), vertex);
+            }
+            vertex.getComputation().setComputationStarted();
+            return vertex.getComputation().execute();
+        } catch (UnsupportedTypeException | RuntimeException e) {
+            synchronized (this) {
+                vertex.getComputation().setComputationException(e);
+            }
+            throw e;
+        } finally {
+            // The computation was executed synchronously, so it is finished;
+            synchronized (this) {
+                vertex.getComputation().setComputationFinished();
+                notifyAll();
+            }
         }
     }
 
-    private Object executeComputationSyncInternal(ExecutionDAG.DAGVertex vertex) {
-        // Perform the computation;
-        vertex.getComputation().setComputationStarted();
+    private void waitForParents(CompletableFuture<Void> parentResults, ExecutionDAG.DAGVertex vertex) {
         try {
-            return vertex.getComputation().execute();
-        } catch (UnsupportedTypeException e) {
-            System.out.println("Error in sync execution of " + vertex.getComputation() + " = " + e.getMessage());
-            e.printStackTrace();
-            return NoneValue.get();
+            parentResults.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GrCUDAException("interrupted while waiting for the parents of " + vertex.getComputation());
+        } catch (ExecutionException e) {
+            throw GrCUDAComputationalElement.asGrCUDAException(e.getCause());
         }
     }
 
-    protected class ComputationThread implements Callable<Object> {
+    /**
+     * Start a computation on its stream. The thread does not wait for the computation to end,
+     * its completion is detected by the {@link CompletionPoller};
+     */
+    protected class ComputationThread implements Runnable {
 
         private final ExecutionDAG.DAGVertex vertex;
 
@@ -173,33 +306,43 @@ public class MultithreadGrCUDAExecutionContext extends AbstractGrCUDAExecutionCo
             this.vertex = vertex;
         }
 
-        protected void setContext() {
-            cudaRuntime.cudaSetDevice(0);
-        }
-
         public ExecutionDAG.DAGVertex getVertex() {
             return vertex;
         }
 
-        public Object call() {
-            // Perform the computation;
-            System.out.println("-- running async " + vertex.getComputation());
+        @Override
+        public void run() {
             vertex.getComputation().setComputationStarted();
-            setContext();
             try {
+                setContext();
                 vertex.getComputation().execute();
-            } catch (UnsupportedTypeException e) {
-                System.out.println("Error in async execution of " + vertex.getComputation() + " = " + e.getMessage());
-                e.printStackTrace();
-                throw new RuntimeException(e);
+            } catch (UnsupportedTypeException | RuntimeException e) {
+                // The exception is reported to the threads waiting for this computation and for its children,
+                //   which are not started. Its stream must be freed;
+                synchronized (MultithreadGrCUDAExecutionContext.this) {
+                    streamManager.removeFailedComputation(vertex);
+                    onComputationFinished(vertex, e);
+                }
+                return;
             }
-            // Synchronize on the stream associated to this computation;
-            System.out.println("\tsync thread on stream " + vertex.getComputation().getStream() + " by " + vertex.getComputation());
-            streamManager.syncStream(vertex.getComputation().getStream());
-            vertex.getComputation().setComputationFinished();
-            System.out.println("\tfinish sync thread on stream " + vertex.getComputation().getStream());
+            addInFlightComputation(vertex);
+        }
+    }
 
-            return NoneValue.get();
+    /**
+     * Check the completion of in-flight computations, until no computation is in-flight.
+     * The oldest event of each stream is queried without blocking, so a long computation on a stream
+     * does not delay the detection of computations completed on other streams.
+     * The thread pauses between checks without holding the lock of the context;
+     */
+    private class CompletionPoller implements Runnable {
+
+        @Override
+        public void run() {
+            setContext();
+            while (updateInFlightComputations()) {
+                LockSupport.parkNanos(COMPLETION_POLLING_INTERVAL_NS);
+            }
         }
     }
 }
@@ -45,6 +45,7 @@ public class SyncGrCUDAExecutionContext extends AbstractGrCUDAExecutionContext {
 
         // Wait for the computation to end;
         cudaRuntime.cudaDeviceSynchronize();
+        computation.setComputationFinished();
 
         return result;
     }
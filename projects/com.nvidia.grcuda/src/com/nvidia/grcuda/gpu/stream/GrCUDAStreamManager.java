@@ -10,8 +10,10 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -30,9 +32,26 @@ public class GrCUDAStreamManager {
      */
     protected final CUDARuntime runtime;
     /**
-     * Track the active computations each stream has, excluding the default stream;
+     * Track the active computations each stream has, excluding the default stream.
+     * Computations are stored in the order in which they are scheduled on the stream;
      */
     protected final Map<CUDAStream, Set<ExecutionDAG.DAGVertex>> activeComputationsPerStream = new HashMap<>();
+    /**
+     * Pool of {@link CUDAEvent} that are not associated to any active computation, and can be recorded again.
+     * Creating and destroying an event for each computation is expensive, so events are recycled
+     * once the computation they are associated to is finished;
+     */
+    protected final Deque<CUDAEvent> freeEvents = new ArrayDeque<>();
+    /**
+     * Number of events created by this manager, and number of events currently associated to a computation;
+     */
+    private int numEventsCreated = 0;
+    private int numEventsInUse = 0;
+    /**
+     * Maximum number of events that were associated to computations at the same time.
+     * As events are recycled, this is also the number of events that are ever created;
+     */
+    private int maxNumEventsInUse = 0;
 
     private final RetrieveNewStream retrieveNewStream;
     private final RetrieveParentStream retrieveParentStream;
@@ -109,12 +128,57 @@ public class GrCUDAStreamManager {
     public void assignEvent(ExecutionDAG.DAGVertex vertex) {
         // If the computation cannot use customized streams, return immediately;
         if (vertex.getComputation().canUseStream()) {
-            CUDAEvent event = runtime.cudaEventCreate();
-            runtime.cudaEventRecord(event, vertex.getComputation().getStream());
+            CUDAEvent event = retrieveEvent();
+            recordEvent(event, vertex.getComputation().getStream());
             vertex.getComputation().setEvent(event);
         }
     }
 
+    /**
+     * Obtain a {@link CUDAEvent} from the pool of free events, or create a new one if the pool is empty;
+     * @return an event that is not associated to any active computation
+     */
+    protected CUDAEvent retrieveEvent() {
+        CUDAEvent event = freeEvents.poll();
+        if (event == null) {
+            event = createEvent();
+            numEventsCreated++;
+        }
+        numEventsInUse++;
+        maxNumEventsInUse = Math.max(maxNumEventsInUse, numEventsInUse);
+        return event;
+    }
+
+    /**
+     * Give back to the pool the event associated to a computation.
+     * This is done once the computation is finished: children computations that have to wait for it
+     * are already synchronized, and no new computation can depend on it;
+     * @param computation a finished computation whose event can be reused
+     */
+    protected void releaseEvent(GrCUDAComputationalElement computation) {
+        if (computation.getEvent().isPresent()) {
+            freeEvents.add(computation.getEvent().get());
+            computation.setEvent(null);
+            numEventsInUse--;
+        }
+    }
+
+    protected CUDAEvent createEvent() {
+        return runtime.cudaEventCreate();
+    }
+
+    protected void recordEvent(CUDAEvent event, CUDAStream stream) {
+        runtime.cudaEventRecord(event, stream);
+    }
+
+    protected void destroyEvent(CUDAEvent event) {
+        runtime.cudaEventDestroy(event);
+    }
+
+    protected void destroyStream(CUDAStream stream) {
+        runtime.cudaStreamDestroy(stream);
+    }
+
     public void syncParentStreams(ExecutionDAG.DAGVertex vertex) {
         // If the vertex can be executed on a CUDA stream, use CUDA events,
         //   otherwise use stream/device synchronization to block the host until synchronization is done;
@@ -172,7 +236,8 @@ public class GrCUDAStreamManager {
 //                    System.out.println("\t* wait event on stream; stream to sync=" + stream.getStreamNumber()
 //                            + "; stream that waits=" + vertex.getComputation().getStream().getStreamNumber()
 //                            + "; event=" + event.getEventNumber());
-                } else {
+                } else if (!parent.isComputationFinished()) {
+                    // Finished parents release their event, and there is nothing to wait for;
                     System.out.println("\t* WARNING: missing event to sync child computation=" + vertex.getComputation() +
                             " and parent computation=" + parent);
                 }
@@ -180,6 +245,72 @@ public class GrCUDAStreamManager {
         }
     }
 
+    /**
+     * Check, without blocking the host, which active computations have been completed by the GPU,
+     * and mark them (and their parents) as finished. Streams without active computations become free to use.
+     * Computations on the same stream are executed in order, so we stop querying a stream
+     * as soon as we find a computation that is not completed yet;
+     */
+    public void updateFinishedComputations() {
+        if (activeComputationsPerStream.isEmpty()) {
+            return;
+        }
+        List<ExecutionDAG.DAGVertex> completedVertices = new ArrayList<>();
+        for (Set<ExecutionDAG.DAGVertex> computations : activeComputationsPerStream.values()) {
+            for (ExecutionDAG.DAGVertex vertex : computations) {
+                Optional<CUDAEvent> event = vertex.getComputation().getEvent();
+                if (event.isPresent() && isEventCompleted(event.get())) {
+                    completedVertices.add(vertex);
+                } else {
+                    break;
+                }
+            }
+        }
+        completedVertices.forEach(v -> {
+            // Skip computations that have already been marked as finished as parents of other computations;
+            if (!v.getComputation().isComputationFinished()) {
+                setComputationsFinished(v, Collections.emptySet());
+            }
+        });
+    }
+
+    protected boolean isEventCompleted(CUDAEvent event) {
+        return runtime.cudaEventQuery(event);
+    }
+
+    /**
+     * Block the host until a computation is completed, without synchronizing its whole stream.
+     * The computation, and the ones that precede it on its stream, are then set as finished;
+     * @param computation a computation associated to an event
+     */
+    public void syncComputation(GrCUDAComputationalElement computation) {
+        Optional<CUDAEvent> event = computation.getEvent();
+        if (!computation.isComputationFinished() && event.isPresent()) {
+            syncEvent(event.get());
+            updateFinishedComputations();
+        }
+    }
+
+    protected void syncEvent(CUDAEvent event) {
+        runtime.cudaEventSynchronize(event);
+    }
+
+    /**
+     * Stop tracking a computation that failed before its event was recorded, so that its stream can be freed;
+     */
+    public void removeFailedComputation(ExecutionDAG.DAGVertex vertex) {
+        CUDAStream stream = vertex.getComputation().getStream();
+        Set<ExecutionDAG.DAGVertex> computations = activeComputationsPerStream.get(stream);
+        if (computations != null) {
+            computations.remove(vertex);
+            if (computations.isEmpty()) {
+                activeComputationsPerStream.remove(stream);
+                retrieveNewStream.update(stream);
+            }
+        }
+        releaseEvent(vertex.getComputation());
+    }
+
     /**
      * Synchronization is done in 2 parts:
      * 1. Synchronize the streams where each parent computation is executed;
@@ -213,12 +344,8 @@ public class GrCUDAStreamManager {
 
     protected void setComputationFinishedInner(GrCUDAComputationalElement computation) {
         computation.setComputationFinished();
-        // Destroy the event associated to this computation;
-        if (computation.getEvent().isPresent()) {
-            runtime.cudaEventDestroy(computation.getEvent().get());
-        } else {
-            System.out.println("\t* WARNING: missing event to destroy for computation=" + computation);
-        }
+        // Recycle the event associated to this computation;
+        releaseEvent(computation);
     }
 
     private void setComputationsFinished(ExecutionDAG.DAGVertex vertex, Set<CUDAStream> streamsToSync) {
@@ -289,6 +416,13 @@ public class GrCUDAStreamManager {
         runtime.cudaDeviceSynchronize();
     }
 
+    /**
+     * @return the number of streams with at least an active computation
+     */
+    public int getNumActiveStreams() {
+        return activeComputationsPerStream.size();
+    }
+
     /**
      * Obtain the number of streams managed by this manager;
      */
@@ -311,11 +445,39 @@ public class GrCUDAStreamManager {
      */
     public boolean isAnyComputationActive() { return !this.activeComputationsPerStream.isEmpty(); }
 
+    /**
+     * Obtain the number of {@link CUDAEvent} created by this manager;
+     */
+    public int getNumEventsCreated() {
+        return numEventsCreated;
+    }
+
+    /**
+     * Obtain the number of {@link CUDAEvent} currently associated to a computation;
+     */
+    public int getNumEventsInUse() {
+        return numEventsInUse;
+    }
+
+    /**
+     * Obtain the maximum number of {@link CUDAEvent} that were associated to computations at the same time;
+     */
+    public int getMaxNumEventsInUse() {
+        return maxNumEventsInUse;
+    }
+
+    /**
+     * Obtain the number of {@link CUDAEvent} in the pool, ready to be reused;
+     */
+    public int getNumFreeEvents() {
+        return freeEvents.size();
+    }
+
     protected void addActiveComputation(ExecutionDAG.DAGVertex vertex) {
         CUDAStream stream = vertex.getComputation().getStream();
         // Start tracking the stream if it wasn't already tracked;
         if (!activeComputationsPerStream.containsKey(stream)) {
-            activeComputationsPerStream.put(stream, new HashSet<>());
+            activeComputationsPerStream.put(stream, new LinkedHashSet<>());
         }
         // Associate the computation to the stream;
         activeComputationsPerStream.get(stream).add(vertex);
@@ -326,7 +488,10 @@ public class GrCUDAStreamManager {
      */
     protected void resetActiveComputationState() {
         activeComputationsPerStream.keySet().forEach(s ->
-            activeComputationsPerStream.get(s).forEach(v -> v.getComputation().setComputationFinished())
+            activeComputationsPerStream.get(s).forEach(v -> {
+                v.getComputation().setComputationFinished();
+                releaseEvent(v.getComputation());
+            })
         );
         // Streams don't have any active computation;
         activeComputationsPerStream.clear();
@@ -338,8 +503,12 @@ public class GrCUDAStreamManager {
      * Cleanup and deallocate the streams managed by this manager;
      */
     public void cleanup() {
-        streams.forEach(runtime::cudaStreamDestroy);
+        streams.forEach(this::destroyStream);
+        // Events of computations that are still active are destroyed too;
+        activeComputationsPerStream.values().forEach(computations -> computations.forEach(v -> releaseEvent(v.getComputation())));
         activeComputationsPerStream.clear();
+        freeEvents.forEach(this::destroyEvent);
+        freeEvents.clear();
         retrieveNewStream.cleanup();
         streams.clear();
     }
@@ -34,7 +34,9 @@ import com.nvidia.grcuda.GrCUDAException;
 import com.nvidia.grcuda.GrCUDALanguage;
 import com.nvidia.grcuda.Namespace;
 import com.nvidia.grcuda.functions.Function;
+import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.CachedContext;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
@@ -43,6 +45,7 @@ import com.oracle.truffle.api.interop.InteropLibrary;
 import com.oracle.truffle.api.interop.UnsupportedMessageException;
 import com.oracle.truffle.api.interop.UnsupportedTypeException;
 import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
 
 public abstract class CallNode extends ExpressionNode {
 
@@ -54,22 +57,29 @@ public abstract class CallNode extends ExpressionNode {
         this.argumentNodes = argumentNodes;
     }
 
-    @Specialization
-    Object doDefault(VirtualFrame frame,
-                    @CachedLibrary(limit = "2") InteropLibrary interop,
-                    @CachedContext(GrCUDALanguage.class) GrCUDAContext context) {
+    /**
+     * Look up the function to call in the namespace;
+     */
+    protected Function lookupFunction(Namespace namespace) {
         String[] functionName = identifier.getIdentifierName();
-        Namespace namespace = context.getRootNamespace();
         Optional<Object> maybeFunction = namespace.lookup(functionName);
         if (!maybeFunction.isPresent() || !(maybeFunction.get() instanceof Function)) {
             CompilerDirectives.transferToInterpreter();
             throw new GrCUDAException("function '" + GrCUDAException.format(functionName) + "' not found", this);
         }
-        Function function = (Function) maybeFunction.get();
+        return (Function) maybeFunction.get();
+    }
+
+    @ExplodeLoop
+    private Object[] evaluateArguments(VirtualFrame frame) {
         Object[] argumentValues = new Object[argumentNodes.length];
         for (int i = 0; i < argumentNodes.length; i++) {
             argumentValues[i] = argumentNodes[i].execute(frame);
         }
+        return argumentValues;
+    }
+
+    private Object execute(Function function, Object[] argumentValues, InteropLibrary interop) {
         try {
             return interop.execute(function, argumentValues);
         } catch (ArityException | UnsupportedTypeException | UnsupportedMessageException e) {
@@ -77,4 +87,25 @@ public abstract class CallNode extends ExpressionNode {
             throw new GrCUDAException(e.getMessage(), this);
         }
     }
+
+    /**
+     * The function is looked up only once, and it is cached until the namespace changes;
+     */
+    @Specialization(guards = "context.getRootNamespace() == cachedNamespace", assumptions = "namespaceUnchanged", limit = "1")
+    Object doCached(VirtualFrame frame,
+                    @CachedContext(GrCUDALanguage.class) GrCUDAContext context,
+                    @Cached("context.getRootNamespace()") Namespace cachedNamespace,
+                    @Cached("cachedNamespace.getUnchangedAssumption()") Assumption namespaceUnchanged,
+                    @Cached("lookupFunction(cachedNamespace)") Function cachedFunction,
+                    @CachedLibrary("cachedFunction") InteropLibrary interop) {
+        return execute(cachedFunction, evaluateArguments(frame), interop);
+    }
+
+    @Specialization(replaces = "doCached")
+    Object doDefault(VirtualFrame frame,
+                    @CachedLibrary(limit = "2") InteropLibrary interop,
+                    @CachedContext(GrCUDALanguage.class) GrCUDAContext context) {
+        Function function = lookupFunction(context.getRootNamespace());
+        return execute(function, evaluateArguments(frame), interop);
+    }
 }
@@ -31,14 +31,15 @@ import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.List;
 
-import com.nvidia.grcuda.array.DeviceArray;
+import com.nvidia.grcuda.ComputationArgument;
+import com.nvidia.grcuda.array.AbstractArray;
 import com.nvidia.grcuda.GPUPointer;
 import com.nvidia.grcuda.GrCUDAContext;
 import com.nvidia.grcuda.GrCUDAOptions;
 import com.nvidia.grcuda.Namespace;
 import com.nvidia.grcuda.functions.ExternalFunctionFactory;
 import com.nvidia.grcuda.functions.Function;
-import com.nvidia.grcuda.gpu.UnsafeHelper;
+import com.nvidia.grcuda.gpu.computation.TensorRTEnqueueExecution;
 import com.nvidia.grcuda.GrCUDAException;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
@@ -209,6 +210,12 @@ public class TensorRTRegistry {
         }
     }
 
+    /**
+     * Enqueue the inference of an engine: enqueue(engine, batchSize, buffers[, directions]).
+     * The inference is scheduled as a computation on the execution DAG, on a stream chosen by the runtime.
+     * The optional "directions" array specifies if each buffer is an input ("in"), an output ("out") or both ("inout").
+     * Buffers without a direction are considered both inputs and outputs;
+     */
     class EnqueueFunction extends Function {
         private final ExternalFunctionFactory factory;
         private Function nfiFunction;
@@ -219,42 +226,58 @@ public class TensorRTRegistry {
         }
 
         @Override
+        @TruffleBoundary
         protected Object call(Object[] arguments) throws ArityException, UnsupportedTypeException, UnsupportedMessageException {
-            checkArgumentLength(arguments, 3);
+            if (arguments.length != 3 && arguments.length != 4) {
+                CompilerDirectives.transferToInterpreter();
+                throw ArityException.create(3, arguments.length);
+            }
             int engineHandle = expectInt(arguments[0]);
             int batchSize = expectInt(arguments[1]);
 
-            // extract pointers from buffers array argument
+            // extract device buffers from buffers array argument
             Object bufferArg = arguments[2];
             if (!INTEROP.hasArrayElements(bufferArg)) {
                 throw UnsupportedMessageException.create();
             }
             int numBuffers = (int) INTEROP.getArraySize(bufferArg);
-            try (UnsafeHelper.PointerArray pointerArray = UnsafeHelper.createPointerArray(numBuffers)) {
-                if (nfiFunction == null) {
-                    // load function symbol lazily
-                    CompilerDirectives.transferToInterpreterAndInvalidate();
-                    nfiFunction = factory.makeFunction(context.getCUDARuntime(), libraryPath, DEFAULT_LIBRARY_HINT);
-                }
-                for (int i = 0; i < numBuffers; ++i) {
-                    try {
-                        Object buffer = INTEROP.readArrayElement(bufferArg, i);
-                        if (!(buffer instanceof DeviceArray) && !(buffer instanceof GPUPointer)) {
-                            UnsupportedTypeException.create(new Object[]{buffer});
-                        }
-                        pointerArray.setValueAt(i, INTEROP.asPointer(buffer));
-                    } catch (InvalidArrayIndexException e) {
-                        InvalidArrayIndexException.create(i);
-                    }
-                }
-                long stream = 0;
-                long eventConsumed = 0;
-                Object result = INTEROP.execute(nfiFunction, engineHandle, batchSize, pointerArray.getAddress(), stream, eventConsumed);
-                if (!INTEROP.fitsInInt(result)) {
-                    CompilerDirectives.transferToInterpreter();
-                    throw new RuntimeException("result of 'enqueue' is not an int");
+            Object[] buffers = new Object[numBuffers];
+            ComputationArgument.Kind[] bufferKinds = new ComputationArgument.Kind[numBuffers];
+            for (int i = 0; i < numBuffers; ++i) {
+                Object buffer = readElement(bufferArg, i);
+                if (!(buffer instanceof AbstractArray || buffer instanceof GPUPointer) || !INTEROP.isPointer(buffer)) {
+                    throw UnsupportedTypeException.create(new Object[]{buffer}, "expected device array or GPU pointer as buffer of 'enqueue'");
                 }
-                return INTEROP.asInt(result) == 1;
+                buffers[i] = buffer;
+                bufferKinds[i] = arguments.length == 4 ? expectDirection(readElement(arguments[3], i)) : ComputationArgument.Kind.POINTER_INOUT;
+            }
+            if (nfiFunction == null) {
+                // load function symbol lazily
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                nfiFunction = factory.makeFunction(context.getCUDARuntime(), libraryPath, DEFAULT_LIBRARY_HINT);
+            }
+            return new TensorRTEnqueueExecution(context.getGrCUDAExecutionContext(), nfiFunction, engineHandle, batchSize, buffers, bufferKinds).schedule();
+        }
+
+        private Object readElement(Object array, int index) throws UnsupportedMessageException {
+            try {
+                return INTEROP.readArrayElement(array, index);
+            } catch (InvalidArrayIndexException e) {
+                CompilerDirectives.transferToInterpreter();
+                throw new GrCUDAException("missing element " + index + " in argument of 'enqueue'");
+            }
+        }
+
+        private ComputationArgument.Kind expectDirection(Object direction) throws UnsupportedTypeException {
+            switch (expectString(direction, "expected string as direction of buffer of 'enqueue'")) {
+                case "in":
+                    return ComputationArgument.Kind.POINTER_IN;
+                case "out":
+                    return ComputationArgument.Kind.POINTER_OUT;
+                case "inout":
+                    return ComputationArgument.Kind.POINTER_INOUT;
+                default:
+                    throw UnsupportedTypeException.create(new Object[]{direction}, "direction of buffer of 'enqueue' must be 'in', 'out' or 'inout'");
             }
         }
     }